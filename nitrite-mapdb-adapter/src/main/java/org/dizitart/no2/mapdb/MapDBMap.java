@@ -3,10 +3,13 @@ package org.dizitart.no2.mapdb;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.common.NullEntry;
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.NitriteIOException;
+import org.dizitart.no2.store.AbstractNitriteStore;
+import org.dizitart.no2.store.FieldDictionary;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteStore;
 import org.mapdb.BTreeMap;
@@ -14,6 +17,7 @@ import org.mapdb.DBException;
 
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NavigableMap;
 
 import static org.dizitart.no2.common.util.ValidationUtils.notNull;
 
@@ -116,6 +120,7 @@ public class MapDBMap<K, V> implements NitriteMap<K, V> {
             @Override
             public K next() {
                 if (nullEntryIterator.hasNext()) {
+                    nullEntryIterator.next();
                     return null;
                 } else {
                     return keyIterator.next();
@@ -128,6 +133,7 @@ public class MapDBMap<K, V> implements NitriteMap<K, V> {
     public void put(K k, V v) {
         notNull(v, "value cannot be null");
         try {
+            learnFields(v);
             if (k == null) {
                 nullEntryMap.put(NullEntry.getInstance(), v);
             } else {
@@ -155,6 +161,7 @@ public class MapDBMap<K, V> implements NitriteMap<K, V> {
     public V putIfAbsent(K k, V v) {
         notNull(v, "value cannot be null");
 
+        learnFields(v);
         V value;
         if (k == null) {
             value = nullEntryMap.putIfAbsent(NullEntry.getInstance(), v);
@@ -193,6 +200,41 @@ public class MapDBMap<K, V> implements NitriteMap<K, V> {
         };
     }
 
+    @Override
+    public RecordStream<Pair<K, V>> entries(K from, boolean fromInclusive,
+                                           K to, boolean toInclusive, boolean descending) {
+        if (from != null && to != null && bTreeMap.comparator().compare(from, to) > 0) {
+            return RecordStream.empty();
+        }
+
+        return () -> new Iterator<Pair<K, V>>() {
+            final Iterator<Map.Entry<K, V>> entryIterator = subMap().entrySet().iterator();
+
+            @Override
+            public boolean hasNext() {
+                return entryIterator.hasNext();
+            }
+
+            @Override
+            public Pair<K, V> next() {
+                Map.Entry<K, V> entry = entryIterator.next();
+                return new Pair<>(entry.getKey(), entry.getValue());
+            }
+
+            private NavigableMap<K, V> subMap() {
+                NavigableMap<K, V> subMap = bTreeMap;
+                if (from != null && to != null) {
+                    subMap = bTreeMap.subMap(from, fromInclusive, to, toInclusive);
+                } else if (from != null) {
+                    subMap = bTreeMap.tailMap(from, fromInclusive);
+                } else if (to != null) {
+                    subMap = bTreeMap.headMap(to, toInclusive);
+                }
+                return descending ? subMap.descendingMap() : subMap;
+            }
+        };
+    }
+
     @Override
     public K higherKey(K k) {
         if (k == null) {
@@ -240,4 +282,14 @@ public class MapDBMap<K, V> implements NitriteMap<K, V> {
         bTreeMap.close();
         nullEntryMap.close();
     }
+
+    private void learnFields(V value) {
+        // the serializer of the documents refers to the ids of the field names
+        if (value instanceof Document && nitriteStore instanceof AbstractNitriteStore) {
+            FieldDictionary fieldDictionary = ((AbstractNitriteStore<?>) nitriteStore).getFieldDictionary();
+            if (fieldDictionary != null) {
+                fieldDictionary.learn((Document) value);
+            }
+        }
+    }
 }
@@ -1,9 +1,12 @@
 package org.dizitart.no2.mapdb;
 
 import lombok.extern.slf4j.Slf4j;
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.DocumentCodec;
 import org.dizitart.no2.common.NullEntry;
 import org.dizitart.no2.exceptions.InvalidOperationException;
 import org.dizitart.no2.index.BoundingBox;
+import org.dizitart.no2.mapdb.serializers.DocumentSerializer;
 import org.dizitart.no2.mapdb.serializers.Serializers;
 import org.dizitart.no2.store.AbstractNitriteStore;
 import org.dizitart.no2.store.NitriteMap;
@@ -23,6 +26,7 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 public class MapDBStore extends AbstractNitriteStore<MapDBConfig> {
     private DB db;
+    private DocumentSerializer documentSerializer;
     private final Map<String, NitriteMap<?, ?>> nitriteMapRegistry;
 
     public MapDBStore() {
@@ -33,6 +37,8 @@ public class MapDBStore extends AbstractNitriteStore<MapDBConfig> {
     @Override
     public void openOrCreate() {
         this.db = StoreFactory.open(getStoreConfig());
+        openFieldDictionary();
+        this.documentSerializer = new DocumentSerializer(new DocumentCodec(getFieldDictionary()));
         initEventBus();
         alert(StoreEvents.Opened);
     }
@@ -54,6 +60,7 @@ public class MapDBStore extends AbstractNitriteStore<MapDBConfig> {
 
     @Override
     public void commit() {
+        flushMetadata();
         db.commit();
         alert(StoreEvents.Commit);
     }
@@ -77,7 +84,9 @@ public class MapDBStore extends AbstractNitriteStore<MapDBConfig> {
         }
 
         GroupSerializer<?> keySerializer = Serializers.findSerializer(keyType);
-        GroupSerializer<?> valueSerializer = Serializers.findSerializer(valueType);
+        GroupSerializer<?> valueSerializer = valueType == Document.class && documentSerializer != null
+            ? documentSerializer
+            : Serializers.findSerializer(valueType);
 
         DB.TreeMapMaker<Key, Value> treeMapMaker = (DB.TreeMapMaker<Key, Value>) db.treeMap(mapName)
             .counterEnable()
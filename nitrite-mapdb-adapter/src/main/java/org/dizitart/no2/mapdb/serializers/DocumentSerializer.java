@@ -0,0 +1,40 @@
+package org.dizitart.no2.mapdb.serializers;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.DocumentCodec;
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.serializer.GroupSerializerObjectArray;
+
+import java.io.IOException;
+
+/**
+ * A serializer which stores a {@link Document} in the binary form of the
+ * {@link DocumentCodec} of the store, prefixed by its length. It is bound
+ * to the field dictionary of a store, so it is created per store instead
+ * of being registered in {@link Serializers}. A document is read lazily,
+ * its fields are decoded when they are used.
+ *
+ * @author Anindya Chatterjee
+ */
+public class DocumentSerializer extends GroupSerializerObjectArray<Document> {
+    private final DocumentCodec codec;
+
+    public DocumentSerializer(DocumentCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public void serialize(DataOutput2 out, Document value) throws IOException {
+        byte[] bytes = codec.encode(value);
+        out.packInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public Document deserialize(DataInput2 input, int available) throws IOException {
+        byte[] bytes = new byte[input.unpackInt()];
+        input.readFully(bytes);
+        return codec.decodeLazily(bytes);
+    }
+}
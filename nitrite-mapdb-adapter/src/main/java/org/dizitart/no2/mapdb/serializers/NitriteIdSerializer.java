@@ -0,0 +1,48 @@
+package org.dizitart.no2.mapdb.serializers;
+
+import org.dizitart.no2.collection.NitriteId;
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.serializer.SerializerEightByte;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A serializer which stores a {@link NitriteId} as a fixed width 8 byte
+ * long. The keys of a btree node are kept as a primitive long array.
+ *
+ * @author Anindya Chatterjee
+ */
+public class NitriteIdSerializer extends SerializerEightByte<NitriteId> {
+
+    @Override
+    public void serialize(DataOutput2 out, NitriteId value) throws IOException {
+        out.writeLong(value.getLongValue());
+    }
+
+    @Override
+    public NitriteId deserialize(DataInput2 input, int available) throws IOException {
+        return NitriteId.createId(input.readLong());
+    }
+
+    @Override
+    protected NitriteId unpack(long value) {
+        return NitriteId.createId(value);
+    }
+
+    @Override
+    protected long pack(NitriteId value) {
+        return value.getLongValue();
+    }
+
+    @Override
+    public int compare(NitriteId first, NitriteId second) {
+        return Long.compare(first.getLongValue(), second.getLongValue());
+    }
+
+    @Override
+    public int valueArraySearch(Object keys, NitriteId key) {
+        return Arrays.binarySearch((long[]) keys, key.getLongValue());
+    }
+}
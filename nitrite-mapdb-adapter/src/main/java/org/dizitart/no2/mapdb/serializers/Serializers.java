@@ -1,5 +1,6 @@
 package org.dizitart.no2.mapdb.serializers;
 
+import org.dizitart.no2.collection.NitriteId;
 import org.mapdb.serializer.GroupSerializer;
 
 import java.util.HashMap;
@@ -15,6 +16,7 @@ public class Serializers {
 
     static {
         serializerRegistry = new HashMap<>();
+        registerSerializer(NitriteId.class, new NitriteIdSerializer());
     }
 
     public static void registerSerializer(Class<?> type, GroupSerializer<?> serializer) {
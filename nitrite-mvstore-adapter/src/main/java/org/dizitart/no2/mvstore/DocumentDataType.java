@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2019-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.mvstore;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.DocumentCodec;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.tuples.Pair;
+import org.h2.mvstore.DataUtils;
+import org.h2.mvstore.WriteBuffer;
+import org.h2.mvstore.type.DataType;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * A {@link DataType} which stores a {@link Document} in the binary form
+ * of the {@link DocumentCodec}, prefixed by the marker byte of the codec
+ * and its length. Any other value is left to the {@link PostingListDataType},
+ * which leaves anything but a posting list to the default object data type
+ * of MVStore, so a map opened without its value type reads every record,
+ * and so does a map of documents written by an older version.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+class DocumentDataType implements DataType {
+    // the heap of a lazily decoded document besides its bytes
+    private static final int LAZY_DOCUMENT_MEMORY = 96;
+
+    private final DocumentCodec codec;
+    private final PostingListDataType fallback;
+
+    DocumentDataType(DocumentCodec codec) {
+        this.codec = codec;
+        this.fallback = PostingListDataType.INSTANCE;
+    }
+
+    @Override
+    public int compare(Object a, Object b) {
+        return fallback.compare(a, b);
+    }
+
+    @Override
+    public int getMemory(Object obj) {
+        if (obj instanceof Document) {
+            return estimate(obj);
+        }
+        return fallback.getMemory(obj);
+    }
+
+    @Override
+    public void write(WriteBuffer buff, Object obj) {
+        if (obj instanceof Document) {
+            byte[] bytes = codec.encode((Document) obj);
+            buff.put(DocumentCodec.MARKER);
+            buff.putVarInt(bytes.length);
+            buff.put(bytes);
+        } else {
+            fallback.write(buff, obj);
+        }
+    }
+
+    @Override
+    public void write(WriteBuffer buff, Object[] obj, int len, boolean key) {
+        for (int i = 0; i < len; i++) {
+            write(buff, obj[i]);
+        }
+    }
+
+    @Override
+    public Object read(ByteBuffer buff) {
+        if (buff.get(buff.position()) != DocumentCodec.MARKER) {
+            return fallback.readRecord(buff);
+        }
+
+        buff.get();
+        int length = DataUtils.readVarInt(buff);
+        byte[] bytes = new byte[length];
+        buff.get(bytes);
+        // the fields are decoded when the document is used, a page read for
+        // a filter over a few fields does not decode every document of it,
+        // and the page cache shares the document with all the readers
+        return codec.decodeLazily(bytes, true);
+    }
+
+    @Override
+    public void read(ByteBuffer buff, Object[] obj, int len, boolean key) {
+        for (int i = 0; i < len; i++) {
+            obj[i] = read(buff);
+        }
+    }
+
+    // an estimate of the heap used by the value on a 64 bit jvm with
+    // compressed references, the page cache of MVStore is sized by it
+    private static int estimate(Object value) {
+        if (value == null || value instanceof Boolean) {
+            return 0;
+        } else if (value instanceof String) {
+            // the string and its char array
+            return 24 + 16 + 2 * ((String) value).length();
+        } else if (value instanceof Integer || value instanceof Short
+            || value instanceof Byte || value instanceof Character || value instanceof Float) {
+            return 16;
+        } else if (value instanceof Long || value instanceof Double
+            || value instanceof Date || value instanceof NitriteId) {
+            return 24;
+        } else if (value instanceof Document) {
+            Document document = (Document) value;
+            int encodedLength = DocumentCodec.getEncodedLength(document);
+            if (encodedLength >= 0) {
+                // a document not decoded yet holds only its bytes
+                return LAZY_DOCUMENT_MEMORY + encodedLength;
+            }
+
+            // the map, its table and an entry for each field, whose name
+            // is shared with the field dictionary
+            int memory = 56 + 16 + 4 * tableSize(document.size());
+            for (Pair<String, Object> pair : document) {
+                memory += 40 + estimate(pair.getSecond());
+            }
+            return memory;
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            int memory = 24 + 16 + 4 * collection.size();
+            for (Object item : collection) {
+                memory += estimate(item);
+            }
+            return memory;
+        } else if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+        return 64;
+    }
+
+    private static int tableSize(int size) {
+        int capacity = 16;
+        while (capacity * 3 / 4 < size) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -86,4 +86,9 @@ public class MVStoreConfig implements StoreConfig {
     public void addStoreEventListener(StoreEventListener listener) {
         eventListeners.add(listener);
     }
+
+    @Override
+    public boolean isAutoCommit() {
+        return autoCommit;
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2019-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.mvstore;
+
+import org.dizitart.no2.collection.NitriteId;
+import org.h2.mvstore.WriteBuffer;
+import org.h2.mvstore.type.DataType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link DataType} which stores a {@link NitriteId} as a fixed width
+ * 8 byte long, instead of the java serialized form written by the default
+ * object data type of MVStore.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+public class NitriteIdDataType implements DataType {
+    public static final NitriteIdDataType INSTANCE = new NitriteIdDataType();
+
+    private NitriteIdDataType() {
+    }
+
+    @Override
+    public int compare(Object a, Object b) {
+        return ((NitriteId) a).compareTo((NitriteId) b);
+    }
+
+    @Override
+    public int getMemory(Object obj) {
+        return 24;
+    }
+
+    @Override
+    public void write(WriteBuffer buff, Object obj) {
+        buff.putLong(((NitriteId) obj).getLongValue());
+    }
+
+    @Override
+    public void write(WriteBuffer buff, Object[] obj, int len, boolean key) {
+        for (int i = 0; i < len; i++) {
+            write(buff, obj[i]);
+        }
+    }
+
+    @Override
+    public Object read(ByteBuffer buff) {
+        return NitriteId.createId(buff.getLong());
+    }
+
+    @Override
+    public void read(ByteBuffer buff, Object[] obj, int len, boolean key) {
+        for (int i = 0; i < len; i++) {
+            obj[i] = read(buff);
+        }
+    }
+}
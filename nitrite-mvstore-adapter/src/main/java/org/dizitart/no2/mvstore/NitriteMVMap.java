@@ -16,15 +16,20 @@
 
 package org.dizitart.no2.mvstore;
 
+import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.store.FieldDictionary;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteStore;
+import org.h2.mvstore.Cursor;
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
+import org.h2.mvstore.type.DataType;
 
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import static org.dizitart.no2.common.util.ValidationUtils.notNull;
 
@@ -34,10 +39,10 @@ import static org.dizitart.no2.common.util.ValidationUtils.notNull;
  */
 class NitriteMVMap<Key, Value> implements NitriteMap<Key, Value> {
     private final MVMap<Key, Value> mvMap;
-    private final NitriteStore<?> nitriteStore;
+    private final NitriteMVStore nitriteStore;
     private final MVStore mvStore;
 
-    NitriteMVMap(MVMap<Key, Value> mvMap, NitriteStore<?> nitriteStore) {
+    NitriteMVMap(MVMap<Key, Value> mvMap, NitriteMVStore nitriteStore) {
         this.mvMap = mvMap;
         this.nitriteStore = nitriteStore;
         this.mvStore = mvMap.getStore();
@@ -99,6 +104,7 @@ class NitriteMVMap<Key, Value> implements NitriteMap<Key, Value> {
     @Override
     public void put(Key key, Value value) {
         notNull(value, "value cannot be null");
+        learnFields(value);
         MVStore.TxCounter txCounter = mvStore.registerVersionUsage();
         try {
             mvMap.put(key, value);
@@ -116,6 +122,7 @@ class NitriteMVMap<Key, Value> implements NitriteMap<Key, Value> {
     @Override
     public Value putIfAbsent(Key key, Value value) {
         notNull(value, "value cannot be null");
+        learnFields(value);
         MVStore.TxCounter txCounter = mvStore.registerVersionUsage();
         try {
             Value v = mvMap.putIfAbsent(key, value);
@@ -144,6 +151,76 @@ class NitriteMVMap<Key, Value> implements NitriteMap<Key, Value> {
         };
     }
 
+    @Override
+    public RecordStream<Pair<Key, Value>> entries(Key from, boolean fromInclusive,
+                                                  Key to, boolean toInclusive,
+                                                  boolean descending) {
+        return () -> new Iterator<Pair<Key, Value>>() {
+            final DataType keyType = mvMap.getKeyType();
+            // ascending scan reads the b-tree pages with a cursor bounded at both ends,
+            // mvstore has no reverse cursor so descending scan navigates key by key
+            final Cursor<Key, Value> cursor = descending ? null
+                : new Cursor<>(mvMap.getRootPage(), from, to);
+            Key currentKey;
+            boolean started = false;
+            Pair<Key, Value> nextPair;
+
+            @Override
+            public boolean hasNext() {
+                return nextPair != null || setNextPair();
+            }
+
+            @Override
+            public Pair<Key, Value> next() {
+                if (nextPair == null && !setNextPair()) {
+                    throw new NoSuchElementException();
+                }
+                Pair<Key, Value> pair = nextPair;
+                nextPair = null;
+                return pair;
+            }
+
+            private boolean setNextPair() {
+                if (descending) {
+                    while (true) {
+                        currentKey = started ? mvMap.lowerKey(currentKey) : lastKey();
+                        started = true;
+                        if (currentKey == null || (from != null && isBefore(currentKey, from, fromInclusive))) {
+                            return false;
+                        }
+
+                        Value value = mvMap.get(currentKey);
+                        if (value != null) {
+                            nextPair = new Pair<>(currentKey, value);
+                            return true;
+                        }
+                    }
+                }
+
+                while (cursor.hasNext()) {
+                    Key key = cursor.next();
+                    if (key == null) continue;
+                    if (!fromInclusive && from != null && keyType.compare(key, from) == 0) continue;
+                    if (!toInclusive && to != null && keyType.compare(key, to) == 0) return false;
+
+                    nextPair = new Pair<>(key, cursor.getValue());
+                    return true;
+                }
+                return false;
+            }
+
+            private Key lastKey() {
+                if (to == null) return mvMap.lastKey();
+                return toInclusive ? mvMap.floorKey(to) : mvMap.lowerKey(to);
+            }
+
+            private boolean isBefore(Key key, Key bound, boolean inclusive) {
+                int result = keyType.compare(key, bound);
+                return result < 0 || (result == 0 && !inclusive);
+            }
+        };
+    }
+
     @Override
     public Key higherKey(Key key) {
         return mvMap.higherKey(key);
@@ -179,8 +256,26 @@ class NitriteMVMap<Key, Value> implements NitriteMap<Key, Value> {
         }
     }
 
+    /**
+     * Opens a read-only copy of the map at the current version. As the
+     * pages of a map are never modified in place, the copy does not
+     * see the later writes of the map.
+     */
+    NitriteMVMap<Key, Value> openCurrentVersion() {
+        return new NitriteMVMap<>(mvMap.openVersion(mvStore.getCurrentVersion()), nitriteStore);
+    }
+
     @Override
     public void close() {
         // nothing to close
     }
+
+    private void learnFields(Value value) {
+        // MVStore writes the value later, at the time of the commit, but the
+        // ids of its field names must be assigned in the same version
+        FieldDictionary fieldDictionary = nitriteStore.getFieldDictionary();
+        if (value instanceof Document && fieldDictionary != null) {
+            fieldDictionary.learn((Document) value);
+        }
+    }
 }
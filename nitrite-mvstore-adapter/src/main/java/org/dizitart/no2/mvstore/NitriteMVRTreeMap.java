@@ -42,8 +42,8 @@ class NitriteMVRTreeMap<Key extends BoundingBox, Value>
 
     @Override
     public void add(Key key, NitriteId nitriteId) {
-        if (nitriteId != null && nitriteId.getIdValue() != null) {
-            SpatialKey spatialKey = getKey(key, Long.parseLong(nitriteId.getIdValue()));
+        if (nitriteId != null) {
+            SpatialKey spatialKey = getKey(key, nitriteId.getLongValue());
             MVStore.TxCounter txCounter = mvStore.registerVersionUsage();
             try {
                 mvMap.add(spatialKey, key);
@@ -55,8 +55,8 @@ class NitriteMVRTreeMap<Key extends BoundingBox, Value>
 
     @Override
     public void remove(Key key, NitriteId nitriteId) {
-        if (nitriteId != null && nitriteId.getIdValue() != null) {
-            SpatialKey spatialKey = getKey(key, Long.parseLong(nitriteId.getIdValue()));
+        if (nitriteId != null) {
+            SpatialKey spatialKey = getKey(key, nitriteId.getLongValue());
             MVStore.TxCounter txCounter = mvStore.registerVersionUsage();
             try {
                 mvMap.remove(spatialKey);
@@ -100,7 +100,7 @@ class NitriteMVRTreeMap<Key extends BoundingBox, Value>
             @Override
             public NitriteId next() {
                 SpatialKey next = treeCursor.next();
-                return NitriteId.createId(Long.toString(next.getId()));
+                return NitriteId.createId(next.getId());
             }
         });
     }
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dizitart.no2.mvstore;
+
+import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.store.StoreSnapshot;
+import org.dizitart.no2.store.memory.InMemoryMap;
+import org.h2.mvstore.MVStore;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A snapshot of some maps of a {@link NitriteMVStore}. It keeps a
+ * read-only copy of the root page of every map, and registers the
+ * usage of the current version of the store, so that the chunks the
+ * pages are read from are not reused until the snapshot is closed.
+ * A map which does not exist when the snapshot is opened stays empty
+ * in the snapshot, even if it is created afterwards.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+class NitriteMVSnapshot implements StoreSnapshot {
+    private final NitriteMVStore nitriteStore;
+    private final MVStore mvStore;
+    private final MVStore.TxCounter txCounter;
+    private final Map<String, NitriteMap<?, ?>> snapshotMaps;
+    private final Set<String> absentMaps;
+
+    NitriteMVSnapshot(NitriteMVStore nitriteStore, MVStore mvStore, Collection<String> mapNames) {
+        this.nitriteStore = nitriteStore;
+        this.mvStore = mvStore;
+        this.txCounter = mvStore.registerVersionUsage();
+        this.snapshotMaps = new ConcurrentHashMap<>();
+        this.absentMaps = new HashSet<>();
+
+        for (String mapName : mapNames) {
+            if (mvStore.hasMap(mapName)) {
+                snapshotMaps.put(mapName, capture(mapName, null, null));
+            } else {
+                absentMaps.add(mapName);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <Key, Value> NitriteMap<Key, Value> openMap(String mapName, Class<?> keyType, Class<?> valueType) {
+        return (NitriteMap<Key, Value>) snapshotMaps.computeIfAbsent(mapName,
+            name -> absentMaps.contains(name)
+                ? new InMemoryMap<>(name, nitriteStore)
+                : capture(name, keyType, valueType));
+    }
+
+    @Override
+    public void close() {
+        snapshotMaps.clear();
+        mvStore.deregisterVersionUsage(txCounter);
+    }
+
+    private NitriteMVMap<?, ?> capture(String mapName, Class<?> keyType, Class<?> valueType) {
+        // the open maps of the store are reused with their key type
+        NitriteMVMap<?, ?> nitriteMVMap = (NitriteMVMap<?, ?>) nitriteStore.openMap(mapName, keyType, valueType);
+        return nitriteMVMap.openCurrentVersion();
+    }
+}
@@ -18,16 +18,21 @@ package org.dizitart.no2.mvstore;
 
 
 import lombok.extern.slf4j.Slf4j;
+import org.dizitart.no2.collection.DocumentCodec;
+import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.index.BoundingBox;
+import org.dizitart.no2.index.PostingList;
 import org.dizitart.no2.store.AbstractNitriteStore;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteRTree;
+import org.dizitart.no2.store.StoreSnapshot;
 import org.dizitart.no2.store.events.StoreEventListener;
 import org.dizitart.no2.store.events.StoreEvents;
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
 import org.h2.mvstore.rtree.MVRTreeMap;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -38,6 +43,7 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 public class NitriteMVStore extends AbstractNitriteStore<MVStoreConfig> {
     private MVStore mvStore;
+    private DocumentDataType documentDataType;
     private final Map<String, NitriteMap<?, ?>> nitriteMapRegistry;
 
     public NitriteMVStore() {
@@ -48,6 +54,8 @@ public class NitriteMVStore extends AbstractNitriteStore<MVStoreConfig> {
     @Override
     public void openOrCreate() {
         this.mvStore = MVStoreUtils.openOrCreate(getStoreConfig());
+        openFieldDictionary();
+        this.documentDataType = new DocumentDataType(new DocumentCodec(getFieldDictionary()));
         initEventBus();
         alert(StoreEvents.Opened);
     }
@@ -69,10 +77,17 @@ public class NitriteMVStore extends AbstractNitriteStore<MVStoreConfig> {
 
     @Override
     public void commit() {
+        flushMetadata();
         mvStore.commit();
         alert(StoreEvents.Commit);
     }
 
+    @Override
+    protected long getMetadataFlushInterval() {
+        // the auto commit of mvstore does not go through commit()
+        return mvStore == null ? 0 : mvStore.getAutoCommitDelay();
+    }
+
     @Override
     public void close() {
         if (getStoreConfig().autoCompact()) {
@@ -90,14 +105,32 @@ public class NitriteMVStore extends AbstractNitriteStore<MVStoreConfig> {
     @Override
     @SuppressWarnings("unchecked")
     public <Key, Value> NitriteMap<Key, Value> openMap(String mapName, Class<?> keyType, Class<?> valueType) {
-        if (nitriteMapRegistry.containsKey(mapName)) {
-            return (NitriteMVMap<Key, Value>) nitriteMapRegistry.get(mapName);
+        NitriteMap<?, ?> nitriteMap = nitriteMapRegistry.get(mapName);
+        if (nitriteMap != null) {
+            return (NitriteMVMap<Key, Value>) nitriteMap;
         }
 
-        MVMap<Key, Value> mvMap = mvStore.openMap(mapName);
-        NitriteMVMap<Key, Value> nitriteMVMap = new NitriteMVMap<>(mvMap, this);
-        nitriteMapRegistry.put(mapName, nitriteMVMap);
-        return nitriteMVMap;
+        // concurrent writers must not open two maps of the same name
+        return (NitriteMVMap<Key, Value>) nitriteMapRegistry.computeIfAbsent(mapName, name -> {
+            MVMap.Builder<Key, Value> builder = new MVMap.Builder<>();
+            if (keyType == NitriteId.class) {
+                builder.keyType(NitriteIdDataType.INSTANCE);
+            }
+            if (valueType == PostingList.class) {
+                builder.valueType(PostingListDataType.INSTANCE);
+            } else if (documentDataType != null) {
+                // reads and writes any other value as the default data type,
+                // so a map opened without its value type reads the documents
+                builder.valueType(documentDataType);
+            }
+            MVMap<Key, Value> mvMap = mvStore.openMap(name, builder);
+            return new NitriteMVMap<>(mvMap, this);
+        });
+    }
+
+    @Override
+    public StoreSnapshot openSnapshot(Collection<String> mapNames) {
+        return new NitriteMVSnapshot(this, mvStore, mapNames);
     }
 
     @Override
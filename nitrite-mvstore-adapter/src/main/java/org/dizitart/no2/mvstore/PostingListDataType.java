@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2019-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.mvstore;
+
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.index.PostingList;
+import org.h2.mvstore.DataUtils;
+import org.h2.mvstore.WriteBuffer;
+import org.h2.mvstore.type.DataType;
+import org.h2.mvstore.type.ObjectDataType;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+
+/**
+ * A {@link DataType} which stores a {@link PostingList} of an index in
+ * its own block encoding, prefixed by a marker byte and its length. A
+ * record of any other form is read by the default object data type of
+ * MVStore. An older version stored the ids of an index key as a java
+ * serialized sorted set of ids, such a set is read as a posting list.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+class PostingListDataType implements DataType {
+    public static final PostingListDataType INSTANCE = new PostingListDataType();
+
+    /**
+     * The first byte of a posting list, not used by the object data type.
+     */
+    static final byte MARKER = (byte) 0xD1;
+
+    private final ObjectDataType fallback;
+
+    private PostingListDataType() {
+        this.fallback = new ObjectDataType();
+    }
+
+    @Override
+    public int compare(Object a, Object b) {
+        return fallback.compare(a, b);
+    }
+
+    @Override
+    public int getMemory(Object obj) {
+        if (obj instanceof PostingList) {
+            return ((PostingList) obj).getMemory();
+        }
+        return fallback.getMemory(obj);
+    }
+
+    @Override
+    public void write(WriteBuffer buff, Object obj) {
+        if (obj instanceof PostingList) {
+            byte[] bytes = ((PostingList) obj).toBytes();
+            buff.put(MARKER);
+            buff.putVarInt(bytes.length);
+            buff.put(bytes);
+        } else {
+            fallback.write(buff, obj);
+        }
+    }
+
+    @Override
+    public void write(WriteBuffer buff, Object[] obj, int len, boolean key) {
+        for (int i = 0; i < len; i++) {
+            write(buff, obj[i]);
+        }
+    }
+
+    @Override
+    public Object read(ByteBuffer buff) {
+        if (buff.get(buff.position()) != MARKER) {
+            return upgrade(fallback.read(buff));
+        }
+        return readRecord(buff);
+    }
+
+    /**
+     * Reads a posting list, or any other record as it was written, for
+     * the data types which fall back to this one for maps of other values.
+     */
+    Object readRecord(ByteBuffer buff) {
+        if (buff.get(buff.position()) != MARKER) {
+            return fallback.read(buff);
+        }
+
+        buff.get();
+        byte[] bytes = new byte[DataUtils.readVarInt(buff)];
+        buff.get(bytes);
+        return PostingList.fromBytes(bytes);
+    }
+
+    @Override
+    public void read(ByteBuffer buff, Object[] obj, int len, boolean key) {
+        for (int i = 0; i < len; i++) {
+            obj[i] = read(buff);
+        }
+    }
+
+    // an index map of an older version holds sorted sets of ids
+    private static Object upgrade(Object value) {
+        if (!(value instanceof SortedSet)) return value;
+
+        List<NitriteId> ids = new ArrayList<>();
+        for (Object item : (SortedSet<?>) value) {
+            if (!(item instanceof NitriteId)) return value;
+            ids.add((NitriteId) item);
+        }
+        return PostingList.of(ids);
+    }
+}
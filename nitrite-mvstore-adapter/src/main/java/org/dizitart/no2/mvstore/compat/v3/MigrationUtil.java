@@ -23,6 +23,8 @@ import org.dizitart.no2.exceptions.NitriteIOException;
 import org.dizitart.no2.exceptions.ValidationException;
 import org.dizitart.no2.index.IndexEntry;
 import org.dizitart.no2.index.IndexMeta;
+import org.dizitart.no2.index.PostingList;
+import org.dizitart.no2.mvstore.NitriteIdDataType;
 import org.dizitart.no2.store.UserCredential;
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
@@ -55,7 +57,10 @@ public class MigrationUtil {
             Set<String> mapNames = oldStore.getMapNames();
             for (String mapName : mapNames) {
                 MVMap oldMap = oldStore.openMap(mapName, new MVMapBuilder<>());
-                MVMap newMap = newStore.openMap(mapName);
+                // collections must be opened with the same key type as NitriteMVStore opens them
+                MVMap newMap = oldMap.firstKey() instanceof Compat.NitriteId
+                    ? newStore.openMap(mapName, new MVMap.Builder<>().keyType(NitriteIdDataType.INSTANCE))
+                    : newStore.openMap(mapName);
                 copyData(oldMap, newMap);
             }
 
@@ -137,11 +142,22 @@ public class MigrationUtil {
         return collection;
     }
 
-    private static ConcurrentSkipListSet<?> skipList(ConcurrentSkipListSet<?> value) {
+    private static Object skipList(ConcurrentSkipListSet<?> value) {
         ConcurrentSkipListSet<Object> newList = new ConcurrentSkipListSet<>();
+        boolean nitriteIds = true;
         for (Object object : value) {
             Object newValue = migrateValue(object);
             newList.add(newValue);
+            nitriteIds = nitriteIds && newValue instanceof NitriteId;
+        }
+
+        if (nitriteIds) {
+            // ids of an index key are now stored as a posting list
+            List<NitriteId> ids = new ArrayList<>();
+            for (Object object : newList) {
+                ids.add((NitriteId) object);
+            }
+            return PostingList.of(ids);
         }
         return newList;
     }
@@ -191,7 +207,7 @@ public class MigrationUtil {
     }
 
     private static NitriteId nitriteId(Compat.NitriteId value) {
-        return NitriteId.createId(Long.toString(value.getIdValue()));
+        return NitriteId.createId(value.getIdValue());
     }
 
     private static UserCredential credential(Compat.UserCredential value) {
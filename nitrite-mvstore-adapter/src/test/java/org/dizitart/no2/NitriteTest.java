@@ -123,6 +123,20 @@ public class NitriteTest {
         Files.delete(get(fileName));
     }
 
+    @Test
+    public void testDropCollectionAfterReopen() {
+        db.getCollection("other").insert(createDocument("a", 1));
+        db.close();
+
+        // the catalog is read back from the file
+        db = TestUtil.createDb(fileName, "test-user", "test-password");
+        db.getCollection("other").drop();
+        assertFalse(db.hasCollection("other"));
+
+        collection = db.getCollection("test");
+        assertEquals(collection.size(), 3);
+    }
+
     @Test
     public void testListCollectionNames() {
         Set<String> collectionNames = db.listCollectionNames();
@@ -20,6 +20,7 @@ import lombok.Data;
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.DocumentCursor;
 import org.dizitart.no2.collection.NitriteCollection;
+import org.dizitart.no2.collection.meta.Attributes;
 import org.dizitart.no2.filters.Filter;
 import org.dizitart.no2.index.IndexOptions;
 import org.dizitart.no2.index.IndexType;
@@ -29,6 +30,7 @@ import org.dizitart.no2.mvstore.MVStoreModule;
 import org.dizitart.no2.repository.ObjectRepository;
 import org.dizitart.no2.repository.annotations.Index;
 import org.dizitart.no2.repository.annotations.Indices;
+import org.dizitart.no2.store.NitriteMap;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -45,7 +47,9 @@ import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.dizitart.no2.DbTestOperations.getRandomTempDbFile;
+import static org.dizitart.no2.common.Constants.META_MAP_NAME;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 
 /**
@@ -183,6 +187,57 @@ public class StressTest {
         System.out.println("Time take to remove 10000 non-indexed items - " + diff + "ms");
     }
 
+    @Test
+    public void testBulkInsertMetadataWrites() {
+        // with auto commit the metadata is also written once per commit delay
+        db.close();
+        MVStoreModule storeModule = MVStoreModule.withConfig()
+            .filePath(fileName)
+            .compress(true)
+            .autoCommit(false)
+            .build();
+        db = Nitrite.builder()
+            .loadModule(storeModule)
+            .fieldSeparator(".")
+            .openOrCreate();
+        collection = db.getCollection("test");
+
+        collection.createIndex("firstName", IndexOptions.indexOptions(IndexType.NonUnique));
+        collection.createIndex("age", IndexOptions.indexOptions(IndexType.NonUnique));
+        db.commit();
+
+        NitriteMap<String, Attributes> metaMap = db.getStore().openMap(META_MAP_NAME,
+            String.class, Attributes.class);
+        String lastModified = lastModifiedTime(metaMap, "test");
+
+        List<PerfTest> items = getItems(PerfTest.class);
+        NitriteMapper mapper = db.getConfig().nitriteMapper();
+        long start = System.currentTimeMillis();
+        for (PerfTest item : items) {
+            collection.insert(item.write(mapper));
+        }
+        long diff = System.currentTimeMillis() - start;
+        System.out.println("Time take to insert 10000 documents in 3 maps - " + diff + "ms");
+
+        // 30000 map writes so far, none of them wrote to the meta map
+        assertEquals(lastModified, lastModifiedTime(metaMap, "test"));
+
+        // a read sees the unsaved time, but does not write it
+        assertNotEquals(lastModified, collection.getAttributes().get(Attributes.LAST_MODIFIED_TIME));
+        assertEquals(lastModified, lastModifiedTime(metaMap, "test"));
+
+        start = System.currentTimeMillis();
+        db.commit();
+        diff = System.currentTimeMillis() - start;
+        System.out.println("Time take to commit the last modified time of 3 maps - " + diff + "ms");
+        assertNotEquals(lastModified, lastModifiedTime(metaMap, "test"));
+    }
+
+    private String lastModifiedTime(NitriteMap<String, Attributes> metaMap, String mapName) {
+        Attributes attributes = metaMap.get(mapName);
+        return attributes == null ? null : attributes.get(Attributes.LAST_MODIFIED_TIME);
+    }
+
     private <T> List<T> getItems(Class<T> type) {
         PodamFactory generator = new PodamFactoryImpl();
         List<T> items = new ArrayList<>();
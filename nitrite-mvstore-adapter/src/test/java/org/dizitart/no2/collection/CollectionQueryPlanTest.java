@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.collection;
+
+import org.dizitart.no2.filters.Filter;
+import org.dizitart.no2.index.IndexType;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.dizitart.no2.collection.Document.createDocument;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.dizitart.no2.index.IndexOptions.indexOptions;
+import static org.junit.Assert.*;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class CollectionQueryPlanTest extends BaseCollectionTest {
+
+    @Before
+    public void insertDocuments() {
+        for (int i = 0; i < 100; i++) {
+            collection.insert(createDocument("name", "name" + i)
+                .put("group", "group" + (i % 10))
+                .put("city", i % 2 == 0 ? "Kolkata" : "Mumbai")
+                .put("age", i)
+                .put("body", i % 25 == 0 ? "quick brown fox" : "lazy dog"));
+        }
+    }
+
+    @Test
+    public void testCollectionScan() {
+        DocumentCursor cursor = collection.find();
+        QueryPlan queryPlan = cursor.explain();
+        assertEquals(ScanType.CollectionScan, queryPlan.getScanType());
+        assertNull(queryPlan.getResidualFilter());
+        assertEquals(100, queryPlan.getEstimatedRows());
+
+        cursor = collection.find(where("age").gt(89));
+        queryPlan = cursor.explain();
+        assertEquals(ScanType.CollectionScan, queryPlan.getScanType());
+        assertNotNull(queryPlan.getResidualFilter());
+        assertEquals(10, cursor.size());
+    }
+
+    @Test
+    public void testIndexScan() {
+        collection.createIndex("name");
+
+        DocumentCursor cursor = collection.find(where("name").eq("name10"));
+        QueryPlan queryPlan = cursor.explain();
+        assertEquals(ScanType.IndexScan, queryPlan.getScanType());
+        assertEquals("name", queryPlan.getIndexEntry().getField());
+        assertEquals(1, queryPlan.getIndexFilters().size());
+        assertNull(queryPlan.getResidualFilter());
+        assertEquals(1, queryPlan.getEstimatedRows());
+        assertEquals(1, cursor.size());
+    }
+
+    @Test
+    public void testIndexScanWithResidualFilter() {
+        collection.createIndex(indexOptions(IndexType.NonUnique), "group");
+
+        DocumentCursor cursor = collection.find(where("group").eq("group1")
+            .and(where("age").gt(50)));
+        QueryPlan queryPlan = cursor.explain();
+        assertEquals(ScanType.IndexScan, queryPlan.getScanType());
+        assertEquals("group", queryPlan.getIndexEntry().getField());
+        assertNotNull(queryPlan.getResidualFilter());
+        assertEquals(10, queryPlan.getEstimatedRows());
+        assertEquals(5, cursor.size());
+    }
+
+    @Test
+    public void testIndexIntersection() {
+        collection.createIndex(indexOptions(IndexType.NonUnique), "group");
+        collection.createIndex(indexOptions(IndexType.NonUnique), "age");
+
+        DocumentCursor cursor = collection.find(where("age").lt(50)
+            .and(where("city").eq("Mumbai"))
+            .and(where("group").eq("group3")));
+        QueryPlan queryPlan = cursor.explain();
+        assertEquals(ScanType.IndexIntersection, queryPlan.getScanType());
+        assertEquals(2, queryPlan.getSubPlans().size());
+        assertEquals("group", queryPlan.getSubPlans().get(0).getIndexEntry().getField());
+        assertEquals("age", queryPlan.getSubPlans().get(1).getIndexEntry().getField());
+        assertNotNull(queryPlan.getResidualFilter());
+
+        assertEquals(5, cursor.size());
+        for (Document document : cursor) {
+            assertEquals("group3", document.get("group"));
+            assertTrue(document.get("age", Integer.class) < 50);
+        }
+    }
+
+    @Test
+    public void testIndexUnion() {
+        collection.createIndex("name");
+        collection.createIndex(indexOptions(IndexType.NonUnique), "group");
+
+        DocumentCursor cursor = collection.find(where("name").eq("name1")
+            .or(where("group").eq("group2"))
+            .or(where("name").eq("name12")));
+        QueryPlan queryPlan = cursor.explain();
+        assertEquals(ScanType.IndexUnion, queryPlan.getScanType());
+        assertEquals(3, queryPlan.getSubPlans().size());
+        assertEquals(11, cursor.size());
+    }
+
+    @Test
+    public void testUnionWithNonIndexedBranch() {
+        collection.createIndex("name");
+
+        DocumentCursor cursor = collection.find(where("name").eq("name1")
+            .or(where("group").eq("group2")));
+        assertEquals(ScanType.CollectionScan, cursor.explain().getScanType());
+        assertEquals(11, cursor.size());
+    }
+
+    @Test
+    public void testNonSelectiveIndex() {
+        collection.createIndex(indexOptions(IndexType.NonUnique), "group");
+
+        DocumentCursor cursor = collection.find(where("group").in("group0", "group1", "group2",
+            "group3", "group4", "group5", "group6", "group7", "group8", "group9"));
+        assertEquals(ScanType.CollectionScan, cursor.explain().getScanType());
+        assertEquals(100, cursor.size());
+
+        cursor = collection.find(where("group").in("group0", "group1"));
+        assertEquals(ScanType.IndexScan, cursor.explain().getScanType());
+        assertEquals(20, cursor.explain().getEstimatedRows());
+        assertEquals(20, cursor.size());
+    }
+
+    @Test
+    public void testIdScan() {
+        Document document = collection.find(where("name").eq("name5")).firstOrNull();
+        NitriteId nitriteId = document.getId();
+
+        DocumentCursor cursor = collection.find(Filter.byId(nitriteId));
+        QueryPlan queryPlan = cursor.explain();
+        assertEquals(ScanType.IdScan, queryPlan.getScanType());
+        assertEquals(1, queryPlan.getEstimatedRows());
+        assertEquals(1, cursor.size());
+        assertEquals("name5", cursor.firstOrNull().get("name"));
+
+        cursor = collection.find(where("_id").eq("invalid"));
+        assertEquals(ScanType.CollectionScan, cursor.explain().getScanType());
+        assertEquals(0, cursor.size());
+    }
+
+    @Test
+    public void testCompoundIndexScan() {
+        collection.createIndex(indexOptions(IndexType.NonUnique), "group", "age");
+
+        DocumentCursor cursor = collection.find(where("group").eq("group4")
+            .and(where("age").gte(50)));
+        QueryPlan queryPlan = cursor.explain();
+        assertEquals(ScanType.IndexScan, queryPlan.getScanType());
+        assertEquals("group|age", queryPlan.getIndexEntry().getField());
+        assertEquals(2, queryPlan.getIndexFilters().size());
+        assertEquals(5, cursor.size());
+    }
+
+    @Test
+    public void testMandatoryTextIndex() {
+        collection.createIndex(indexOptions(IndexType.Fulltext), "body");
+
+        DocumentCursor cursor = collection.find(where("body").text("quick")
+            .and(where("city").eq("Kolkata")));
+        QueryPlan queryPlan = cursor.explain();
+        assertEquals(ScanType.IndexScan, queryPlan.getScanType());
+        assertEquals("body", queryPlan.getIndexEntry().getField());
+        assertNotNull(queryPlan.getResidualFilter());
+        assertEquals(2, cursor.size());
+    }
+
+    @Test
+    public void testExplainAfterSortAndLimit() {
+        collection.createIndex(indexOptions(IndexType.NonUnique), "group");
+
+        DocumentCursor cursor = collection.find(where("group").eq("group1"));
+        QueryPlan queryPlan = cursor.explain();
+        DocumentCursor sorted = cursor.sort("age").skipLimit(0, 2);
+        assertSame(queryPlan, sorted.explain());
+        assertEquals(2, sorted.size());
+        assertTrue(queryPlan.toString().startsWith("IndexScan on group"));
+    }
+}
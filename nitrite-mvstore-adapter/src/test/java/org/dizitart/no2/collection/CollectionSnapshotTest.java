@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dizitart.no2.collection;
+
+import org.dizitart.no2.exceptions.InvalidOperationException;
+import org.dizitart.no2.index.IndexOptions;
+import org.dizitart.no2.index.IndexType;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static org.dizitart.no2.collection.Document.createDocument;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.junit.Assert.*;
+
+/**
+ * @author Anindya Chatterjee
+ */
+public class CollectionSnapshotTest extends BaseCollectionTest {
+
+    @Test
+    public void testSnapshotIgnoresLaterWrites() {
+        insert();
+        try (CollectionSnapshot snapshot = collection.snapshot()) {
+            collection.insert(createDocument("firstName", "fn4"));
+            collection.remove(where("firstName").eq("fn1"));
+
+            assertEquals(3, snapshot.find().size());
+            assertEquals(1, snapshot.find(where("firstName").eq("fn1")).size());
+            assertEquals(0, snapshot.find(where("firstName").eq("fn4")).size());
+            assertEquals(3, collection.find().size());
+        }
+    }
+
+    @Test
+    public void testSnapshotReadsIndexesAtSameVersion() {
+        collection.createIndex("lastName", IndexOptions.indexOptions(IndexType.NonUnique));
+        collection.createIndex("body", IndexOptions.indexOptions(IndexType.Fulltext));
+        insert();
+
+        try (CollectionSnapshot snapshot = collection.snapshot()) {
+            collection.update(where("lastName").eq("ln2"), createDocument("lastName", "ln3"));
+            collection.insert(createDocument("lastName", "ln2").put("body", "quick fox"));
+
+            DocumentCursor cursor = snapshot.find(where("lastName").eq("ln2"));
+            assertEquals(ScanType.IndexScan, cursor.explain().getScanType());
+            assertEquals(2, cursor.size());
+            assertEquals(0, snapshot.find(where("lastName").eq("ln3")).size());
+            assertEquals(2, snapshot.find(where("body").text("quick")).size());
+
+            assertEquals(1, collection.find(where("lastName").eq("ln2")).size());
+            assertEquals(3, collection.find(where("body").text("quick")).size());
+        }
+    }
+
+    @Test
+    public void testIndexCreatedEmptyStaysEmpty() {
+        collection.createIndex("lastName", IndexOptions.indexOptions(IndexType.NonUnique));
+
+        try (CollectionSnapshot snapshot = collection.snapshot()) {
+            insert();
+
+            assertEquals(0, snapshot.find(where("lastName").eq("ln2")).size());
+            assertEquals(0, snapshot.find().size());
+            assertEquals(2, collection.find(where("lastName").eq("ln2")).size());
+        }
+    }
+
+    @Test
+    public void testSnapshotIteratesWhileWriting() {
+        insert();
+        try (CollectionSnapshot snapshot = collection.snapshot()) {
+            Iterator<Document> iterator = snapshot.find().iterator();
+            int count = 0;
+            while (iterator.hasNext()) {
+                Document document = iterator.next();
+                collection.remove(document);
+                collection.insert(createDocument("firstName", "new"));
+                count++;
+            }
+            assertEquals(3, count);
+        }
+        assertEquals(3, collection.find(where("firstName").eq("new")).size());
+    }
+
+    @Test
+    public void testGetById() {
+        insert();
+        NitriteId id = collection.find(where("firstName").eq("fn1")).firstOrNull().getId();
+        try (CollectionSnapshot snapshot = collection.snapshot()) {
+            collection.update(where("firstName").eq("fn1"), createDocument("lastName", "changed"));
+            assertEquals("ln1", snapshot.getById(id).get("lastName"));
+            assertEquals("changed", collection.getById(id).get("lastName"));
+        }
+    }
+
+    @Test(expected = InvalidOperationException.class)
+    public void testReadAfterClose() {
+        insert();
+        CollectionSnapshot snapshot = collection.snapshot();
+        snapshot.close();
+        snapshot.find();
+    }
+}
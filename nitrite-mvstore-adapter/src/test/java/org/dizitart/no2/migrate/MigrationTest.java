@@ -202,6 +202,54 @@ public class MigrationTest {
         assertEquals(collection.find(where("age").notEq(null)).size(), 0);
     }
 
+    @Test
+    public void testCreateIndexesMigrate() {
+        NitriteCollection collection = db.getCollection("test");
+        for (int i = 0; i < 10; i++) {
+            Document document = Document.createDocument();
+            document.put("firstName", faker.name().firstName());
+            document.put("lastName", faker.name().lastName());
+            document.put("bloodGroup", faker.name().bloodGroup());
+            document.put("age", i);
+            document.put("notes", faker.lorem().sentence());
+
+            collection.insert(document);
+        }
+        db.close();
+
+        Migration migration = new Migration(Constants.INITIAL_SCHEMA_VERSION, 2) {
+            @Override
+            public void migrate(Instruction instruction) {
+                instruction.forCollection("test")
+                    .createIndex("firstName", IndexType.NonUnique)
+                    .createIndex("lastName", IndexType.NonUnique)
+                    .createIndex("age", IndexType.Unique)
+                    .renameField("bloodGroup", "group")
+                    .createIndex("group", IndexType.NonUnique)
+                    .createIndex("notes", IndexType.Fulltext);
+            }
+        };
+
+        MVStoreModule storeModule = MVStoreModule.withConfig()
+            .filePath(dbPath)
+            .build();
+
+        db = Nitrite.builder()
+            .loadModule(storeModule)
+            .fieldSeparator(".")
+            .schemaVersion(2)
+            .addMigrations(migration)
+            .openOrCreate();
+
+        collection = db.getCollection("test");
+        assertEquals(collection.listIndices().size(), 5);
+        assertTrue(collection.hasIndex("group"));
+        assertFalse(collection.hasIndex("bloodGroup"));
+        assertEquals(collection.find(where("age").gte(5)).size(), 5);
+        assertEquals(collection.find(where("group").notEq(null)).size(), 10);
+        assertEquals((int) db.getDatabaseMetaData().getSchemaVersion(), 2);
+    }
+
     @Test(expected = MigrationException.class)
     public void testOpenWithoutSchemaVersion() {
         NitriteCollection collection = db.getCollection("test");
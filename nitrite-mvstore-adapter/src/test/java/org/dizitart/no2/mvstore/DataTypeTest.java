@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2019-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.mvstore;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.DocumentCodec;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.index.PostingList;
+import org.h2.mvstore.WriteBuffer;
+import org.h2.mvstore.type.DataType;
+import org.h2.mvstore.type.ObjectDataType;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.dizitart.no2.collection.Document.createDocument;
+import static org.junit.Assert.*;
+
+/**
+ * @author Anindya Chatterjee
+ */
+public class DataTypeTest {
+
+    @Test
+    public void testNitriteId() {
+        NitriteId id = NitriteId.newId();
+        assertEquals(id, roundTrip(NitriteIdDataType.INSTANCE, id));
+    }
+
+    @Test
+    public void testPostingList() {
+        List<NitriteId> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(NitriteId.newId());
+        }
+        PostingList postingList = PostingList.of(ids);
+
+        Object read = roundTrip(PostingListDataType.INSTANCE, postingList);
+        assertEquals(postingList, read);
+        assertTrue(PostingListDataType.INSTANCE.getMemory(postingList) > postingList.toBytes().length);
+    }
+
+    @Test
+    public void testDocument() {
+        DocumentDataType dataType = new DocumentDataType(new DocumentCodec(null));
+        Document document = createDocument("name", "John").put("age", 42);
+
+        Object read = roundTrip(dataType, document);
+        assertEquals(document, read);
+        assertTrue(dataType.getMemory(document) > 0);
+        assertTrue(dataType.getMemory(read) > 0);
+
+        // a map of documents opened without its value type reads posting lists too
+        PostingList postingList = PostingList.of(Collections.singletonList(NitriteId.newId()));
+        assertEquals(postingList, roundTrip(dataType, postingList));
+    }
+
+    @Test
+    public void testOlderRecords() {
+        Document document = createDocument("name", "John");
+        WriteBuffer buffer = new WriteBuffer();
+        new ObjectDataType().write(buffer, document);
+        ByteBuffer byteBuffer = buffer.getBuffer();
+        byteBuffer.flip();
+
+        DocumentDataType dataType = new DocumentDataType(new DocumentCodec(null));
+        assertEquals(document, dataType.read(byteBuffer));
+    }
+
+    private Object roundTrip(DataType dataType, Object value) {
+        WriteBuffer buffer = new WriteBuffer();
+        dataType.write(buffer, value);
+        ByteBuffer byteBuffer = buffer.getBuffer();
+        byteBuffer.flip();
+        Object read = dataType.read(byteBuffer);
+        assertFalse(byteBuffer.hasRemaining());
+        return read;
+    }
+}
@@ -30,12 +30,14 @@ import org.junit.Test;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.UUID;
 
 import static org.dizitart.no2.DbTestOperations.getRandomTempDbFile;
 import static org.dizitart.no2.TestUtil.createDb;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Anindya Chatterjee.
@@ -112,6 +114,35 @@ public class NitriteMapStressTest {
         nitriteMap.putIfAbsent(null, null);
     }
 
+    @Test
+    public void testEntriesRange() {
+        db = createDb(dbPath);
+        NitriteStore<?> nitriteStore = db.getStore();
+        NitriteMap<Integer, String> nitriteMap = nitriteStore.openMap("testEntriesRange",
+            Integer.class, String.class);
+        for (int i = 0; i < 100; i++) {
+            nitriteMap.put(i, "value" + i);
+        }
+        nitriteMap.put(null, "null");
+
+        List<Pair<Integer, String>> entries = nitriteMap.entries(10, true, 20, false, false).toList();
+        assertEquals(10, entries.size());
+        assertEquals(10, entries.get(0).getFirst().intValue());
+        assertEquals("value19", entries.get(9).getSecond());
+
+        entries = nitriteMap.entries(10, false, 20, true, true).toList();
+        assertEquals(10, entries.size());
+        assertEquals(20, entries.get(0).getFirst().intValue());
+        assertEquals(11, entries.get(9).getFirst().intValue());
+
+        assertEquals(100, nitriteMap.entries(null, false, null, false, false).size());
+        assertEquals(100, nitriteMap.entries(null, false, null, false, true).size());
+        assertEquals(5, nitriteMap.entries(95, true, null, false, false).size());
+        assertEquals(5, nitriteMap.entries(null, false, 5, false, true).size());
+        assertTrue(nitriteMap.entries(20, true, 10, true, false).isEmpty());
+        assertTrue(nitriteMap.entries(20, true, 10, true, true).isEmpty());
+    }
+
     @After
     public void tearDown() throws IOException {
         if (db != null && !db.isClosed()) {
@@ -19,22 +19,28 @@ package org.dizitart.no2.sync;
 import lombok.extern.slf4j.Slf4j;
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.collection.events.BatchCollectionEventListener;
 import org.dizitart.no2.collection.events.CollectionEventInfo;
-import org.dizitart.no2.collection.events.CollectionEventListener;
 import org.dizitart.no2.sync.crdt.LastWriteWinState;
 import org.dizitart.no2.sync.event.ReplicationEvent;
 import org.dizitart.no2.sync.event.ReplicationEventType;
 import org.dizitart.no2.sync.message.DataGateFeed;
 
-import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 
 import static org.dizitart.no2.common.Constants.REPLICATOR;
 
 /**
+ * Sends the local changes of a collection to the server. The changes are
+ * received in batches, and a batch is sent as one feed.
+ *
  * @author Anindya Chatterjee
  */
 @Slf4j
-class ReplicaChangeListener implements CollectionEventListener {
+class ReplicaChangeListener implements BatchCollectionEventListener {
     private final ReplicationTemplate replicationTemplate;
     private final MessageTemplate messageTemplate;
 
@@ -44,47 +50,71 @@ class ReplicaChangeListener implements CollectionEventListener {
     }
 
     @Override
-    public void onEvent(CollectionEventInfo<?> eventInfo) {
+    public void onEvents(List<CollectionEventInfo<?>> eventInfos) {
         try {
-            if (eventInfo != null) {
-                if (!REPLICATOR.equals(eventInfo.getOriginator())) {
-                    switch (eventInfo.getEventType()) {
-                        case Insert:
-                        case Update:
-                            Document document = (Document) eventInfo.getItem();
-                            handleModifyEvent(document);
-                            break;
-                        case Remove:
-                            document = (Document) eventInfo.getItem();
-                            handleRemoveEvent(document);
-                            break;
-                        case IndexStart:
-                        case IndexEnd:
-                            break;
+            Map<NitriteId, Document> changes = new LinkedHashMap<>();
+            Map<NitriteId, Long> tombstones = new LinkedHashMap<>();
+
+            for (CollectionEventInfo<?> eventInfo : eventInfos) {
+                if (eventInfo != null && eventInfo.getEventType() != null) {
+                    if (!REPLICATOR.equals(eventInfo.getOriginator())) {
+                        switch (eventInfo.getEventType()) {
+                            case Insert:
+                            case Update:
+                                Document document = (Document) eventInfo.getItem();
+                                handleModifyEvent(document, changes, tombstones);
+                                break;
+                            case Remove:
+                                document = (Document) eventInfo.getItem();
+                                handleRemoveEvent(document, changes, tombstones);
+                                break;
+                            case IndexStart:
+                            case IndexEnd:
+                                break;
+                        }
                     }
                 }
             }
+
+            if (!changes.isEmpty() || !tombstones.isEmpty()) {
+                sendFeed(changes, tombstones);
+            }
         } catch (Exception e) {
             log.error("Error while processing collection event", e);
             replicationTemplate.postEvent(new ReplicationEvent(ReplicationEventType.Error, e));
         }
     }
 
-    private void handleRemoveEvent(Document document) {
-        LastWriteWinState state = new LastWriteWinState();
+    private void handleRemoveEvent(Document document, Map<NitriteId, Document> changes,
+                                   Map<NitriteId, Long> tombstones) {
         NitriteId nitriteId = document.getId();
         Long deleteTime = document.getLastModifiedSinceEpoch();
 
         if (replicationTemplate.getCrdt() != null) {
             replicationTemplate.getCrdt().getTombstones().put(nitriteId, deleteTime);
-            state.setTombstones(Collections.singletonMap(nitriteId.getIdValue(), deleteTime));
-            sendFeed(state);
+            // the removal supersedes any earlier change of the batch
+            changes.remove(nitriteId);
+            tombstones.put(nitriteId, deleteTime);
         }
     }
 
-    private void handleModifyEvent(Document document) {
+    private void handleModifyEvent(Document document, Map<NitriteId, Document> changes,
+                                   Map<NitriteId, Long> tombstones) {
+        // only the latest state of a document in the batch is sent
+        changes.remove(document.getId());
+        changes.put(document.getId(), document);
+        tombstones.remove(document.getId());
+    }
+
+    private void sendFeed(Map<NitriteId, Document> changes, Map<NitriteId, Long> tombstones) {
         LastWriteWinState state = new LastWriteWinState();
-        state.setChanges(Collections.singleton(document));
+        state.setChanges(new LinkedHashSet<>(changes.values()));
+
+        Map<String, Long> tombstoneMap = new LinkedHashMap<>();
+        for (Map.Entry<NitriteId, Long> entry : tombstones.entrySet()) {
+            tombstoneMap.put(entry.getKey().getIdValue(), entry.getValue());
+        }
+        state.setTombstones(tombstoneMap);
         sendFeed(state);
     }
 
@@ -158,10 +158,11 @@ public class ReplicationTemplate implements ReplicationOperation {
     }
 
     public void close() {
+        // hands the pending changes over to the listener while it can still send them
+        this.getCollection().unsubscribe(replicaChangeListener);
         eventBus.close();
         messageTemplate.close();
         batchChangeScheduler.stop();
-        this.getCollection().unsubscribe(replicaChangeListener);
     }
 
     public void collectGarbage(Long ttl) {
@@ -32,7 +32,7 @@ public class ReplicationEventBus extends NitriteEventBus<ReplicationEvent, Repli
     @Override
     public void post(ReplicationEvent replicationEvent) {
         for (final ReplicationEventListener listener : getListeners()) {
-            getEventExecutor().submit(() -> listener.onEvent(replicationEvent));
+            getEventExecutor(listener).execute(() -> listener.onEvent(replicationEvent));
         }
     }
 
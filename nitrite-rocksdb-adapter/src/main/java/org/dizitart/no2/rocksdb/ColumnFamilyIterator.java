@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2019-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.rocksdb;
+
+import org.rocksdb.RocksIterator;
+
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * An iterator over a column family, or over a column family merged with the
+ * pending writes of a {@link RocksDBWriteBatch}. In the latter case every step
+ * holds the read lock of the write batch.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+class ColumnFamilyIterator implements AutoCloseable {
+    private final RocksIterator iterator;
+    private final Lock lock;
+    private final RocksDBWriteBatch.Generation generation;
+    private boolean closed;
+
+    ColumnFamilyIterator(RocksIterator iterator) {
+        this(iterator, null, null);
+    }
+
+    ColumnFamilyIterator(RocksIterator iterator, Lock lock,
+                         RocksDBWriteBatch.Generation generation) {
+        this.iterator = iterator;
+        this.lock = lock;
+        this.generation = generation;
+    }
+
+    boolean isValid() {
+        return !closed && read(iterator::isValid);
+    }
+
+    byte[] key() {
+        return read(iterator::key);
+    }
+
+    byte[] value() {
+        return read(iterator::value);
+    }
+
+    void seekToFirst() {
+        step(iterator::seekToFirst);
+    }
+
+    void seekToLast() {
+        step(iterator::seekToLast);
+    }
+
+    void seek(byte[] key) {
+        step(() -> iterator.seek(key));
+    }
+
+    void seekForPrev(byte[] key) {
+        step(() -> iterator.seekForPrev(key));
+    }
+
+    void next() {
+        step(iterator::next);
+    }
+
+    void prev() {
+        step(iterator::prev);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            iterator.close();
+            if (generation != null) {
+                generation.release();
+            }
+        }
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        if (lock == null) return reader.get();
+
+        lock.lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void step(Runnable move) {
+        if (lock == null) {
+            move.run();
+            return;
+        }
+
+        lock.lock();
+        try {
+            move.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.dizitart.no2.rocksdb;
+
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.rocksdb.formatter.ObjectFormatter;
+import org.rocksdb.*;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.dizitart.no2.rocksdb.Constants.DB_NULL;
+
+/**
+ * Iterates the entries of a column family within a range of encoded
+ * keys using a single {@link RocksIterator}. The iterator seeks to
+ * the start of the range once and the other end of the range is set
+ * as the iterate bound of the {@link ReadOptions}, so rocksdb stops
+ * the scan itself. The range follows the byte order of the encoded keys.
+ *
+ * <p>
+ * The pending writes of a {@link RocksDBWriteBatch} are not bound by the
+ * {@link ReadOptions}, so the end of the range is checked as well.
+ */
+class EntryRange<K, V> implements Iterable<Pair<K, V>> {
+    private final ObjectFormatter objectFormatter;
+    private final RocksDBMap<?, ?> map;
+    private final Class<?> keyType;
+    private final Class<?> valueType;
+    private final byte[] from;
+    private final boolean fromInclusive;
+    private final byte[] to;
+    private final boolean toInclusive;
+    private final boolean descending;
+
+    public EntryRange(RocksDBMap<?, ?> map, ObjectFormatter objectFormatter,
+                      Class<?> keyType, Class<?> valueType,
+                      byte[] from, boolean fromInclusive, byte[] to, boolean toInclusive,
+                      boolean descending) {
+        this.map = map;
+        this.objectFormatter = objectFormatter;
+        this.keyType = keyType;
+        this.valueType = valueType;
+        this.from = from;
+        this.fromInclusive = fromInclusive;
+        this.to = to;
+        this.toInclusive = toInclusive;
+        this.descending = descending;
+    }
+
+    @Override
+    @SuppressWarnings("NullableProblems")
+    public Iterator<Pair<K, V>> iterator() {
+        return new RangeIterator();
+    }
+
+    private class RangeIterator implements Iterator<Pair<K, V>> {
+        private final ReadOptions readOptions;
+        private final Slice bound;
+        private final ColumnFamilyIterator rawEntryIterator;
+        private boolean closed;
+
+        public RangeIterator() {
+            readOptions = new ReadOptions();
+            if (descending) {
+                // lower bound is inclusive, an exclusive one is skipped while iterating
+                bound = from == null ? null : new Slice(from);
+                if (bound != null) {
+                    readOptions.setIterateLowerBound(bound);
+                }
+            } else {
+                // upper bound is exclusive, the immediate successor of a key is the key followed by a 0
+                bound = to == null ? null : new Slice(toInclusive ? Arrays.copyOf(to, to.length + 1) : to);
+                if (bound != null) {
+                    readOptions.setIterateUpperBound(bound);
+                }
+            }
+
+            rawEntryIterator = map.newIterator(readOptions);
+            if (descending) {
+                if (to == null) {
+                    rawEntryIterator.seekToLast();
+                } else {
+                    rawEntryIterator.seekForPrev(to);
+                }
+            } else {
+                if (from == null) {
+                    rawEntryIterator.seekToFirst();
+                } else {
+                    rawEntryIterator.seek(from);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) return false;
+            try {
+                while (rawEntryIterator.isValid() && isExcluded(rawEntryIterator.key())) {
+                    move();
+                }
+
+                boolean result = rawEntryIterator.isValid() && !isBeyond(rawEntryIterator.key());
+                if (!result) {
+                    close();
+                }
+                return result;
+            } catch (AssertionError e) {
+                return false;
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Pair<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            K key = (K) objectFormatter.decodeKey(rawEntryIterator.key(), keyType);
+            V value = (V) objectFormatter.decode(rawEntryIterator.value(), valueType);
+            move();
+            return new Pair<>(key, value);
+        }
+
+        private boolean isExcluded(byte[] key) {
+            return Arrays.equals(key, DB_NULL)
+                || (!fromInclusive && Arrays.equals(key, from))
+                || (!toInclusive && Arrays.equals(key, to));
+        }
+
+        private boolean isBeyond(byte[] key) {
+            if (descending) {
+                return from != null && compare(key, from) < 0;
+            }
+            return to != null && compare(key, to) > 0;
+        }
+
+        private void move() {
+            if (descending) {
+                rawEntryIterator.prev();
+            } else {
+                rawEntryIterator.next();
+            }
+        }
+
+        private void close() {
+            if (!closed) {
+                closed = true;
+                rawEntryIterator.close();
+                readOptions.close();
+                if (bound != null) {
+                    bound.close();
+                }
+            }
+        }
+
+        @Override
+        protected void finalize() throws Throwable {
+            close();
+            super.finalize();
+        }
+    }
+
+    // the byte order of rocksdb, bytes are compared as unsigned
+    private static int compare(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int diff = (a[i] & 0xff) - (b[i] & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return a.length - b.length;
+    }
+}
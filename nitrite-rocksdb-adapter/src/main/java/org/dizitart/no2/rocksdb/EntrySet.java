@@ -2,21 +2,18 @@ package org.dizitart.no2.rocksdb;
 
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.rocksdb.formatter.ObjectFormatter;
-import org.rocksdb.*;
 
 import java.util.Iterator;
 
 class EntrySet<K, V> implements Iterable<Pair<K, V>> {
     private final ObjectFormatter objectFormatter;
-    private final RocksDB rocksDB;
-    private final ColumnFamilyHandle columnFamilyHandle;
+    private final RocksDBMap<?, ?> map;
     private final Class<?> keyType;
     private final Class<?> valueType;
 
-    public EntrySet(RocksDB rocksDB, ColumnFamilyHandle columnFamilyHandle,
-                    ObjectFormatter objectFormatter, Class<?> keyType, Class<?> valueType) {
-        this.rocksDB = rocksDB;
-        this.columnFamilyHandle = columnFamilyHandle;
+    public EntrySet(RocksDBMap<?, ?> map, ObjectFormatter objectFormatter,
+                    Class<?> keyType, Class<?> valueType) {
+        this.map = map;
         this.objectFormatter = objectFormatter;
         this.keyType = keyType;
         this.valueType = valueType;
@@ -29,10 +26,10 @@ class EntrySet<K, V> implements Iterable<Pair<K, V>> {
     }
 
     private class EntryIterator implements Iterator<Pair<K, V>> {
-        private final RocksIterator rawEntryIterator;
+        private final ColumnFamilyIterator rawEntryIterator;
 
         public EntryIterator() {
-            rawEntryIterator = rocksDB.newIterator(columnFamilyHandle);
+            rawEntryIterator = map.newIterator(null);
             rawEntryIterator.seekToFirst();
         }
 
@@ -1,21 +1,16 @@
 package org.dizitart.no2.rocksdb;
 
 import org.dizitart.no2.rocksdb.formatter.ObjectFormatter;
-import org.rocksdb.ColumnFamilyHandle;
-import org.rocksdb.RocksDB;
-import org.rocksdb.RocksIterator;
 
 import java.util.Iterator;
 
 class KeySet<K> implements Iterable<K> {
     private final ObjectFormatter objectFormatter;
-    private final RocksDB rocksDB;
-    private final ColumnFamilyHandle columnFamilyHandle;
+    private final RocksDBMap<?, ?> map;
     private final Class<?> keyType;
 
-    public KeySet(RocksDB rocksDB, ColumnFamilyHandle columnFamilyHandle, ObjectFormatter objectFormatter, Class<?> keyType) {
-        this.rocksDB = rocksDB;
-        this.columnFamilyHandle = columnFamilyHandle;
+    public KeySet(RocksDBMap<?, ?> map, ObjectFormatter objectFormatter, Class<?> keyType) {
+        this.map = map;
         this.objectFormatter = objectFormatter;
         this.keyType = keyType;
     }
@@ -27,10 +22,10 @@ class KeySet<K> implements Iterable<K> {
     }
 
     private class KeyIterator implements Iterator<K> {
-        private final RocksIterator rawEntryIterator;
+        private final ColumnFamilyIterator rawEntryIterator;
 
         public KeyIterator() {
-            rawEntryIterator = rocksDB.newIterator(columnFamilyHandle);
+            rawEntryIterator = map.newIterator(null);
             rawEntryIterator.seekToFirst();
         }
 
@@ -11,6 +11,7 @@ import org.dizitart.no2.store.events.StoreEventListener;
 import org.rocksdb.ColumnFamilyOptions;
 import org.rocksdb.DBOptions;
 import org.rocksdb.Options;
+import org.rocksdb.WriteOptions;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -35,6 +36,12 @@ public class RocksDBConfig implements StoreConfig {
     @Getter @Setter(AccessLevel.PACKAGE)
     private ObjectFormatter objectFormatter;
 
+    @Getter @Setter(AccessLevel.PACKAGE)
+    private WriteOptions writeOptions;
+
+    @Getter @Setter(AccessLevel.PACKAGE)
+    private boolean batchWrites;
+
     RocksDBConfig() {
         eventListeners = new HashSet<>();
         objectFormatter = new KryoObjectFormatter();
@@ -54,4 +61,10 @@ public class RocksDBConfig implements StoreConfig {
     public final Boolean isReadOnly() {
         return false;
     }
+
+    @Override
+    public boolean isAutoCommit() {
+        // batched writes are written to the database on commit
+        return !batchWrites;
+    }
 }
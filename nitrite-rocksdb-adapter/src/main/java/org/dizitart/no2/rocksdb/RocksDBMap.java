@@ -3,19 +3,27 @@ package org.dizitart.no2.rocksdb;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.exceptions.NitriteIOException;
+import org.dizitart.no2.index.CompoundKey;
 import org.dizitart.no2.rocksdb.formatter.ObjectFormatter;
+import org.dizitart.no2.store.FieldDictionary;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteStore;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ComparatorOptions;
+import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
-import org.rocksdb.RocksIterator;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
 import org.rocksdb.util.BytewiseComparator;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.dizitart.no2.common.util.ValidationUtils.notNull;
@@ -28,6 +36,8 @@ public class RocksDBMap<K, V> implements NitriteMap<K, V> {
     private AtomicLong size;
 
     private RocksDB rocksDB;
+    private WriteOptions writeOptions;
+    private RocksDBWriteBatch writeBatch;
     private ObjectFormatter objectFormatter;
     private ColumnFamilyHandle columnFamilyHandle;
     private BytewiseComparator bytewiseComparator;
@@ -53,6 +63,10 @@ public class RocksDBMap<K, V> implements NitriteMap<K, V> {
     public boolean containsKey(K k) {
         byte[] key = objectFormatter.encodeKey(k);
         try {
+            if (writeBatch != null) {
+                return writeBatch.get(columnFamilyHandle, key) != null;
+            }
+
             // check if key definitely does not exist, then return false
             boolean result = rocksDB.keyMayExist(columnFamilyHandle, key, null);
             if (!result) return false;
@@ -70,7 +84,7 @@ public class RocksDBMap<K, V> implements NitriteMap<K, V> {
     public V get(K k) {
         try {
             byte[] key = objectFormatter.encodeKey(k);
-            byte[] value = rocksDB.get(columnFamilyHandle, key);
+            byte[] value = read(key);
             if (value == null) {
                 return null;
             }
@@ -89,9 +103,15 @@ public class RocksDBMap<K, V> implements NitriteMap<K, V> {
 
     @Override
     public void clear() {
-        // drop and recreate column family and reset the size counter
-        reference.dropColumnFamily(mapName);
-        columnFamilyHandle = reference.getOrCreateColumnFamily(mapName);
+        if (writeBatch != null) {
+            // the pending writes refer to the column family, so it is not
+            // dropped, and a batch with an index can not hold a range delete
+            deleteAll();
+        } else {
+            // drop and recreate column family and reset the size counter
+            reference.dropColumnFamily(mapName);
+            columnFamilyHandle = reference.getOrCreateColumnFamily(mapName);
+        }
         size.set(0L);
         updateLastModifiedTime();
     }
@@ -103,7 +123,7 @@ public class RocksDBMap<K, V> implements NitriteMap<K, V> {
 
     @Override
     public RecordStream<V> values() {
-        return RecordStream.fromIterable(new ValueSet<>(rocksDB, columnFamilyHandle, objectFormatter, getValueType()));
+        return RecordStream.fromIterable(new ValueSet<>(this, objectFormatter, getValueType()));
     }
 
     @Override
@@ -113,18 +133,22 @@ public class RocksDBMap<K, V> implements NitriteMap<K, V> {
             byte[] key = objectFormatter.encodeKey(k);
 
             // if the definitely does not exists return null
-            if (!rocksDB.keyMayExist(columnFamilyHandle, key, null)) {
+            if (writeBatch == null && !rocksDB.keyMayExist(columnFamilyHandle, key, null)) {
                 return null;
             }
 
             // double check if the key exists, if does not return null
-            byte[] value = reference.getRocksDB().get(columnFamilyHandle, key);
+            byte[] value = read(key);
             if (value == null) {
                 return null;
             }
 
             // if key exists with null value, delete the key and return null
-            reference.getRocksDB().delete(columnFamilyHandle, key);
+            if (writeBatch != null) {
+                writeBatch.delete(columnFamilyHandle, key);
+            } else {
+                rocksDB.delete(columnFamilyHandle, writeOptions, key);
+            }
             size.decrementAndGet();
             updateLastModifiedTime();
 
@@ -137,20 +161,25 @@ public class RocksDBMap<K, V> implements NitriteMap<K, V> {
 
     @Override
     public RecordStream<K> keySet() {
-        return RecordStream.fromIterable(new KeySet<>(rocksDB, columnFamilyHandle, objectFormatter, getKeyType()));
+        return RecordStream.fromIterable(new KeySet<>(this, objectFormatter, getKeyType()));
     }
 
     @Override
     public void put(K k, V v) {
         notNull(v, "value cannot be null");
         try {
+            learnFields(v);
             byte[] key = objectFormatter.encodeKey(k);
             byte[] value = objectFormatter.encode(v);
 
             // check if this is update or insert
-            boolean result = rocksDB.keyMayExist(columnFamilyHandle, key, null);
+            boolean result = mayExist(key);
 
-            reference.getRocksDB().put(columnFamilyHandle, key, value);
+            if (writeBatch != null) {
+                writeBatch.put(columnFamilyHandle, key, value);
+            } else {
+                rocksDB.put(columnFamilyHandle, writeOptions, key, value);
+            }
             if (!result) {
                 // if insert then update the size
                 size.incrementAndGet();
@@ -163,11 +192,47 @@ public class RocksDBMap<K, V> implements NitriteMap<K, V> {
         }
     }
 
+    @Override
+    public void putAll(Map<K, V> entries) {
+        for (V value : entries.values()) {
+            notNull(value, "value cannot be null");
+        }
+
+        try (WriteBatch batch = new WriteBatch()) {
+            long inserted = 0;
+            for (Map.Entry<K, V> entry : entries.entrySet()) {
+                learnFields(entry.getValue());
+                byte[] key = objectFormatter.encodeKey(entry.getKey());
+                byte[] value = objectFormatter.encode(entry.getValue());
+
+                // check if this is update or insert
+                if (!mayExist(key)) {
+                    inserted++;
+                }
+
+                if (writeBatch != null) {
+                    writeBatch.put(columnFamilyHandle, key, value);
+                } else {
+                    batch.put(columnFamilyHandle, key, value);
+                }
+            }
+
+            if (writeBatch == null) {
+                rocksDB.write(writeOptions, batch);
+            }
+            size.addAndGet(inserted);
+            updateLastModifiedTime();
+        } catch (Exception e) {
+            log.error("Error while writing batch of keys and values for " + mapName, e);
+            throw new NitriteIOException("failed to write batch of keys and values", e);
+        }
+    }
+
     @Override
     public long size() {
         if (size.get() == 0) {
             // first time size calculation after db opening
-            try (RocksIterator iterator = rocksDB.newIterator(columnFamilyHandle)) {
+            try (ColumnFamilyIterator iterator = newIterator(null)) {
                 iterator.seekToFirst();
 
                 while (iterator.isValid()) {
@@ -188,11 +253,16 @@ public class RocksDBMap<K, V> implements NitriteMap<K, V> {
 
         try {
             byte[] key = objectFormatter.encodeKey(k);
-            byte[] oldValue = rocksDB.get(columnFamilyHandle, key);
+            byte[] oldValue = read(key);
 
             if (oldValue == null) {
+                learnFields(v);
                 byte[] value = objectFormatter.encode(v);
-                rocksDB.put(columnFamilyHandle, key, value);
+                if (writeBatch != null) {
+                    writeBatch.put(columnFamilyHandle, key, value);
+                } else {
+                    rocksDB.put(columnFamilyHandle, writeOptions, key, value);
+                }
                 size.incrementAndGet();
                 updateLastModifiedTime();
                 return null;
@@ -207,14 +277,37 @@ public class RocksDBMap<K, V> implements NitriteMap<K, V> {
 
     @Override
     public RecordStream<Pair<K, V>> entries() {
-        return RecordStream.fromIterable(new EntrySet<>(rocksDB, columnFamilyHandle,
-            objectFormatter, getKeyType(), getValueType()));
+        return RecordStream.fromIterable(new EntrySet<>(this, objectFormatter,
+            getKeyType(), getValueType()));
+    }
+
+    @Override
+    public RecordStream<Pair<K, V>> entries(K from, boolean fromInclusive,
+                                           K to, boolean toInclusive, boolean descending) {
+        byte[] fromKey = from == null ? null : objectFormatter.encodeKey(from);
+        byte[] toKey = to == null ? null : objectFormatter.encodeKey(to);
+
+        Class<?> type = from != null ? from.getClass() : to != null ? to.getClass() : getKeyType();
+        return RecordStream.fromIterable(new EntryRange<>(this, objectFormatter,
+            type, getValueType(), fromKey, fromInclusive, toKey, toInclusive, descending));
+    }
+
+    @Override
+    public boolean isNaturallyOrdered() {
+        // keys are ordered by the bytes of their kryo encoding
+        return false;
+    }
+
+    @Override
+    public boolean isPrefixOrdered() {
+        // a compound key is encoded as a concatenation of its components
+        return objectFormatter.isPrefixPreserving(CompoundKey.class);
     }
 
     @Override
     @SuppressWarnings({"unchecked", "rawtypes"})
     public K higherKey(K k) {
-        try (RocksIterator iterator = rocksDB.newIterator(columnFamilyHandle)) {
+        try (ColumnFamilyIterator iterator = newIterator(null)) {
             byte[] key = objectFormatter.encodeKey(k);
 
             iterator.seek(key);
@@ -240,7 +333,7 @@ public class RocksDBMap<K, V> implements NitriteMap<K, V> {
     @Override
     @SuppressWarnings({"unchecked", "rawtypes"})
     public K ceilingKey(K k) {
-        try (RocksIterator iterator = rocksDB.newIterator(columnFamilyHandle)) {
+        try (ColumnFamilyIterator iterator = newIterator(null)) {
             byte[] key = objectFormatter.encodeKey(k);
 
             iterator.seek(key);
@@ -266,7 +359,7 @@ public class RocksDBMap<K, V> implements NitriteMap<K, V> {
     @Override
     @SuppressWarnings({"unchecked", "rawtypes"})
     public K lowerKey(K k) {
-        try (RocksIterator iterator = rocksDB.newIterator(columnFamilyHandle)) {
+        try (ColumnFamilyIterator iterator = newIterator(null)) {
             byte[] key = objectFormatter.encodeKey(k);
 
             iterator.seekForPrev(key);
@@ -294,7 +387,7 @@ public class RocksDBMap<K, V> implements NitriteMap<K, V> {
     @Override
     @SuppressWarnings({"unchecked", "rawtypes"})
     public K floorKey(K k) {
-        try (RocksIterator iterator = rocksDB.newIterator(columnFamilyHandle)) {
+        try (ColumnFamilyIterator iterator = newIterator(null)) {
             byte[] key = objectFormatter.encodeKey(k);
 
             iterator.seekForPrev(key);
@@ -332,9 +425,11 @@ public class RocksDBMap<K, V> implements NitriteMap<K, V> {
 
     private void initialize() {
         this.size = new AtomicLong(0); // just initialized
-        this.objectFormatter = store.getStoreConfig().objectFormatter();
+        this.objectFormatter = store.getObjectFormatter();
         this.columnFamilyHandle = reference.getOrCreateColumnFamily(getName());
         this.rocksDB = reference.getRocksDB();
+        this.writeOptions = store.getWriteOptions();
+        this.writeBatch = store.getWriteBatch();
         this.bytewiseComparator = new BytewiseComparator(new ComparatorOptions());
         this.reference.addComparator(bytewiseComparator);
     }
@@ -344,4 +439,61 @@ public class RocksDBMap<K, V> implements NitriteMap<K, V> {
         bytewiseComparator.close();
         columnFamilyHandle.close();
     }
+
+    ColumnFamilyIterator newIterator(ReadOptions readOptions) {
+        if (writeBatch != null) {
+            return writeBatch.newIterator(columnFamilyHandle, readOptions);
+        }
+        return new ColumnFamilyIterator(readOptions == null
+            ? rocksDB.newIterator(columnFamilyHandle)
+            : rocksDB.newIterator(columnFamilyHandle, readOptions));
+    }
+
+    private byte[] read(byte[] key) throws RocksDBException {
+        if (writeBatch != null) {
+            return writeBatch.get(columnFamilyHandle, key);
+        }
+        return rocksDB.get(columnFamilyHandle, key);
+    }
+
+    private boolean mayExist(byte[] key) throws RocksDBException {
+        if (writeBatch != null) {
+            // a key deleted in the batch may still be in the database,
+            // only a read of both tells an insert from an update
+            return writeBatch.get(columnFamilyHandle, key) != null;
+        }
+        return rocksDB.keyMayExist(columnFamilyHandle, key, null);
+    }
+
+    private void deleteAll() {
+        // like a drop of a map, the pending writes are written first
+        store.writePendingChanges();
+
+        byte[] first, last;
+        try (ColumnFamilyIterator iterator = newIterator(null)) {
+            iterator.seekToFirst();
+            if (!iterator.isValid()) return;
+            first = iterator.key();
+
+            iterator.seekToLast();
+            last = iterator.key();
+        }
+
+        try {
+            // the end of a range is exclusive, the immediate successor
+            // of the last key is the key followed by a 0
+            rocksDB.deleteRange(columnFamilyHandle, writeOptions, first, Arrays.copyOf(last, last.length + 1));
+        } catch (RocksDBException e) {
+            log.error("Error while clearing " + mapName, e);
+            throw new NitriteIOException("failed to clear map", e);
+        }
+    }
+
+    private void learnFields(V value) {
+        // the ids of the field names are written before the document
+        FieldDictionary fieldDictionary = store.getFieldDictionary();
+        if (value instanceof Document && fieldDictionary != null) {
+            fieldDictionary.learn((Document) value);
+        }
+    }
 }
@@ -25,6 +25,7 @@ import org.dizitart.no2.store.events.StoreEventListener;
 import org.rocksdb.ColumnFamilyOptions;
 import org.rocksdb.DBOptions;
 import org.rocksdb.Options;
+import org.rocksdb.WriteOptions;
 
 import java.io.File;
 import java.util.HashSet;
@@ -44,6 +45,19 @@ public class RocksDBModuleBuilder {
     private ObjectFormatter objectFormatter;
     private RocksDBConfig dbConfig;
 
+    /**
+     * The options of the writes, e.g. a synchronous write or a write
+     * without the write ahead log.
+     */
+    private WriteOptions writeOptions;
+
+    /**
+     * Holds the writes in a batch until the store is committed, then
+     * writes them atomically with the {@link #writeOptions()}. The reads
+     * see the pending writes.
+     */
+    private boolean batchWrites;
+
     @Setter(AccessLevel.NONE)
     private final Set<StoreEventListener> eventListeners;
 
@@ -80,6 +94,8 @@ public class RocksDBModuleBuilder {
         if (objectFormatter() != null) {
             dbConfig.objectFormatter(objectFormatter());
         }
+        dbConfig.writeOptions(writeOptions());
+        dbConfig.batchWrites(batchWrites());
         dbConfig.eventListeners(eventListeners());
 
         module.setStoreConfig(dbConfig);
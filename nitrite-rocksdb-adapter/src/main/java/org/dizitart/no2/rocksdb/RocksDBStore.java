@@ -1,16 +1,22 @@
 package org.dizitart.no2.rocksdb;
 
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.dizitart.no2.common.UnknownType;
 import org.dizitart.no2.exceptions.InvalidOperationException;
 import org.dizitart.no2.exceptions.NitriteException;
 import org.dizitart.no2.exceptions.NitriteIOException;
 import org.dizitart.no2.index.BoundingBox;
+import org.dizitart.no2.rocksdb.formatter.KryoObjectFormatter;
+import org.dizitart.no2.rocksdb.formatter.ObjectFormatter;
 import org.dizitart.no2.store.AbstractNitriteStore;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteRTree;
 import org.dizitart.no2.store.events.StoreEventListener;
 import org.dizitart.no2.store.events.StoreEvents;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteOptions;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -22,6 +28,18 @@ public class RocksDBStore extends AbstractNitriteStore<RocksDBConfig> {
     private final Map<String, NitriteMap<?, ?>> nitriteMapRegistry;
     private RocksDBReference reference;
 
+    @Getter(AccessLevel.PACKAGE)
+    private WriteOptions writeOptions;
+
+    @Getter(AccessLevel.PACKAGE)
+    private RocksDBWriteBatch writeBatch;
+
+    @Getter(AccessLevel.PACKAGE)
+    private ObjectFormatter objectFormatter;
+
+    // options passed in by the config are owned by the caller
+    private boolean ownsWriteOptions;
+
     public RocksDBStore() {
         super();
         nitriteMapRegistry = new ConcurrentHashMap<>();
@@ -33,7 +51,24 @@ public class RocksDBStore extends AbstractNitriteStore<RocksDBConfig> {
         try {
             if (closed.get()) {
                 this.reference = RocksDBStoreUtils.openOrCreate(getStoreConfig());
+                this.ownsWriteOptions = getStoreConfig().writeOptions() == null;
+                this.writeOptions = ownsWriteOptions
+                    ? new WriteOptions() : getStoreConfig().writeOptions();
+                if (getStoreConfig().batchWrites()) {
+                    this.writeBatch = new RocksDBWriteBatch(reference.getRocksDB(), writeOptions);
+                }
                 closed.compareAndSet(true, false);
+
+                // the dictionary holds no documents, it is read by the formatter of the config
+                this.objectFormatter = getStoreConfig().objectFormatter();
+                openFieldDictionary();
+
+                if (objectFormatter instanceof KryoObjectFormatter) {
+                    // the codec is bound to the dictionary of this store, so it is
+                    // kept by a copy, the config can be shared by other stores
+                    this.objectFormatter = ((KryoObjectFormatter) objectFormatter)
+                        .withDocumentCodec(getFieldDictionary());
+                }
                 initEventBus();
                 alert(StoreEvents.Opened);
             }
@@ -52,7 +87,7 @@ public class RocksDBStore extends AbstractNitriteStore<RocksDBConfig> {
 
     @Override
     public boolean hasUnsavedChanges() {
-        return false;
+        return writeBatch != null && writeBatch.hasChanges();
     }
 
     @Override
@@ -62,6 +97,8 @@ public class RocksDBStore extends AbstractNitriteStore<RocksDBConfig> {
 
     @Override
     public void commit() {
+        flushMetadata();
+        writePendingChanges();
         alert(StoreEvents.Commit);
     }
 
@@ -69,7 +106,14 @@ public class RocksDBStore extends AbstractNitriteStore<RocksDBConfig> {
     public void close() {
         try {
             if (!closed.get()) {
+                if (writeBatch != null) {
+                    writePendingChanges();
+                    writeBatch.close();
+                }
                 reference.close();
+                if (ownsWriteOptions) {
+                    writeOptions.close();
+                }
                 closed.compareAndSet(false, true);
             }
             alert(StoreEvents.Closed);
@@ -101,14 +145,16 @@ public class RocksDBStore extends AbstractNitriteStore<RocksDBConfig> {
 
             return nitriteMap;
         } else {
-            NitriteMap<Key, Value> nitriteMap = new RocksDBMap<>(mapName, this, this.reference, keyType, valueType);
-            nitriteMapRegistry.put(mapName, nitriteMap);
-            return nitriteMap;
+            // concurrent writers must not open two maps of the same name
+            return (NitriteMap<Key, Value>) nitriteMapRegistry.computeIfAbsent(mapName,
+                name -> new RocksDBMap<>(name, this, this.reference, keyType, valueType));
         }
     }
 
     @Override
     public void removeMap(String mapName) {
+        // the pending writes to the map can not be written once it is dropped
+        writePendingChanges();
         reference.dropColumnFamily(mapName);
         nitriteMapRegistry.remove(mapName);
     }
@@ -130,6 +176,17 @@ public class RocksDBStore extends AbstractNitriteStore<RocksDBConfig> {
         return "RocksDB/" + getRocksDbVersion();
     }
 
+    void writePendingChanges() {
+        if (writeBatch != null) {
+            try {
+                writeBatch.commit();
+            } catch (RocksDBException e) {
+                log.error("Error while writing the pending changes", e);
+                throw new NitriteIOException("failed to commit changes", e);
+            }
+        }
+    }
+
     private void initEventBus() {
         if (getStoreConfig().eventListeners() != null) {
             for (StoreEventListener eventListener : getStoreConfig().eventListeners()) {
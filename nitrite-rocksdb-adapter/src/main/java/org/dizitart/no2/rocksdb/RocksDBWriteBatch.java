@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2019-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.rocksdb;
+
+import org.rocksdb.*;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Holds the writes to all the maps of a store in a {@link WriteBatchWithIndex}
+ * until the store is committed, then writes them to rocksdb atomically with
+ * the {@link WriteOptions} of the store. The reads of the maps go through the
+ * batch, so the pending writes are visible to them.
+ *
+ * <p>
+ * A {@link WriteBatchWithIndex} can be read concurrently but not while it is
+ * written, so a read, including a step of an iterator over the batch, holds
+ * the read lock of this object and a write holds its write lock. An iterator
+ * reads the batch it was created over even after that batch is committed,
+ * so a committed batch is closed only after the last of its iterators is closed.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+class RocksDBWriteBatch implements AutoCloseable {
+    private final RocksDB rocksDB;
+    private final WriteOptions writeOptions;
+    private final ReadOptions readOptions;
+    private final Lock readLock;
+    private final Lock writeLock;
+    private volatile Generation current;
+    private boolean closed;
+
+    RocksDBWriteBatch(RocksDB rocksDB, WriteOptions writeOptions) {
+        ReadWriteLock lock = new ReentrantReadWriteLock();
+        this.rocksDB = rocksDB;
+        this.writeOptions = writeOptions;
+        this.readOptions = new ReadOptions();
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+        this.current = new Generation();
+    }
+
+    void put(ColumnFamilyHandle handle, byte[] key, byte[] value) throws RocksDBException {
+        writeLock.lock();
+        try {
+            current.batch.put(handle, key, value);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void delete(ColumnFamilyHandle handle, byte[] key) throws RocksDBException {
+        writeLock.lock();
+        try {
+            current.batch.delete(handle, key);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    byte[] get(ColumnFamilyHandle handle, byte[] key) throws RocksDBException {
+        readLock.lock();
+        try {
+            // a key written in the batch is not looked up in the database
+            return current.batch.getFromBatchAndDB(rocksDB, handle, readOptions, key);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    boolean hasChanges() {
+        readLock.lock();
+        try {
+            return current.batch.count() > 0;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    ColumnFamilyIterator newIterator(ColumnFamilyHandle handle, ReadOptions options) {
+        readLock.lock();
+        try {
+            RocksIterator baseIterator = options == null
+                ? rocksDB.newIterator(handle) : rocksDB.newIterator(handle, options);
+            // the returned iterator owns the base iterator
+            Generation generation = current;
+            RocksIterator iterator = generation.batch.newIteratorWithBase(handle, baseIterator);
+            generation.acquire();
+            return new ColumnFamilyIterator(iterator, readLock, generation);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    void commit() throws RocksDBException {
+        writeLock.lock();
+        try {
+            if (current.batch.count() == 0) return;
+
+            rocksDB.write(writeOptions, current.batch);
+            Generation committed = current;
+            current = new Generation();
+            committed.retire();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        writeLock.lock();
+        try {
+            if (!closed) {
+                closed = true;
+                current.retire();
+                readOptions.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    static class Generation {
+        // the writes are overwritten by key, an iterator with a base requires it
+        private final WriteBatchWithIndex batch = new WriteBatchWithIndex(true);
+        private int users;
+        private boolean retired;
+
+        private synchronized void acquire() {
+            users++;
+        }
+
+        synchronized void release() {
+            users--;
+            closeIfUnused();
+        }
+
+        private synchronized void retire() {
+            retired = true;
+            closeIfUnused();
+        }
+
+        private void closeIfUnused() {
+            if (retired && users == 0) {
+                batch.close();
+            }
+        }
+    }
+}
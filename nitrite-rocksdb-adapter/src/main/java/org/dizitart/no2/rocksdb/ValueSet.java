@@ -1,21 +1,16 @@
 package org.dizitart.no2.rocksdb;
 
 import org.dizitart.no2.rocksdb.formatter.ObjectFormatter;
-import org.rocksdb.ColumnFamilyHandle;
-import org.rocksdb.RocksDB;
-import org.rocksdb.RocksIterator;
 
 import java.util.Iterator;
 
 class ValueSet<V> implements Iterable<V> {
     private final ObjectFormatter objectFormatter;
-    private final RocksDB rocksDB;
-    private final ColumnFamilyHandle columnFamilyHandle;
+    private final RocksDBMap<?, ?> map;
     private final Class<?> valueType;
 
-    public ValueSet(RocksDB rocksDB, ColumnFamilyHandle columnFamilyHandle, ObjectFormatter objectFormatter, Class<?> valueType) {
-        this.rocksDB = rocksDB;
-        this.columnFamilyHandle = columnFamilyHandle;
+    public ValueSet(RocksDBMap<?, ?> map, ObjectFormatter objectFormatter, Class<?> valueType) {
+        this.map = map;
         this.objectFormatter = objectFormatter;
         this.valueType = valueType;
     }
@@ -27,10 +22,10 @@ class ValueSet<V> implements Iterable<V> {
     }
 
     private class ValueIterator implements Iterator<V> {
-        private final RocksIterator rawEntryIterator;
+        private final ColumnFamilyIterator rawEntryIterator;
 
         public ValueIterator() {
-            rawEntryIterator = rocksDB.newIterator(columnFamilyHandle);
+            rawEntryIterator = map.newIterator(null);
             rawEntryIterator.seekToFirst();
         }
 
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2019-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dizitart.no2.rocksdb.formatter;
+
+import com.esotericsoftware.kryo.kryo5.Kryo;
+import com.esotericsoftware.kryo.kryo5.Serializer;
+import com.esotericsoftware.kryo.kryo5.io.Input;
+import com.esotericsoftware.kryo.kryo5.io.Output;
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.DocumentCodec;
+
+/**
+ * A kryo {@link Serializer} which writes a {@link Document} in the binary
+ * form of the {@link DocumentCodec} of the store, prefixed by its length.
+ * A document is read lazily, its fields are decoded when they are used.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+class DocumentCodecSerializer extends Serializer<Document> {
+    private final DocumentCodec codec;
+
+    DocumentCodecSerializer(DocumentCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, Document document) {
+        byte[] bytes = codec.encode(document);
+        output.writeInt(bytes.length, true);
+        output.writeBytes(bytes);
+    }
+
+    @Override
+    public Document read(Kryo kryo, Input input, Class<? extends Document> type) {
+        int length = input.readInt(true);
+        return codec.decodeLazily(input.readBytes(length));
+    }
+}
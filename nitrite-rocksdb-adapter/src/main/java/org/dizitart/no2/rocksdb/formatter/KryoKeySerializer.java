@@ -16,4 +16,9 @@ public abstract class KryoKeySerializer<T> extends Serializer<T> {
     public boolean registerToKryo() {
         return false;
     }
+
+    // if the key of a value starts with the key of each of its prefixes
+    public boolean isPrefixPreserving() {
+        return false;
+    }
 }
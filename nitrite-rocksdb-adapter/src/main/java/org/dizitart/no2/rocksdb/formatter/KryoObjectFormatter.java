@@ -13,7 +13,6 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.dizitart.no2.rocksdb.formatter;
 
 
@@ -21,45 +20,64 @@ import com.esotericsoftware.kryo.kryo5.Kryo;
 import com.esotericsoftware.kryo.kryo5.Serializer;
 import com.esotericsoftware.kryo.kryo5.io.Input;
 import com.esotericsoftware.kryo.kryo5.io.Output;
+import com.esotericsoftware.kryo.kryo5.util.Pool;
 import lombok.extern.slf4j.Slf4j;
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.DocumentCodec;
 import org.dizitart.no2.exceptions.NitriteIOException;
+import org.dizitart.no2.store.FieldDictionary;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.dizitart.no2.rocksdb.Constants.DB_NULL;
 
 /**
+ * An {@link ObjectFormatter} based on Kryo. A {@link Kryo} instance is not
+ * thread safe, so the formatter keeps a pool of them, each with its own
+ * reusable buffers, and many threads can encode and decode at the same time.
+ *
  * @author Anindya Chatterjee
  */
 @Slf4j
 public class KryoObjectFormatter implements ObjectFormatter {
-    private static final Kryo kryo = new Kryo();
+    private static final int BUFFER_SIZE = 4096;
+    // a buffer grown beyond this size is not kept for the next use
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+    private static final byte[] EMPTY = new byte[0];
+
     private final Map<Class<?>, KryoKeySerializer<?>> keySerializerRegistry;
+    // registrations in order, replayed on every kryo to keep the same ids
+    private final List<Registration> registrations;
+    private final Pool<KryoContext> contextPool;
 
     public KryoObjectFormatter() {
-        this.keySerializerRegistry = new HashMap<>();
-        kryo.setRegistrationRequired(false);
+        this.keySerializerRegistry = new ConcurrentHashMap<>();
+        this.registrations = new CopyOnWriteArrayList<>();
+        this.contextPool = newContextPool();
         registerInternalSerializers();
     }
 
+    private KryoObjectFormatter(KryoObjectFormatter formatter) {
+        this.keySerializerRegistry = new ConcurrentHashMap<>(formatter.keySerializerRegistry);
+        this.registrations = new CopyOnWriteArrayList<>(formatter.registrations);
+        this.contextPool = newContextPool();
+    }
+
     @Override
     public <T> byte[] encode(T object) {
         if (object == null) return DB_NULL;
 
-        try(ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
-            try (Output output = new Output(byteArrayOutputStream)) {
-                synchronized (kryo) {
-                    kryo.writeObject(output, object);
-                }
-            }
-            return byteArrayOutputStream.toByteArray();
-        } catch (IOException e) {
-            throw new NitriteIOException("failed to close output stream", e);
+        KryoContext context = obtain();
+        try {
+            Output output = context.output;
+            context.kryo.writeObject(output, object);
+            return output.toBytes();
+        } finally {
+            release(context);
         }
     }
 
@@ -74,13 +92,13 @@ public class KryoObjectFormatter implements ObjectFormatter {
             return encode(object);
         }
 
-        try(ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
-            try (Output output = new Output(byteArrayOutputStream)) {
-                serializer.writeKey(kryo, output, object);
-            }
-            return byteArrayOutputStream.toByteArray();
-        } catch (IOException e) {
-            throw new NitriteIOException("failed to close output stream", e);
+        KryoContext context = obtain();
+        try {
+            Output output = context.output;
+            serializer.writeKey(context.kryo, output, object);
+            return output.toBytes();
+        } finally {
+            release(context);
         }
     }
 
@@ -88,10 +106,13 @@ public class KryoObjectFormatter implements ObjectFormatter {
     public <T> T decode(byte[] bytes, Class<T> type) {
         if (Arrays.equals(bytes, DB_NULL)) return null;
 
-        try (Input input = new Input(bytes, 0, bytes.length)) {
-            synchronized (kryo) {
-                return kryo.readObject(input, type);
-            }
+        KryoContext context = obtain();
+        try {
+            Input input = context.input;
+            input.setBuffer(bytes);
+            return context.kryo.readObject(input, type);
+        } finally {
+            release(context);
         }
     }
 
@@ -105,25 +126,76 @@ public class KryoObjectFormatter implements ObjectFormatter {
             return decode(bytes, type);
         }
 
-        try(ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(bytes)) {
-            try (Input input = new Input(byteArrayInputStream)) {
-                return serializer.readKey(kryo, input, type);
-            }
-        } catch (IOException e) {
-            throw new NitriteIOException("failed to close output stream", e);
+        KryoContext context = obtain();
+        try {
+            Input input = context.input;
+            input.setBuffer(bytes);
+            return serializer.readKey(context.kryo, input, type);
+        } finally {
+            release(context);
         }
     }
 
-    public void registerSerializer(Class<?> type, Serializer<?> serializer) {
+    @Override
+    public boolean isPrefixPreserving(Class<?> keyType) {
+        KryoKeySerializer<?> serializer = keySerializerRegistry.get(keyType);
+        return serializer != null && serializer.isPrefixPreserving();
+    }
+
+    public synchronized void registerSerializer(Class<?> type, Serializer<?> serializer) {
         if (serializer instanceof KryoKeySerializer) {
             KryoKeySerializer<?> kryoKeySerializer = (KryoKeySerializer<?>) serializer;
             if (kryoKeySerializer.registerToKryo()) {
-                kryo.register(type, serializer);
+                registrations.add(new Registration(type, serializer));
             }
             keySerializerRegistry.put(type, kryoKeySerializer);
         } else {
-            kryo.register(type, serializer);
+            registrations.add(new Registration(type, serializer));
+        }
+    }
+
+    /**
+     * Creates a copy of the formatter, which writes the documents in the
+     * binary form of a {@link DocumentCodec} over the field dictionary of a
+     * store. A value of a type the codec does not know is written by kryo,
+     * with its class. This formatter is not changed, so the configurations
+     * of many stores can share it.
+     *
+     * @param fieldDictionary the field dictionary of the store
+     * @return the formatter of the store.
+     */
+    public KryoObjectFormatter withDocumentCodec(FieldDictionary fieldDictionary) {
+        KryoObjectFormatter formatter = new KryoObjectFormatter(this);
+        DocumentCodec codec = new DocumentCodec(fieldDictionary, formatter.new KryoValueSerializer());
+        DocumentCodecSerializer serializer = new DocumentCodecSerializer(codec);
+        try {
+            formatter.registerSerializer(Document.class, serializer);
+            formatter.registerSerializer(Class.forName("org.dizitart.no2.collection.NitriteDocument"), serializer);
+        } catch (ClassNotFoundException e) {
+            throw new NitriteIOException("failed to register document codec", e);
         }
+        return formatter;
+    }
+
+    private Pool<KryoContext> newContextPool() {
+        return new Pool<KryoContext>(true, false,
+            Runtime.getRuntime().availableProcessors() * 2) {
+            @Override
+            protected KryoContext create() {
+                return new KryoContext();
+            }
+        };
+    }
+
+    private KryoContext obtain() {
+        KryoContext context = contextPool.obtain();
+        context.register(registrations);
+        return context;
+    }
+
+    private void release(KryoContext context) {
+        context.reset();
+        contextPool.free(context);
     }
 
     private void registerInternalSerializers() {
@@ -136,4 +208,72 @@ public class KryoObjectFormatter implements ObjectFormatter {
             throw new NitriteIOException("failed to register default serializers", e);
         }
     }
+
+    private class KryoValueSerializer implements DocumentCodec.ValueSerializer {
+        @Override
+        public byte[] write(Object value) {
+            KryoContext context = obtain();
+            try {
+                Output output = context.output;
+                context.kryo.writeClassAndObject(output, value);
+                return output.toBytes();
+            } finally {
+                release(context);
+            }
+        }
+
+        @Override
+        public Object read(byte[] bytes) {
+            KryoContext context = obtain();
+            try {
+                Input input = context.input;
+                input.setBuffer(bytes);
+                return context.kryo.readClassAndObject(input);
+            } finally {
+                release(context);
+            }
+        }
+    }
+
+    private static class Registration {
+        private final Class<?> type;
+        private final Serializer<?> serializer;
+
+        Registration(Class<?> type, Serializer<?> serializer) {
+            this.type = type;
+            this.serializer = serializer;
+        }
+    }
+
+    private static class KryoContext {
+        private final Kryo kryo;
+        private final Output output;
+        private final Input input;
+        // the number of registrations already applied to the kryo
+        private int registered;
+
+        KryoContext() {
+            this.kryo = new Kryo();
+            this.kryo.setRegistrationRequired(false);
+            this.output = new Output(BUFFER_SIZE, -1);
+            this.input = new Input();
+        }
+
+        void register(List<Registration> registrations) {
+            int size = registrations.size();
+            for (; registered < size; registered++) {
+                Registration registration = registrations.get(registered);
+                kryo.register(registration.type, registration.serializer);
+            }
+        }
+
+        void reset() {
+            if (output.getBuffer().length > MAX_RETAINED_BUFFER_SIZE) {
+                output.setBuffer(new byte[BUFFER_SIZE], -1);
+            } else {
+                output.reset();
+            }
+            input.setBuffer(EMPTY);
+        }
+    }
 }
@@ -10,12 +10,16 @@ import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.collection.meta.Attributes;
 import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Numbers;
+import org.dizitart.no2.index.CompoundKey;
 import org.dizitart.no2.index.IndexEntry;
 import org.dizitart.no2.index.IndexMeta;
+import org.dizitart.no2.index.PostingList;
 import org.dizitart.no2.store.UserCredential;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -23,16 +27,32 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * @author Anindya Chatterjee
  */
 public class NitriteSerializers {
-    private static class NitriteIdSerializer extends ComparableKeySerializer<NitriteId> {
+    private static class NitriteIdSerializer extends KryoKeySerializer<NitriteId> {
 
         @Override
-        protected void writeKeyInternal(Kryo kryo, Output output, NitriteId object) {
-            output.writeString(object.getIdValue());
+        public void write(Kryo kryo, Output output, NitriteId object) {
+            output.writeLong(object.getLongValue());
         }
 
         @Override
-        protected NitriteId readKeyInternal(Kryo kryo, String input, Class<NitriteId> type) {
-            return NitriteId.createId(input);
+        public NitriteId read(Kryo kryo, Input input, Class<? extends NitriteId> type) {
+            return NitriteId.createId(input.readLong());
+        }
+
+        // fixed width big endian with the sign bit flipped, so that keys sort bytewise by id
+        @Override
+        public void writeKey(Kryo kryo, Output output, NitriteId object) {
+            writeLong(output, object.getLongValue() ^ Long.MIN_VALUE);
+        }
+
+        @Override
+        public NitriteId readKey(Kryo kryo, Input input, Class<NitriteId> type) {
+            return NitriteId.createId(readLong(input) ^ Long.MIN_VALUE);
+        }
+
+        @Override
+        public boolean registerToKryo() {
+            return true;
         }
     }
 
@@ -167,6 +187,213 @@ public class NitriteSerializers {
         }
     }
 
+    private static class PostingListSerializer extends Serializer<PostingList> {
+        @Override
+        public void write(Kryo kryo, Output output, PostingList object) {
+            byte[] bytes = object.toBytes();
+            output.writeInt(bytes.length, true);
+            output.writeBytes(bytes);
+        }
+
+        @Override
+        public PostingList read(Kryo kryo, Input input, Class<? extends PostingList> type) {
+            int length = input.readInt(true);
+            return PostingList.fromBytes(input.readBytes(length));
+        }
+    }
+
+    private static class CompoundKeySerializer extends KryoKeySerializer<CompoundKey> {
+        private static final byte NULL = 0x01;
+        private static final byte NUMBER = 0x02;
+        private static final byte OBJECT = 0x03;
+        private static final byte ESCAPE = 0x00;
+        private static final byte ESCAPED_ZERO = (byte) 0xFF;
+        private static final byte TERMINATOR = 0x01;
+
+        // number types in the order of their class names
+        private static final List<Class<?>> NUMBER_TYPES = Arrays.asList(Byte.class, Double.class,
+            Float.class, Integer.class, Long.class, Short.class);
+
+        @Override
+        public void write(Kryo kryo, Output output, CompoundKey object) {
+            output.writeInt(object.size(), true);
+            for (int i = 0; i < object.size(); i++) {
+                kryo.writeClassAndObject(output, object.get(i));
+            }
+        }
+
+        @Override
+        public CompoundKey read(Kryo kryo, Input input, Class<? extends CompoundKey> type) {
+            int size = input.readInt(true);
+            Object[] values = new Object[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = kryo.readClassAndObject(input);
+            }
+            return CompoundKey.of(values);
+        }
+
+        /*
+         * Keys are written as a plain concatenation of the encoded components, each
+         * of which preserves the order of the component in bytewise comparison, so
+         * that the rocksdb key order matches the order of the compound keys and the
+         * encoded prefix of a key is also a byte prefix of its encoding.
+         */
+        @Override
+        public void writeKey(Kryo kryo, Output output, CompoundKey object) {
+            for (int i = 0; i < object.size(); i++) {
+                writeComponent(kryo, output, object.get(i));
+            }
+        }
+
+        @Override
+        public CompoundKey readKey(Kryo kryo, Input input, Class<CompoundKey> type) {
+            List<Object> values = new ArrayList<>();
+            while (!input.end()) {
+                values.add(readComponent(kryo, input));
+            }
+            return CompoundKey.of(values.toArray());
+        }
+
+        @Override
+        public boolean registerToKryo() {
+            return true;
+        }
+
+        @Override
+        public boolean isPrefixPreserving() {
+            return true;
+        }
+
+        private void writeComponent(Kryo kryo, Output output, Object value) {
+            if (value == null) {
+                output.writeByte(NULL);
+            } else if (value instanceof Number) {
+                output.writeByte(NUMBER);
+                // numbers are ordered by value first and then by type
+                writeLong(output, orderedBits(((Number) value).doubleValue()));
+
+                int typeIndex = NUMBER_TYPES.indexOf(value.getClass());
+                output.writeByte(typeIndex + 1);
+                if (typeIndex == -1) {
+                    writeBytes(output, encodeObject(kryo, value));
+                } else if (value instanceof Double || value instanceof Float) {
+                    writeLong(output, orderedBits(((Number) value).doubleValue()));
+                } else {
+                    writeLong(output, ((Number) value).longValue() ^ Long.MIN_VALUE);
+                }
+            } else {
+                output.writeByte(OBJECT);
+                writeBytes(output, value.getClass().getName().getBytes(StandardCharsets.UTF_8));
+                if (value instanceof String) {
+                    writeBytes(output, ((String) value).getBytes(StandardCharsets.UTF_8));
+                } else if (value instanceof Boolean) {
+                    output.writeBoolean((Boolean) value);
+                } else if (value instanceof Character) {
+                    writeLong(output, (Character) value);
+                } else if (value.getClass().equals(Date.class)) {
+                    writeLong(output, ((Date) value).getTime() ^ Long.MIN_VALUE);
+                } else {
+                    // other types are not guaranteed to be ordered
+                    writeBytes(output, encodeObject(kryo, value));
+                }
+            }
+        }
+
+        private Object readComponent(Kryo kryo, Input input) {
+            byte marker = input.readByte();
+            if (marker == NULL) {
+                return null;
+            } else if (marker == NUMBER) {
+                readLong(input);
+                int typeIndex = input.readByte() - 1;
+                if (typeIndex == -1) {
+                    return decodeObject(kryo, readBytes(input));
+                }
+
+                Class<?> numberType = NUMBER_TYPES.get(typeIndex);
+                Number number = numberType == Double.class || numberType == Float.class
+                    ? (Number) fromOrderedBits(readLong(input))
+                    : (Number) (readLong(input) ^ Long.MIN_VALUE);
+                return Numbers.castNumber(number, numberType);
+            } else {
+                String className = new String(readBytes(input), StandardCharsets.UTF_8);
+                if (String.class.getName().equals(className)) {
+                    return new String(readBytes(input), StandardCharsets.UTF_8);
+                } else if (Boolean.class.getName().equals(className)) {
+                    return input.readBoolean();
+                } else if (Character.class.getName().equals(className)) {
+                    return (char) readLong(input);
+                } else if (Date.class.getName().equals(className)) {
+                    return new Date(readLong(input) ^ Long.MIN_VALUE);
+                } else {
+                    return decodeObject(kryo, readBytes(input));
+                }
+            }
+        }
+
+        private long orderedBits(double value) {
+            long bits = Double.doubleToLongBits(value);
+            return bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+        }
+
+        private double fromOrderedBits(long bits) {
+            return Double.longBitsToDouble(bits < 0 ? bits ^ Long.MIN_VALUE : ~bits);
+        }
+
+        private byte[] encodeObject(Kryo kryo, Object value) {
+            try (Output output = new Output(64, -1)) {
+                kryo.writeClassAndObject(output, value);
+                return output.toBytes();
+            }
+        }
+
+        private Object decodeObject(Kryo kryo, byte[] bytes) {
+            try (Input input = new Input(bytes)) {
+                return kryo.readClassAndObject(input);
+            }
+        }
+
+        // escapes 0x00 and terminates with 0x00 0x01 to keep the bytewise order
+        private void writeBytes(Output output, byte[] bytes) {
+            for (byte b : bytes) {
+                output.writeByte(b);
+                if (b == ESCAPE) {
+                    output.writeByte(ESCAPED_ZERO);
+                }
+            }
+            output.writeByte(ESCAPE);
+            output.writeByte(TERMINATOR);
+        }
+
+        private byte[] readBytes(Input input) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            while (true) {
+                byte b = input.readByte();
+                if (b == ESCAPE) {
+                    if (input.readByte() == TERMINATOR) {
+                        return bytes.toByteArray();
+                    }
+                }
+                bytes.write(b);
+            }
+        }
+    }
+
+    // kryo writes little endian, keys need big endian to sort bytewise
+    private static void writeLong(Output output, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            output.writeByte((byte) (value >>> shift));
+        }
+    }
+
+    private static long readLong(Input input) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (input.readByte() & 0xFF);
+        }
+        return value;
+    }
+
     public static void registerAll(KryoObjectFormatter kryoObjectFormatter) throws ClassNotFoundException {
         kryoObjectFormatter.registerSerializer(NitriteId.class, new NitriteIdSerializer());
         kryoObjectFormatter.registerSerializer(Pair.class, new PairSerializer());
@@ -175,6 +402,8 @@ public class NitriteSerializers {
         kryoObjectFormatter.registerSerializer(IndexEntry.class, new IndexEntrySerializer());
         kryoObjectFormatter.registerSerializer(UserCredential.class, new UserCredentialSerializer());
         kryoObjectFormatter.registerSerializer(Attributes.class, new AttributesSerializer());
+        kryoObjectFormatter.registerSerializer(CompoundKey.class, new CompoundKeySerializer());
+        kryoObjectFormatter.registerSerializer(PostingList.class, new PostingListSerializer());
         kryoObjectFormatter.registerSerializer(Class.forName("org.dizitart.no2.collection.NitriteDocument"), new DocumentSerializer());
     }
 }
@@ -25,4 +25,8 @@ public interface ObjectFormatter {
 
     <T> T decode(byte[] bytes, Class<T> type);
     <T> T decodeKey(byte[] bytes, Class<T> type);
+
+    default boolean isPrefixPreserving(Class<?> keyType) {
+        return false;
+    }
 }
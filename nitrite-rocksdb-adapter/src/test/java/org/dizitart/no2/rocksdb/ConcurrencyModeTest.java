@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.rocksdb;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteCollection;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.concurrent.ConcurrencyMode;
+import org.dizitart.no2.common.concurrent.ThreadPoolManager;
+import org.dizitart.no2.exceptions.UniqueConstraintException;
+import org.dizitart.no2.index.IndexOptions;
+import org.dizitart.no2.index.IndexType;
+import org.dizitart.no2.Nitrite;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.dizitart.no2.collection.Document.createDocument;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the {@link MultiThreadedTest} workload with 32 writers in both
+ * concurrency modes and prints the time taken by each.
+ *
+ * @author Anindya Chatterjee.
+ */
+@RunWith(Parameterized.class)
+public class ConcurrencyModeTest {
+    private final String fileName = DbTestOperations.getRandomTempDbFile();
+    private final int threadCount = 32;
+    private final int iterationCount = 100;
+    private final Random generator = new Random();
+    private final AtomicInteger docCounter = new AtomicInteger(0);
+    private final AtomicInteger failures = new AtomicInteger(0);
+    private ExecutorService executor;
+    private Nitrite db;
+
+    @Parameterized.Parameter
+    public ConcurrencyMode concurrencyMode;
+
+    @Parameterized.Parameters(name = "Mode = {0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {ConcurrencyMode.Exclusive},
+            {ConcurrencyMode.Striped},
+        });
+    }
+
+    @Rule
+    public Retry retry = new Retry(3);
+
+    @Test
+    public void testConcurrentWrites() throws InterruptedException {
+        db = createDb();
+        NitriteCollection collection = db.getCollection("test");
+        collection.createIndex("unixTime", IndexOptions.indexOptions(IndexType.Unique));
+        collection.createIndex("text", IndexOptions.indexOptions(IndexType.Fulltext));
+        collection.createIndex("group", IndexOptions.indexOptions(IndexType.NonUnique));
+
+        long start = System.currentTimeMillis();
+        runInParallel(thread -> {
+            List<NitriteId> ids = new ArrayList<>();
+            for (int j = 0; j < iterationCount; j++) {
+                Document document = generate(thread);
+                ids.add(collection.insert(document).iterator().next());
+                assertEquals(1, collection.find(where("unixTime")
+                    .eq(document.get("unixTime", Long.class))).size());
+            }
+
+            for (NitriteId id : ids) {
+                Document document = collection.getById(id).clone();
+                document.put("group", thread % 2);
+                document.put("text", "updated by thread " + thread);
+                collection.update(document);
+            }
+        });
+        long elapsed = System.currentTimeMillis() - start;
+        System.out.println(concurrencyMode + " writes of " + threadCount + " threads took " + elapsed + " ms");
+
+        assertEquals(0, failures.get());
+        assertEquals(docCounter.get(), collection.size());
+        assertEquals(docCounter.get(), collection.find(where("unixTime").gt(0L)).size());
+        assertEquals(docCounter.get(), collection.find(where("text").text("updated")).size());
+        assertEquals(docCounter.get() / 2, collection.find(where("group").eq(0)).size());
+        assertEquals(docCounter.get() / 2, collection.find(where("group").eq(1)).size());
+
+        for (int thread = 0; thread < threadCount; thread++) {
+            assertEquals(iterationCount, collection.find(where("thread").eq(thread)).size());
+        }
+    }
+
+    @Test
+    public void testConcurrentUniqueViolation() throws InterruptedException {
+        db = createDb();
+        NitriteCollection collection = db.getCollection("test");
+        collection.createIndex("unixTime", IndexOptions.indexOptions(IndexType.Unique));
+
+        AtomicInteger violations = new AtomicInteger(0);
+        runInParallel(thread -> {
+            for (int j = 0; j < iterationCount; j++) {
+                try {
+                    // every thread competes for the same keys
+                    collection.insert(createDocument("unixTime", (long) j).put("thread", thread));
+                } catch (UniqueConstraintException e) {
+                    violations.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(0, failures.get());
+        assertEquals(iterationCount, collection.size());
+        assertEquals(iterationCount * (threadCount - 1), violations.get());
+        for (int j = 0; j < iterationCount; j++) {
+            assertEquals(1, collection.find(where("unixTime").eq((long) j)).size());
+        }
+    }
+
+    @After
+    public void cleanUp() throws IOException {
+        if (db != null && !db.isClosed()) {
+            db.close();
+        }
+        TestUtil.deleteFile(fileName);
+
+        if (executor != null && !executor.isShutdown()) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private Nitrite createDb() {
+        RocksDBModule storeModule = RocksDBModule.withConfig()
+            .filePath(fileName)
+            .build();
+
+        return Nitrite.builder()
+            .loadModule(storeModule)
+            .fieldSeparator(".")
+            .concurrencyMode(concurrencyMode)
+            .openOrCreate();
+    }
+
+    private void runInParallel(ThreadTask task) throws InterruptedException {
+        executor = ThreadPoolManager.getThreadPool(threadCount, "ConcurrencyModeTest");
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            int thread = i;
+            executor.submit(() -> {
+                try {
+                    task.run(thread);
+                } catch (Throwable e) {
+                    failures.incrementAndGet();
+                    e.printStackTrace();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+    }
+
+    private synchronized Document generate(int thread) {
+        Document document = createDocument("unixTime", System.nanoTime() + docCounter.incrementAndGet());
+        byte[] blob = new byte[1024];
+        generator.nextBytes(blob);
+        document.put("blob", blob);
+        document.put("text", UUID.randomUUID().toString().replaceAll("-", " "));
+        document.put("thread", thread);
+        document.put("group", thread % 4);
+        return document;
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
@@ -21,6 +21,7 @@ import com.esotericsoftware.kryo.kryo5.io.ByteBufferOutput;
 import com.esotericsoftware.kryo.kryo5.io.Input;
 import com.github.javafaker.Faker;
 import lombok.Data;
+import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.store.NitriteMap;
 import org.junit.Test;
 import org.rocksdb.*;
@@ -122,6 +123,32 @@ public class RocksDBTest extends AbstractTest {
         assertEquals(testLevelDBMap.ceilingKey(3), referenceMap.ceilingKey(3));
     }
 
+    @Test
+    public void testRocksDBMapRange() {
+        NitriteMap<Integer, Integer> testLevelDBMap = db.getStore().openMap("testRocksDBMapRange", Integer.class, Integer.class);
+        for (int i = 1; i <= 20; i++) {
+            testLevelDBMap.put(i, i);
+        }
+        testLevelDBMap.put(null, 0);
+
+        List<Pair<Integer, Integer>> entries = testLevelDBMap.entries(5, true, 10, false, false).toList();
+        assertEquals(5, entries.size());
+        assertEquals(5, entries.get(0).getFirst().intValue());
+        assertEquals(9, entries.get(4).getSecond().intValue());
+
+        entries = testLevelDBMap.entries(5, false, 10, true, true).toList();
+        assertEquals(5, entries.size());
+        assertEquals(10, entries.get(0).getFirst().intValue());
+        assertEquals(6, entries.get(4).getFirst().intValue());
+
+        assertEquals(20, testLevelDBMap.entries(null, false, null, false, false).size());
+        assertEquals(20, testLevelDBMap.entries(null, false, null, false, true).size());
+        assertEquals(6, testLevelDBMap.entries(15, true, null, false, false).size());
+        assertEquals(4, testLevelDBMap.entries(null, false, 5, false, true).size());
+        assertEquals(0, testLevelDBMap.entries(10, true, 5, true, false).size());
+        assertEquals(0, testLevelDBMap.entries(10, true, 5, true, true).size());
+    }
+
     @Test
     public void testNaturalSort() {
         NitriteMap<String, Integer> map = db.getStore().openMap("testNaturalSort", String.class, Integer.class);
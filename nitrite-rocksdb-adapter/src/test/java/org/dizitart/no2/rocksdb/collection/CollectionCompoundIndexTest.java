@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.rocksdb.collection;
+
+import org.dizitart.no2.collection.DocumentCursor;
+import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.exceptions.UniqueConstraintException;
+import org.dizitart.no2.index.IndexType;
+import org.dizitart.no2.rocksdb.BaseCollectionTest;
+import org.junit.Test;
+
+import static org.dizitart.no2.collection.Document.createDocument;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.dizitart.no2.index.IndexOptions.indexOptions;
+import static org.junit.Assert.*;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class CollectionCompoundIndexTest extends BaseCollectionTest {
+
+    @Test
+    public void testCreateCompoundIndex() {
+        collection.createIndex("firstName", "lastName");
+        assertTrue(collection.hasIndex("firstName|lastName"));
+        assertFalse(collection.hasIndex("firstName"));
+        assertEquals(1, collection.listIndices().size());
+
+        collection.createIndex(indexOptions(IndexType.NonUnique), "lastName", "birthDay");
+        assertTrue(collection.hasIndex("lastName|birthDay"));
+
+        insert();
+        assertEquals(1, collection.find(where("firstName").eq("fn2")
+            .and(where("lastName").eq("ln2"))).size());
+        assertEquals(2, collection.find(where("lastName").eq("ln2")).size());
+    }
+
+    @Test
+    public void testSingleFieldIndex() {
+        collection.createIndex("firstName");
+        assertTrue(collection.hasIndex("firstName"));
+
+        collection.createIndex(indexOptions(IndexType.NonUnique), "lastName");
+        assertTrue(collection.hasIndex("lastName"));
+    }
+
+    @Test
+    public void testFindByPrefix() {
+        collection.createIndex(indexOptions(IndexType.NonUnique), "lastName", "firstName");
+        insert();
+
+        DocumentCursor cursor = collection.find(where("lastName").eq("ln2"));
+        assertEquals(2, cursor.size());
+
+        cursor = collection.find(where("lastName").eq("ln2").and(where("firstName").eq("fn3")));
+        assertEquals(1, cursor.size());
+        assertEquals("fn3", cursor.firstOrNull().get("firstName"));
+
+        cursor = collection.find(where("firstName").eq("fn3").and(where("lastName").eq("ln1")));
+        assertEquals(0, cursor.size());
+    }
+
+    @Test
+    public void testFindByPrefixAndRange() {
+        collection.createIndex(indexOptions(IndexType.NonUnique), "group", "age", "name");
+        for (int i = 0; i < 20; i++) {
+            collection.insert(createDocument("group", i % 2 == 0 ? "even" : "odd")
+                .put("age", i)
+                .put("name", "name" + i));
+        }
+
+        assertEquals(4, collection.find(where("group").eq("even")
+            .and(where("age").gte(10).and(where("age").lt(18)))).size());
+        assertEquals(5, collection.find(where("group").eq("odd")
+            .and(where("age").gt(10))).size());
+        assertEquals(3, collection.find(where("group").eq("odd")
+            .and(where("age").lte(5))).size());
+        assertEquals(1, collection.find(where("group").eq("odd")
+            .and(where("age").eq(7)).and(where("name").eq("name7"))).size());
+        assertEquals(0, collection.find(where("group").eq("odd")
+            .and(where("age").eq(7)).and(where("name").eq("name5"))).size());
+        assertEquals(10, collection.find(where("group").eq("odd")
+            .and(where("name").regex("name.*"))).size());
+    }
+
+    @Test
+    public void testUpdateAndRemove() {
+        collection.createIndex(indexOptions(IndexType.NonUnique), "lastName", "firstName");
+        insert();
+
+        collection.update(where("firstName").eq("fn3"), createDocument("lastName", "ln4"));
+        assertEquals(1, collection.find(where("lastName").eq("ln2")).size());
+        assertEquals(1, collection.find(where("lastName").eq("ln4")
+            .and(where("firstName").eq("fn3"))).size());
+
+        collection.remove(where("lastName").eq("ln4"));
+        assertEquals(0, collection.find(where("lastName").eq("ln4")
+            .and(where("firstName").eq("fn3"))).size());
+        assertEquals(2, collection.size());
+    }
+
+    @Test
+    public void testRebuildAndDropIndex() {
+        insert();
+        collection.createIndex("lastName", "firstName");
+        assertEquals(1, collection.find(where("lastName").eq("ln2")
+            .and(where("firstName").eq("fn2"))).size());
+
+        collection.rebuildIndex("lastName|firstName", false);
+        assertEquals(1, collection.find(where("lastName").eq("ln2")
+            .and(where("firstName").eq("fn2"))).size());
+
+        collection.dropIndex("lastName|firstName");
+        assertFalse(collection.hasIndex("lastName|firstName"));
+        assertEquals(1, collection.find(where("lastName").eq("ln2")
+            .and(where("firstName").eq("fn2"))).size());
+    }
+
+    @Test(expected = UniqueConstraintException.class)
+    public void testUniqueCompoundIndex() {
+        collection.createIndex("firstName", "lastName");
+        collection.insert(createDocument("firstName", "fn1").put("lastName", "ln1"));
+        collection.insert(createDocument("firstName", "fn1").put("lastName", "ln2"));
+        collection.insert(createDocument("firstName", "fn1").put("lastName", "ln1"));
+    }
+
+    @Test(expected = IndexingException.class)
+    public void testCompoundIndexOnArrayField() {
+        collection.createIndex("firstName", "list");
+        insert();
+    }
+
+    @Test(expected = IndexingException.class)
+    public void testFullTextCompoundIndex() {
+        collection.createIndex(indexOptions(IndexType.Fulltext), "firstName", "body");
+    }
+}
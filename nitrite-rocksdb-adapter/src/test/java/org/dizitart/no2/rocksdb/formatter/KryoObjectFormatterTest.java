@@ -1,8 +1,19 @@
 package org.dizitart.no2.rocksdb.formatter;
 
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.index.CompoundKey;
 import org.junit.Test;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class KryoObjectFormatterTest {
     @Test
@@ -16,5 +27,97 @@ public class KryoObjectFormatterTest {
         assertEquals(1, (new KryoObjectFormatter()).<Object>encodeKey(null).length);
         assertEquals(6, (new KryoObjectFormatter()).<Object>encodeKey("object").length);
     }
-}
 
+    @Test
+    public void testCompoundKey() {
+        KryoObjectFormatter formatter = new KryoObjectFormatter();
+        CompoundKey key = CompoundKey.of("a\u0000b", 1, 2L, 3.5, null, true, new Date(10), 'c');
+        assertEquals(key, formatter.decodeKey(formatter.encodeKey(key), CompoundKey.class));
+        assertEquals(key, formatter.decode(formatter.encode(key), CompoundKey.class));
+    }
+
+    @Test
+    public void testCompoundKeyOrder() {
+        KryoObjectFormatter formatter = new KryoObjectFormatter();
+        CompoundKey[] keys = new CompoundKey[]{
+            CompoundKey.of("a"),
+            CompoundKey.of("a", null),
+            CompoundKey.of("a", -10),
+            CompoundKey.of("a", -2.5),
+            CompoundKey.of("a", 1),
+            CompoundKey.of("a", 1L),
+            CompoundKey.of("a", 1000),
+            CompoundKey.of("a", "x"),
+            CompoundKey.of("a", "x", 1),
+            CompoundKey.of("a", "xy"),
+            CompoundKey.of("ab"),
+            CompoundKey.of("b", 1),
+        };
+
+        for (int i = 1; i < keys.length; i++) {
+            assertTrue(keys[i - 1].compareTo(keys[i]) < 0);
+            byte[] previous = formatter.encodeKey(keys[i - 1]);
+            byte[] current = formatter.encodeKey(keys[i]);
+            assertTrue(compareBytes(previous, current) < 0);
+        }
+    }
+
+    @Test
+    public void testCompoundKeyPrefix() {
+        KryoObjectFormatter formatter = new KryoObjectFormatter();
+        assertTrue(formatter.isPrefixPreserving(CompoundKey.class));
+
+        CompoundKey key = CompoundKey.of("a", new BigDecimal("1.5"), 1, "x");
+        byte[] encoded = formatter.encodeKey(key);
+        for (int size = 0; size <= key.size(); size++) {
+            Object[] values = new Object[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = key.get(i);
+            }
+
+            byte[] prefix = formatter.encodeKey(CompoundKey.of(values));
+            assertTrue(prefix.length <= encoded.length);
+            for (int i = 0; i < prefix.length; i++) {
+                assertEquals(prefix[i], encoded[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentEncodeDecode() throws Exception {
+        KryoObjectFormatter formatter = new KryoObjectFormatter();
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        Document document = Document.createDocument("thread", thread)
+                            .put("index", i)
+                            .put("data", new String(new char[i % 100]).replace('\0', 'x'));
+                        Document decoded = formatter.decode(formatter.encode(document), Document.class);
+                        assertEquals(document, decoded);
+
+                        CompoundKey key = CompoundKey.of("k" + thread, i);
+                        assertEquals(key, formatter.decodeKey(formatter.encodeKey(key), CompoundKey.class));
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private int compareBytes(byte[] first, byte[] second) {
+        for (int i = 0; i < Math.min(first.length, second.length); i++) {
+            int result = Integer.compare(first[i] & 0xFF, second[i] & 0xFF);
+            if (result != 0) return result;
+        }
+        return Integer.compare(first.length, second.length);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2019-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.rocksdb.rocksdb;
+
+import org.dizitart.no2.Nitrite;
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteCollection;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.index.IndexOptions;
+import org.dizitart.no2.index.IndexType;
+import org.dizitart.no2.rocksdb.Retry;
+import org.dizitart.no2.rocksdb.RocksDBModule;
+import org.dizitart.no2.store.NitriteMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.rocksdb.WriteOptions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.dizitart.no2.collection.Document.createDocument;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.dizitart.no2.rocksdb.DbTestOperations.getRandomTempDbFile;
+import static org.dizitart.no2.rocksdb.TestUtil.deleteFile;
+import static org.junit.Assert.*;
+
+/**
+ * @author Anindya Chatterjee
+ */
+public class WriteBatchTest {
+    private String dbFile;
+    private Nitrite db;
+
+    @Rule
+    public Retry retry = new Retry(3);
+
+    @Before
+    public void before() {
+        dbFile = getRandomTempDbFile();
+        db = openDb();
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        if (db != null && !db.isClosed()) {
+            db.close();
+        }
+        deleteFile(dbFile);
+    }
+
+    @Test
+    public void testReadsSeePendingWrites() {
+        NitriteCollection collection = db.getCollection("test");
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NonUnique), "age");
+        db.commit();
+        assertFalse(db.hasUnsavedChanges());
+
+        for (int i = 0; i < 10; i++) {
+            collection.insert(createDocument("name", "name" + i).put("age", i));
+        }
+        assertTrue(db.hasUnsavedChanges());
+
+        assertEquals(10, collection.size());
+        assertEquals(3, collection.find(where("age").gte(7)).size());
+        assertEquals(1, collection.find(where("name").eq("name5")).size());
+
+        collection.remove(where("age").lt(5));
+        assertEquals(5, collection.size());
+        assertEquals(0, collection.find(where("age").lt(5)).size());
+
+        db.commit();
+        assertFalse(db.hasUnsavedChanges());
+        assertEquals(5, collection.size());
+        assertEquals(3, collection.find(where("age").gte(7)).size());
+    }
+
+    @Test
+    public void testCommittedOnClose() {
+        NitriteCollection collection = db.getCollection("test");
+        collection.insert(createDocument("name", "John"));
+        collection.insert(createDocument("name", "Jane"));
+        db.close();
+
+        db = openDb();
+        collection = db.getCollection("test");
+        assertEquals(2, collection.size());
+        assertEquals(1, collection.find(where("name").eq("Jane")).size());
+    }
+
+    @Test
+    public void testMapOperations() {
+        NitriteMap<String, Document> map = db.getStore().openMap("testMap", String.class, Document.class);
+        for (int i = 0; i < 100; i++) {
+            map.put("key" + i, createDocument("value", i));
+        }
+        db.commit();
+
+        // writes during an iteration over the batch and the database
+        List<String> keys = new ArrayList<>();
+        for (Pair<String, Document> entry : map.entries()) {
+            keys.add(entry.getFirst());
+            map.put(entry.getFirst(), createDocument("value", -1));
+        }
+        assertEquals(100, keys.size());
+        assertEquals(100, map.size());
+        assertEquals(-1, map.get("key10").get("value"));
+
+        map.remove("key10");
+        assertNull(map.get("key10"));
+        assertFalse(map.containsKey("key10"));
+        assertNotNull(map.putIfAbsent("key11", createDocument("value", 11)));
+        assertNull(map.putIfAbsent("key10", createDocument("value", 10)));
+        assertEquals(100, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.keySet().iterator().hasNext());
+
+        map.put("key1", createDocument("value", 1));
+        db.commit();
+        assertEquals(1, map.size());
+        assertEquals(1, map.get("key1").get("value"));
+    }
+
+    private Nitrite openDb() {
+        RocksDBModule storeModule = RocksDBModule.withConfig()
+            .filePath(dbFile)
+            .writeOptions(new WriteOptions().setSync(true))
+            .batchWrites(true)
+            .build();
+
+        return Nitrite.builder()
+            .loadModule(storeModule)
+            .fieldSeparator(".")
+            .openOrCreate();
+    }
+}
@@ -18,6 +18,7 @@ package org.dizitart.no2;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.dizitart.no2.common.concurrent.ConcurrencyMode;
 import org.dizitart.no2.common.concurrent.ThreadPoolManager;
 import org.dizitart.no2.exceptions.SecurityException;
 import org.dizitart.no2.migration.Migration;
@@ -74,6 +75,60 @@ public class NitriteBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum number of documents a sort holds in memory
+     * before it spills sorted runs of documents to disk. By default
+     * a sort is never spilled to disk.
+     *
+     * @param size the number of documents.
+     * @return the {@link NitriteBuilder} instance.
+     */
+    public NitriteBuilder sortBufferSize(int size) {
+        this.nitriteConfig.sortBufferSize(size);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of (key, id) pairs an index build holds
+     * in memory before it spills sorted runs of them to disk. By default
+     * a build spills after {@link org.dizitart.no2.common.Constants#INDEX_BUILD_BUFFER_SIZE}
+     * pairs.
+     *
+     * @param size the number of pairs.
+     * @return the {@link NitriteBuilder} instance.
+     */
+    public NitriteBuilder indexBuildBufferSize(int size) {
+        this.nitriteConfig.indexBuildBufferSize(size);
+        return this;
+    }
+
+    /**
+     * Sets the concurrency mode of the collections. By default every
+     * write locks the whole collection. In {@link ConcurrencyMode#Striped}
+     * mode writers of different documents of a collection proceed in
+     * parallel, if the store supports concurrent writes.
+     *
+     * @param mode the concurrency mode.
+     * @return the {@link NitriteBuilder} instance.
+     */
+    public NitriteBuilder concurrencyMode(ConcurrencyMode mode) {
+        this.nitriteConfig.concurrencyMode(mode);
+        return this;
+    }
+
+    /**
+     * Enables optimistic reads of documents. A find or a lookup by id
+     * does not lock the collection, unless a write interferes with it.
+     * It benefits read-mostly workloads in the default concurrency mode.
+     *
+     * @param enabled if `true`, the reads are optimistic.
+     * @return the {@link NitriteBuilder} instance.
+     */
+    public NitriteBuilder optimisticReads(boolean enabled) {
+        this.nitriteConfig.optimisticReads(enabled);
+        return this;
+    }
+
     /**
      * Opens or creates a new nitrite database backed by mvstore. If it is an in-memory store,
      * then it will create a new one. If it is a file based store, and if the file does not
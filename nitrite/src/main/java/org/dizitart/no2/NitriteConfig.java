@@ -21,7 +21,9 @@ import lombok.Getter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.dizitart.no2.common.Constants;
+import org.dizitart.no2.common.concurrent.ConcurrencyMode;
 import org.dizitart.no2.exceptions.InvalidOperationException;
+import org.dizitart.no2.exceptions.ValidationException;
 import org.dizitart.no2.index.Indexer;
 import org.dizitart.no2.mapper.NitriteMapper;
 import org.dizitart.no2.migration.Migration;
@@ -34,6 +36,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 
+import static org.dizitart.no2.common.util.ValidationUtils.notNull;
+
 /**
  * A class to configure {@link Nitrite} database.
  *
@@ -61,6 +65,43 @@ public class NitriteConfig {
     @Getter
     private Integer schemaVersion = Constants.INITIAL_SCHEMA_VERSION;
 
+    /**
+     * Gets the maximum number of documents a sort holds in memory
+     * before it spills sorted runs of documents to disk.
+     *
+     * @return the sort buffer size.
+     */
+    @Getter
+    private int sortBufferSize = Integer.MAX_VALUE;
+
+    /**
+     * Gets the maximum number of (key, id) pairs an index build holds
+     * in memory before it spills sorted runs of them to disk.
+     *
+     * @return the index build buffer size.
+     */
+    @Getter
+    private int indexBuildBufferSize = Constants.INDEX_BUILD_BUFFER_SIZE;
+
+    /**
+     * Gets the concurrency mode of the collections. Default value
+     * is {@link ConcurrencyMode#Exclusive} unless set explicitly.
+     *
+     * @return the concurrency mode.
+     */
+    @Getter
+    private ConcurrencyMode concurrencyMode = ConcurrencyMode.Exclusive;
+
+    /**
+     * Indicates if the collections read without locking first and
+     * lock only when a concurrent write interferes. Default value
+     * is `false` unless set explicitly.
+     *
+     * @return `true`, if optimistic reads are enabled.
+     */
+    @Getter
+    private boolean optimisticReads = false;
+
     private boolean configured = false;
 
     public NitriteConfig() {
@@ -130,6 +171,88 @@ public class NitriteConfig {
         return this;
     }
 
+    /**
+     * Sets the maximum number of documents a sort holds in memory. A sort
+     * of more documents writes sorted runs of documents to temporary files
+     * and merges them while the cursor is being iterated. By default a
+     * sort is never spilled to disk.
+     *
+     * @param size the number of documents.
+     * @return the {@link NitriteConfig} instance.
+     */
+    public NitriteConfig sortBufferSize(int size) {
+        if (configured) {
+            throw new InvalidOperationException("cannot change the sort buffer size after database" +
+                " initialization");
+        }
+        if (size <= 0) {
+            throw new ValidationException("sort buffer size must be a positive number");
+        }
+        this.sortBufferSize = size;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of (key, id) pairs an index build holds in
+     * memory. A build of more pairs writes sorted runs of them to temporary
+     * files and merges them while loading the index. Default value is
+     * {@link Constants#INDEX_BUILD_BUFFER_SIZE}, {@link Integer#MAX_VALUE}
+     * keeps every pair in memory.
+     *
+     * @param size the number of pairs.
+     * @return the {@link NitriteConfig} instance.
+     */
+    public NitriteConfig indexBuildBufferSize(int size) {
+        if (configured) {
+            throw new InvalidOperationException("cannot change the index build buffer size after database" +
+                " initialization");
+        }
+        if (size <= 0) {
+            throw new ValidationException("index build buffer size must be a positive number");
+        }
+        this.indexBuildBufferSize = size;
+        return this;
+    }
+
+    /**
+     * Sets the concurrency mode of the collections. In
+     * {@link ConcurrencyMode#Striped} mode the writers of a collection
+     * lock only the documents and index keys they modify, instead of
+     * the whole collection.
+     *
+     * @param mode the concurrency mode.
+     * @return the {@link NitriteConfig} instance.
+     */
+    public NitriteConfig concurrencyMode(ConcurrencyMode mode) {
+        if (configured) {
+            throw new InvalidOperationException("cannot change the concurrency mode after database" +
+                " initialization");
+        }
+        notNull(mode, "concurrency mode cannot be null");
+        this.concurrencyMode = mode;
+        return this;
+    }
+
+    /**
+     * Enables optimistic reads for {@link org.dizitart.no2.collection.NitriteCollection#find()}
+     * and {@link org.dizitart.no2.collection.NitriteCollection#getById(org.dizitart.no2.collection.NitriteId)}.
+     * An optimistic read does not take the read lock of the collection,
+     * and runs again under the lock only if a write interferes. It only
+     * applies in {@link ConcurrencyMode#Exclusive} mode, as the writers
+     * in {@link ConcurrencyMode#Striped} mode share the read lock.
+     *
+     * @param enabled if `true`, the reads are optimistic.
+     * @return the {@link NitriteConfig} instance.
+     */
+    public NitriteConfig optimisticReads(boolean enabled) {
+        if (configured) {
+            throw new InvalidOperationException("cannot change the optimistic reads after database" +
+                " initialization");
+        }
+        this.optimisticReads = enabled;
+        return this;
+    }
+
     /**
      * Auto configures nitrite database with default configuration values and
      * default built-in plugins.
@@ -86,7 +86,8 @@ public class CollectionFactory {
             collectionMap.put(name, collection);
             NitriteMap<String, Document> catalogMap = store.openMap(COLLECTION_CATALOG, String.class, Document.class);
             Document document = catalogMap.get(TAG_COLLECTIONS);
-            if (document == null) document = Document.createDocument();
+            // a stored document is read-only
+            document = document == null ? Document.createDocument() : document.clone();
             document.put(name, true);
             catalogMap.put(TAG_COLLECTIONS, document);
         }
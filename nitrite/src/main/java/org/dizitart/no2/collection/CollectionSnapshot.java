@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dizitart.no2.collection;
+
+import org.dizitart.no2.exceptions.ValidationException;
+import org.dizitart.no2.filters.Filter;
+
+/**
+ * Represents a read-only, point-in-time view of a {@link NitriteCollection}
+ * and its indexes. The cursors of a snapshot do not see the writes made
+ * after the snapshot was opened, and they never wait for the writers
+ * of the collection.
+ * <p>
+ * [icon="{@docRoot}/note.png"]
+ * NOTE: A snapshot holds on to old versions of the collection in the
+ * store, so it must be closed once its cursors have been read.
+ *
+ * @author Anindya Chatterjee
+ * @see NitriteCollection#snapshot()
+ * @since 4.0
+ */
+public interface CollectionSnapshot extends AutoCloseable {
+    /**
+     * Returns a cursor to all documents of the snapshot.
+     *
+     * @return a cursor to all documents of the snapshot.
+     */
+    DocumentCursor find();
+
+    /**
+     * Applies a filter on the snapshot and returns a cursor to the
+     * selected documents.
+     *
+     * @param filter the filter to apply to select documents from the snapshot.
+     * @return a cursor to all selected documents.
+     */
+    DocumentCursor find(Filter filter);
+
+    /**
+     * Gets a single document of the snapshot by its id. If no document
+     * is found, it will return `null`.
+     *
+     * @param nitriteId the nitrite id
+     * @return the unique document associated with the nitrite id.
+     * @throws ValidationException if `nitriteId` is `null`.
+     */
+    Document getById(NitriteId nitriteId);
+
+    /**
+     * Closes the snapshot and releases the versions of the collection
+     * it holds. Its cursors must not be read afterwards.
+     */
+    void close();
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.collection;
+
+import org.dizitart.no2.common.tuples.Pair;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A changeable copy of a frozen document, which reads the frozen document
+ * until it is changed for the first time. The first change copies the
+ * fields into the copy itself, like a {@link #clone()} does, and the frozen
+ * document is not read any more.
+ *
+ * <p>
+ * A cursor hands out such copies, so that a document which is only read
+ * is never copied.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+class CopyOnWriteDocument extends NitriteDocument {
+    private static final long serialVersionUID = 1603111842L;
+
+    // null once the fields are copied into the map
+    private transient volatile NitriteDocument source;
+
+    CopyOnWriteDocument(NitriteDocument source) {
+        super(16);
+        this.source = source;
+    }
+
+    @Override
+    public Object get(String key) {
+        NitriteDocument document = source;
+        return document == null ? super.get(key) : document.get(key);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        NitriteDocument document = source;
+        return document == null ? super.containsKey(key) : document.containsKey(key);
+    }
+
+    @Override
+    public boolean hasId() {
+        NitriteDocument document = source;
+        return document == null ? super.hasId() : document.hasId();
+    }
+
+    @Override
+    public NitriteId getId() {
+        NitriteDocument document = source;
+        return document == null ? super.getId() : document.getId();
+    }
+
+    @Override
+    public Set<String> getFields() {
+        NitriteDocument document = source;
+        return document == null ? super.getFields() : document.getFields();
+    }
+
+    @Override
+    public Document put(String key, Object value) {
+        copy();
+        return super.put(key, value);
+    }
+
+    @Override
+    public void remove(String key) {
+        copy();
+        super.remove(key);
+    }
+
+    @Override
+    public Document merge(Document document) {
+        copy();
+        return super.merge(document);
+    }
+
+    @Override
+    public Document clone() {
+        NitriteDocument document = source;
+        return document == null ? super.clone() : document.clone();
+    }
+
+    @Override
+    public Document copyOnWrite() {
+        NitriteDocument document = source;
+        return document == null ? super.copyOnWrite() : new CopyOnWriteDocument(document);
+    }
+
+    @Override
+    public Iterator<Pair<String, Object>> iterator() {
+        NitriteDocument document = source;
+        // the frozen document can not be changed through its iterator
+        return document == null ? super.iterator() : document.iterator();
+    }
+
+    @Override
+    public int size() {
+        NitriteDocument document = source;
+        return document == null ? super.size() : document.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        NitriteDocument document = source;
+        return document == null ? super.isEmpty() : document.isEmpty();
+    }
+
+    @Override
+    public Object get(Object key) {
+        NitriteDocument document = source;
+        return document == null ? super.get(key) : document.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        NitriteDocument document = source;
+        return document == null ? super.containsKey(key) : document.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        NitriteDocument document = source;
+        return document == null ? super.containsValue(value) : document.containsValue(value);
+    }
+
+    @Override
+    public Set<String> keySet() {
+        NitriteDocument document = source;
+        return document == null ? super.keySet() : Collections.unmodifiableSet(document.keySet());
+    }
+
+    @Override
+    public Collection<Object> values() {
+        NitriteDocument document = source;
+        return document == null ? super.values() : Collections.unmodifiableCollection(document.values());
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        NitriteDocument document = source;
+        return document == null ? super.entrySet() : Collections.unmodifiableSet(document.entrySet());
+    }
+
+    @Override
+    public Object getOrDefault(Object key, Object defaultValue) {
+        NitriteDocument document = source;
+        return document == null ? super.getOrDefault(key, defaultValue) : document.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        NitriteDocument document = source;
+        if (document == null) {
+            super.forEach(action);
+        } else {
+            document.forEach(action);
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        copy();
+        return super.remove(key);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> m) {
+        copy();
+        super.putAll(m);
+    }
+
+    @Override
+    public void clear() {
+        copy();
+        super.clear();
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super Object, ?> function) {
+        copy();
+        super.replaceAll(function);
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        copy();
+        return super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        copy();
+        return super.remove(key, value);
+    }
+
+    @Override
+    public boolean replace(String key, Object oldValue, Object newValue) {
+        copy();
+        return super.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public Object replace(String key, Object value) {
+        copy();
+        return super.replace(key, value);
+    }
+
+    @Override
+    public Object computeIfAbsent(String key, Function<? super String, ?> mappingFunction) {
+        copy();
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        copy();
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public Object compute(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        copy();
+        return super.compute(key, remappingFunction);
+    }
+
+    @Override
+    public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        copy();
+        return super.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        NitriteDocument document = source;
+        return document == null ? super.equals(other) : document.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        NitriteDocument document = source;
+        return document == null ? super.hashCode() : document.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        NitriteDocument document = source;
+        return document == null ? super.toString() : document.toString();
+    }
+
+    // a serialized copy is a plain document
+    private Object writeReplace() {
+        return clone();
+    }
+
+    private void copy() {
+        if (source == null) return;
+        synchronized (this) {
+            NitriteDocument document = source;
+            if (document != null) {
+                for (Pair<String, Object> pair : document) {
+                    putRaw(pair.getFirst(), pair.getSecond());
+                }
+                // the fields are visible to the readers which see the null
+                source = null;
+            }
+        }
+    }
+}
@@ -18,14 +18,14 @@ package org.dizitart.no2.collection;
 
 import lombok.Getter;
 import org.dizitart.no2.NitriteConfig;
-import org.dizitart.no2.collection.events.CollectionEventInfo;
+import org.dizitart.no2.collection.events.CollectionEventBus;
 import org.dizitart.no2.collection.events.CollectionEventListener;
 import org.dizitart.no2.collection.meta.Attributes;
 import org.dizitart.no2.collection.operation.CollectionOperations;
 import org.dizitart.no2.common.WriteResult;
+import org.dizitart.no2.common.concurrent.ConcurrencyMode;
 import org.dizitart.no2.common.concurrent.LockService;
-import org.dizitart.no2.common.event.EventBus;
-import org.dizitart.no2.common.event.NitriteEventBus;
+import org.dizitart.no2.common.concurrent.OptimisticReadLock;
 import org.dizitart.no2.exceptions.IndexingException;
 import org.dizitart.no2.exceptions.InvalidOperationException;
 import org.dizitart.no2.exceptions.NitriteIOException;
@@ -37,8 +37,9 @@ import org.dizitart.no2.index.IndexType;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteStore;
 
-import java.util.Collection;
+import java.util.*;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static org.dizitart.no2.collection.UpdateOptions.updateOptions;
 import static org.dizitart.no2.common.util.DocumentUtils.createUniqueFilter;
@@ -58,8 +59,12 @@ class DefaultNitriteCollection implements NitriteCollection {
 
     private Lock writeLock;
     private Lock readLock;
+    // the lock of the document writes, which is shared in striped mode
+    private Lock updateLock;
+    // null, unless the reads of the collection are optimistic
+    private OptimisticReadLock optimisticReadLock;
     private CollectionOperations collectionOperations;
-    private EventBus<CollectionEventInfo<?>, CollectionEventListener> eventBus;
+    private CollectionEventBus eventBus;
 
     @Getter
     private volatile boolean isDropped;
@@ -80,10 +85,24 @@ class DefaultNitriteCollection implements NitriteCollection {
         containsNull(documents, "a null document cannot be inserted");
 
         try {
-            writeLock.lock();
+            updateLock.lock();
             return collectionOperations.insert(documents);
         } finally {
-            writeLock.unlock();
+            unlockWrite(updateLock);
+        }
+    }
+
+    @Override
+    public WriteResult bulkInsert(Document[] documents) {
+        checkOpened();
+        notNull(documents, "a null document cannot be inserted");
+        containsNull(documents, "a null document cannot be inserted");
+
+        try {
+            updateLock.lock();
+            return collectionOperations.bulkInsert(documents);
+        } finally {
+            unlockWrite(updateLock);
         }
     }
 
@@ -108,10 +127,10 @@ class DefaultNitriteCollection implements NitriteCollection {
         notNull(updateOptions, "updateOptions cannot be null");
 
         try {
-            writeLock.lock();
+            updateLock.lock();
             return collectionOperations.update(filter, update, updateOptions);
         } finally {
-            writeLock.unlock();
+            unlockWrite(updateLock);
         }
     }
 
@@ -121,10 +140,10 @@ class DefaultNitriteCollection implements NitriteCollection {
 
         if (document.hasId()) {
             try {
-                writeLock.lock();
+                updateLock.lock();
                 return collectionOperations.remove(document);
             } finally {
-                writeLock.unlock();
+                unlockWrite(updateLock);
             }
         } else {
             throw new NotIdentifiableException("remove operation failed as no id value found for the document");
@@ -138,10 +157,10 @@ class DefaultNitriteCollection implements NitriteCollection {
         }
 
         try {
-            writeLock.lock();
+            updateLock.lock();
             return collectionOperations.remove(filter, justOne);
         } finally {
-            writeLock.unlock();
+            unlockWrite(updateLock);
         }
     }
 
@@ -151,12 +170,16 @@ class DefaultNitriteCollection implements NitriteCollection {
             writeLock.lock();
             nitriteMap.clear();
         } finally {
-            writeLock.unlock();
+            unlockWrite(writeLock);
         }
     }
 
     public DocumentCursor find() {
         checkOpened();
+        if (optimisticReadLock != null) {
+            return optimisticReadLock.read(() -> collectionOperations.find());
+        }
+
         try {
             readLock.lock();
             return collectionOperations.find();
@@ -167,6 +190,9 @@ class DefaultNitriteCollection implements NitriteCollection {
 
     public DocumentCursor find(Filter filter) {
         checkOpened();
+        if (optimisticReadLock != null) {
+            return optimisticReadLock.read(() -> collectionOperations.find(filter));
+        }
 
         try {
             readLock.lock();
@@ -190,7 +216,37 @@ class DefaultNitriteCollection implements NitriteCollection {
                     indexOptions.isAsync());
             }
         } finally {
-            writeLock.unlock();
+            unlockWrite(writeLock);
+        }
+    }
+
+    @Override
+    public void createIndexes(Map<String, IndexOptions> indexes) {
+        checkOpened();
+        notNull(indexes, "indexes cannot be null");
+
+        // by default async is false while creating index
+        Map<String, String> indexTypes = new LinkedHashMap<>();
+        boolean isAsync = !indexes.isEmpty();
+        for (Map.Entry<String, IndexOptions> entry : indexes.entrySet()) {
+            notNull(entry.getKey(), "field cannot be null");
+            IndexOptions indexOptions = entry.getValue();
+            if (indexOptions == null) {
+                indexTypes.put(entry.getKey(), IndexType.Unique);
+                isAsync = false;
+            } else {
+                indexTypes.put(entry.getKey(), indexOptions.getIndexType());
+                isAsync = isAsync && indexOptions.isAsync();
+            }
+        }
+
+        if (indexTypes.isEmpty()) return;
+
+        try {
+            writeLock.lock();
+            collectionOperations.createIndexes(indexTypes, isAsync);
+        } finally {
+            unlockWrite(writeLock);
         }
     }
 
@@ -213,13 +269,47 @@ class DefaultNitriteCollection implements NitriteCollection {
                 writeLock.lock();
                 collectionOperations.rebuildIndex(indexEntry, isAsync);
             } finally {
-                writeLock.unlock();
+                unlockWrite(writeLock);
             }
         } else {
             throw new IndexingException(field + " is not indexed");
         }
     }
 
+    @Override
+    public void rebuildIndexes(boolean isAsync, String... fields) {
+        checkOpened();
+        notNull(fields, "fields cannot be null");
+
+        List<IndexEntry> indexEntries = new ArrayList<>(fields.length);
+        try {
+            readLock.lock();
+            for (String field : fields) {
+                notNull(field, "field cannot be null");
+                IndexEntry indexEntry = collectionOperations.findIndex(field);
+                if (indexEntry == null) {
+                    throw new IndexingException(field + " is not indexed");
+                }
+                indexEntries.add(indexEntry);
+            }
+        } finally {
+            readLock.unlock();
+        }
+
+        if (indexEntries.isEmpty()) return;
+
+        for (IndexEntry indexEntry : indexEntries) {
+            validateRebuildIndex(indexEntry);
+        }
+
+        try {
+            writeLock.lock();
+            collectionOperations.rebuildIndexes(indexEntries, isAsync);
+        } finally {
+            unlockWrite(writeLock);
+        }
+    }
+
     public Collection<IndexEntry> listIndices() {
         checkOpened();
 
@@ -263,7 +353,7 @@ class DefaultNitriteCollection implements NitriteCollection {
             writeLock.lock();
             collectionOperations.dropIndex(field);
         } finally {
-            writeLock.unlock();
+            unlockWrite(writeLock);
         }
     }
 
@@ -274,13 +364,16 @@ class DefaultNitriteCollection implements NitriteCollection {
             writeLock.lock();
             collectionOperations.dropAllIndices();
         } finally {
-            writeLock.unlock();
+            unlockWrite(writeLock);
         }
     }
 
     public Document getById(NitriteId nitriteId) {
         checkOpened();
         notNull(nitriteId, "nitriteId cannot be null");
+        if (optimisticReadLock != null) {
+            return optimisticReadLock.read(() -> collectionOperations.getById(nitriteId));
+        }
 
         try {
             readLock.lock();
@@ -290,6 +383,21 @@ class DefaultNitriteCollection implements NitriteCollection {
         }
     }
 
+    public CollectionSnapshot snapshot() {
+        checkOpened();
+
+        // the maps are captured between two writes, a reader of the snapshot
+        // never waits for the writers afterwards
+        Lock lock = nitriteConfig.getConcurrencyMode() == ConcurrencyMode.Striped
+            ? writeLock : readLock;
+        try {
+            lock.lock();
+            return collectionOperations.openSnapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public void drop() {
         checkOpened();
 
@@ -297,7 +405,7 @@ class DefaultNitriteCollection implements NitriteCollection {
             writeLock.lock();
             collectionOperations.dropCollection();
         } finally {
-            writeLock.unlock();
+            unlockWrite(writeLock);
         }
         isDropped = true;
         close();
@@ -375,7 +483,7 @@ class DefaultNitriteCollection implements NitriteCollection {
             writeLock.lock();
             collectionOperations.setAttributes(attributes);
         } finally {
-            writeLock.unlock();
+            unlockWrite(writeLock);
         }
     }
 
@@ -386,10 +494,31 @@ class DefaultNitriteCollection implements NitriteCollection {
         eventBus = null;
     }
 
+    private void unlockWrite(Lock lock) {
+        if (optimisticReadLock != null) {
+            // the optimistic reads which overlapped this write must run again
+            optimisticReadLock.invalidate();
+        }
+        lock.unlock();
+
+        // a slow listener slows the writer down, but never while it holds the lock
+        CollectionEventBus bus = eventBus;
+        boolean held = lock instanceof ReentrantReadWriteLock.WriteLock
+            && ((ReentrantReadWriteLock.WriteLock) lock).isHeldByCurrentThread();
+        if (bus != null && !held) {
+            bus.awaitListeners();
+        }
+    }
+
     private void initialize() {
         this.isDropped = false;
         this.readLock = lockService.getReadLock(collectionName);
         this.writeLock = lockService.getWriteLock(collectionName);
+        this.updateLock = nitriteConfig.getConcurrencyMode() == ConcurrencyMode.Striped
+            ? readLock : writeLock;
+        this.optimisticReadLock = nitriteConfig.isOptimisticReads()
+            && nitriteConfig.getConcurrencyMode() == ConcurrencyMode.Exclusive
+            ? lockService.getOptimisticReadLock(collectionName) : null;
         this.nitriteStore = nitriteConfig.getNitriteStore();
         this.eventBus = new CollectionEventBus();
         this.collectionOperations = new CollectionOperations(collectionName, nitriteMap, nitriteConfig, eventBus);
@@ -414,13 +543,4 @@ class DefaultNitriteCollection implements NitriteCollection {
             throw new IndexingException("indexing on value " + indexEntry.getField() + " is currently running");
         }
     }
-
-    private static class CollectionEventBus extends NitriteEventBus<CollectionEventInfo<?>, CollectionEventListener> {
-
-        public void post(CollectionEventInfo<?> collectionEventInfo) {
-            for (final CollectionEventListener listener : getListeners()) {
-                getEventExecutor().submit(() -> listener.onEvent(collectionEventInfo));
-            }
-        }
-    }
 }
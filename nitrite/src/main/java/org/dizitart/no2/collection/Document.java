@@ -61,6 +61,37 @@ public interface Document extends Iterable<Pair<String, Object>>, Cloneable, Ser
 
     Document clone();
 
+    /**
+     * Makes the document read-only. A frozen document cannot be changed,
+     * and its {@link #clone()} is a changeable copy of it. An implementation
+     * which cannot be read-only returns itself unchanged.
+     *
+     * @return the frozen document.
+     */
+    default Document freeze() {
+        return this;
+    }
+
+    /**
+     * Checks if the document is read-only.
+     *
+     * @return `true` if the document is frozen; otherwise, `false`.
+     */
+    default boolean isFrozen() {
+        return false;
+    }
+
+    /**
+     * Gets a changeable copy of the document which is made lazily. The copy
+     * of a frozen document reads the frozen document until its first change,
+     * which copies the fields. Any other document is cloned at once.
+     *
+     * @return the copy of the document.
+     */
+    default Document copyOnWrite() {
+        return clone();
+    }
+
     int size();
 
     Document merge(Document update);
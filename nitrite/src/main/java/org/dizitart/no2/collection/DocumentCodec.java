@@ -0,0 +1,746 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.collection;
+
+import org.dizitart.no2.NitriteConfig;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.exceptions.NitriteIOException;
+import org.dizitart.no2.store.FieldDictionary;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A compact binary form of a {@link Document}, shared by the store modules.
+ *
+ * <p>
+ * A record starts with the {@link #MARKER} byte followed by the number of
+ * fields and the fields themselves. A field name is written as its id in
+ * the {@link FieldDictionary} of the store when it has one, inline
+ * otherwise. A value is written as a one byte tag followed by its data,
+ * integers as variable length numbers. Strings, embedded documents and
+ * lists carry their length in bytes, so that a reader can skip them.
+ * A value of any other type is written by the fallback {@link ValueSerializer},
+ * java serialization by default.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+public class DocumentCodec {
+    /**
+     * The first byte of a document written by the codec. It is not used
+     * by the object data types of the stores, so a store can tell a
+     * record of the codec from a record of an older format.
+     */
+    public static final byte MARKER = (byte) 0xD0;
+
+    static final byte NULL = 0;
+    static final byte TRUE = 1;
+    static final byte FALSE = 2;
+    static final byte INT = 3;
+    static final byte LONG = 4;
+    static final byte DOUBLE = 5;
+    static final byte FLOAT = 6;
+    static final byte STRING = 7;
+    static final byte DOCUMENT = 8;
+    static final byte LIST = 9;
+    static final byte BYTES = 10;
+    static final byte SHORT = 11;
+    static final byte BYTE = 12;
+    static final byte CHAR = 13;
+    static final byte DATE = 14;
+    static final byte NITRITE_ID = 15;
+    static final byte SERIALIZED = 16;
+
+    // the result of a lookup of a field which is not in the document
+    static final Object ABSENT = new Object();
+
+    private final FieldDictionary dictionary;
+    private final ValueSerializer valueSerializer;
+
+    /**
+     * Instantiates a new {@link DocumentCodec} which writes the values of
+     * other types with java serialization.
+     *
+     * @param dictionary the field dictionary of the store, or `null`
+     */
+    public DocumentCodec(FieldDictionary dictionary) {
+        this(dictionary, JavaValueSerializer.INSTANCE);
+    }
+
+    /**
+     * Instantiates a new {@link DocumentCodec}.
+     *
+     * @param dictionary      the field dictionary of the store, or `null`
+     * @param valueSerializer the serializer of the values of other types
+     */
+    public DocumentCodec(FieldDictionary dictionary, ValueSerializer valueSerializer) {
+        this.dictionary = dictionary;
+        this.valueSerializer = valueSerializer;
+    }
+
+    /**
+     * Checks if a record is written by the codec.
+     *
+     * @param bytes the record
+     * @return `true` if the record starts with the marker byte
+     */
+    public static boolean isEncoded(byte[] bytes) {
+        return bytes != null && bytes.length > 0 && bytes[0] == MARKER;
+    }
+
+    /**
+     * Encodes a document.
+     *
+     * @param document the document
+     * @return the encoded bytes
+     */
+    public byte[] encode(Document document) {
+        if (document instanceof LazyDocument) {
+            // a document read by this codec and not modified since
+            byte[] encoded = ((LazyDocument) document).getEncoded(this);
+            if (encoded != null) return encoded;
+        }
+
+        Output output = new Output(256);
+        output.writeByte(MARKER);
+        writeFields(output, document);
+        return output.toByteArray();
+    }
+
+    /**
+     * Decodes a document.
+     *
+     * @param bytes the encoded bytes
+     * @return the document
+     */
+    public Document decode(byte[] bytes) {
+        return decode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Decodes a document from a part of an array.
+     *
+     * @param bytes  the array
+     * @param offset the offset of the encoded document
+     * @param length the length of the encoded document
+     * @return the document
+     */
+    public Document decode(byte[] bytes, int offset, int length) {
+        Input input = new Input(bytes, offset, offset + length);
+        readMarker(input);
+        return readFields(input);
+    }
+
+    /**
+     * Decodes a document lazily. The returned document keeps the bytes and
+     * decodes a field when it is looked up, and all the fields only when
+     * it is used otherwise. The bytes must not be modified afterwards.
+     *
+     * @param bytes the encoded bytes
+     * @return the document
+     */
+    public Document decodeLazily(byte[] bytes) {
+        return decodeLazily(bytes, false);
+    }
+
+    /**
+     * Decodes a document lazily. A shared document is frozen, as a store
+     * which caches the documents it reads hands the same one to all its
+     * readers, a clone of it can be modified.
+     *
+     * @param bytes  the encoded bytes
+     * @param shared if the document is shared by the readers
+     * @return the document
+     */
+    public Document decodeLazily(byte[] bytes, boolean shared) {
+        if (!isEncoded(bytes)) {
+            throw new NitriteIOException("not an encoded document");
+        }
+        return new LazyDocument(this, bytes, shared);
+    }
+
+    /**
+     * Gets the length of the binary form kept by a lazily decoded document,
+     * or `-1` if the document is decoded or not read by a codec.
+     *
+     * @param document the document
+     * @return the length of the encoded bytes
+     */
+    public static int getEncodedLength(Document document) {
+        if (document instanceof LazyDocument) {
+            byte[] encoded = ((LazyDocument) document).getEncoded();
+            return encoded == null ? -1 : encoded.length;
+        }
+        return -1;
+    }
+
+    // decodes the value of a top level field, or ABSENT if there is no such field
+    Object readField(byte[] bytes, String name) {
+        Input input = new Input(bytes, 0, bytes.length);
+        readMarker(input);
+
+        int id = dictionary == null ? -1 : dictionary.getId(name);
+        int count = input.readVarInt();
+        for (int i = 0; i < count; i++) {
+            int ref = input.readVarInt();
+            boolean found = ref == 0 ? name.equals(input.readString()) : ref - 1 == id;
+            if (found) {
+                return readValue(input);
+            }
+            skipValue(input);
+        }
+        return ABSENT;
+    }
+
+    void readFields(byte[] bytes, NitriteDocument document) {
+        Input input = new Input(bytes, 0, bytes.length);
+        readMarker(input);
+        readFields(input, document);
+    }
+
+    // the number of top level fields
+    int readFieldCount(byte[] bytes) {
+        Input input = new Input(bytes, 0, bytes.length);
+        readMarker(input);
+        return input.readVarInt();
+    }
+
+    // adds the fields as Document.getFields() lists them, only a value of a
+    // type unknown to the codec is decoded to tell if it is iterable
+    void readFieldNames(byte[] bytes, Collection<String> reserved, Set<String> fields) {
+        Input input = new Input(bytes, 0, bytes.length);
+        readMarker(input);
+        readFieldNames(input, null, reserved, fields);
+    }
+
+    private void readFieldNames(Input input, String prefix,
+                                Collection<String> reserved, Set<String> fields) {
+        int count = input.readVarInt();
+        for (int i = 0; i < count; i++) {
+            String name = readName(input);
+            if (reserved.contains(name)) {
+                skipValue(input);
+                continue;
+            }
+
+            String field = prefix == null ? name : prefix + NitriteConfig.getFieldSeparator() + name;
+            byte tag = input.peekByte();
+            if (tag == DOCUMENT) {
+                input.readByte();
+                input.readLength();
+                readFieldNames(input, field, reserved, fields);
+            } else if (tag == LIST) {
+                skipValue(input);
+            } else if (tag == SERIALIZED) {
+                if (!(readValue(input) instanceof Iterable)) {
+                    fields.add(field);
+                }
+            } else {
+                skipValue(input);
+                fields.add(field);
+            }
+        }
+    }
+
+    private void readMarker(Input input) {
+        if (input.readByte() != MARKER) {
+            throw new NitriteIOException("not an encoded document");
+        }
+    }
+
+    private void writeFields(Output output, Document document) {
+        // top level fields only, getFields() also lists the embedded ones
+        int count = 0;
+        if (document instanceof NitriteDocument) {
+            count = ((NitriteDocument) document).size();
+        } else {
+            for (Pair<String, Object> ignored : document) {
+                count++;
+            }
+        }
+
+        output.writeVarInt(count);
+        for (Pair<String, Object> pair : document) {
+            writeName(output, pair.getFirst());
+            writeValue(output, pair.getSecond());
+        }
+    }
+
+    private void writeName(Output output, String name) {
+        int id = dictionary == null ? -1 : dictionary.getId(name);
+        output.writeVarInt(id + 1);
+        if (id < 0) {
+            output.writeString(name);
+        }
+    }
+
+    private void writeValue(Output output, Object value) {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof String) {
+            output.writeByte(STRING);
+            output.writeString((String) value);
+        } else if (value instanceof Integer) {
+            output.writeByte(INT);
+            output.writeVarInt(zigzag((Integer) value));
+        } else if (value instanceof Long) {
+            output.writeByte(LONG);
+            output.writeVarLong(zigzag((Long) value));
+        } else if (value instanceof Boolean) {
+            output.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Double) {
+            output.writeByte(DOUBLE);
+            output.writeLong(Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof Document) {
+            output.writeByte(DOCUMENT);
+            int start = output.reserveLength();
+            writeFields(output, (Document) value);
+            output.fillLength(start);
+        } else if (value.getClass() == ArrayList.class) {
+            List<?> list = (List<?>) value;
+            output.writeByte(LIST);
+            int start = output.reserveLength();
+            output.writeVarInt(list.size());
+            for (Object item : list) {
+                writeValue(output, item);
+            }
+            output.fillLength(start);
+        } else if (value instanceof NitriteId) {
+            output.writeByte(NITRITE_ID);
+            output.writeLong(((NitriteId) value).getLongValue());
+        } else if (value instanceof Float) {
+            output.writeByte(FLOAT);
+            output.writeInt(Float.floatToRawIntBits((Float) value));
+        } else if (value instanceof Short) {
+            output.writeByte(SHORT);
+            output.writeVarInt(zigzag((Short) value));
+        } else if (value instanceof Byte) {
+            output.writeByte(BYTE);
+            output.writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            output.writeByte(CHAR);
+            output.writeVarInt((Character) value);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            output.writeByte(BYTES);
+            output.writeVarInt(bytes.length);
+            output.writeBytes(bytes, 0, bytes.length);
+        } else if (value.getClass() == Date.class) {
+            output.writeByte(DATE);
+            output.writeVarLong(zigzag(((Date) value).getTime()));
+        } else {
+            byte[] bytes = valueSerializer.write(value);
+            output.writeByte(SERIALIZED);
+            output.writeVarInt(bytes.length);
+            output.writeBytes(bytes, 0, bytes.length);
+        }
+    }
+
+    private Document readFields(Input input) {
+        NitriteDocument document = new NitriteDocument();
+        readFields(input, document);
+        return document;
+    }
+
+    private void readFields(Input input, NitriteDocument document) {
+        int count = input.readVarInt();
+        for (int i = 0; i < count; i++) {
+            String name = readName(input);
+            document.putRaw(name, readValue(input));
+        }
+    }
+
+    String readName(Input input) {
+        int ref = input.readVarInt();
+        if (ref == 0) {
+            return input.readString();
+        }
+
+        String name = dictionary == null ? null : dictionary.getName(ref - 1);
+        if (name == null) {
+            throw new NitriteIOException("unknown field id " + (ref - 1) + " in document");
+        }
+        return name;
+    }
+
+    Object readValue(Input input) {
+        byte tag = input.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INT:
+                return unzigzag(input.readVarInt());
+            case LONG:
+                return unzigzag(input.readVarLong());
+            case DOUBLE:
+                return Double.longBitsToDouble(input.readLong());
+            case FLOAT:
+                return Float.intBitsToFloat(input.readInt());
+            case STRING:
+                return input.readString();
+            case DOCUMENT:
+                input.readLength();
+                return readFields(input);
+            case LIST:
+                input.readLength();
+                int size = input.readVarInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(input));
+                }
+                return list;
+            case BYTES:
+                return input.readBytes(input.readVarInt());
+            case SHORT:
+                return (short) unzigzag(input.readVarInt());
+            case BYTE:
+                return input.readByte();
+            case CHAR:
+                return (char) input.readVarInt();
+            case DATE:
+                return new Date(unzigzag(input.readVarLong()));
+            case NITRITE_ID:
+                return NitriteId.createId(input.readLong());
+            case SERIALIZED:
+                return valueSerializer.read(input.readBytes(input.readVarInt()));
+            default:
+                throw new NitriteIOException("unknown value tag " + tag + " in document");
+        }
+    }
+
+    void skipValue(Input input) {
+        byte tag = input.readByte();
+        switch (tag) {
+            case NULL:
+            case TRUE:
+            case FALSE:
+                return;
+            case INT:
+            case SHORT:
+            case CHAR:
+                input.readVarInt();
+                return;
+            case LONG:
+            case DATE:
+                input.readVarLong();
+                return;
+            case DOUBLE:
+            case NITRITE_ID:
+                input.skip(8);
+                return;
+            case FLOAT:
+                input.skip(4);
+                return;
+            case BYTE:
+                input.skip(1);
+                return;
+            case STRING:
+            case BYTES:
+            case SERIALIZED:
+                input.skip(input.readVarInt());
+                return;
+            case DOCUMENT:
+            case LIST:
+                input.skip(input.readLength());
+                return;
+            default:
+                throw new NitriteIOException("unknown value tag " + tag + " in document");
+        }
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes and reads the values of the types the codec does not know.
+     *
+     * @author Anindya Chatterjee
+     * @since 4.0
+     */
+    public interface ValueSerializer {
+        /**
+         * Writes a value.
+         *
+         * @param value the value
+         * @return the bytes
+         */
+        byte[] write(Object value);
+
+        /**
+         * Reads a value.
+         *
+         * @param bytes the bytes
+         * @return the value
+         */
+        Object read(byte[] bytes);
+    }
+
+    private static class JavaValueSerializer implements ValueSerializer {
+        private static final JavaValueSerializer INSTANCE = new JavaValueSerializer();
+
+        @Override
+        public byte[] write(Object value) {
+            if (!(value instanceof Serializable)) {
+                throw new NitriteIOException(value.getClass().getName() + " is not serializable");
+            }
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+                oos.writeObject(value);
+            } catch (IOException e) {
+                throw new NitriteIOException("failed to write " + value.getClass().getName(), e);
+            }
+            return bos.toByteArray();
+        }
+
+        @Override
+        public Object read(byte[] bytes) {
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                return ois.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                throw new NitriteIOException("failed to read a value of the document", e);
+            }
+        }
+    }
+
+    static class Output {
+        private byte[] buffer;
+        private int position;
+
+        Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, buffer, position, length);
+            position += length;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            buffer[position++] = (byte) (value >>> 24);
+            buffer[position++] = (byte) (value >>> 16);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        // modified utf-8 as in DataOutput, which keeps unpaired surrogates,
+        // prefixed by the number of bytes
+        void writeString(String value) {
+            int length = value.length();
+            int byteCount = length;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c == 0 || c >= 0x80) {
+                    byteCount += c >= 0x800 ? 2 : 1;
+                }
+            }
+
+            writeVarInt(byteCount);
+            ensure(byteCount);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c != 0 && c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else if (c >= 0x800) {
+                    buffer[position++] = (byte) (0xE0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else {
+                    buffer[position++] = (byte) (0xC0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        int reserveLength() {
+            ensure(4);
+            position += 4;
+            return position;
+        }
+
+        void fillLength(int start) {
+            int length = position - start;
+            buffer[start - 4] = (byte) (length >>> 24);
+            buffer[start - 3] = (byte) (length >>> 16);
+            buffer[start - 2] = (byte) (length >>> 8);
+            buffer[start - 1] = (byte) length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+    }
+
+    static class Input {
+        private final byte[] buffer;
+        private final int limit;
+        private int position;
+
+        Input(byte[] buffer, int offset, int limit) {
+            this.buffer = buffer;
+            this.position = offset;
+            this.limit = limit;
+        }
+
+        byte readByte() {
+            check(1);
+            return buffer[position++];
+        }
+
+        byte peekByte() {
+            check(1);
+            return buffer[position];
+        }
+
+        byte[] readBytes(int length) {
+            check(length);
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        int readInt() {
+            check(4);
+            int value = ((buffer[position] & 0xFF) << 24)
+                | ((buffer[position + 1] & 0xFF) << 16)
+                | ((buffer[position + 2] & 0xFF) << 8)
+                | (buffer[position + 3] & 0xFF);
+            position += 4;
+            return value;
+        }
+
+        long readLong() {
+            long high = readInt();
+            long low = readInt() & 0xFFFFFFFFL;
+            return (high << 32) | low;
+        }
+
+        int readLength() {
+            return readInt();
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw new NitriteIOException("malformed number in document");
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw new NitriteIOException("malformed number in document");
+        }
+
+        String readString() {
+            int byteCount = readVarInt();
+            check(byteCount);
+            int end = position + byteCount;
+            char[] chars = new char[byteCount];
+            int count = 0;
+            while (position < end) {
+                int b = buffer[position++] & 0xFF;
+                if (b < 0x80) {
+                    chars[count++] = (char) b;
+                } else if (b < 0xE0) {
+                    chars[count++] = (char) (((b & 0x1F) << 6) | (buffer[position++] & 0x3F));
+                } else {
+                    chars[count++] = (char) (((b & 0x0F) << 12)
+                        | ((buffer[position++] & 0x3F) << 6)
+                        | (buffer[position++] & 0x3F));
+                }
+            }
+            return new String(chars, 0, count);
+        }
+
+        void skip(int length) {
+            check(length);
+            position += length;
+        }
+
+        boolean hasRemaining() {
+            return position < limit;
+        }
+
+        private void check(int length) {
+            if (length < 0 || position + length > limit) {
+                throw new NitriteIOException("truncated document");
+            }
+        }
+    }
+}
@@ -20,6 +20,8 @@ import org.dizitart.no2.common.Lookup;
 import org.dizitart.no2.common.NullOrder;
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.common.SortableFields;
+import org.dizitart.no2.common.util.Iterables;
 
 import java.text.Collator;
 
@@ -52,7 +54,15 @@ import java.text.Collator;
  */
 public interface DocumentCursor extends RecordStream<Document> {
 
-    DocumentCursor sort(String field, SortOrder sortOrder, Collator collator, NullOrder nullOrder);
+    /**
+     * Sorts the documents by multiple fields in a single pass. Each field
+     * has its own sort order, collator and `null` placement.
+     *
+     * @param sortableFields the fields to sort on.
+     * @return the sorted cursor.
+     * @see SortableFields
+     */
+    DocumentCursor sort(SortableFields sortableFields);
 
     DocumentCursor skipLimit(long skip, long size);
 
@@ -78,6 +88,15 @@ public interface DocumentCursor extends RecordStream<Document> {
      */
     RecordStream<Document> join(DocumentCursor foreignCursor, Lookup lookup);
 
+    /**
+     * Gets the plan chosen by the query planner to find the documents
+     * of this cursor.
+     *
+     * @return the query plan.
+     * @see QueryPlan
+     */
+    QueryPlan explain();
+
     default DocumentCursor skip(long skip) {
         return skipLimit(skip, size());
     }
@@ -86,6 +105,27 @@ public interface DocumentCursor extends RecordStream<Document> {
         return skipLimit(0, limit);
     }
 
+    /**
+     * Gets the first document of the result or `null` if it is empty. A
+     * sorted cursor only looks for its first document, so it does not
+     * leave a half read sort behind.
+     *
+     * @return the first document or `null`
+     */
+    @Override
+    default Document firstOrNull() {
+        return Iterables.firstOrNull(limit(1));
+    }
+
+    @Override
+    default boolean isEmpty() {
+        return !limit(1).iterator().hasNext();
+    }
+
+    default DocumentCursor sort(String field, SortOrder sortOrder, Collator collator, NullOrder nullOrder) {
+        return sort(SortableFields.orderBy(field, sortOrder, collator, nullOrder));
+    }
+
     default DocumentCursor sort(String field) {
         return sort(field, SortOrder.Ascending);
     }
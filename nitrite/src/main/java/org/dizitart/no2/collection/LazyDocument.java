@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.collection;
+
+import org.dizitart.no2.NitriteConfig;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.exceptions.InvalidOperationException;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.dizitart.no2.common.Constants.DOC_ID;
+
+/**
+ * A document read from a store which keeps its binary form until it is
+ * needed as a whole. A lookup of a field by {@link #get(String)} or
+ * {@link #containsKey(String)} decodes only that field, and so does
+ * {@link #getId()}. {@link #size()} and {@link #getFields()} read the field
+ * names without the values, any other operation decodes all the fields.
+ *
+ * <p>
+ * A filter over a full scan touches a few fields of every document, so
+ * only the documents which reach the cursor are decoded completely.
+ *
+ * <p>
+ * A document shared by the readers of a store is frozen and never changes,
+ * it is held by the cache of the store, which sizes it by its bytes. An
+ * operation on all its fields decodes them into a new document, and a clone
+ * of it is that new document. Any other lazy document can be modified, it
+ * decodes the fields into itself once, and so does a lookup of a field
+ * holding a document, a collection or any other mutable value.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+class LazyDocument extends NitriteDocument {
+    private static final long serialVersionUID = 1603022741L;
+
+    private final transient DocumentCodec codec;
+    private final transient boolean shared;
+    // null once the fields are decoded into the map, never for a shared document
+    private transient volatile byte[] encoded;
+
+    LazyDocument(DocumentCodec codec, byte[] encoded, boolean shared) {
+        super(16);
+        this.codec = codec;
+        this.encoded = encoded;
+        this.shared = shared;
+        if (shared) {
+            // like any other stored document, it is shared by the readers
+            freeze();
+        }
+    }
+
+    /**
+     * Gets the binary form of the document if it has not been decoded,
+     * and so is not modified, `null` otherwise.
+     */
+    byte[] getEncoded(DocumentCodec owner) {
+        return owner == codec ? encoded : null;
+    }
+
+    byte[] getEncoded() {
+        return encoded;
+    }
+
+    @Override
+    public Object get(String key) {
+        byte[] bytes = encoded;
+        // an embedded field is looked up through its top level field
+        if (bytes == null || key == null || key.contains(NitriteConfig.getFieldSeparator())) {
+            return super.get(key);
+        }
+
+        Object value = codec.readField(bytes, key);
+        if (!shared && isMutable(value)) {
+            // a change to the value must be seen by the document
+            decode();
+            return super.get(key);
+        }
+        return value == DocumentCodec.ABSENT ? null : value;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        byte[] bytes = encoded;
+        if (bytes == null) return super.containsKey(key);
+        return key != null && codec.readField(bytes, key) != DocumentCodec.ABSENT;
+    }
+
+    @Override
+    public boolean hasId() {
+        return containsKey(DOC_ID);
+    }
+
+    @Override
+    public Document put(String key, Object value) {
+        beforeWrite();
+        return super.put(key, value);
+    }
+
+    @Override
+    public void remove(String key) {
+        beforeWrite();
+        super.remove(key);
+    }
+
+    @Override
+    public Document merge(Document document) {
+        beforeWrite();
+        return super.merge(document);
+    }
+
+    @Override
+    public NitriteId getId() {
+        byte[] bytes = encoded;
+        if (bytes != null) {
+            Object id = codec.readField(bytes, DOC_ID);
+            if (id instanceof String) {
+                return NitriteId.createId((String) id);
+            }
+        }
+
+        // a missing or an invalid id is handled as by any other document
+        NitriteDocument copy = decodeCopy();
+        return copy == null ? super.getId() : copy.getId();
+    }
+
+    @Override
+    public Set<String> getFields() {
+        byte[] bytes = encoded;
+        if (bytes == null) return super.getFields();
+
+        Set<String> fields = new HashSet<>();
+        codec.readFieldNames(bytes, reservedFields, fields);
+        return fields;
+    }
+
+    @Override
+    public Document clone() {
+        NitriteDocument copy = decodeCopy();
+        // the copy is already a new document
+        return copy == null ? super.clone() : copy;
+    }
+
+    @Override
+    public Iterator<Pair<String, Object>> iterator() {
+        NitriteDocument copy = decodeCopy();
+        return copy == null ? super.iterator() : copy.iterator();
+    }
+
+    @Override
+    public int size() {
+        byte[] bytes = encoded;
+        return bytes == null ? super.size() : codec.readFieldCount(bytes);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        NitriteDocument copy = decodeCopy();
+        return copy == null ? super.get(key) : copy.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        NitriteDocument copy = decodeCopy();
+        return copy == null ? super.containsKey(key) : copy.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        NitriteDocument copy = decodeCopy();
+        return copy == null ? super.containsValue(value) : copy.containsValue(value);
+    }
+
+    @Override
+    public Set<String> keySet() {
+        NitriteDocument copy = decodeCopy();
+        return copy == null ? super.keySet() : Collections.unmodifiableSet(copy.keySet());
+    }
+
+    @Override
+    public Collection<Object> values() {
+        NitriteDocument copy = decodeCopy();
+        return copy == null ? super.values() : Collections.unmodifiableCollection(copy.values());
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        NitriteDocument copy = decodeCopy();
+        return copy == null ? super.entrySet() : Collections.unmodifiableSet(copy.entrySet());
+    }
+
+    @Override
+    public Object getOrDefault(Object key, Object defaultValue) {
+        NitriteDocument copy = decodeCopy();
+        return copy == null ? super.getOrDefault(key, defaultValue) : copy.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        NitriteDocument copy = decodeCopy();
+        if (copy == null) {
+            super.forEach(action);
+        } else {
+            copy.forEach(action);
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        beforeWrite();
+        return super.remove(key);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> m) {
+        beforeWrite();
+        super.putAll(m);
+    }
+
+    @Override
+    public void clear() {
+        beforeWrite();
+        super.clear();
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super Object, ?> function) {
+        beforeWrite();
+        super.replaceAll(function);
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        beforeWrite();
+        return super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        beforeWrite();
+        return super.remove(key, value);
+    }
+
+    @Override
+    public boolean replace(String key, Object oldValue, Object newValue) {
+        beforeWrite();
+        return super.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public Object replace(String key, Object value) {
+        beforeWrite();
+        return super.replace(key, value);
+    }
+
+    @Override
+    public Object computeIfAbsent(String key, Function<? super String, ?> mappingFunction) {
+        beforeWrite();
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        beforeWrite();
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public Object compute(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        beforeWrite();
+        return super.compute(key, remappingFunction);
+    }
+
+    @Override
+    public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        beforeWrite();
+        return super.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        NitriteDocument copy = decodeCopy();
+        return copy == null ? super.equals(other) : copy.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        NitriteDocument copy = decodeCopy();
+        return copy == null ? super.hashCode() : copy.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        NitriteDocument copy = decodeCopy();
+        return copy == null ? super.toString() : copy.toString();
+    }
+
+    // a serialized copy is a plain document
+    private Object writeReplace() {
+        return clone();
+    }
+
+    private static boolean isMutable(Object value) {
+        return value instanceof Map || value instanceof Collection
+            || value instanceof byte[] || value instanceof Date;
+    }
+
+    // decodes the fields of a shared document into a new document, any other
+    // document decodes them into itself and null is returned
+    private NitriteDocument decodeCopy() {
+        if (shared) {
+            NitriteDocument copy = new NitriteDocument(16);
+            codec.readFields(encoded, copy);
+            return copy;
+        }
+        decode();
+        return null;
+    }
+
+    private void beforeWrite() {
+        if (shared) {
+            throw new InvalidOperationException("document is read-only, modify a clone of it instead");
+        }
+        decode();
+    }
+
+    private void decode() {
+        if (encoded == null) return;
+        synchronized (this) {
+            byte[] bytes = encoded;
+            if (bytes != null) {
+                codec.readFields(bytes, this);
+                // the fields are visible to the readers which see the null
+                encoded = null;
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ import org.dizitart.no2.collection.events.EventType;
 import org.dizitart.no2.common.PersistentCollection;
 import org.dizitart.no2.common.WriteResult;
 import org.dizitart.no2.common.event.EventBus;
+import org.dizitart.no2.exceptions.InvalidOperationException;
 import org.dizitart.no2.exceptions.InvalidIdException;
 import org.dizitart.no2.exceptions.UniqueConstraintException;
 import org.dizitart.no2.exceptions.ValidationException;
@@ -109,6 +110,35 @@ public interface NitriteCollection extends PersistentCollection<Document> {
         return insert(documentList.toArray(new Document[0]));
     }
 
+    /**
+     * Inserts a batch of documents into the collection in one go.
+     * <p>
+     * Unlike {@link #insert(Object[])}, the whole batch is validated before
+     * any document is written and nothing is inserted if any of the ids or
+     * unique index values clash. The documents are handed to the store as a
+     * single batch, every index key is updated only once for the whole batch
+     * and a store which commits on its own is committed once the batch is
+     * written. Otherwise the batch is persisted on {@link org.dizitart.no2.Nitrite#commit()}.
+     * <p>
+     * [icon="{@docRoot}/note.png"]
+     * NOTE: This operation will notify all {@link CollectionEventListener}
+     * instances registered to this collection with change type
+     * {@link EventType#Insert} for each inserted document, as
+     * {@link #insert(Object[])} does.
+     *
+     * @param documents the documents to insert.
+     * @return the result of write operation.
+     * @throws ValidationException       if `documents` is `null` or contains `null`.
+     * @throws UniqueConstraintException if the '_id' of a document clashes with the id
+     *                                   of another document in the collection or the batch.
+     * @throws UniqueConstraintException if a value of a document is indexed and it
+     *                                   violates the unique constraint in the collection(if any).
+     * @see #insert(Object[])
+     */
+    default WriteResult bulkInsert(Document[] documents) {
+        return insert(documents);
+    }
+
     /**
      * Update documents in the collection.
      * <p>
@@ -220,6 +250,23 @@ public interface NitriteCollection extends PersistentCollection<Document> {
      */
     Document getById(NitriteId nitriteId);
 
+    /**
+     * Opens a read-only snapshot of the collection and its indexes. The
+     * cursors of the snapshot see the collection as it was when the
+     * snapshot was opened, and they do not take the lock of the collection.
+     * <p>
+     * [icon="{@docRoot}/note.png"]
+     * NOTE: A snapshot must be closed after use, as it holds on to old
+     * versions of the collection in the store.
+     *
+     * @return the snapshot of the collection.
+     * @throws InvalidOperationException if the store does not support snapshots.
+     * @see CollectionSnapshot
+     */
+    default CollectionSnapshot snapshot() {
+        throw new InvalidOperationException("snapshot reads are not supported by " + getName());
+    }
+
     /**
      * Returns the name of the {@link NitriteCollection}.
      *
@@ -42,9 +42,13 @@ import static org.dizitart.no2.common.util.ValidationUtils.notNull;
  */
 class NitriteDocument extends LinkedHashMap<String, Object> implements Document {
     private static final long serialVersionUID = 1477462374L;
-    private static final List<String> reservedFields = listOf(DOC_ID, DOC_REVISION, DOC_SOURCE, DOC_MODIFIED);
+    static final List<String> reservedFields = listOf(DOC_ID, DOC_REVISION, DOC_SOURCE, DOC_MODIFIED);
 //    private final String regex = MessageFormat.format("\\{0}", NitriteConfig.getFieldSeparator());
 
+    // a frozen document is shared by the store, the events and the index
+    // maintenance instead of being copied for each of them
+    private transient boolean frozen;
+
     NitriteDocument() {
         super();
     }
@@ -53,8 +57,13 @@ class NitriteDocument extends LinkedHashMap<String, Object> implements Document
         super(objectMap);
     }
 
+    NitriteDocument(int initialCapacity) {
+        super(initialCapacity);
+    }
+
     @Override
     public Document put(String key, Object value) {
+        checkFrozen();
         if (isNullOrEmpty(key)) {
             throw new InvalidOperationException("document does not support empty or null key");
         }
@@ -122,6 +131,7 @@ class NitriteDocument extends LinkedHashMap<String, Object> implements Document
 
     @Override
     public void remove(String key) {
+        checkFrozen();
         if (key.contains(NitriteConfig.getFieldSeparator())) {
             String regex = MessageFormat.format("\\{0}", NitriteConfig.getFieldSeparator());
             String[] splits = key.split(regex);
@@ -138,8 +148,25 @@ class NitriteDocument extends LinkedHashMap<String, Object> implements Document
         return new NitriteDocument(clone);
     }
 
+    @Override
+    public Document freeze() {
+        frozen = true;
+        return this;
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    @Override
+    public Document copyOnWrite() {
+        return frozen ? new CopyOnWriteDocument(this) : clone();
+    }
+
     @Override
     public Document merge(Document document) {
+        checkFrozen();
         if (document instanceof NitriteDocument) {
             super.putAll((NitriteDocument) document);
         }
@@ -188,6 +215,17 @@ class NitriteDocument extends LinkedHashMap<String, Object> implements Document
         return new PairIterator(super.entrySet().iterator());
     }
 
+    // puts a decoded field as it is, the field was validated when it was written
+    void putRaw(String key, Object value) {
+        super.put(key, value);
+    }
+
+    private void checkFrozen() {
+        if (frozen) {
+            throw new InvalidOperationException("document is read-only, modify a clone of it instead");
+        }
+    }
+
     private Set<String> getFieldsInternal(String prefix) {
         Set<String> fields = new HashSet<>();
 
@@ -19,10 +19,8 @@ package org.dizitart.no2.collection;
 import lombok.EqualsAndHashCode;
 import org.dizitart.no2.exceptions.InvalidIdException;
 
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 
 import static org.dizitart.no2.common.Constants.ID_PREFIX;
 import static org.dizitart.no2.common.Constants.ID_SUFFIX;
@@ -43,15 +41,20 @@ import static org.dizitart.no2.common.Constants.ID_SUFFIX;
 @EqualsAndHashCode
 public final class NitriteId implements Comparable<NitriteId>, Serializable {
     private static final long serialVersionUID = 1477462375L;
+    // the id is written by writeObject, the field is not part of the stream
+    private static final ObjectStreamField[] serialPersistentFields = {};
+    // an older version wrote the id as a string, whose two byte length
+    // can never be this marker of the long form
+    private static final short LONG_FORM = -1;
     private transient static final SnowflakeIdGenerator generator = new SnowflakeIdGenerator();
 
-    private String idValue;
+    private long idValue;
 
     private NitriteId() {
-        this.idValue = Long.toString(generator.getId());
+        this.idValue = generator.getId();
     }
 
-    private NitriteId(String value) {
+    private NitriteId(long value) {
         this.idValue = value;
     }
 
@@ -65,59 +68,92 @@ public final class NitriteId implements Comparable<NitriteId>, Serializable {
     }
 
     /**
-     * Creates a {@link NitriteId} from a long value.
+     * Creates a {@link NitriteId} from the string representation of a long value.
      *
      * @param value the value
      * @return the {@link NitriteId}
      */
     public static NitriteId createId(String value) {
-        validId(value);
+        return new NitriteId(parseId(value));
+    }
+
+    /**
+     * Creates a {@link NitriteId} from a long value.
+     *
+     * @param value the value
+     * @return the {@link NitriteId}
+     */
+    public static NitriteId createId(long value) {
         return new NitriteId(value);
     }
 
     public static boolean validId(Object value) {
-        if (value == null) {
-            throw new InvalidIdException("id cannot be null");
-        }
-        try {
-            Long.parseLong(value.toString());
-            return true;
-        } catch (Exception e) {
-            throw new InvalidIdException("id must be a string representation of 64bit decimal number");
-        }
+        parseId(value);
+        return true;
     }
 
     @Override
     public int compareTo(NitriteId other) {
-        if (other.idValue == null) {
+        if (other == null) {
             throw new InvalidIdException("cannot compare with null id");
         }
 
-        return Long.compare(Long.parseLong(idValue), Long.parseLong(other.idValue));
+        return Long.compare(idValue, other.idValue);
     }
 
     @Override
     public String toString() {
-        if (idValue != null) {
-            return ID_PREFIX + idValue + ID_SUFFIX;
-        }
-        return "";
+        return ID_PREFIX + idValue + ID_SUFFIX;
     }
 
     /**
-     * Gets the underlying id object.
+     * Gets the string representation of the underlying id.
      *
-     * @return the underlying id object.
+     * @return the string representation of the underlying id.
      */
     public String getIdValue() {
+        return Long.toString(idValue);
+    }
+
+    /**
+     * Gets the underlying id as a long value.
+     *
+     * @return the underlying id.
+     */
+    public long getLongValue() {
         return idValue;
     }
 
+    private static long parseId(Object value) {
+        if (value == null) {
+            throw new InvalidIdException("id cannot be null");
+        }
+        try {
+            return Long.parseLong(value.toString());
+        } catch (Exception e) {
+            throw new InvalidIdException("id must be a string representation of 64bit decimal number");
+        }
+    }
+
     private void writeObject(ObjectOutputStream stream) throws IOException {
-        stream.writeUTF(idValue);
+        stream.writeShort(LONG_FORM);
+        stream.writeLong(idValue);
     }
 
     private void readObject(ObjectInputStream stream) throws IOException {
-        idValue = stream.readUTF();
+        short header = stream.readShort();
+        if (header == LONG_FORM) {
+            idValue = stream.readLong();
+            return;
+        }
+
+        // the decimal digits of the id, as written by writeUTF
+        byte[] digits = new byte[header & 0xFFFF];
+        stream.readFully(digits);
+        try {
+            idValue = parseId(new String(digits, StandardCharsets.UTF_8));
+        } catch (InvalidIdException e) {
+            throw new InvalidObjectException(e.getMessage());
+        }
     }
 }
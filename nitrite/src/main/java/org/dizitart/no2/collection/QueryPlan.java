@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.collection;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.dizitart.no2.common.SortField;
+import org.dizitart.no2.filters.FieldBasedFilter;
+import org.dizitart.no2.filters.Filter;
+import org.dizitart.no2.filters.LogicalFilter;
+import org.dizitart.no2.index.IndexEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Represents the plan chosen by the query planner to execute a find operation.
+ * <p>
+ * The planner estimates the number of matching documents for every indexed
+ * filter from the index statistics and chooses the cheapest way to read
+ * the documents - a collection scan, a lookup by ids, a single index scan,
+ * an intersection of multiple index scans or a union of sub plans. The
+ * filters not resolved by the indexes are applied on each document read.
+ * <p>
+ * [[app-listing]]
+ * [source,java]
+ * .Example of {@link QueryPlan}
+ * --
+ * DocumentCursor cursor = collection.find(where("age").gt(30).and(where("name").eq("John")));
+ * <p>
+ * // prints the chosen plan
+ * System.out.println(cursor.explain());
+ * --
+ *
+ * @author Anindya Chatterjee
+ * @see DocumentCursor#explain()
+ * @since 4.0
+ */
+@Getter
+@Setter
+public class QueryPlan {
+    /**
+     * Specifies how the documents are read.
+     *
+     * @param scanType the scan type.
+     * @return the scan type.
+     */
+    private ScanType scanType;
+
+    /**
+     * Specifies the index used to find the documents in an {@link ScanType#IndexScan}.
+     *
+     * @param indexEntry the index used.
+     * @return the index used or `null`.
+     */
+    private IndexEntry indexEntry;
+
+    /**
+     * Specifies the filters resolved by the index or by the ids.
+     *
+     * @param indexFilters the filters resolved by the index.
+     * @return the filters resolved by the index.
+     */
+    private List<Filter> indexFilters = new ArrayList<>();
+
+    /**
+     * Specifies the filter applied on each document read.
+     *
+     * @param residualFilter the filter applied on each document.
+     * @return the filter applied on each document or `null`.
+     */
+    private Filter residualFilter;
+
+    /**
+     * Specifies the plans of the index scans of an {@link ScanType#IndexIntersection},
+     * of the sub queries of an {@link ScanType#IndexUnion} or of the documents
+     * sorted by an {@link ScanType#InMemorySort}.
+     *
+     * @param subPlans the sub plans.
+     * @return the sub plans.
+     */
+    private List<QueryPlan> subPlans = new ArrayList<>();
+
+    /**
+     * Specifies the fields of an {@link ScanType#InMemorySort}.
+     *
+     * @param sortFields the sort fields.
+     * @return the sort fields.
+     */
+    private List<SortField> sortFields = new ArrayList<>();
+
+    /**
+     * Specifies if an {@link ScanType#InMemorySort} keeps the documents in a
+     * bounded heap, instead of a sort buffer which spills to disk.
+     *
+     * @param heapSort if the documents are sorted in a bounded heap.
+     * @return `true` if the documents are sorted in a bounded heap.
+     */
+    private boolean heapSort;
+
+    /**
+     * Specifies the estimated number of documents read.
+     *
+     * @param estimatedRows the estimated number of documents.
+     * @return the estimated number of documents.
+     */
+    private long estimatedRows;
+
+    /**
+     * Specifies the estimated relative cost of the plan.
+     *
+     * @param estimatedCost the estimated cost.
+     * @return the estimated cost.
+     */
+    private double estimatedCost;
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        write(builder, "");
+        return builder.toString();
+    }
+
+    private void write(StringBuilder builder, String indent) {
+        builder.append(indent).append(scanType);
+        if (indexEntry != null) {
+            builder.append(" on ").append(indexEntry.getField())
+                .append(" [").append(indexEntry.getIndexType()).append("]");
+        }
+        builder.append(" (rows=").append(estimatedRows)
+            .append(", cost=").append(String.format(Locale.ENGLISH, "%.1f", estimatedCost)).append(")");
+
+        for (Filter indexFilter : indexFilters) {
+            builder.append('\n').append(indent).append("  match: ").append(describe(indexFilter));
+        }
+
+        if (residualFilter != null) {
+            builder.append('\n').append(indent).append("  filter: ").append(describe(residualFilter));
+        }
+
+        if (!sortFields.isEmpty()) {
+            List<String> fields = new ArrayList<>();
+            for (SortField sortField : sortFields) {
+                fields.add(sortField.getField() + " " + sortField.getSortOrder());
+            }
+            builder.append('\n').append(indent).append("  sort: ").append(fields)
+                .append(heapSort ? " in bounded heap" : " in sort buffer");
+        }
+
+        for (QueryPlan subPlan : subPlans) {
+            builder.append('\n');
+            subPlan.write(builder, indent + "  ");
+        }
+    }
+
+    private String describe(Filter filter) {
+        if (filter instanceof FieldBasedFilter) {
+            FieldBasedFilter fieldBasedFilter = (FieldBasedFilter) filter;
+            Object value = fieldBasedFilter.getValue();
+            return filter.getClass().getSimpleName() + "(" + fieldBasedFilter.getField() + ", "
+                + (value instanceof Object[] ? Arrays.toString((Object[]) value) : value) + ")";
+        } else if (filter instanceof LogicalFilter) {
+            List<String> filters = new ArrayList<>();
+            for (Filter child : ((LogicalFilter) filter).getFilters()) {
+                filters.add(describe(child));
+            }
+            return filter.getClass().getSimpleName() + filters;
+        }
+        return String.valueOf(filter);
+    }
+}
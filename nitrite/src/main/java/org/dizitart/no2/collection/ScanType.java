@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.collection;
+
+/**
+ * An enum to specify how a find operation reads the documents
+ * from a collection.
+ *
+ * @author Anindya Chatterjee
+ * @see QueryPlan
+ * @since 4.0
+ */
+public enum ScanType {
+    /**
+     * Reads all documents of the collection and filters them.
+     */
+    CollectionScan,
+    /**
+     * Reads the documents directly by their ids.
+     */
+    IdScan,
+    /**
+     * Reads the documents found by a single index.
+     */
+    IndexScan,
+    /**
+     * Reads the documents found by all of the indexes.
+     */
+    IndexIntersection,
+    /**
+     * Reads the documents found by any of the sub plans.
+     */
+    IndexUnion,
+    /**
+     * Reads the documents in the sort order from the index of the sort
+     * field, so the documents are not sorted in memory.
+     */
+    IndexSort,
+    /**
+     * Sorts the documents found by the sub plan in memory, either in a
+     * bounded heap if only the first few of them are needed, or in a sort
+     * buffer which spills to disk.
+     */
+    InMemorySort
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dizitart.no2.collection.events;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.dizitart.no2.collection.events.EventBatchOptions.batchOptions;
+import static org.dizitart.no2.common.Constants.EVENT_BATCH_DELAY;
+import static org.dizitart.no2.common.Constants.EVENT_BATCH_SIZE;
+
+/**
+ * A {@link CollectionEventListener} which receives the events in
+ * batches. The events are collected until a batch is full or its
+ * oldest event has waited for {@link EventBatchOptions#getMaxDelay()}
+ * milliseconds, and a batch holds the events in the order in which
+ * they occurred. The events collected when the listener is unsubscribed,
+ * or when the collection is closed, are delivered as a last batch.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+public interface BatchCollectionEventListener extends CollectionEventListener {
+
+    /**
+     * A subscriber to listen to a batch of collection events.
+     *
+     * @param eventInfos the event information, in order
+     */
+    void onEvents(List<CollectionEventInfo<?>> eventInfos);
+
+    /**
+     * Gets the options of the batched delivery.
+     *
+     * @return the {@link EventBatchOptions}.
+     */
+    default EventBatchOptions getBatchOptions() {
+        return batchOptions(EVENT_BATCH_SIZE, EVENT_BATCH_DELAY);
+    }
+
+    @Override
+    default void onEvent(CollectionEventInfo<?> eventInfo) {
+        onEvents(Collections.singletonList(eventInfo));
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dizitart.no2.collection.events;
+
+import org.dizitart.no2.common.concurrent.ThreadPoolManager;
+import org.dizitart.no2.common.event.NitriteEventBus;
+import org.dizitart.no2.exceptions.ValidationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.dizitart.no2.common.util.ValidationUtils.notNull;
+
+/**
+ * The event bus of a collection. It delivers the events to a
+ * {@link BatchCollectionEventListener} in batches.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+public class CollectionEventBus extends NitriteEventBus<CollectionEventInfo<?>, CollectionEventListener> {
+    private final Map<CollectionEventListener, EventBatch> batches;
+    private volatile boolean documentListeners;
+    private volatile boolean changeListeners;
+
+    /**
+     * Instantiates a new {@link CollectionEventBus}.
+     */
+    public CollectionEventBus() {
+        this.batches = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public synchronized void register(CollectionEventListener eventListener) {
+        if (eventListener instanceof BatchCollectionEventListener) {
+            BatchCollectionEventListener batchListener = (BatchCollectionEventListener) eventListener;
+            EventBatchOptions options = batchListener.getBatchOptions();
+            notNull(options, "batch options cannot be null");
+            if (options.getMaxBatchSize() < 1) {
+                throw new ValidationException("maximum batch size must be greater than 0");
+            }
+            batches.putIfAbsent(eventListener, new EventBatch(batchListener, options));
+        }
+        super.register(eventListener);
+        refreshListenerKinds();
+    }
+
+    @Override
+    public synchronized void deregister(CollectionEventListener eventListener) {
+        if (eventListener != null) {
+            EventBatch batch = batches.remove(eventListener);
+            if (batch != null) {
+                // the pending events are handed over before the queue of the listener closes
+                batch.close();
+            }
+        }
+        super.deregister(eventListener);
+        refreshListenerKinds();
+    }
+
+    @Override
+    public synchronized void close() {
+        for (EventBatch batch : batches.values()) {
+            batch.close();
+        }
+        batches.clear();
+        super.close();
+        refreshListenerKinds();
+    }
+
+    @Override
+    public void post(CollectionEventInfo<?> eventInfo) {
+        post(eventInfo, eventInfo);
+    }
+
+    /**
+     * Posts an event which has two forms, one with a copy of the changed
+     * document and one with only a {@link DocumentChange}. A listener
+     * receives the form it asks for. A form may be `null` if no listener
+     * needs it, see {@link #hasDocumentListeners()} and {@link #hasChangeListeners()}.
+     *
+     * @param eventInfo  the event with a copy of the document
+     * @param changeInfo the event with only the change of the document
+     */
+    public void post(CollectionEventInfo<?> eventInfo, CollectionEventInfo<?> changeInfo) {
+        for (final CollectionEventListener listener : getListeners()) {
+            EventBatch batch = batches.get(listener);
+            if (batch == null) {
+                if (eventInfo != null) {
+                    getEventExecutor(listener).execute(() -> listener.onEvent(eventInfo));
+                }
+            } else {
+                CollectionEventInfo<?> info = batch.idsOnly ? changeInfo : eventInfo;
+                if (info != null) {
+                    batch.add(info);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if any listener needs a copy of the changed document.
+     *
+     * @return `true` if a listener needs a copy of the document; otherwise, `false`.
+     */
+    public boolean hasDocumentListeners() {
+        return documentListeners;
+    }
+
+    /**
+     * Checks if any listener needs only the {@link DocumentChange}.
+     *
+     * @return `true` if a listener needs only the change; otherwise, `false`.
+     */
+    public boolean hasChangeListeners() {
+        return changeListeners;
+    }
+
+    private void refreshListenerKinds() {
+        boolean documents = false, changes = false;
+        for (CollectionEventListener listener : getListeners()) {
+            EventBatch batch = batches.get(listener);
+            if (batch != null && batch.idsOnly) {
+                changes = true;
+            } else {
+                documents = true;
+            }
+        }
+        documentListeners = documents;
+        changeListeners = changes;
+    }
+
+    private class EventBatch {
+        private final BatchCollectionEventListener listener;
+        private final int maxBatchSize;
+        private final long maxDelay;
+        private final boolean idsOnly;
+        // batches taken under the monitor, in order, waiting to be handed over
+        private final Queue<List<CollectionEventInfo<?>>> ready;
+        private final AtomicBoolean handingOver;
+        private List<CollectionEventInfo<?>> events;
+        private ScheduledFuture<?> flushTask;
+        private boolean closed;
+
+        EventBatch(BatchCollectionEventListener listener, EventBatchOptions options) {
+            this.listener = listener;
+            this.maxBatchSize = options.getMaxBatchSize();
+            this.maxDelay = options.getMaxDelay();
+            this.idsOnly = options.isIdsOnly();
+            this.ready = new ConcurrentLinkedQueue<>();
+            this.handingOver = new AtomicBoolean(false);
+        }
+
+        void add(CollectionEventInfo<?> eventInfo) {
+            if (append(eventInfo)) {
+                handOver();
+            }
+        }
+
+        void flush() {
+            take();
+            handOver();
+        }
+
+        void close() {
+            synchronized (this) {
+                take();
+                closed = true;
+            }
+            handOver();
+
+            // a batch still handed over by another thread must reach the
+            // queue of the listener before the queue closes
+            while (handingOver.get() || !ready.isEmpty()) {
+                Thread.yield();
+                handOver();
+            }
+        }
+
+        private synchronized boolean append(CollectionEventInfo<?> eventInfo) {
+            if (closed) return false;
+
+            if (events == null) {
+                events = new ArrayList<>(Math.min(maxBatchSize, 16));
+                if (maxBatchSize > 1 && maxDelay > 0) {
+                    flushTask = ThreadPoolManager.eventScheduler()
+                        .schedule(this::flush, maxDelay, TimeUnit.MILLISECONDS);
+                }
+            }
+
+            events.add(eventInfo);
+            if (events.size() >= maxBatchSize || flushTask == null) {
+                take();
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized void take() {
+            if (events == null || closed) return;
+
+            ready.add(events);
+            events = null;
+            if (flushTask != null) {
+                flushTask.cancel(false);
+                flushTask = null;
+            }
+        }
+
+        private void handOver() {
+            // one thread at a time hands the batches over, so they reach the
+            // serial queue of the listener in the order they were taken
+            while (!ready.isEmpty() && handingOver.compareAndSet(false, true)) {
+                try {
+                    List<CollectionEventInfo<?>> batch;
+                    while ((batch = ready.poll()) != null) {
+                        final List<CollectionEventInfo<?>> items = batch;
+                        getEventExecutor(listener).execute(() -> listener.onEvents(items));
+                    }
+                } finally {
+                    handingOver.set(false);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dizitart.no2.collection.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.dizitart.no2.collection.NitriteId;
+
+import java.util.Set;
+
+/**
+ * Represents a change of a document, without the document itself. It is
+ * the item of the events delivered to a {@link BatchCollectionEventListener}
+ * which asks for {@link EventBatchOptions#isIdsOnly()}.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentChange {
+    /**
+     * Specifies the id of the changed document.
+     *
+     * @param nitriteId the id of the changed document.
+     * @return the id of the changed document.
+     */
+    private NitriteId nitriteId;
+
+    /**
+     * Specifies the names of the top level fields which changed. An insert
+     * or a remove changes all fields of the document.
+     *
+     * @param changedFields the names of the changed fields.
+     * @return the names of the changed fields.
+     */
+    private Set<String> changedFields;
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dizitart.no2.collection.events;
+
+import lombok.Data;
+
+/**
+ * Represents the options of batched event delivery to a
+ * {@link BatchCollectionEventListener}.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+@Data
+public class EventBatchOptions {
+    /**
+     * Specifies the maximum number of events in a batch. A batch is
+     * delivered as soon as it is full.
+     *
+     * @param maxBatchSize the maximum number of events in a batch.
+     * @return the maximum number of events in a batch.
+     */
+    private int maxBatchSize;
+
+    /**
+     * Specifies the maximum milliseconds an event waits in a batch
+     * before the batch is delivered.
+     *
+     * @param maxDelay the maximum delay in milliseconds.
+     * @return the maximum delay in milliseconds.
+     */
+    private long maxDelay;
+
+    /**
+     * Indicates if the events carry only the id and the changed field
+     * names of a document as a {@link DocumentChange}, instead of a copy
+     * of the whole document.
+     *
+     * @param idsOnly a value indicating if the events carry only the changes.
+     * @return `true` if the events carry only the changes; otherwise, `false`.
+     */
+    private boolean idsOnly;
+
+    /**
+     * Creates a new {@link EventBatchOptions}.
+     *
+     * @param maxBatchSize the maximum number of events in a batch
+     * @param maxDelay     the maximum delay in milliseconds
+     * @return the {@link EventBatchOptions}.
+     */
+    public static EventBatchOptions batchOptions(int maxBatchSize, long maxDelay) {
+        return batchOptions(maxBatchSize, maxDelay, false);
+    }
+
+    /**
+     * Creates a new {@link EventBatchOptions}.
+     *
+     * @param maxBatchSize the maximum number of events in a batch
+     * @param maxDelay     the maximum delay in milliseconds
+     * @param idsOnly      the idsOnly flag
+     * @return the {@link EventBatchOptions}.
+     */
+    public static EventBatchOptions batchOptions(int maxBatchSize, long maxDelay, boolean idsOnly) {
+        EventBatchOptions options = new EventBatchOptions();
+        options.setMaxBatchSize(maxBatchSize);
+        options.setMaxDelay(maxDelay);
+        options.setIdsOnly(idsOnly);
+        return options;
+    }
+}
@@ -44,6 +44,7 @@ public class Attributes implements Serializable {
     public static final String EXPIRY_WAIT = "expiryWait";
     public static final String TOMBSTONE = "tombstone";
     public static final String REPLICA = "replica";
+    public static final String MULTI_KEY = "multiKey";
     private static final long serialVersionUID = 1481284930L;
 
     @Getter @Setter
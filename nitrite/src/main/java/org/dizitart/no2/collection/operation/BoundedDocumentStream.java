@@ -54,6 +54,13 @@ class BoundedDocumentStream implements RecordStream<Pair<NitriteId, Document>> {
         return new BoundedIterator<>(iterator, offset, limit);
     }
 
+    @Override
+    public void close() {
+        if (recordStream != null) {
+            recordStream.close();
+        }
+    }
+
     public static class BoundedIterator<T> implements Iterator<T> {
         private final Iterator<? extends T> iterator;
         private final long offset;
@@ -17,25 +17,32 @@
 package org.dizitart.no2.collection.operation;
 
 import org.dizitart.no2.NitriteConfig;
+import org.dizitart.no2.collection.CollectionSnapshot;
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.DocumentCursor;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.collection.UpdateOptions;
-import org.dizitart.no2.collection.events.CollectionEventInfo;
-import org.dizitart.no2.collection.events.CollectionEventListener;
+import org.dizitart.no2.collection.events.CollectionEventBus;
 import org.dizitart.no2.collection.meta.Attributes;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.common.WriteResult;
-import org.dizitart.no2.common.event.EventBus;
+import org.dizitart.no2.common.concurrent.ConcurrencyMode;
+import org.dizitart.no2.common.concurrent.StripedLock;
 import org.dizitart.no2.filters.Filter;
 import org.dizitart.no2.index.IndexEntry;
+import org.dizitart.no2.index.Indexer;
 import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.store.StoreSnapshot;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.dizitart.no2.common.Constants.COLLECTION_CATALOG;
+import static org.dizitart.no2.common.Constants.LOCK_STRIPES;
 
 /**
  * @author Anindya Chatterjee
@@ -44,7 +51,7 @@ public class CollectionOperations {
     private final String collectionName;
     private final NitriteConfig nitriteConfig;
     private final NitriteMap<NitriteId, Document> nitriteMap;
-    private final EventBus<CollectionEventInfo<?>, CollectionEventListener> eventBus;
+    private final CollectionEventBus eventBus;
     private IndexOperations indexOperations;
     private WriteOperations writeOperations;
     private ReadOperations readOperations;
@@ -52,7 +59,7 @@ public class CollectionOperations {
     public CollectionOperations(String collectionName,
                                 NitriteMap<NitriteId, Document> nitriteMap,
                                 NitriteConfig nitriteConfig,
-                                EventBus<CollectionEventInfo<?>, CollectionEventListener> eventBus) {
+                                CollectionEventBus eventBus) {
         this.collectionName = collectionName;
         this.nitriteMap = nitriteMap;
         this.nitriteConfig = nitriteConfig;
@@ -64,6 +71,10 @@ public class CollectionOperations {
         indexOperations.ensureIndex(field, indexType, async);
     }
 
+    public void createIndexes(Map<String, String> indexTypes, boolean async) {
+        indexOperations.ensureIndexes(indexTypes, async);
+    }
+
     public IndexEntry findIndex(String field) {
         return indexOperations.findIndexEntry(field);
     }
@@ -72,6 +83,10 @@ public class CollectionOperations {
         indexOperations.rebuildIndex(indexEntry, async);
     }
 
+    public void rebuildIndexes(List<IndexEntry> indexEntries, boolean async) {
+        indexOperations.rebuildIndexes(indexEntries, async);
+    }
+
     public Collection<IndexEntry> listIndexes() {
         return indexOperations.listIndexes();
     }
@@ -96,6 +111,10 @@ public class CollectionOperations {
         return writeOperations.insert(documents);
     }
 
+    public WriteResult bulkInsert(Document[] documents) {
+        return writeOperations.bulkInsert(documents);
+    }
+
     public WriteResult update(Filter filter, Document update, UpdateOptions updateOptions) {
         return writeOperations.update(filter, update, updateOptions);
     }
@@ -120,6 +139,29 @@ public class CollectionOperations {
         return readOperations.getById(nitriteId);
     }
 
+    /**
+     * Opens a snapshot of the collection and of all its indexes. The
+     * caller must ensure no write is in progress while it is opened.
+     *
+     * @return the snapshot.
+     */
+    public CollectionSnapshot openSnapshot() {
+        List<String> mapNames = new ArrayList<>();
+        mapNames.add(nitriteMap.getName());
+        for (IndexEntry indexEntry : indexOperations.listIndexes()) {
+            Indexer indexer = indexOperations.findIndexer(indexEntry.getIndexType());
+            mapNames.add(indexer.getIndexMapName(collectionName, indexEntry.getField()));
+        }
+
+        StoreSnapshot storeSnapshot = nitriteMap.getStore().openSnapshot(mapNames);
+        NitriteMap<NitriteId, Document> snapshotMap =
+            storeSnapshot.openMap(nitriteMap.getName(), NitriteId.class, Document.class);
+        IndexOperations snapshotIndexes = indexOperations.snapshot(snapshotMap, storeSnapshot);
+        ReadOperations snapshotReads = new ReadOperations(collectionName, nitriteConfig,
+            snapshotMap, snapshotIndexes);
+        return new CollectionSnapshotImpl(storeSnapshot, snapshotReads);
+    }
+
     public void dropCollection() {
         indexOperations.dropAllIndices();
         dropNitriteMap();
@@ -147,14 +189,16 @@ public class CollectionOperations {
         this.indexOperations = new IndexOperations(nitriteConfig, nitriteMap, eventBus);
         this.readOperations = new ReadOperations(collectionName, nitriteConfig, nitriteMap, indexOperations);
         this.writeOperations = new WriteOperations(indexOperations, readOperations,
-            nitriteMap, eventBus);
+            nitriteMap, eventBus, nitriteConfig.getConcurrencyMode() == ConcurrencyMode.Striped
+            ? new StripedLock(LOCK_STRIPES) : null);
     }
 
     private void dropNitriteMap() {
         NitriteMap<String, Document> catalogueMap = nitriteMap.getStore().openMap(COLLECTION_CATALOG, String.class, Document.class);
         for (Pair<String, Document> entry : catalogueMap.entries()) {
             String catalogue = entry.getFirst();
-            Document document = entry.getSecond();
+            // the stored document is shared with the readers of the store
+            Document document = entry.getSecond().clone();
 
             Set<String> bin = new HashSet<>();
             boolean foundKey = false;
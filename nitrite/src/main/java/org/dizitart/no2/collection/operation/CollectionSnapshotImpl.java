@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dizitart.no2.collection.operation;
+
+import org.dizitart.no2.collection.CollectionSnapshot;
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.DocumentCursor;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.exceptions.InvalidOperationException;
+import org.dizitart.no2.filters.Filter;
+import org.dizitart.no2.store.StoreSnapshot;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.dizitart.no2.common.util.ValidationUtils.notNull;
+
+/**
+ * @author Anindya Chatterjee
+ */
+class CollectionSnapshotImpl implements CollectionSnapshot {
+    private final StoreSnapshot storeSnapshot;
+    private final ReadOperations readOperations;
+    private final AtomicBoolean closed;
+
+    CollectionSnapshotImpl(StoreSnapshot storeSnapshot, ReadOperations readOperations) {
+        this.storeSnapshot = storeSnapshot;
+        this.readOperations = readOperations;
+        this.closed = new AtomicBoolean(false);
+    }
+
+    @Override
+    public DocumentCursor find() {
+        checkOpened();
+        return readOperations.find();
+    }
+
+    @Override
+    public DocumentCursor find(Filter filter) {
+        checkOpened();
+        return readOperations.find(filter);
+    }
+
+    @Override
+    public Document getById(NitriteId nitriteId) {
+        checkOpened();
+        notNull(nitriteId, "nitriteId cannot be null");
+        return readOperations.getById(nitriteId);
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            storeSnapshot.close();
+        }
+    }
+
+    private void checkOpened() {
+        if (closed.get()) {
+            throw new InvalidOperationException("snapshot has been closed");
+        }
+    }
+}
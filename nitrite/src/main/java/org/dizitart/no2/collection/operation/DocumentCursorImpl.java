@@ -19,34 +19,81 @@ package org.dizitart.no2.collection.operation;
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.DocumentCursor;
 import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.collection.QueryPlan;
+import org.dizitart.no2.collection.ScanType;
 import org.dizitart.no2.common.*;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.InvalidOperationException;
 import org.dizitart.no2.exceptions.ValidationException;
+import org.dizitart.no2.filters.Filter;
 
-import java.text.Collator;
 import java.util.Collections;
 import java.util.Iterator;
 
+import static org.dizitart.no2.common.util.ValidationUtils.notNull;
+
 /**
  * @author Anindya Chatterjee.
  */
 class DocumentCursorImpl implements DocumentCursor {
     private final RecordStream<Pair<NitriteId, Document>> recordStream;
+    private final QueryPlan queryPlan;
+    private final QueryPlanner queryPlanner;
+    private final Filter filter;
+    private final int sortBufferSize;
 
     DocumentCursorImpl(RecordStream<Pair<NitriteId, Document>> recordStream) {
+        this(recordStream, null);
+    }
+
+    DocumentCursorImpl(RecordStream<Pair<NitriteId, Document>> recordStream, QueryPlan queryPlan) {
+        this(recordStream, queryPlan, null, null, Integer.MAX_VALUE);
+    }
+
+    DocumentCursorImpl(RecordStream<Pair<NitriteId, Document>> recordStream, QueryPlan queryPlan,
+                       QueryPlanner queryPlanner, Filter filter, int sortBufferSize) {
         this.recordStream = recordStream;
+        this.queryPlan = queryPlan;
+        this.queryPlanner = queryPlanner;
+        this.filter = filter;
+        this.sortBufferSize = sortBufferSize;
     }
 
     @Override
-    public DocumentCursor sort(String field, SortOrder sortOrder, Collator collator, NullOrder nullOrder) {
-        return new DocumentCursorImpl(new SortedDocumentCursor(field, sortOrder, collator,
-            nullOrder, recordStream));
+    public DocumentCursor sort(SortableFields sortableFields) {
+        notNull(sortableFields, "sortableFields cannot be null");
+
+        // a cursor fresh from the planner can be read in the order of an index
+        if (queryPlanner != null) {
+            QueryPlanner.PlanNode sortPlan = queryPlanner.planSort(filter, sortableFields);
+            if (sortPlan != null) {
+                return new DocumentCursorImpl(sortPlan.stream(), sortPlan.explain(),
+                    null, null, sortBufferSize);
+            }
+        }
+
+        SortedDocumentCursor sortedCursor = new SortedDocumentCursor(sortableFields.getSortFields(),
+            recordStream, Long.MAX_VALUE, sortBufferSize);
+        return new DocumentCursorImpl(sortedCursor, sortedCursor.explain(queryPlan),
+            null, null, sortBufferSize);
     }
 
     @Override
     public DocumentCursor skipLimit(long skip, long limit) {
-        return new DocumentCursorImpl(new BoundedDocumentStream(recordStream, skip, limit));
+        RecordStream<Pair<NitriteId, Document>> stream = recordStream;
+        QueryPlan plan = queryPlan;
+        if (recordStream instanceof SortedDocumentCursor
+            && skip >= 0 && limit >= 0 && skip <= Long.MAX_VALUE - limit) {
+            // only the first skip + limit documents of the sort order are read
+            SortedDocumentCursor sortedCursor = ((SortedDocumentCursor) recordStream).limit(skip + limit);
+            stream = sortedCursor;
+            if (plan != null && plan.getScanType() == ScanType.InMemorySort) {
+                // the limit can turn the sort into a heap sort
+                plan = sortedCursor.explain(plan.getSubPlans().get(0));
+            }
+        }
+        return new DocumentCursorImpl(new BoundedDocumentStream(stream, skip, limit), plan,
+            null, null, sortBufferSize);
     }
 
     @Override
@@ -60,6 +107,19 @@ class DocumentCursorImpl implements DocumentCursor {
         return new JoinedDocumentStream(recordStream, foreignCursor, lookup);
     }
 
+    /**
+     * Plans the lookup of the documents of this cursor by their value
+     * of a field, if the cursor is fresh from the planner.
+     */
+    QueryPlanner.IndexProbe planProbe(String field) {
+        return queryPlanner == null ? null : queryPlanner.planProbe(filter, field);
+    }
+
+    @Override
+    public QueryPlan explain() {
+        return queryPlan;
+    }
+
     @Override
     public Iterator<Document> iterator() {
         Iterator<Pair<NitriteId, Document>> iterator = recordStream == null ? Collections.emptyIterator()
@@ -67,6 +127,13 @@ class DocumentCursorImpl implements DocumentCursor {
         return new DocumentCursorIterator(iterator);
     }
 
+    @Override
+    public void close() {
+        if (recordStream != null) {
+            recordStream.close();
+        }
+    }
+
     private void validateProjection(Document projection) {
         for (Pair<String, Object> kvp : projection) {
             validateKeyValuePair(kvp);
@@ -100,7 +167,8 @@ class DocumentCursorImpl implements DocumentCursor {
             Pair<NitriteId, Document> next = iterator.next();
             Document document = next.getSecond();
             if (document != null) {
-                return document.clone();
+                // a stored document is copied only if the reader changes it
+                return document.copyOnWrite();
             }
             return null;
         }
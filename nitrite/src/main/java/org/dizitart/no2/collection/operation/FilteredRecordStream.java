@@ -46,6 +46,13 @@ class FilteredRecordStream implements RecordStream<Pair<NitriteId, Document>> {
         return new FilteredIterator(iterator, filter);
     }
 
+    @Override
+    public void close() {
+        if (recordStream != null) {
+            recordStream.close();
+        }
+    }
+
     static class FilteredIterator implements Iterator<Pair<NitriteId, Document>> {
         private final Iterator<Pair<NitriteId, Document>> iterator;
         private final Filter filter;
@@ -22,28 +22,39 @@ import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.collection.events.CollectionEventInfo;
 import org.dizitart.no2.collection.events.CollectionEventListener;
 import org.dizitart.no2.collection.events.EventType;
+import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.common.concurrent.ThreadPoolManager;
 import org.dizitart.no2.common.event.EventBus;
 import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.index.ComparableIndexer;
+import org.dizitart.no2.index.CompoundKey;
+import org.dizitart.no2.index.IndexBuilder;
 import org.dizitart.no2.index.IndexEntry;
 import org.dizitart.no2.index.Indexer;
 import org.dizitart.no2.store.IndexCatalog;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteStore;
+import org.dizitart.no2.store.StoreSnapshot;
 
-import java.util.Collection;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.dizitart.no2.common.Constants.INTERNAL_NAME_SEPARATOR;
+import static org.dizitart.no2.common.util.ValidationUtils.validateCompoundIndexField;
 import static org.dizitart.no2.common.util.ValidationUtils.validateDocumentIndexField;
 
 /**
  * @author Anindya Chatterjee
  */
 class IndexOperations implements AutoCloseable {
+    // the least number of documents for which a scan is split into partitions
+    private static final int MIN_PARTITION_SIZE = 10000;
+
     private final NitriteConfig nitriteConfig;
     private final NitriteMap<NitriteId, Document> nitriteMap;
     private final EventBus<CollectionEventInfo<?>, CollectionEventListener> eventBus;
@@ -51,6 +62,9 @@ class IndexOperations implements AutoCloseable {
     private IndexCatalog indexCatalog;
     private Map<String, AtomicBoolean> indexBuildRegistry;
     private ExecutorService rebuildExecutor;
+    // null, unless the indexes are read from a snapshot
+    private StoreSnapshot storeSnapshot;
+    private Map<String, Indexer> snapshotIndexers;
 
     IndexOperations(NitriteConfig nitriteConfig, NitriteMap<NitriteId, Document> nitriteMap,
                     EventBus<CollectionEventInfo<?>, CollectionEventListener> eventBus) {
@@ -60,24 +74,51 @@ class IndexOperations implements AutoCloseable {
         init();
     }
 
+    private IndexOperations(IndexOperations source, NitriteMap<NitriteId, Document> nitriteMap,
+                            StoreSnapshot storeSnapshot) {
+        this.nitriteConfig = source.nitriteConfig;
+        this.nitriteMap = nitriteMap;
+        this.eventBus = null;
+        this.collectionName = source.collectionName;
+        this.indexCatalog = source.indexCatalog;
+        this.indexBuildRegistry = source.indexBuildRegistry;
+        this.storeSnapshot = storeSnapshot;
+        this.snapshotIndexers = new ConcurrentHashMap<>();
+    }
+
     @Override
     public void close() {
-        if (rebuildExecutor != null) {
-            this.rebuildExecutor.shutdown();
-        }
+        // the rebuild executor is shared by all collections, a running
+        // build completes on its own
     }
 
     void ensureIndex(String field, String indexType, boolean isAsync) {
-        IndexEntry indexEntry;
-        if (!hasIndexEntry(field)) {
-            // if no index create index
-            indexEntry = indexCatalog.createIndexEntry(collectionName, field, indexType);
-        } else {
-            // if index already there throw
-            throw new IndexingException("index already exists on " + field);
+        ensureIndexes(Collections.singletonMap(field, indexType), isAsync);
+    }
+
+    void ensureIndexes(Map<String, String> indexTypes, boolean isAsync) {
+        for (Map.Entry<String, String> entry : indexTypes.entrySet()) {
+            String field = entry.getKey();
+            if (hasIndexEntry(field)) {
+                // if index already there throw
+                throw new IndexingException("index already exists on " + field);
+            }
+
+            if (field.contains(INTERNAL_NAME_SEPARATOR)
+                && !(findIndexer(entry.getValue()) instanceof ComparableIndexer)) {
+                // compound keys can only be stored in an ordered index
+                throw new IndexingException("compound index is not supported for index type "
+                    + entry.getValue());
+            }
+        }
+
+        // if no index create index
+        List<IndexEntry> indexEntries = new ArrayList<>(indexTypes.size());
+        for (Map.Entry<String, String> entry : indexTypes.entrySet()) {
+            indexEntries.add(indexCatalog.createIndexEntry(collectionName, entry.getKey(), entry.getValue()));
         }
 
-        rebuildIndex(indexEntry, isAsync);
+        rebuildIndexes(indexEntries, isAsync);
     }
 
     void writeIndex(Document document, NitriteId nitriteId) {
@@ -93,6 +134,48 @@ class IndexOperations implements AutoCloseable {
         }
     }
 
+    void writeIndex(Map<NitriteId, Document> documents) {
+        Collection<IndexEntry> indexEntries = listIndexes();
+        if (indexEntries == null) return;
+
+        List<IndexEntry> writtenEntries = new ArrayList<>();
+        try {
+            for (IndexEntry indexEntry : indexEntries) {
+                String field = indexEntry.getField();
+                List<Pair<NitriteId, Object>> entries = new ArrayList<>(documents.size());
+                for (Map.Entry<NitriteId, Document> entry : documents.entrySet()) {
+                    if (!isIndexed(indexEntry, entry.getValue())) continue;
+
+                    Object fieldValue = getIndexValue(indexEntry, entry.getValue());
+                    validateDocumentIndexField(fieldValue, field);
+                    entries.add(new Pair<>(entry.getKey(), fieldValue));
+                }
+
+                // if dirty index and currently indexing is not running, rebuild
+                if (indexCatalog.isDirtyIndex(collectionName, field)
+                    && !getBuildFlag(field).get()) {
+                    // rebuild will also take care of the documents of the batch
+                    rebuildDirtyIndex(indexEntry);
+                } else {
+                    writtenEntries.add(indexEntry);
+                    findIndexer(indexEntry.getIndexType()).writeIndexBatch(nitriteMap, field, entries);
+                }
+            }
+        } catch (RuntimeException e) {
+            // a batch which is not inserted leaves nothing behind in any index
+            for (IndexEntry indexEntry : writtenEntries) {
+                Indexer indexer = findIndexer(indexEntry.getIndexType());
+                for (Map.Entry<NitriteId, Document> entry : documents.entrySet()) {
+                    if (!isIndexed(indexEntry, entry.getValue())) continue;
+
+                    Object fieldValue = getIndexValue(indexEntry, entry.getValue());
+                    indexer.removeIndex(nitriteMap, entry.getKey(), indexEntry.getField(), fieldValue);
+                }
+            }
+            throw e;
+        }
+    }
+
     void removeIndex(Document document, NitriteId nitriteId) {
         Collection<IndexEntry> indexEntries = listIndexes();
         if (indexEntries != null) {
@@ -112,8 +195,25 @@ class IndexOperations implements AutoCloseable {
         if (indexEntries != null) {
             for (IndexEntry indexEntry : indexEntries) {
                 String field = indexEntry.getField();
-                Object newValue = newDocument.get(field);
-                Object oldValue = oldDocument.get(field);
+                if (indexEntry.isCompound()) {
+                    boolean wasIndexed = isIndexed(indexEntry, oldDocument);
+                    boolean indexed = isIndexed(indexEntry, newDocument);
+                    if (!indexed) {
+                        // the document lost all the fields of the compound index
+                        if (wasIndexed) {
+                            removeIndexEntry(field, oldDocument, nitriteId,
+                                findIndexer(indexEntry.getIndexType()), indexEntry);
+                        }
+                        continue;
+                    } else if (!wasIndexed) {
+                        writeIndexEntry(field, newDocument, nitriteId,
+                            findIndexer(indexEntry.getIndexType()), indexEntry);
+                        continue;
+                    }
+                }
+
+                Object newValue = getIndexValue(indexEntry, newDocument);
+                Object oldValue = getIndexValue(indexEntry, oldDocument);
 
                 if (newValue == null) continue;
                 if (newValue instanceof Comparable && oldValue instanceof Comparable) {
@@ -125,7 +225,7 @@ class IndexOperations implements AutoCloseable {
                 if (indexCatalog.isDirtyIndex(collectionName, field)
                     && !getBuildFlag(field).get()) {
                     // rebuild will also take care of the current document
-                    rebuildIndex(indexEntry, true);
+                    rebuildDirtyIndex(indexEntry);
                 } else {
                     String indexType = indexEntry.getIndexType();
                     Indexer indexer = findIndexer(indexType);
@@ -138,16 +238,25 @@ class IndexOperations implements AutoCloseable {
     // call to this method is already synchronized, only one thread per field
     // can access it only if rebuild is already not running for that field
     void rebuildIndex(IndexEntry indexEntry, boolean isAsync) {
-        final String field = indexEntry.getField();
-        if (getBuildFlag(field).compareAndSet(false, true)) {
-            if (isAsync) {
-                rebuildExecutor.submit(() -> buildIndexInternal(field, indexEntry));
-            } else {
-                buildIndexInternal(field, indexEntry);
+        rebuildIndexes(Collections.singletonList(indexEntry), isAsync);
+    }
+
+    void rebuildIndexes(List<IndexEntry> indexEntries, boolean isAsync) {
+        for (int i = 0; i < indexEntries.size(); i++) {
+            if (!getBuildFlag(indexEntries.get(i).getField()).compareAndSet(false, true)) {
+                for (int j = 0; j < i; j++) {
+                    getBuildFlag(indexEntries.get(j).getField()).set(false);
+                }
+                throw new IndexingException("indexing is already running on "
+                    + indexEntries.get(i).getField());
             }
-            return;
         }
-        throw new IndexingException("indexing is already running on " + indexEntry.getField());
+
+        if (isAsync) {
+            rebuildExecutor.submit(() -> buildIndexesInternal(indexEntries));
+        } else {
+            buildIndexesInternal(indexEntries);
+        }
     }
 
     void dropIndex(String field) {
@@ -199,9 +308,20 @@ class IndexOperations implements AutoCloseable {
         return indexCatalog.findIndexEntry(collectionName, field);
     }
 
+    /**
+     * Gets a read-only view of the indexes, whose indexers read the
+     * index maps from a snapshot of the store.
+     */
+    IndexOperations snapshot(NitriteMap<NitriteId, Document> snapshotMap, StoreSnapshot storeSnapshot) {
+        return new IndexOperations(this, snapshotMap, storeSnapshot);
+    }
+
     Indexer findIndexer(String indexType) {
         Indexer indexer = nitriteConfig.findIndexer(indexType);
         if (indexer != null) {
+            if (storeSnapshot != null) {
+                return snapshotIndexers.computeIfAbsent(indexType, k -> indexer.snapshot(storeSnapshot));
+            }
             return indexer;
         }
         throw new IndexingException("no indexer found for index type " + indexType);
@@ -212,49 +332,164 @@ class IndexOperations implements AutoCloseable {
         this.indexCatalog = nitriteStore.getIndexCatalog();
         this.collectionName = nitriteMap.getName();
         this.indexBuildRegistry = new ConcurrentHashMap<>();
-        this.rebuildExecutor = ThreadPoolManager.workerPool();
+        this.rebuildExecutor = ThreadPoolManager.indexPool();
     }
 
-    private void buildIndexInternal(final String field, final IndexEntry indexEntry) {
+    private void buildIndexesInternal(final List<IndexEntry> indexEntries) {
+        List<IndexBuilder> indexBuilders = new ArrayList<>(indexEntries.size());
         try {
-            alert(EventType.IndexStart, field);
-            // first put dirty marker
-            indexCatalog.beginIndexing(collectionName, field);
-
-            String indexType = indexEntry.getIndexType();
-            Indexer indexer = findIndexer(indexType);
+            for (IndexEntry indexEntry : indexEntries) {
+                alert(EventType.IndexStart, indexEntry.getField());
+                // first put dirty marker
+                indexCatalog.beginIndexing(collectionName, indexEntry.getField());
+            }
 
-            // re-create the index for the values of the field from document
-            for (Pair<NitriteId, Document> entry : nitriteMap.entries()) {
-                Document document = entry.getSecond();
-                if (document.getFields().contains(field)) {
-                    // remove old values if exists
-                    removeIndexEntry(field, entry.getSecond(), entry.getFirst(), indexer, indexEntry);
+            List<RecordStream<Pair<NitriteId, Document>>> partitions = partitionCollection();
+            for (IndexEntry indexEntry : indexEntries) {
+                Indexer indexer = findIndexer(indexEntry.getIndexType());
+                indexBuilders.add(indexer.newIndexBuilder(nitriteMap, indexEntry.getField(),
+                    partitions.size()));
+            }
 
-                    // re-create new entry
-                    writeIndexEntry(field, entry.getSecond(), entry.getFirst(), indexer, indexEntry);
+            // re-create the indexes for the values of the fields from documents,
+            // all indexes are fed from a single scan of the collection
+            scanPartitions(partitions, indexEntries, indexBuilders);
+
+            RuntimeException failure = null;
+            for (IndexBuilder indexBuilder : indexBuilders) {
+                try {
+                    indexBuilder.load();
+                } catch (RuntimeException e) {
+                    // a failed index must not stop the others from loading
+                    if (failure == null) failure = e;
                 }
             }
+
+            if (failure != null) {
+                throw failure;
+            }
         } finally {
-            // remove dirty marker to denote indexing completed successfully
-            // if dirty marker is found in any index, it needs to be rebuild
-            indexCatalog.endIndexing(collectionName, field);
-            getBuildFlag(field).set(false);
-            alert(EventType.IndexEnd, field);
+            for (IndexBuilder indexBuilder : indexBuilders) {
+                indexBuilder.discard();
+            }
+
+            for (IndexEntry indexEntry : indexEntries) {
+                // remove dirty marker to denote indexing completed successfully
+                // if dirty marker is found in any index, it needs to be rebuild
+                indexCatalog.endIndexing(collectionName, indexEntry.getField());
+                getBuildFlag(indexEntry.getField()).set(false);
+                alert(EventType.IndexEnd, indexEntry.getField());
+            }
+        }
+    }
+
+    private List<RecordStream<Pair<NitriteId, Document>>> partitionCollection() {
+        int count = (int) Math.min(Runtime.getRuntime().availableProcessors(),
+            nitriteMap.size() / MIN_PARTITION_SIZE);
+
+        // the id ranges of a store which does not keep its keys in natural
+        // order can not be scanned separately
+        if (count > 1 && nitriteMap.isNaturallyOrdered()) {
+            NitriteId first = nitriteMap.ceilingKey(NitriteId.createId(Long.MIN_VALUE));
+            NitriteId last = nitriteMap.floorKey(NitriteId.createId(Long.MAX_VALUE));
+
+            if (first != null && last != null) {
+                // the outer partitions are open ended, so that every id is
+                // scanned even if the bounds have changed meanwhile
+                List<RecordStream<Pair<NitriteId, Document>>> partitions = new ArrayList<>(count);
+                double span = (double) last.getLongValue() - first.getLongValue();
+                NitriteId from = null;
+                for (int i = 1; i <= count; i++) {
+                    NitriteId to = i == count ? null
+                        : NitriteId.createId(first.getLongValue() + (long) (span * i / count));
+                    partitions.add(nitriteMap.entries(from, true, to, false, false));
+                    from = to;
+                }
+                return partitions;
+            }
+        }
+        return Collections.singletonList(nitriteMap.entries());
+    }
+
+    private void scanPartitions(List<RecordStream<Pair<NitriteId, Document>>> partitions,
+                                List<IndexEntry> indexEntries, List<IndexBuilder> indexBuilders) {
+        if (partitions.size() == 1) {
+            scanPartition(0, partitions.get(0), indexEntries, indexBuilders);
+            return;
+        }
+
+        // the scans do not wait for anything, so a bounded pool can not deadlock
+        ExecutorService scanPool = ThreadPoolManager.indexScanPool();
+        List<Future<?>> tasks = new ArrayList<>(partitions.size() - 1);
+        for (int i = 1; i < partitions.size(); i++) {
+            final int partition = i;
+            tasks.add(scanPool.submit(() ->
+                scanPartition(partition, partitions.get(partition), indexEntries, indexBuilders)));
+        }
+
+        RuntimeException failure = null;
+        try {
+            // the calling thread scans the first partition instead of idling
+            scanPartition(0, partitions.get(0), indexEntries, indexBuilders);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        boolean interrupted = false;
+        for (Future<?> task : tasks) {
+            // wait for all partitions before the builders are discarded
+            while (true) {
+                try {
+                    task.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause()
+                            : new IndexingException("failed to scan the collection for indexing", e.getCause());
+                    }
+                    break;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void scanPartition(int partition, RecordStream<Pair<NitriteId, Document>> entries,
+                               List<IndexEntry> indexEntries, List<IndexBuilder> indexBuilders) {
+        for (Pair<NitriteId, Document> entry : entries) {
+            Document document = entry.getSecond();
+            for (int i = 0; i < indexEntries.size(); i++) {
+                IndexEntry indexEntry = indexEntries.get(i);
+                if (isIndexed(indexEntry, document)) {
+                    Object fieldValue = getIndexValue(indexEntry, document);
+                    validateDocumentIndexField(fieldValue, indexEntry.getField());
+                    indexBuilders.get(i).add(partition, entry.getFirst(), fieldValue);
+                }
+            }
         }
     }
 
     private void writeIndexEntry(String field, Document document, NitriteId nitriteId,
                                  Indexer indexer, IndexEntry indexEntry) {
-        if (indexEntry != null) {
-            Object fieldValue = document.get(field);
+        if (indexEntry != null && isIndexed(indexEntry, document)) {
+            Object fieldValue = getIndexValue(indexEntry, document);
             validateDocumentIndexField(fieldValue, field);
 
             // if dirty index and currently indexing is not running, rebuild
             if (indexCatalog.isDirtyIndex(collectionName, field)
                 && !getBuildFlag(field).get()) {
                 // rebuild will also take care of the current document
-                rebuildIndex(indexEntry, true);
+                rebuildDirtyIndex(indexEntry);
             } else if (indexer != null) {
                 indexer.writeIndex(nitriteMap, nitriteId, field, fieldValue);
             }
@@ -263,8 +498,8 @@ class IndexOperations implements AutoCloseable {
 
     private void removeIndexEntry(String field, Document document, NitriteId nitriteId,
                                   Indexer indexer, IndexEntry indexEntry) {
-        if (indexEntry != null) {
-            Object fieldValue = document.get(field);
+        if (indexEntry != null && isIndexed(indexEntry, document)) {
+            Object fieldValue = getIndexValue(indexEntry, document);
             if (fieldValue == null) return;
 
             validateDocumentIndexField(fieldValue, field);
@@ -273,20 +508,62 @@ class IndexOperations implements AutoCloseable {
             if (indexCatalog.isDirtyIndex(collectionName, field)
                 && !getBuildFlag(field).get()) {
                 // rebuild will also take care of the current document
-                rebuildIndex(indexEntry, true);
+                rebuildDirtyIndex(indexEntry);
             } else if (indexer != null) {
                 indexer.removeIndex(nitriteMap, nitriteId, field, fieldValue);
             }
         }
     }
 
+    private Object getIndexValue(IndexEntry indexEntry, Document document) {
+        if (!indexEntry.isCompound()) {
+            return document.get(indexEntry.getField());
+        }
+
+        // compound index keys are the tuple of all indexed field values
+        List<String> fields = indexEntry.getFields();
+        Object[] values = new Object[fields.size()];
+        for (int i = 0; i < values.length; i++) {
+            Object value = document.get(fields.get(i));
+            validateCompoundIndexField(value, fields.get(i));
+            values[i] = value;
+        }
+        return CompoundKey.of(values);
+    }
+
+    /**
+     * Checks if a document has an entry in an index. The same rule applies
+     * to the writes and to the rebuild of an index. A document without a
+     * field is indexed under the `null` key of a single field index, but
+     * it is not in a compound index unless it has one of its fields.
+     */
+    private boolean isIndexed(IndexEntry indexEntry, Document document) {
+        return !indexEntry.isCompound() || containsIndexedField(indexEntry, document);
+    }
+
+    private boolean containsIndexedField(IndexEntry indexEntry, Document document) {
+        Collection<String> documentFields = document.getFields();
+        for (String field : indexEntry.getFields()) {
+            if (documentFields.contains(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private AtomicBoolean getBuildFlag(String field) {
         AtomicBoolean flag = indexBuildRegistry.get(field);
         if (flag != null) return flag;
 
-        flag = new AtomicBoolean(false);
-        indexBuildRegistry.put(field, flag);
-        return flag;
+        // concurrent writers must share the same flag
+        return indexBuildRegistry.computeIfAbsent(field, k -> new AtomicBoolean(false));
+    }
+
+    private void rebuildDirtyIndex(IndexEntry indexEntry) {
+        // another writer could have started the rebuild meanwhile
+        if (getBuildFlag(indexEntry.getField()).compareAndSet(false, true)) {
+            rebuildExecutor.submit(() -> buildIndexesInternal(Collections.singletonList(indexEntry)));
+        }
     }
 
     private void alert(EventType eventType, String field) {
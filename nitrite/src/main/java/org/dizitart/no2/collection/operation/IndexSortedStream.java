@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.collection.operation;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.exceptions.ValidationException;
+import org.dizitart.no2.store.NitriteMap;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the documents in the order of the ids read from the index of
+ * the sort field. The documents are fetched one by one while the stream
+ * is being iterated, so reading the first few documents of a sorted
+ * cursor does not sort the whole collection.
+ *
+ * @author Anindya Chatterjee.
+ */
+class IndexSortedStream implements RecordStream<Pair<NitriteId, Document>> {
+    private final String field;
+    private final RecordStream<NitriteId> nitriteIds;
+    private final NitriteMap<NitriteId, Document> nitriteMap;
+
+    IndexSortedStream(String field, RecordStream<NitriteId> nitriteIds,
+                      NitriteMap<NitriteId, Document> nitriteMap) {
+        this.field = field;
+        this.nitriteIds = nitriteIds;
+        this.nitriteMap = nitriteMap;
+    }
+
+    @Override
+    public Iterator<Pair<NitriteId, Document>> iterator() {
+        return new IndexSortedIterator(nitriteIds.iterator());
+    }
+
+    private class IndexSortedIterator implements Iterator<Pair<NitriteId, Document>> {
+        private final Iterator<NitriteId> iterator;
+        private Pair<NitriteId, Document> nextPair;
+
+        IndexSortedIterator(Iterator<NitriteId> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextPair != null || setNextPair();
+        }
+
+        @Override
+        public Pair<NitriteId, Document> next() {
+            if (nextPair == null && !setNextPair()) {
+                throw new NoSuchElementException();
+            }
+            Pair<NitriteId, Document> pair = nextPair;
+            nextPair = null;
+            return pair;
+        }
+
+        private boolean setNextPair() {
+            while (iterator.hasNext()) {
+                NitriteId nitriteId = iterator.next();
+                Document document = nitriteMap.get(nitriteId);
+                if (document == null) continue;
+
+                // an array is indexed by its elements, but it cannot be sorted
+                Object value = document.get(field);
+                if (value != null && (value.getClass().isArray() || value instanceof Iterable)) {
+                    throw new ValidationException("cannot sort on an array or collection object");
+                }
+
+                nextPair = new Pair<>(nitriteId, document);
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -24,13 +24,12 @@ import org.dizitart.no2.filters.IndexAwareFilter;
 import org.dizitart.no2.store.NitriteMap;
 
 import java.util.Iterator;
-import java.util.Set;
 
 /**
  * @author Anindya Chatterjee
  */
 class IndexedStream implements RecordStream<Pair<NitriteId, Document>> {
-    private final Set<NitriteId> nitriteIds;
+    private final Iterable<NitriteId> nitriteIds;
     private final NitriteMap<NitriteId, Document> nitriteMap;
 
     IndexedStream(IndexAwareFilter indexAwareFilter,
@@ -39,7 +38,13 @@ class IndexedStream implements RecordStream<Pair<NitriteId, Document>> {
 
         nitriteIds = indexAwareFilter.getOnIdField()
             ? indexAwareFilter.cachedIds(nitriteMap)
-            : indexAwareFilter.cachedIndexedIds();
+            : indexAwareFilter.indexedIdStream();
+    }
+
+    IndexedStream(Iterable<NitriteId> nitriteIds,
+                  NitriteMap<NitriteId, Document> nitriteMap) {
+        this.nitriteMap = nitriteMap;
+        this.nitriteIds = nitriteIds;
     }
 
     @Override
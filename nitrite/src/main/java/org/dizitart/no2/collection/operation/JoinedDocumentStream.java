@@ -24,14 +24,21 @@ import org.dizitart.no2.common.Lookup;
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.exceptions.InvalidOperationException;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.*;
 
 import static org.dizitart.no2.common.util.ObjectUtils.deepEquals;
+import static org.dizitart.no2.common.util.ObjectUtils.deepHashCode;
 
 /**
+ * Joins the documents of a {@link RecordStream} with the documents of a
+ * foreign cursor.
+ * <p>
+ * If the foreign field has a comparable index and the foreign cursor is
+ * fresh from a find, each local value is looked up in the index (index
+ * nested loop join). Otherwise, the foreign cursor is read once into a
+ * hash table on the foreign field, which is probed for each local document
+ * (hash join).
+ *
  * @author Anindya Chatterjee.
  */
 class JoinedDocumentStream implements RecordStream<Document> {
@@ -52,7 +59,19 @@ class JoinedDocumentStream implements RecordStream<Document> {
     public Iterator<Document> iterator() {
         Iterator<Pair<NitriteId, Document>> iterator = recordStream == null ? Collections.emptyIterator()
             : recordStream.iterator();
-        return new JoinedDocumentIterator(iterator);
+        QueryPlanner.IndexProbe indexProbe = foreignCursor instanceof DocumentCursorImpl
+            ? ((DocumentCursorImpl) foreignCursor).planProbe(lookup.getForeignField()) : null;
+        return new JoinedDocumentIterator(iterator, indexProbe);
+    }
+
+    @Override
+    public void close() {
+        if (recordStream != null) {
+            recordStream.close();
+        }
+        if (foreignCursor != null) {
+            foreignCursor.close();
+        }
     }
 
     @Override
@@ -62,9 +81,13 @@ class JoinedDocumentStream implements RecordStream<Document> {
 
     private class JoinedDocumentIterator implements Iterator<Document> {
         private final Iterator<Pair<NitriteId, Document>> iterator;
+        private final QueryPlanner.IndexProbe indexProbe;
+        private Map<JoinKey, List<Document>> hashTable;
 
-        JoinedDocumentIterator(Iterator<Pair<NitriteId, Document>> iterator) {
+        JoinedDocumentIterator(Iterator<Pair<NitriteId, Document>> iterator,
+                               QueryPlanner.IndexProbe indexProbe) {
             this.iterator = iterator;
+            this.indexProbe = indexProbe;
         }
 
         @Override
@@ -77,7 +100,7 @@ class JoinedDocumentStream implements RecordStream<Document> {
             Pair<NitriteId, Document> next = iterator.next();
             Document document = next.getSecond();
             if (document != null) {
-                return join(document.clone(), foreignCursor, lookup);
+                return join(document.clone());
             }
             return null;
         }
@@ -87,24 +110,68 @@ class JoinedDocumentStream implements RecordStream<Document> {
             throw new InvalidOperationException("remove on a cursor is not supported");
         }
 
-        private Document join(Document localDocument, DocumentCursor foreignCursor, Lookup lookup) {
+        private Document join(Document localDocument) {
             Object localObject = localDocument.get(lookup.getLocalField());
             if (localObject == null) return localDocument;
             Set<Document> target = new HashSet<>();
 
-            for (Document foreignDocument : foreignCursor) {
-                Object foreignObject = foreignDocument.get(lookup.getForeignField());
-                if (foreignObject != null) {
-                    if (deepEquals(foreignObject, localObject)) {
-                        target.add(foreignDocument);
+            if (indexProbe != null && localObject instanceof Comparable) {
+                for (Pair<NitriteId, Document> pair : indexProbe.find((Comparable<?>) localObject)) {
+                    // an array is indexed by its elements, but only an equal value is joined
+                    Document foreignDocument = pair.getSecond();
+                    if (foreignDocument != null
+                        && deepEquals(foreignDocument.get(lookup.getForeignField()), localObject)) {
+                        target.add(foreignDocument.copyOnWrite());
+                    }
+                }
+            } else {
+                List<Document> foreignDocuments = getHashTable().get(new JoinKey(localObject));
+                if (foreignDocuments != null) {
+                    for (Document foreignDocument : foreignDocuments) {
+                        // every joined document gets its own copy
+                        target.add(foreignDocument.copyOnWrite());
                     }
                 }
             }
+
             if (!target.isEmpty()) {
                 localDocument.put(lookup.getTargetField(), target);
             }
             return localDocument;
         }
+
+        private Map<JoinKey, List<Document>> getHashTable() {
+            if (hashTable == null) {
+                hashTable = new HashMap<>();
+                for (Document foreignDocument : foreignCursor) {
+                    Object foreignObject = foreignDocument.get(lookup.getForeignField());
+                    if (foreignObject != null) {
+                        hashTable.computeIfAbsent(new JoinKey(foreignObject), k -> new ArrayList<>())
+                            .add(foreignDocument);
+                    }
+                }
+            }
+            return hashTable;
+        }
     }
-}
 
+    private static class JoinKey {
+        private final Object value;
+        private final int hashCode;
+
+        JoinKey(Object value) {
+            this.value = value;
+            this.hashCode = deepHashCode(value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof JoinKey && deepEquals(value, ((JoinKey) o).value);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -45,6 +45,13 @@ class ProjectedDocumentStream implements RecordStream<Document> {
         return new ProjectedDocumentIterator(iterator);
     }
 
+    @Override
+    public void close() {
+        if (recordStream != null) {
+            recordStream.close();
+        }
+    }
+
     @Override
     public String toString() {
         return toList().toString();
@@ -66,7 +73,7 @@ class ProjectedDocumentStream implements RecordStream<Document> {
 
         @Override
         public Document next() {
-            Document returnValue = nextElement.clone();
+            Document returnValue = nextElement;
             nextMatch();
             return returnValue;
         }
@@ -76,11 +83,8 @@ class ProjectedDocumentStream implements RecordStream<Document> {
                 Pair<NitriteId, Document> next = iterator.next();
                 Document document = next.getSecond();
                 if (document != null) {
-                    Document projected = project(document.clone());
-                    if (projected != null) {
-                        nextElement = projected;
-                        return;
-                    }
+                    nextElement = project(document);
+                    return;
                 }
             }
 
@@ -92,13 +96,16 @@ class ProjectedDocumentStream implements RecordStream<Document> {
             throw new InvalidOperationException("remove on a cursor is not supported");
         }
 
+        // reads only the projected fields, a stored document is not decoded as a whole
         private Document project(Document original) {
-            if (projection == null) return original;
-            Document result = original.clone();
-
-            for (Pair<String, Object> pair : original) {
-                if (!projection.containsKey(pair.getFirst())) {
-                    result.remove(pair.getFirst());
+            if (projection == null) return original.copyOnWrite();
+            Document result = Document.createDocument();
+
+            for (Pair<String, Object> pair : projection) {
+                String field = pair.getFirst();
+                Object value = original.get(field);
+                if (value != null || original.containsKey(field)) {
+                    result.put(field, value);
                 }
             }
             return result;
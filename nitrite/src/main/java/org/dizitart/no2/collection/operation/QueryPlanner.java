@@ -0,0 +1,1068 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.collection.operation;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.collection.QueryPlan;
+import org.dizitart.no2.collection.ScanType;
+import org.dizitart.no2.common.NullOrder;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.SortField;
+import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.common.SortableFields;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.exceptions.InvalidIdException;
+import org.dizitart.no2.exceptions.InvalidOperationException;
+import org.dizitart.no2.filters.*;
+import org.dizitart.no2.index.ComparableIndexer;
+import org.dizitart.no2.index.CompoundKey;
+import org.dizitart.no2.index.IndexEntry;
+import org.dizitart.no2.index.Indexer;
+import org.dizitart.no2.store.NitriteMap;
+
+import java.util.*;
+
+/**
+ * A cost based query planner. It estimates the number of documents matching
+ * each indexed filter from the index statistics and chooses the cheapest
+ * way to read the documents of a filter.
+ *
+ * @author Anindya Chatterjee
+ */
+class QueryPlanner {
+    // relative cost of reading an id from an index
+    private static final double INDEX_READ_COST = 0.1;
+    // relative cost of fetching a document by its id
+    private static final double DOCUMENT_FETCH_COST = 1.0;
+    // relative cost of reading a document during a collection scan
+    private static final double COLLECTION_SCAN_COST = 1.0;
+
+    // estimated selectivity of a range filter
+    private static final double RANGE_SELECTIVITY = 1.0 / 3;
+    // estimated selectivity of a filter served by a non-comparable index
+    private static final double SEARCH_SELECTIVITY = 0.1;
+    // estimated selectivity of any other indexed filter
+    private static final double DEFAULT_SELECTIVITY = 0.5;
+
+    private final String collectionName;
+    private final NitriteMap<NitriteId, Document> nitriteMap;
+    private final IndexOperations indexOperations;
+    private final Map<String, Long> keyCounts;
+    private Long collectionSize;
+
+    QueryPlanner(String collectionName,
+                 NitriteMap<NitriteId, Document> nitriteMap,
+                 IndexOperations indexOperations) {
+        this.collectionName = collectionName;
+        this.nitriteMap = nitriteMap;
+        this.indexOperations = indexOperations;
+        this.keyCounts = new HashMap<>();
+    }
+
+    PlanNode plan(Filter filter) {
+        if (filter == null || filter == Filter.ALL) {
+            return new CollectionScanNode(null);
+        }
+
+        PlanNode indexedPlan = planIndexed(filter);
+        if (indexedPlan != null
+            && (indexedPlan.isMandatory() || indexedPlan.getCost() <= getCollectionScanCost())) {
+            return indexedPlan;
+        }
+        return new CollectionScanNode(filter);
+    }
+
+    /**
+     * Plans a sorted find on fields having a comparable index. The documents
+     * are read in the order of the index and the filter is applied on each
+     * document, which avoids sorting all matching documents in memory. A sort
+     * on a single field is served by the index of the field, a sort on multiple
+     * fields by a compound index whose leading fields are the sort fields.
+     *
+     * @return the plan or `null` if sorting the documents of the best plan
+     * of the filter is expected to be cheaper.
+     */
+    PlanNode planSort(Filter filter, SortableFields sortableFields) {
+        // the index order is not the sort order if the store orders keys by their encoding
+        if (!nitriteMap.isNaturallyOrdered()) return null;
+
+        List<SortField> sortFields = sortableFields.getSortFields();
+        for (SortField sortField : sortFields) {
+            // an index is not ordered by a collator
+            if (sortField.getCollator() != null) return null;
+        }
+
+        PlanNode plan = plan(filter);
+        if (plan.isMandatory()) return null;
+
+        PlanNode sortPlan = null;
+        if (sortFields.size() == 1) {
+            sortPlan = planFieldSort(filter, sortFields.get(0));
+        }
+        if (sortPlan == null) {
+            sortPlan = planCompoundSort(filter, sortFields);
+        }
+
+        // the index order is useful unless another index finds fewer documents to sort
+        if (sortPlan == null || sortPlan.getRows() > plan.getRows()) return null;
+        return sortPlan;
+    }
+
+    private PlanNode planFieldSort(Filter filter, SortField sortField) {
+        String field = sortField.getField();
+        IndexEntry indexEntry = indexOperations.findIndexEntry(field);
+        if (indexEntry == null || indexEntry.isCompound() || indexOperations.isIndexing(field)) return null;
+
+        Indexer indexer = indexOperations.findIndexer(indexEntry.getIndexType());
+        if (!(indexer instanceof ComparableIndexer)) return null;
+
+        // a range on the sort field limits the part of the index to read
+        List<ComparisonFilter> rangeFilters = new ArrayList<>();
+        if (filter != null && filter != Filter.ALL) {
+            for (Filter conjunct : flatten(filter, AndFilter.class, new ArrayList<>())) {
+                if (conjunct instanceof ComparisonFilter
+                    && field.equals(((ComparisonFilter) conjunct).getField())
+                    && ((ComparisonFilter) conjunct).getValue() != null) {
+                    rangeFilters.add((ComparisonFilter) conjunct);
+                }
+            }
+        }
+
+        long rows = getCollectionSize();
+        if (!rangeFilters.isEmpty()) {
+            rows = (long) Math.ceil(rows * RANGE_SELECTIVITY);
+        }
+
+        boolean filtered = filter != null && filter != Filter.ALL;
+        return new IndexSortNode((ComparableIndexer) indexer, indexEntry, rangeFilters,
+            filtered ? filter : null, sortField.getSortOrder(), sortField.getNullOrder(), rows);
+    }
+
+    private PlanNode planCompoundSort(Filter filter, List<SortField> sortFields) {
+        // a compound index is read either ascending or descending as a whole,
+        // and a null component comes first in the ascending order of its keys
+        boolean descending = sortFields.get(0).getSortOrder() != SortOrder.Ascending;
+        for (SortField sortField : sortFields) {
+            if ((sortField.getSortOrder() != SortOrder.Ascending) != descending) return null;
+
+            NullOrder nullOrder = sortField.getNullOrder();
+            if (nullOrder != NullOrder.Default && (nullOrder == NullOrder.First) == descending) return null;
+        }
+
+        // documents without any of the index fields are not in a compound index,
+        // so the filter must only match documents having a value for an index field
+        if (filter == null || filter == Filter.ALL) return null;
+        Set<String> valuedFields = new HashSet<>();
+        for (Filter conjunct : flatten(filter, AndFilter.class, new ArrayList<>())) {
+            if ((conjunct instanceof EqualsFilter || conjunct instanceof GreaterThanFilter
+                || conjunct instanceof GreaterEqualFilter || conjunct instanceof LesserThanFilter
+                || conjunct instanceof LesserEqualFilter)
+                && ((FieldBasedFilter) conjunct).getValue() != null) {
+                valuedFields.add(((FieldBasedFilter) conjunct).getField());
+            }
+        }
+
+        Collection<IndexEntry> indexEntries = indexOperations.listIndexes();
+        if (indexEntries == null) return null;
+
+        for (IndexEntry indexEntry : indexEntries) {
+            if (!indexEntry.isCompound() || indexOperations.isIndexing(indexEntry.getField())) continue;
+
+            Indexer indexer = indexOperations.findIndexer(indexEntry.getIndexType());
+            if (!(indexer instanceof ComparableIndexer)) continue;
+
+            List<String> fields = indexEntry.getFields();
+            if (fields.size() < sortFields.size() || Collections.disjoint(fields, valuedFields)) continue;
+
+            boolean prefix = true;
+            for (int i = 0; i < sortFields.size() && prefix; i++) {
+                prefix = fields.get(i).equals(sortFields.get(i).getField());
+            }
+
+            if (prefix) {
+                return new CompoundSortNode((ComparableIndexer) indexer, indexEntry,
+                    filter, descending, getCollectionSize());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Plans the lookup of the documents of a filter by their value of a field
+     * having a comparable index. It is the inner side of an index nested loop
+     * join, which reads only the index entries of the values being joined
+     * instead of scanning the collection.
+     *
+     * @param filter the filter
+     * @param field  the field
+     * @return the index probe, or `null` if the index cannot be used.
+     */
+    IndexProbe planProbe(Filter filter, String field) {
+        IndexEntry indexEntry = indexOperations.findIndexEntry(field);
+        if (indexEntry == null || indexEntry.isCompound() || indexOperations.isIndexing(field)) return null;
+
+        Indexer indexer = indexOperations.findIndexer(indexEntry.getIndexType());
+        if (!(indexer instanceof ComparableIndexer)) return null;
+
+        // a filter which can only be answered by its own index cannot be applied on each document
+        boolean filtered = filter != null && filter != Filter.ALL;
+        if (filtered && plan(filter).isMandatory()) return null;
+
+        ComparableIndexer comparableIndexer = (ComparableIndexer) indexer;
+        return value -> {
+            RecordStream<Pair<NitriteId, Document>> recordStream = new IndexedStream(
+                comparableIndexer.findEqual(collectionName, field, value), nitriteMap);
+            return filtered ? new FilteredRecordStream(recordStream, filter) : recordStream;
+        };
+    }
+
+    private PlanNode planIndexed(Filter filter) {
+        if (filter instanceof AndFilter) {
+            return planAnd(filter);
+        } else if (filter instanceof OrFilter) {
+            return planOr(filter);
+        }
+        return planIndexScan(filter);
+    }
+
+    private PlanNode planIndexScan(Filter filter) {
+        if (!(filter instanceof IndexAwareFilter)) return null;
+
+        IndexAwareFilter indexAwareFilter = (IndexAwareFilter) filter;
+        if (indexAwareFilter.getIsFieldIndexed()) {
+            IndexEntry indexEntry = indexOperations.findIndexEntry(indexAwareFilter.getField());
+            return new IndexScanNode(indexAwareFilter, indexEntry, estimateRows(indexAwareFilter));
+        } else if (indexAwareFilter.getOnIdField()) {
+            long idCount = countIds(indexAwareFilter);
+            if (idCount >= 0) {
+                return new IdScanNode(indexAwareFilter, idCount);
+            }
+        }
+        return null;
+    }
+
+    private PlanNode planAnd(Filter filter) {
+        List<Filter> conjuncts = flatten(filter, AndFilter.class, new ArrayList<>());
+
+        List<PlanNode> candidates = new ArrayList<>();
+        for (Filter conjunct : conjuncts) {
+            PlanNode candidate = planIndexed(conjunct);
+            // only exact plans can be intersected, the rest is filtered
+            if (candidate != null && candidate.isExact()) {
+                candidates.add(candidate);
+            }
+        }
+
+        PlanNode compoundScan = planCompoundScan(conjuncts);
+        if (compoundScan != null) {
+            candidates.add(compoundScan);
+        }
+
+        if (candidates.isEmpty()) return null;
+
+        // mandatory index scans first, then the most selective ones
+        candidates.sort((first, second) -> {
+            if (first.isMandatory() != second.isMandatory()) {
+                return first.isMandatory() ? -1 : 1;
+            }
+            return Long.compare(first.getRows(), second.getRows());
+        });
+
+        long size = getCollectionSize();
+        List<PlanNode> intersection = new ArrayList<>();
+        Set<Filter> usedFilters = Collections.newSetFromMap(new IdentityHashMap<>());
+        double rows = size;
+        double cost = 0;
+        for (PlanNode candidate : candidates) {
+            if (!Collections.disjoint(usedFilters, candidate.getFilters())) continue;
+
+            double selectivity = size == 0 ? 0 : Math.min(1.0, (double) candidate.getRows() / size);
+            if (!intersection.isEmpty() && !candidate.isMandatory()) {
+                // intersect only if reading the ids is cheaper than fetching
+                // the documents it would eliminate
+                double savedCost = rows * (1 - selectivity) * DOCUMENT_FETCH_COST;
+                if (candidate.getIndexCost() >= savedCost) continue;
+            }
+
+            intersection.add(candidate);
+            usedFilters.addAll(candidate.getFilters());
+            rows = intersection.size() == 1 ? candidate.getRows() : rows * selectivity;
+            cost += candidate.getIndexCost();
+        }
+
+        PlanNode plan;
+        if (intersection.size() == 1) {
+            plan = intersection.get(0);
+        } else {
+            long estimatedRows = (long) Math.ceil(rows);
+            plan = new IntersectionNode(intersection, estimatedRows,
+                cost + estimatedRows * DOCUMENT_FETCH_COST);
+        }
+
+        Filter residualFilter = residualFilter(conjuncts, intersection);
+        return residualFilter == null ? plan : new FilteredNode(plan, residualFilter);
+    }
+
+    private PlanNode planOr(Filter filter) {
+        List<Filter> disjuncts = flatten(filter, OrFilter.class, new ArrayList<>());
+
+        List<PlanNode> branches = new ArrayList<>();
+        for (Filter disjunct : disjuncts) {
+            PlanNode branch = planIndexed(disjunct);
+            if (branch == null) {
+                // a single non-indexed branch needs a collection scan
+                return null;
+            }
+            branches.add(branch);
+        }
+        return new UnionNode(branches);
+    }
+
+    private PlanNode planCompoundScan(List<Filter> conjuncts) {
+        Collection<IndexEntry> indexEntries = indexOperations.listIndexes();
+        if (indexEntries == null || indexEntries.isEmpty()) return null;
+
+        // collect all equality and range conditions per field
+        Map<String, EqualsFilter> equalities = new HashMap<>();
+        Map<String, List<ComparisonFilter>> ranges = new HashMap<>();
+        for (Filter filter : conjuncts) {
+            if (filter instanceof EqualsFilter) {
+                EqualsFilter equalsFilter = (EqualsFilter) filter;
+                Object value = equalsFilter.getValue();
+                if (value == null || value instanceof Comparable) {
+                    equalities.putIfAbsent(equalsFilter.getField(), equalsFilter);
+                }
+            } else if (filter instanceof GreaterThanFilter || filter instanceof GreaterEqualFilter
+                || filter instanceof LesserThanFilter || filter instanceof LesserEqualFilter) {
+                ComparisonFilter comparisonFilter = (ComparisonFilter) filter;
+                if (comparisonFilter.getValue() != null) {
+                    ranges.computeIfAbsent(comparisonFilter.getField(), k -> new ArrayList<>())
+                        .add(comparisonFilter);
+                }
+            }
+        }
+
+        if (equalities.isEmpty() && ranges.isEmpty()) return null;
+
+        CompoundScanNode bestScan = null;
+        for (IndexEntry indexEntry : indexEntries) {
+            if (!indexEntry.isCompound() || indexOperations.isIndexing(indexEntry.getField())) continue;
+
+            Indexer indexer = indexOperations.findIndexer(indexEntry.getIndexType());
+            if (!(indexer instanceof ComparableIndexer)) continue;
+
+            // longest equality prefix of the index fields, optionally followed by a range
+            List<String> fields = indexEntry.getFields();
+            List<Object> prefix = new ArrayList<>();
+            List<Filter> usedFilters = new ArrayList<>();
+            while (prefix.size() < fields.size() && equalities.containsKey(fields.get(prefix.size()))) {
+                EqualsFilter equalsFilter = equalities.get(fields.get(prefix.size()));
+                prefix.add(equalsFilter.getValue());
+                usedFilters.add(equalsFilter);
+            }
+
+            List<ComparisonFilter> rangeFilters = prefix.size() < fields.size()
+                ? ranges.get(fields.get(prefix.size())) : null;
+            if (rangeFilters != null) {
+                usedFilters.addAll(rangeFilters);
+            }
+
+            // documents without any of the index fields are not in a compound index,
+            // so a probe without a value can not find the documents which match it
+            boolean valued = rangeFilters != null;
+            for (Object value : prefix) {
+                valued = valued || value != null;
+            }
+            if (!valued) continue;
+
+            // assumes the distinct keys are evenly spread over the index fields
+            double selectivity = 1.0;
+            long keyCount = getKeyCount(indexEntry.getField(), (ComparableIndexer) indexer);
+            if (keyCount > 0) {
+                selectivity = Math.pow(1.0 / keyCount, (double) prefix.size() / fields.size());
+            }
+            if (rangeFilters != null) {
+                selectivity *= RANGE_SELECTIVITY;
+            }
+
+            long rows = keyCount == 0 ? 0 : (long) Math.ceil(getCollectionSize() * selectivity);
+            if (bestScan == null || rows < bestScan.getRows()) {
+                bestScan = new CompoundScanNode((ComparableIndexer) indexer, indexEntry,
+                    CompoundKey.of(prefix.toArray()), rangeFilters, usedFilters, rows);
+            }
+        }
+        return bestScan;
+    }
+
+    private Filter residualFilter(List<Filter> conjuncts, List<PlanNode> intersection) {
+        Set<Filter> coveredFilters = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (PlanNode node : intersection) {
+            if (node.isExact()) {
+                coveredFilters.addAll(node.getFilters());
+            }
+        }
+
+        Filter residualFilter = null;
+        for (Filter conjunct : conjuncts) {
+            if (coveredFilters.contains(conjunct)) continue;
+
+            if (residualFilter == null) {
+                residualFilter = conjunct;
+            } else if (conjunct instanceof StringFilter) {
+                // text filter must be the first filter in and operation
+                residualFilter = conjunct.and(residualFilter);
+            } else {
+                residualFilter = residualFilter.and(conjunct);
+            }
+        }
+        return residualFilter;
+    }
+
+    private List<Filter> flatten(Filter filter, Class<? extends LogicalFilter> type, List<Filter> filters) {
+        if (type.isInstance(filter)) {
+            for (Filter child : ((LogicalFilter) filter).getFilters()) {
+                flatten(child, type, filters);
+            }
+        } else {
+            filters.add(filter);
+        }
+        return filters;
+    }
+
+    private long estimateRows(IndexAwareFilter filter) {
+        long size = getCollectionSize();
+        if (!(filter.getIndexer() instanceof ComparableIndexer)) {
+            return (long) Math.ceil(size * SEARCH_SELECTIVITY);
+        }
+
+        long keyCount = getKeyCount(filter.getField(), (ComparableIndexer) filter.getIndexer());
+        if (keyCount == 0) return 0;
+
+        double rowsPerKey = (double) size / keyCount;
+        double rows;
+        if (filter instanceof EqualsFilter) {
+            rows = rowsPerKey;
+        } else if (filter instanceof InFilter) {
+            rows = ((InFilter) filter).getComparableSet().size() * rowsPerKey;
+        } else if (filter instanceof NotEqualsFilter) {
+            rows = size - rowsPerKey;
+        } else if (filter instanceof NotInFilter) {
+            rows = size - ((NotInFilter) filter).getComparableSet().size() * rowsPerKey;
+        } else if (filter instanceof ComparisonFilter) {
+            rows = size * RANGE_SELECTIVITY;
+        } else {
+            rows = size * DEFAULT_SELECTIVITY;
+        }
+        return (long) Math.ceil(Math.max(0, Math.min(size, rows)));
+    }
+
+    private long countIds(IndexAwareFilter filter) {
+        try {
+            if (filter instanceof EqualsFilter) {
+                Object value = filter.getValue();
+                return value instanceof String && NitriteId.validId(value) ? 1 : -1;
+            } else if (filter instanceof InFilter) {
+                Set<Comparable<?>> values = ((InFilter) filter).getComparableSet();
+                for (Comparable<?> value : values) {
+                    if (!(value instanceof String) || !NitriteId.validId(value)) return -1;
+                }
+                return values.size();
+            }
+        } catch (InvalidIdException e) {
+            // not a valid id, the documents cannot be looked up by id
+        }
+        return -1;
+    }
+
+    private long getKeyCount(String field, ComparableIndexer indexer) {
+        return keyCounts.computeIfAbsent(field, k -> indexer.getKeyCount(collectionName, k));
+    }
+
+    private long getCollectionSize() {
+        if (collectionSize == null) {
+            collectionSize = nitriteMap.size();
+        }
+        return collectionSize;
+    }
+
+    private double getCollectionScanCost() {
+        return getCollectionSize() * COLLECTION_SCAN_COST;
+    }
+
+    interface IndexProbe {
+        /**
+         * Finds the documents having a value for the field of the probe.
+         */
+        RecordStream<Pair<NitriteId, Document>> find(Comparable<?> value);
+    }
+
+    abstract static class PlanNode {
+        private final long rows;
+        private final double cost;
+
+        PlanNode(long rows, double cost) {
+            this.rows = rows;
+            this.cost = cost;
+        }
+
+        long getRows() {
+            return rows;
+        }
+
+        double getCost() {
+            return cost;
+        }
+
+        /**
+         * Gets the cost of finding the ids without fetching the documents.
+         */
+        double getIndexCost() {
+            return cost;
+        }
+
+        /**
+         * Checks if the plan finds exactly the documents matching its filters.
+         */
+        boolean isExact() {
+            return false;
+        }
+
+        /**
+         * Checks if the filters of the plan can only be served by an index.
+         */
+        boolean isMandatory() {
+            return false;
+        }
+
+        List<Filter> getFilters() {
+            return Collections.emptyList();
+        }
+
+        Set<NitriteId> findIds() {
+            throw new InvalidOperationException("ids are not available for " + getClass().getSimpleName());
+        }
+
+        abstract RecordStream<Pair<NitriteId, Document>> stream();
+
+        abstract QueryPlan explain();
+
+        QueryPlan newPlan(ScanType scanType) {
+            QueryPlan queryPlan = new QueryPlan();
+            queryPlan.setScanType(scanType);
+            queryPlan.setEstimatedRows(rows);
+            queryPlan.setEstimatedCost(cost);
+            return queryPlan;
+        }
+    }
+
+    private class CollectionScanNode extends PlanNode {
+        private final Filter filter;
+
+        CollectionScanNode(Filter filter) {
+            super(getCollectionSize(), getCollectionScanCost());
+            this.filter = filter;
+        }
+
+        @Override
+        RecordStream<Pair<NitriteId, Document>> stream() {
+            RecordStream<Pair<NitriteId, Document>> recordStream = nitriteMap.entries();
+            return filter == null ? recordStream : new FilteredRecordStream(recordStream, filter);
+        }
+
+        @Override
+        QueryPlan explain() {
+            QueryPlan queryPlan = newPlan(ScanType.CollectionScan);
+            queryPlan.setResidualFilter(filter);
+            return queryPlan;
+        }
+    }
+
+    private class IdScanNode extends PlanNode {
+        private final IndexAwareFilter filter;
+
+        IdScanNode(IndexAwareFilter filter, long rows) {
+            super(rows, rows * DOCUMENT_FETCH_COST * 2);
+            this.filter = filter;
+        }
+
+        @Override
+        double getIndexCost() {
+            return getRows() * DOCUMENT_FETCH_COST;
+        }
+
+        @Override
+        boolean isExact() {
+            return true;
+        }
+
+        @Override
+        List<Filter> getFilters() {
+            return Collections.singletonList(filter);
+        }
+
+        @Override
+        Set<NitriteId> findIds() {
+            return filter.cachedIds(nitriteMap);
+        }
+
+        @Override
+        RecordStream<Pair<NitriteId, Document>> stream() {
+            return new IndexedStream(filter, nitriteMap);
+        }
+
+        @Override
+        QueryPlan explain() {
+            QueryPlan queryPlan = newPlan(ScanType.IdScan);
+            queryPlan.getIndexFilters().add(filter);
+            return queryPlan;
+        }
+    }
+
+    private class IndexScanNode extends PlanNode {
+        private final IndexAwareFilter filter;
+        private final IndexEntry indexEntry;
+
+        IndexScanNode(IndexAwareFilter filter, IndexEntry indexEntry, long rows) {
+            super(rows, rows * (INDEX_READ_COST + DOCUMENT_FETCH_COST));
+            this.filter = filter;
+            this.indexEntry = indexEntry;
+        }
+
+        @Override
+        double getIndexCost() {
+            return getRows() * INDEX_READ_COST;
+        }
+
+        @Override
+        boolean isExact() {
+            return true;
+        }
+
+        @Override
+        boolean isMandatory() {
+            return !(filter.getIndexer() instanceof ComparableIndexer);
+        }
+
+        @Override
+        List<Filter> getFilters() {
+            return Collections.singletonList(filter);
+        }
+
+        @Override
+        Set<NitriteId> findIds() {
+            return filter.cachedIndexedIds();
+        }
+
+        @Override
+        RecordStream<Pair<NitriteId, Document>> stream() {
+            return new IndexedStream(filter, nitriteMap);
+        }
+
+        @Override
+        QueryPlan explain() {
+            QueryPlan queryPlan = newPlan(ScanType.IndexScan);
+            queryPlan.setIndexEntry(indexEntry);
+            queryPlan.getIndexFilters().add(filter);
+            return queryPlan;
+        }
+    }
+
+    private class CompoundScanNode extends PlanNode {
+        private final ComparableIndexer indexer;
+        private final IndexEntry indexEntry;
+        private final CompoundKey prefix;
+        private final List<ComparisonFilter> rangeFilters;
+        private final List<Filter> filters;
+
+        CompoundScanNode(ComparableIndexer indexer, IndexEntry indexEntry, CompoundKey prefix,
+                         List<ComparisonFilter> rangeFilters, List<Filter> filters, long rows) {
+            super(rows, rows * (INDEX_READ_COST + DOCUMENT_FETCH_COST));
+            this.indexer = indexer;
+            this.indexEntry = indexEntry;
+            this.prefix = prefix;
+            this.rangeFilters = rangeFilters;
+            this.filters = filters;
+        }
+
+        @Override
+        double getIndexCost() {
+            return getRows() * INDEX_READ_COST;
+        }
+
+        @Override
+        List<Filter> getFilters() {
+            return filters;
+        }
+
+        @Override
+        Set<NitriteId> findIds() {
+            Set<NitriteId> nitriteIds = new LinkedHashSet<>();
+            for (NitriteId nitriteId : streamIds()) {
+                nitriteIds.add(nitriteId);
+            }
+            return nitriteIds;
+        }
+
+        @Override
+        RecordStream<Pair<NitriteId, Document>> stream() {
+            return new IndexedStream(streamIds(), nitriteMap);
+        }
+
+        @SuppressWarnings("rawtypes")
+        private RecordStream<NitriteId> streamIds() {
+            Comparable lowerBound = null, upperBound = null;
+            boolean lowerInclusive = false, upperInclusive = false;
+
+            if (rangeFilters != null) {
+                // the residual filter takes care of any additional range condition
+                for (ComparisonFilter rangeFilter : rangeFilters) {
+                    if (lowerBound == null && rangeFilter instanceof GreaterThanFilter) {
+                        lowerBound = rangeFilter.getComparable();
+                    } else if (lowerBound == null && rangeFilter instanceof GreaterEqualFilter) {
+                        lowerBound = rangeFilter.getComparable();
+                        lowerInclusive = true;
+                    } else if (upperBound == null && rangeFilter instanceof LesserThanFilter) {
+                        upperBound = rangeFilter.getComparable();
+                    } else if (upperBound == null && rangeFilter instanceof LesserEqualFilter) {
+                        upperBound = rangeFilter.getComparable();
+                        upperInclusive = true;
+                    }
+                }
+            }
+
+            return indexer.findByPrefix(collectionName, indexEntry.getField(), prefix,
+                lowerBound, lowerInclusive, upperBound, upperInclusive);
+        }
+
+        @Override
+        QueryPlan explain() {
+            QueryPlan queryPlan = newPlan(ScanType.IndexScan);
+            queryPlan.setIndexEntry(indexEntry);
+            queryPlan.getIndexFilters().addAll(filters);
+            return queryPlan;
+        }
+    }
+
+    private class IndexSortNode extends PlanNode {
+        private final ComparableIndexer indexer;
+        private final IndexEntry indexEntry;
+        private final List<ComparisonFilter> rangeFilters;
+        private final Filter filter;
+        private final SortOrder sortOrder;
+        private final NullOrder nullOrder;
+
+        IndexSortNode(ComparableIndexer indexer, IndexEntry indexEntry, List<ComparisonFilter> rangeFilters,
+                      Filter filter, SortOrder sortOrder, NullOrder nullOrder, long rows) {
+            super(rows, rows * (INDEX_READ_COST + DOCUMENT_FETCH_COST));
+            this.indexer = indexer;
+            this.indexEntry = indexEntry;
+            this.rangeFilters = rangeFilters;
+            this.filter = filter;
+            this.sortOrder = sortOrder;
+            this.nullOrder = nullOrder;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        RecordStream<Pair<NitriteId, Document>> stream() {
+            Comparable lowerBound = null, upperBound = null;
+            boolean lowerInclusive = false, upperInclusive = false;
+
+            // the filter is applied on each document, so any additional range condition is taken care of
+            for (ComparisonFilter rangeFilter : rangeFilters) {
+                if (lowerBound == null && rangeFilter instanceof GreaterThanFilter) {
+                    lowerBound = rangeFilter.getComparable();
+                } else if (lowerBound == null && rangeFilter instanceof GreaterEqualFilter) {
+                    lowerBound = rangeFilter.getComparable();
+                    lowerInclusive = true;
+                } else if (upperBound == null && rangeFilter instanceof LesserThanFilter) {
+                    upperBound = rangeFilter.getComparable();
+                } else if (upperBound == null && rangeFilter instanceof LesserEqualFilter) {
+                    upperBound = rangeFilter.getComparable();
+                    upperInclusive = true;
+                }
+            }
+
+            String field = indexEntry.getField();
+            boolean descending = sortOrder != SortOrder.Ascending;
+            RecordStream<NitriteId> nitriteIds = indexer.findRange(collectionName, field,
+                lowerBound, lowerInclusive, upperBound, upperInclusive, descending);
+
+            if (lowerBound == null && upperBound == null) {
+                // documents without a value are indexed under the null key, which
+                // comes first in ascending order and last in descending order by default
+                RecordStream<NitriteId> nullIds = () -> indexer.findEqual(collectionName, field, null).iterator();
+                boolean nullFirst = descending ? nullOrder == NullOrder.First
+                    : nullOrder == NullOrder.Default || nullOrder == NullOrder.First;
+                nitriteIds = nullFirst ? RecordStream.fromCombined(nullIds, nitriteIds)
+                    : RecordStream.fromCombined(nitriteIds, nullIds);
+            }
+
+            RecordStream<Pair<NitriteId, Document>> recordStream
+                = new IndexSortedStream(field, nitriteIds, nitriteMap);
+            return filter == null ? recordStream : new FilteredRecordStream(recordStream, filter);
+        }
+
+        @Override
+        QueryPlan explain() {
+            QueryPlan queryPlan = newPlan(ScanType.IndexSort);
+            queryPlan.setIndexEntry(indexEntry);
+            queryPlan.getIndexFilters().addAll(rangeFilters);
+            queryPlan.setResidualFilter(filter);
+            return queryPlan;
+        }
+    }
+
+    private class CompoundSortNode extends PlanNode {
+        private final ComparableIndexer indexer;
+        private final IndexEntry indexEntry;
+        private final Filter filter;
+        private final boolean descending;
+
+        CompoundSortNode(ComparableIndexer indexer, IndexEntry indexEntry,
+                         Filter filter, boolean descending, long rows) {
+            super(rows, rows * (INDEX_READ_COST + DOCUMENT_FETCH_COST));
+            this.indexer = indexer;
+            this.indexEntry = indexEntry;
+            this.filter = filter;
+            this.descending = descending;
+        }
+
+        @Override
+        RecordStream<Pair<NitriteId, Document>> stream() {
+            // the empty key is smaller than any key of the index
+            RecordStream<NitriteId> nitriteIds = indexer.findRange(collectionName, indexEntry.getField(),
+                CompoundKey.of(), true, null, false, descending);
+
+            RecordStream<Pair<NitriteId, Document>> recordStream
+                = new IndexSortedStream(indexEntry.getFields().get(0), nitriteIds, nitriteMap);
+            return new FilteredRecordStream(recordStream, filter);
+        }
+
+        @Override
+        QueryPlan explain() {
+            QueryPlan queryPlan = newPlan(ScanType.IndexSort);
+            queryPlan.setIndexEntry(indexEntry);
+            queryPlan.setResidualFilter(filter);
+            return queryPlan;
+        }
+    }
+
+    private class IntersectionNode extends PlanNode {
+        private final List<PlanNode> children;
+
+        IntersectionNode(List<PlanNode> children, long rows, double cost) {
+            super(rows, cost);
+            this.children = children;
+        }
+
+        @Override
+        double getIndexCost() {
+            double indexCost = 0;
+            for (PlanNode child : children) {
+                indexCost += child.getIndexCost();
+            }
+            return indexCost;
+        }
+
+        @Override
+        boolean isExact() {
+            for (PlanNode child : children) {
+                if (!child.isExact()) return false;
+            }
+            return true;
+        }
+
+        @Override
+        boolean isMandatory() {
+            for (PlanNode child : children) {
+                if (child.isMandatory()) return true;
+            }
+            return false;
+        }
+
+        @Override
+        List<Filter> getFilters() {
+            List<Filter> filters = new ArrayList<>();
+            for (PlanNode child : children) {
+                filters.addAll(child.getFilters());
+            }
+            return filters;
+        }
+
+        @Override
+        Set<NitriteId> findIds() {
+            // children are ordered by their estimated rows, start with the smallest set
+            Set<NitriteId> nitriteIds = null;
+            for (PlanNode child : children) {
+                if (nitriteIds == null) {
+                    nitriteIds = new LinkedHashSet<>(child.findIds());
+                } else {
+                    nitriteIds.retainAll(child.findIds());
+                }
+
+                if (nitriteIds.isEmpty()) break;
+            }
+            return nitriteIds;
+        }
+
+        @Override
+        RecordStream<Pair<NitriteId, Document>> stream() {
+            return new IndexedStream(findIds(), nitriteMap);
+        }
+
+        @Override
+        QueryPlan explain() {
+            QueryPlan queryPlan = newPlan(ScanType.IndexIntersection);
+            for (PlanNode child : children) {
+                queryPlan.getSubPlans().add(child.explain());
+            }
+            return queryPlan;
+        }
+    }
+
+    private class UnionNode extends PlanNode {
+        private final List<PlanNode> children;
+
+        UnionNode(List<PlanNode> children) {
+            super(sumRows(children), sumCost(children));
+            this.children = children;
+        }
+
+        @Override
+        double getIndexCost() {
+            double indexCost = 0;
+            for (PlanNode child : children) {
+                indexCost += child.getIndexCost();
+            }
+            return indexCost;
+        }
+
+        @Override
+        boolean isExact() {
+            for (PlanNode child : children) {
+                if (!child.isExact()) return false;
+            }
+            return true;
+        }
+
+        @Override
+        boolean isMandatory() {
+            for (PlanNode child : children) {
+                if (child.isMandatory()) return true;
+            }
+            return false;
+        }
+
+        @Override
+        List<Filter> getFilters() {
+            List<Filter> filters = new ArrayList<>();
+            for (PlanNode child : children) {
+                filters.addAll(child.getFilters());
+            }
+            return filters;
+        }
+
+        @Override
+        Set<NitriteId> findIds() {
+            Set<NitriteId> nitriteIds = new LinkedHashSet<>();
+            for (PlanNode child : children) {
+                nitriteIds.addAll(child.findIds());
+            }
+            return nitriteIds;
+        }
+
+        @Override
+        RecordStream<Pair<NitriteId, Document>> stream() {
+            RecordStream<Pair<NitriteId, Document>> recordStream = null;
+            for (PlanNode child : children) {
+                if (recordStream == null) {
+                    recordStream = child.stream();
+                } else {
+                    final RecordStream<Pair<NitriteId, Document>> lhsStream = recordStream;
+                    final RecordStream<Pair<NitriteId, Document>> rhsStream = child.stream();
+                    recordStream = RecordStream.fromIterable(() -> new UnionStreamIterator(lhsStream, rhsStream));
+                }
+            }
+            return recordStream;
+        }
+
+        @Override
+        QueryPlan explain() {
+            QueryPlan queryPlan = newPlan(ScanType.IndexUnion);
+            for (PlanNode child : children) {
+                queryPlan.getSubPlans().add(child.explain());
+            }
+            return queryPlan;
+        }
+    }
+
+    private static class FilteredNode extends PlanNode {
+        private final PlanNode plan;
+        private final Filter residualFilter;
+
+        FilteredNode(PlanNode plan, Filter residualFilter) {
+            super(plan.getRows(), plan.getCost());
+            this.plan = plan;
+            this.residualFilter = residualFilter;
+        }
+
+        @Override
+        double getIndexCost() {
+            return plan.getIndexCost();
+        }
+
+        @Override
+        boolean isMandatory() {
+            return plan.isMandatory();
+        }
+
+        @Override
+        List<Filter> getFilters() {
+            return plan.getFilters();
+        }
+
+        @Override
+        RecordStream<Pair<NitriteId, Document>> stream() {
+            return new FilteredRecordStream(plan.stream(), residualFilter);
+        }
+
+        @Override
+        QueryPlan explain() {
+            QueryPlan queryPlan = plan.explain();
+            queryPlan.setResidualFilter(residualFilter);
+            return queryPlan;
+        }
+    }
+
+    private long sumRows(List<PlanNode> nodes) {
+        long rows = 0;
+        for (PlanNode node : nodes) {
+            rows += node.getRows();
+        }
+        return Math.min(rows, getCollectionSize());
+    }
+
+    private static double sumCost(List<PlanNode> nodes) {
+        double cost = 0;
+        for (PlanNode node : nodes) {
+            cost += node.getCost();
+        }
+        return cost;
+    }
+}
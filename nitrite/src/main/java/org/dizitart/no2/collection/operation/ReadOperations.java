@@ -20,14 +20,14 @@ import org.dizitart.no2.NitriteConfig;
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.DocumentCursor;
 import org.dizitart.no2.collection.NitriteId;
-import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.filters.*;
 import org.dizitart.no2.index.IndexEntry;
 import org.dizitart.no2.index.Indexer;
 import org.dizitart.no2.store.NitriteMap;
 
-import java.util.*;
+import java.util.List;
 
 import static org.dizitart.no2.common.Constants.DOC_ID;
 
@@ -51,23 +51,38 @@ class ReadOperations {
     }
 
     public DocumentCursor find() {
-        RecordStream<Pair<NitriteId, Document>> recordStream = nitriteMap.entries();
-        return new DocumentCursorImpl(recordStream);
+        return find(null);
     }
 
     public DocumentCursor find(Filter filter) {
-        if (filter == null || filter == Filter.ALL) {
-            return find();
+        if (filter != null && filter != Filter.ALL) {
+            prepareFilter(filter);
         }
 
-        prepareFilter(filter);
+        QueryPlanner queryPlanner = new QueryPlanner(collectionName, nitriteMap, indexOperations);
+        QueryPlanner.PlanNode queryPlan = queryPlanner.plan(filter);
+        return new DocumentCursorImpl(queryPlan.stream(), queryPlan.explain(), queryPlanner, filter,
+            nitriteConfig.getSortBufferSize());
+    }
+
+    // the stored documents matching the filter, without a copy for the caller,
+    // to be read by the writers which copy only what they change
+    RecordStream<Pair<NitriteId, Document>> findRecords(Filter filter) {
+        if (filter != null && filter != Filter.ALL) {
+            prepareFilter(filter);
+        }
 
-        RecordStream<Pair<NitriteId, Document>> recordStream = findSuitableStream(filter);
-        return new DocumentCursorImpl(recordStream);
+        QueryPlanner queryPlanner = new QueryPlanner(collectionName, nitriteMap, indexOperations);
+        return queryPlanner.plan(filter).stream();
     }
 
     Document getById(NitriteId nitriteId) {
-        return nitriteMap.get(nitriteId);
+        Document document = nitriteMap.get(nitriteId);
+        if (document != null && document.isFrozen()) {
+            // a frozen document is shared with the store
+            return document.copyOnWrite();
+        }
+        return document;
     }
 
     private void prepareFilter(Filter filter) {
@@ -121,80 +136,4 @@ class ReadOperations {
             }
         }
     }
-
-    private RecordStream<Pair<NitriteId, Document>> findSuitableStream(Filter filter) {
-        if (filter instanceof AndFilter) {
-            AndFilter andFilter = (AndFilter) filter;
-            Filter lhs = andFilter.getLhs();
-            Filter rhs = andFilter.getRhs();
-
-            if (lhs instanceof IndexAwareFilter && ((IndexAwareFilter) lhs).getIsFieldIndexed()) {
-                // Indexed AND Filter => IndexScan (LHS) -> Filter (RHS)
-
-                return getFilteredStream(((IndexAwareFilter) lhs), rhs);
-            } else if (rhs instanceof IndexAwareFilter && ((IndexAwareFilter) rhs).getIsFieldIndexed()) {
-                // Non-Indexed AND Indexed => IndexScan (RHS) -> Filter (LHS)
-
-                return getFilteredStream(((IndexAwareFilter) rhs), lhs);
-            } else {
-                // Non-Indexed AND Filter => CollectionScan
-
-                RecordStream<Pair<NitriteId, Document>> recordStream = nitriteMap.entries();
-                return new FilteredRecordStream(recordStream, filter);
-            }
-        } else if (filter instanceof OrFilter) {
-            OrFilter orFilter = (OrFilter) filter;
-            Filter lhs = orFilter.getLhs();
-            Filter rhs = orFilter.getRhs();
-
-            if (lhs instanceof IndexAwareFilter && ((IndexAwareFilter) lhs).getIsFieldIndexed()
-                && rhs instanceof IndexAwareFilter && ((IndexAwareFilter) rhs).getIsFieldIndexed()) {
-                // Indexed OR Indexed => IndexScan (LHS) Union IndexScan (RHS)
-
-                final RecordStream<Pair<NitriteId, Document>> lhsStream
-                    = getIndexedStream(((IndexAwareFilter) lhs));
-                final RecordStream<Pair<NitriteId, Document>> rhsStream
-                    = getIndexedStream(((IndexAwareFilter) rhs));
-
-                return getUnionStream(lhsStream, rhsStream);
-            } else {
-                // Non-Indexed OR Filter => CollectionScan
-                // Indexed OR Non-Indexed => CollectionScan
-
-                RecordStream<Pair<NitriteId, Document>> recordStream = nitriteMap.entries();
-                return new FilteredRecordStream(recordStream, filter);
-            }
-        } else if (filter instanceof IndexAwareFilter && ((IndexAwareFilter) filter).getIsFieldIndexed()) {
-            // Indexed => IndexScan
-
-            IndexAwareFilter indexAwareFilter = (IndexAwareFilter) filter;
-            return getIndexedStream(indexAwareFilter);
-        } else {
-            // Non-Indexed => CollectionScan
-
-            RecordStream<Pair<NitriteId, Document>> recordStream = nitriteMap.entries();
-            return new FilteredRecordStream(recordStream, filter);
-        }
-    }
-
-    private RecordStream<Pair<NitriteId, Document>> getFilteredStream(IndexAwareFilter indexAwareFilter,
-                                                                      Filter rest) {
-        RecordStream<Pair<NitriteId, Document>> indexStream = getIndexedStream(indexAwareFilter);
-        if (rest != null) {
-            return new FilteredRecordStream(indexStream, rest);
-        } else {
-            return indexStream;
-        }
-    }
-
-    private RecordStream<Pair<NitriteId, Document>> getUnionStream(
-        RecordStream<Pair<NitriteId, Document>> lhsStream,
-        RecordStream<Pair<NitriteId, Document>> rhsStream) {
-
-        return RecordStream.fromIterable(() -> new UnionStreamIterator(lhsStream, rhsStream));
-    }
-
-    private RecordStream<Pair<NitriteId, Document>> getIndexedStream(IndexAwareFilter indexAwareFilter) {
-        return new IndexedStream(indexAwareFilter, nitriteMap);
-    }
 }
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dizitart.no2.collection.operation;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.exceptions.NitriteIOException;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Sorts the entries of a sort which may not fit in memory. Every time the
+ * buffer fills up, its entries are sorted and written to a temporary file
+ * as a sorted run. The runs are merged while the sorted entries are being
+ * iterated, so besides the buffer only the head entry of each run is held
+ * in memory. At most {@link #MERGE_FAN_IN} runs are read at a time, if
+ * there are more the runs are first merged into fewer and longer runs.
+ * <p>
+ * A run file is deleted as soon as it is read completely. The owner of
+ * the buffer must call {@link #discard()} if it stops reading half way.
+ *
+ * @author Anindya Chatterjee.
+ */
+class SortBuffer {
+    // every run being merged holds an open file
+    private static final int MERGE_FAN_IN = 64;
+
+    private final Comparator<SortEntry> comparator;
+    private final int bufferSize;
+    private final List<SortEntry> buffer;
+    private final List<File> runs;
+    private final List<RunIterator> readers;
+
+    SortBuffer(Comparator<SortEntry> comparator, int bufferSize) {
+        this.comparator = comparator;
+        this.bufferSize = bufferSize;
+        this.buffer = new ArrayList<>();
+        this.runs = new ArrayList<>();
+        this.readers = new ArrayList<>();
+    }
+
+    void add(SortEntry entry) {
+        buffer.add(entry);
+        if (buffer.size() >= bufferSize) {
+            spill();
+        }
+    }
+
+    boolean isSpilled() {
+        return !runs.isEmpty();
+    }
+
+    Iterator<SortEntry> iterator() {
+        buffer.sort(comparator);
+        if (runs.isEmpty()) {
+            return buffer.iterator();
+        }
+
+        // the buffer is merged along with the runs
+        while (runs.size() >= MERGE_FAN_IN) {
+            List<File> group = runs.subList(0, MERGE_FAN_IN);
+            File merged = merge(new ArrayList<>(group));
+            group.clear();
+            runs.add(merged);
+        }
+
+        List<Iterator<SortEntry>> iterators = new ArrayList<>();
+        for (File run : runs) {
+            iterators.add(openRun(run));
+        }
+        iterators.add(buffer.iterator());
+        return new MergeIterator(iterators);
+    }
+
+    void discard() {
+        for (RunIterator reader : readers) {
+            reader.close();
+        }
+        readers.clear();
+        for (File run : runs) {
+            deleteRun(run);
+        }
+        runs.clear();
+        buffer.clear();
+    }
+
+    private void spill() {
+        buffer.sort(comparator);
+        runs.add(writeRun(buffer.iterator(), buffer.size()));
+        buffer.clear();
+    }
+
+    private File merge(List<File> group) {
+        List<Iterator<SortEntry>> iterators = new ArrayList<>();
+        int count = 0;
+        for (File run : group) {
+            RunIterator reader = openRun(run);
+            count += reader.remaining;
+            iterators.add(reader);
+        }
+
+        File merged = writeRun(new MergeIterator(iterators), count);
+        // the runs of the group are read till the end and deleted
+        readers.clear();
+        return merged;
+    }
+
+    private RunIterator openRun(File run) {
+        RunIterator reader = new RunIterator(run);
+        readers.add(reader);
+        return reader;
+    }
+
+    private File writeRun(Iterator<SortEntry> entries, int count) {
+        File run = null;
+        boolean written = false;
+        try {
+            run = File.createTempFile("nitrite-sort", ".run");
+            try (ObjectOutputStream stream = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(run)))) {
+                stream.writeInt(count);
+                while (entries.hasNext()) {
+                    SortEntry entry = entries.next();
+                    stream.writeLong(entry.getSequence());
+                    stream.writeObject(entry.getValues());
+                    stream.writeObject(entry.getPair().getFirst());
+                    stream.writeObject(entry.getPair().getSecond());
+                    // the stream must not hold on to every document it has written
+                    stream.reset();
+                }
+            }
+            written = true;
+            return run;
+        } catch (IOException e) {
+            throw new NitriteIOException("failed to write sorted documents to disk", e);
+        } finally {
+            if (!written) {
+                if (run != null) {
+                    deleteRun(run);
+                }
+                discard();
+            }
+        }
+    }
+
+    private static void deleteRun(File run) {
+        if (!run.delete() && run.exists()) {
+            run.deleteOnExit();
+        }
+    }
+
+    private static class RunIterator implements Iterator<SortEntry> {
+        private final File run;
+        private ObjectInputStream stream;
+        private int remaining;
+
+        RunIterator(File run) {
+            this.run = run;
+            try {
+                this.stream = new ObjectInputStream(new BufferedInputStream(new FileInputStream(run)));
+                this.remaining = stream.readInt();
+            } catch (IOException e) {
+                close();
+                throw new NitriteIOException("failed to read sorted documents from disk", e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public SortEntry next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+
+            try {
+                long sequence = stream.readLong();
+                Object[] values = (Object[]) stream.readObject();
+                NitriteId nitriteId = (NitriteId) stream.readObject();
+                Document document = (Document) stream.readObject();
+                if (--remaining == 0) {
+                    close();
+                }
+                return new SortEntry(values, sequence, new Pair<>(nitriteId, document));
+            } catch (IOException | ClassNotFoundException e) {
+                close();
+                throw new NitriteIOException("failed to read sorted documents from disk", e);
+            }
+        }
+
+        private void close() {
+            remaining = 0;
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ignore) {
+                    // the run is deleted anyway
+                }
+                stream = null;
+            }
+            deleteRun(run);
+        }
+    }
+
+    private class MergeIterator implements Iterator<SortEntry> {
+        private final PriorityQueue<RunHead> heads;
+
+        MergeIterator(List<Iterator<SortEntry>> iterators) {
+            this.heads = new PriorityQueue<>(iterators.size(),
+                (first, second) -> comparator.compare(first.entry, second.entry));
+            for (Iterator<SortEntry> iterator : iterators) {
+                if (iterator.hasNext()) {
+                    heads.add(new RunHead(iterator.next(), iterator));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public SortEntry next() {
+            RunHead head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+
+            SortEntry entry = head.entry;
+            if (head.iterator.hasNext()) {
+                head.entry = head.iterator.next();
+                heads.add(head);
+            }
+            return entry;
+        }
+    }
+
+    private static class RunHead {
+        private SortEntry entry;
+        private final Iterator<SortEntry> iterator;
+
+        RunHead(SortEntry entry, Iterator<SortEntry> iterator) {
+            this.entry = entry;
+            this.iterator = iterator;
+        }
+    }
+}
@@ -18,137 +18,299 @@ package org.dizitart.no2.collection.operation;
 
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.collection.QueryPlan;
+import org.dizitart.no2.collection.ScanType;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.common.NullOrder;
 import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.SortField;
 import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.common.SortableFields;
+import org.dizitart.no2.common.util.Numbers;
 import org.dizitart.no2.exceptions.ValidationException;
 
 import java.text.Collator;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Sorts the documents of a {@link RecordStream} on one or more fields. The
+ * values of all sort fields of a document are read once and the documents
+ * are ordered by a single comparator over those values.
+ * <p>
+ * If only the first few documents of the sort order are needed, as in a sort
+ * followed by a skip and limit, the documents are sorted in a bounded heap
+ * which never holds more than that many documents. Otherwise, a sort of more
+ * documents than the sort buffer size is spilled to disk by a {@link SortBuffer}.
+ * The temporary files of a sort are deleted when its iterator is read till the
+ * end, or when the cursor is closed.
+ *
  * @author Anindya Chatterjee.
  */
 class SortedDocumentCursor implements RecordStream<Pair<NitriteId, Document>> {
-    private final String field;
-    private final SortOrder sortOrder;
-    private final Collator collator;
-    private final NullOrder nullOrder;
+    private final List<SortField> sortFields;
     private final RecordStream<Pair<NitriteId, Document>> recordStream;
+    private final long limit;
+    private final int sortBufferSize;
+    private final Set<SortedDocumentIterator> openIterators;
 
     public SortedDocumentCursor(String field,
                                 SortOrder sortOrder,
                                 Collator collator,
                                 NullOrder nullOrder,
                                 RecordStream<Pair<NitriteId, Document>> recordStream) {
-        this.field = field;
-        this.sortOrder = sortOrder;
-        this.collator = collator;
-        this.nullOrder = nullOrder;
+        this(SortableFields.orderBy(field, sortOrder, collator, nullOrder).getSortFields(),
+            recordStream, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    SortedDocumentCursor(List<SortField> sortFields,
+                         RecordStream<Pair<NitriteId, Document>> recordStream,
+                         long limit,
+                         int sortBufferSize) {
+        this.sortFields = sortFields;
         this.recordStream = recordStream;
+        this.limit = limit;
+        this.sortBufferSize = sortBufferSize;
+        this.openIterators = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Creates a sorted cursor which only produces the first `count`
+     * documents of the sort order.
+     *
+     * @param count the number of documents
+     * @return the sorted cursor.
+     */
+    SortedDocumentCursor limit(long count) {
+        return new SortedDocumentCursor(sortFields, recordStream, Math.min(limit, count), sortBufferSize);
+    }
+
+    /**
+     * Wraps the plan of the documents to sort in a node of this sort.
+     *
+     * @param queryPlan the plan of the documents to sort
+     * @return the plan of the sort, or `null` if `queryPlan` is `null`.
+     */
+    QueryPlan explain(QueryPlan queryPlan) {
+        if (queryPlan == null) return null;
+
+        QueryPlan sortPlan = new QueryPlan();
+        sortPlan.setScanType(ScanType.InMemorySort);
+        sortPlan.getSortFields().addAll(sortFields);
+        sortPlan.setHeapSort(limit <= sortBufferSize);
+        sortPlan.setEstimatedRows(Math.min(queryPlan.getEstimatedRows(), limit));
+        sortPlan.setEstimatedCost(queryPlan.getEstimatedCost());
+        sortPlan.getSubPlans().add(queryPlan);
+        return sortPlan;
     }
 
     @Override
     public Iterator<Pair<NitriteId, Document>> iterator() {
         Iterator<Pair<NitriteId, Document>> iterator = recordStream == null ? Collections.emptyIterator()
             : recordStream.iterator();
-        return new SortedDocumentIterator(field, sortOrder, collator, nullOrder, iterator);
+        return new SortedDocumentIterator(sortFields, iterator, limit, sortBufferSize, openIterators);
+    }
+
+    @Override
+    public void close() {
+        for (SortedDocumentIterator iterator : openIterators) {
+            iterator.close();
+        }
     }
 
-    static class SortedDocumentIterator implements Iterator<Pair<NitriteId, Document>> {
-        private final String field;
-        private final SortOrder sortOrder;
-        private final Collator collator;
-        private final NullOrder nullOrder;
+    static class SortedDocumentIterator implements Iterator<Pair<NitriteId, Document>>, AutoCloseable {
+        private final List<SortField> sortFields;
+        private final Comparator<SortEntry> comparator;
         private final Iterator<Pair<NitriteId, Document>> iterator;
-        private Iterator<Pair<NitriteId, Document>> sortedIterator;
+        private final long limit;
+        private final int sortBufferSize;
+        private final Set<SortedDocumentIterator> openIterators;
+        private Iterator<SortEntry> sortedIterator;
+        private SortBuffer sortBuffer;
+        private long sequence;
+        private long position;
 
         public SortedDocumentIterator(String field,
                                       SortOrder sortOrder,
                                       Collator collator,
                                       NullOrder nullOrder,
                                       Iterator<Pair<NitriteId, Document>> iterator) {
-            this.field = field;
-            this.sortOrder = sortOrder;
-            this.collator = collator;
-            this.nullOrder = nullOrder;
+            this(SortableFields.orderBy(field, sortOrder, collator, nullOrder).getSortFields(),
+                iterator, Long.MAX_VALUE, Integer.MAX_VALUE, null);
+        }
+
+        SortedDocumentIterator(List<SortField> sortFields,
+                               Iterator<Pair<NitriteId, Document>> iterator,
+                               long limit,
+                               int sortBufferSize,
+                               Set<SortedDocumentIterator> openIterators) {
+            this.sortFields = sortFields;
+            this.comparator = new SortEntryComparator(sortFields);
             this.iterator = iterator;
+            this.limit = limit;
+            this.sortBufferSize = sortBufferSize;
+            this.openIterators = openIterators;
             init();
         }
 
         @Override
         public boolean hasNext() {
-            return sortedIterator.hasNext();
+            if (position < limit && sortedIterator.hasNext()) {
+                return true;
+            }
+            close();
+            return false;
         }
 
         @Override
         public Pair<NitriteId, Document> next() {
-            return sortedIterator.next();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            position++;
+            SortEntry entry = sortedIterator.next();
+            if (position >= limit || !sortedIterator.hasNext()) {
+                // the caller may never ask for more, so the runs are deleted now
+                close();
+            }
+            return entry.getPair();
+        }
+
+        @Override
+        public void close() {
+            sortedIterator = Collections.emptyIterator();
+            if (sortBuffer != null) {
+                sortBuffer.discard();
+                sortBuffer = null;
+                if (openIterators != null) {
+                    openIterators.remove(this);
+                }
+            }
         }
 
         private void init() {
-            NavigableMap<Object, List<Pair<NitriteId, Document>>> sortedMap;
-            if (collator != null) {
-                sortedMap = new TreeMap<>(collator);
+            if (limit <= sortBufferSize) {
+                this.sortedIterator = sortTop();
             } else {
-                sortedMap = new TreeMap<>();
+                this.sortedIterator = sortAll();
             }
+        }
+
+        private Iterator<SortEntry> sortTop() {
+            // the head of the heap is the last of the top entries found so far
+            PriorityQueue<SortEntry> heap = new PriorityQueue<>((int) Math.min(limit + 1, 1024),
+                Collections.reverseOrder(comparator));
 
-            Set<Pair<NitriteId, Document>> nullValueEntries = new HashSet<>();
             while (iterator.hasNext()) {
-                Pair<NitriteId, Document> next = iterator.next();
-                Document document = next.getSecond();
-                if (document == null) continue;
-
-                Object value = document.get(field);
-                if (value != null) {
-                    if (value.getClass().isArray() || value instanceof Iterable) {
-                        throw new ValidationException("cannot sort on an array or collection object");
-                    }
-                } else {
-                    nullValueEntries.add(next);
-                    continue;
+                SortEntry entry = nextEntry();
+                if (entry == null) continue;
+
+                if (heap.size() < limit) {
+                    heap.add(entry);
+                } else if (!heap.isEmpty() && comparator.compare(entry, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(entry);
                 }
+            }
 
-                List<Pair<NitriteId, Document>> pairs;
-                if (sortedMap.containsKey(value)) {
-                    pairs = sortedMap.get(value);
-                } else {
-                    pairs = new ArrayList<>();
+            List<SortEntry> entries = new ArrayList<>(heap);
+            entries.sort(comparator);
+            return entries.iterator();
+        }
+
+        private Iterator<SortEntry> sortAll() {
+            SortBuffer sortBuffer = new SortBuffer(comparator, sortBufferSize);
+            try {
+                while (iterator.hasNext()) {
+                    SortEntry entry = nextEntry();
+                    if (entry != null) {
+                        sortBuffer.add(entry);
+                    }
                 }
-                pairs.add(next);
-                sortedMap.put(value, pairs);
+                Iterator<SortEntry> sorted = sortBuffer.iterator();
+                if (sortBuffer.isSpilled()) {
+                    this.sortBuffer = sortBuffer;
+                    if (openIterators != null) {
+                        openIterators.add(this);
+                    }
+                }
+                return sorted;
+            } catch (RuntimeException e) {
+                sortBuffer.discard();
+                throw e;
             }
+        }
 
-            List<Pair<NitriteId, Document>> sortedPairs;
-            if (sortOrder == SortOrder.Ascending) {
-                if (nullOrder == NullOrder.Default || nullOrder == NullOrder.First) {
-                    sortedPairs = new ArrayList<>(nullValueEntries);
-                    sortedPairs.addAll(flattenList(sortedMap.values()));
-                } else {
-                    sortedPairs = flattenList(sortedMap.values());
-                    sortedPairs.addAll(nullValueEntries);
+        private SortEntry nextEntry() {
+            Pair<NitriteId, Document> next = iterator.next();
+            Document document = next.getSecond();
+            if (document == null) return null;
+
+            Object[] values = new Object[sortFields.size()];
+            for (int i = 0; i < values.length; i++) {
+                Object value = document.get(sortFields.get(i).getField());
+                if (value != null && (value.getClass().isArray() || value instanceof Iterable)) {
+                    throw new ValidationException("cannot sort on an array or collection object");
                 }
-            } else {
-                if (nullOrder == NullOrder.Default || nullOrder == NullOrder.Last) {
-                    sortedPairs = flattenList(sortedMap.descendingMap().values());
-                    sortedPairs.addAll(nullValueEntries);
+                values[i] = value;
+            }
+
+            // the sequence keeps the documents with equal values in their original order
+            return new SortEntry(values, sequence++, next);
+        }
+    }
+
+    static class SortEntryComparator implements Comparator<SortEntry> {
+        private final boolean[] descending;
+        private final boolean[] nullFirst;
+        private final Collator[] collators;
+
+        SortEntryComparator(List<SortField> sortFields) {
+            int size = sortFields.size();
+            this.descending = new boolean[size];
+            this.nullFirst = new boolean[size];
+            this.collators = new Collator[size];
+
+            for (int i = 0; i < size; i++) {
+                SortField sortField = sortFields.get(i);
+                NullOrder nullOrder = sortField.getNullOrder();
+                descending[i] = sortField.getSortOrder() != SortOrder.Ascending;
+                collators[i] = sortField.getCollator();
+                if (descending[i]) {
+                    nullFirst[i] = nullOrder != NullOrder.Default && nullOrder != NullOrder.Last;
                 } else {
-                    sortedPairs = new ArrayList<>(nullValueEntries);
-                    sortedPairs.addAll(flattenList(sortedMap.descendingMap().values()));
+                    nullFirst[i] = nullOrder == NullOrder.Default || nullOrder == NullOrder.First;
                 }
             }
+        }
 
-            this.sortedIterator = sortedPairs.iterator();
+        @Override
+        public int compare(SortEntry first, SortEntry second) {
+            Object[] firstValues = first.getValues();
+            Object[] secondValues = second.getValues();
+            for (int i = 0; i < firstValues.length; i++) {
+                int result = compareValues(i, firstValues[i], secondValues[i]);
+                if (result != 0) return result;
+            }
+            return Long.compare(first.getSequence(), second.getSequence());
         }
 
-        private <E> List<E> flattenList(Collection<List<E>> collection) {
-            List<E> finalList = new ArrayList<>();
-            for (List<E> list : collection) {
-                finalList.addAll(list);
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private int compareValues(int index, Object first, Object second) {
+            if (first == null || second == null) {
+                if (first == second) return 0;
+                return (first == null) == nullFirst[index] ? -1 : 1;
+            }
+
+            int result;
+            if (collators[index] != null) {
+                result = collators[index].compare(first, second);
+            } else if (first instanceof Number && second instanceof Number) {
+                result = Numbers.compare((Number) first, (Number) second);
+            } else {
+                result = ((Comparable) first).compareTo(second);
             }
-            return finalList;
+            return descending[index] ? -result : result;
         }
     }
 }
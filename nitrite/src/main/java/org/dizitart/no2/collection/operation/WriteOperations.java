@@ -18,20 +18,23 @@ package org.dizitart.no2.collection.operation;
 
 import lombok.extern.slf4j.Slf4j;
 import org.dizitart.no2.collection.Document;
-import org.dizitart.no2.collection.DocumentCursor;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.collection.UpdateOptions;
+import org.dizitart.no2.collection.events.CollectionEventBus;
 import org.dizitart.no2.collection.events.CollectionEventInfo;
-import org.dizitart.no2.collection.events.CollectionEventListener;
+import org.dizitart.no2.collection.events.DocumentChange;
 import org.dizitart.no2.collection.events.EventType;
+import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.WriteResult;
-import org.dizitart.no2.common.event.EventBus;
+import org.dizitart.no2.common.concurrent.StripedLock;
+import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.UniqueConstraintException;
 import org.dizitart.no2.filters.Filter;
 import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.store.NitriteStore;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
 
 import static org.dizitart.no2.common.Constants.*;
 
@@ -42,17 +45,21 @@ import static org.dizitart.no2.common.Constants.*;
 class WriteOperations {
     private final IndexOperations indexOperations;
     private final ReadOperations readOperations;
-    private final EventBus<CollectionEventInfo<?>, CollectionEventListener> eventBus;
+    private final CollectionEventBus eventBus;
     private final NitriteMap<NitriteId, Document> nitriteMap;
+    // null, if the writers are serialized by the lock of the collection
+    private final StripedLock documentLocks;
 
     WriteOperations(IndexOperations indexOperations,
                     ReadOperations readOperations,
                     NitriteMap<NitriteId, Document> nitriteMap,
-                    EventBus<CollectionEventInfo<?>, CollectionEventListener> eventBus) {
+                    CollectionEventBus eventBus,
+                    StripedLock documentLocks) {
         this.indexOperations = indexOperations;
         this.readOperations = readOperations;
         this.eventBus = eventBus;
         this.nitriteMap = nitriteMap;
+        this.documentLocks = documentLocks;
     }
 
     WriteResult insert(Document... documents) {
@@ -77,50 +84,124 @@ class WriteOperations {
                 item.remove(DOC_SOURCE);
             }
 
+            // the stored document is shared with the events and the readers
+            item.freeze();
+
             log.debug("Inserting document {} in {}", item, nitriteMap.getName());
-            Document already = nitriteMap.putIfAbsent(nitriteId, item);
+            Lock documentLock = lockDocument(nitriteId);
+            try {
+                Document already = nitriteMap.putIfAbsent(nitriteId, item);
+
+                if (already != null) {
+                    log.warn("Another document {} already exists with same id {}", already, nitriteId);
+
+                    throw new UniqueConstraintException("id constraint violation, " +
+                        "entry with same id already exists in " + nitriteMap.getName());
+                } else {
+                    try {
+                        indexOperations.writeIndex(item, nitriteId);
+                    } catch (UniqueConstraintException uce) {
+                        log.error("Unique constraint violated for the document "
+                            + document + " in " + nitriteMap.getName(), uce);
+                        nitriteMap.remove(nitriteId);
+                        throw uce;
+                    }
+                }
+            } finally {
+                unlock(documentLock);
+            }
+
+            nitriteIds.add(nitriteId);
+
+            alert(EventType.Insert, item, null, source, time);
+        }
+
+        WriteResultImpl result = new WriteResultImpl();
+        result.setNitriteIds(nitriteIds);
+
+        log.debug("Returning write result {} for collection {}", result, nitriteMap.getName());
+        return result;
+    }
+
+    WriteResult bulkInsert(Document... documents) {
+        log.debug("Total {} document(s) to be bulk inserted in {}", documents.length, nitriteMap.getName());
+
+        long time = System.currentTimeMillis();
+        Map<NitriteId, Document> items = new LinkedHashMap<>();
+        Map<NitriteId, String> sources = new HashMap<>();
+
+        // the whole batch is validated before anything is written
+        for (Document document : documents) {
+            Document item = document.clone();
+            NitriteId nitriteId = item.getId();
+            String source = item.getSource();
+
+            if (!REPLICATOR.contentEquals(source)) {
+                item.remove(DOC_SOURCE);
+                item.put(DOC_REVISION, 1);
+                item.put(DOC_MODIFIED, time);
+            } else {
+                item.remove(DOC_SOURCE);
+            }
 
-            if (already != null) {
-                log.warn("Another document {} already exists with same id {}", already, nitriteId);
+            item.freeze();
+            if (items.put(nitriteId, item) != null || nitriteMap.containsKey(nitriteId)) {
+                log.warn("Another document already exists with same id {}", nitriteId);
 
                 throw new UniqueConstraintException("id constraint violation, " +
                     "entry with same id already exists in " + nitriteMap.getName());
-            } else {
-                try {
-                    indexOperations.writeIndex(item, nitriteId);
-                } catch (UniqueConstraintException uce) {
-                    log.error("Unique constraint violated for the document "
-                        + document + " in " + nitriteMap.getName(), uce);
+            }
+            sources.put(nitriteId, source);
+        }
+
+        Lock[] locks = lockDocuments(items.keySet());
+        try {
+            for (NitriteId nitriteId : items.keySet()) {
+                // another writer could have taken the id after the validation
+                if (locks != null && nitriteMap.containsKey(nitriteId)) {
+                    throw new UniqueConstraintException("id constraint violation, " +
+                        "entry with same id already exists in " + nitriteMap.getName());
+                }
+            }
+
+            nitriteMap.putAll(items);
+            try {
+                indexOperations.writeIndex(items);
+            } catch (RuntimeException e) {
+                // a background commit of the store could have persisted some of
+                // the documents already, so they are removed again; a store which
+                // batches its writes drops the batch with these removals
+                log.error("Failed to index the batch of documents in " + nitriteMap.getName(), e);
+                for (NitriteId nitriteId : items.keySet()) {
                     nitriteMap.remove(nitriteId);
-                    throw uce;
                 }
+                throw e;
             }
+        } finally {
+            unlock(locks);
+        }
 
-            nitriteIds.add(nitriteId);
+        // a store which commits on its own persists the batch by a single commit,
+        // otherwise the caller commits it; a transactional collection does not
+        // come here, it inserts into its journal and commits with the transaction
+        NitriteStore<?> nitriteStore = nitriteMap.getStore();
+        if (nitriteStore.getStoreConfig().isAutoCommit()) {
+            nitriteStore.commit();
+        }
 
-            Document eventDoc = item.clone();
-            CollectionEventInfo<Document> eventInfo = new CollectionEventInfo<>();
-            eventInfo.setItem(eventDoc);
-            eventInfo.setTimestamp(time);
-            eventInfo.setEventType(EventType.Insert);
-            eventInfo.setOriginator(source);
-            alert(EventType.Insert, eventInfo);
+        for (Map.Entry<NitriteId, Document> entry : items.entrySet()) {
+            alert(EventType.Insert, entry.getValue(), null, sources.get(entry.getKey()), time);
         }
 
         WriteResultImpl result = new WriteResultImpl();
-        result.setNitriteIds(nitriteIds);
+        result.setNitriteIds(new HashSet<>(items.keySet()));
 
         log.debug("Returning write result {} for collection {}", result, nitriteMap.getName());
         return result;
     }
 
     WriteResult update(Filter filter, Document update, UpdateOptions updateOptions) {
-        DocumentCursor cursor;
-        if (filter == null || filter == Filter.ALL) {
-            cursor = readOperations.find();
-        } else {
-            cursor = readOperations.find(filter);
-        }
+        RecordStream<Pair<NitriteId, Document>> records = readOperations.findRecords(filter);
 
         WriteResultImpl writeResult = new WriteResultImpl();
         Document document = update.clone();
@@ -135,51 +216,64 @@ class WriteOperations {
             return writeResult;
         }
 
+        Set<String> changedFields = eventBus != null && eventBus.hasChangeListeners()
+            ? topLevelFields(document) : null;
         long count = 0;
-        for (Document doc : cursor) {
+        for (Pair<NitriteId, Document> record : records) {
+            Document doc = record.getSecond();
             if (doc != null) {
-                count++;
-
-                if (count > 1 && updateOptions.isJustOnce()) {
-                    break;
-                }
-
-                Document item = doc.clone();
-                Document oldDocument = doc.clone();
+                NitriteId nitriteId = doc.getId();
+                Document item;
                 String source = document.getSource();
                 long time = System.currentTimeMillis();
 
-                NitriteId nitriteId = item.getId();
-                log.debug("Document to update {} in {}", item, nitriteMap.getName());
-
-                if (!REPLICATOR.contentEquals(document.getSource())) {
-                    document.remove(DOC_SOURCE);
-                    item.merge(document);
-                    int rev = item.getRevision();
-                    item.put(DOC_REVISION, rev + 1);
-                    item.put(DOC_MODIFIED, time);
-                } else {
-                    document.remove(DOC_SOURCE);
-                    item.merge(document);
-                }
-
-                nitriteMap.put(nitriteId, item);
-                log.debug("Document {} updated in {}", item, nitriteMap.getName());
-
-                // if 'update' only contains id value, affected count = 0
-                if (document.size() > 0) {
-                    writeResult.addToList(nitriteId);
+                Lock documentLock = lockDocument(nitriteId);
+                try {
+                    if (documentLock != null) {
+                        // another writer could have changed or removed the
+                        // document since the query has read it
+                        doc = nitriteMap.get(nitriteId);
+                        if (doc == null) continue;
+                    }
+
+                    count++;
+
+                    if (count > 1 && updateOptions.isJustOnce()) {
+                        break;
+                    }
+
+                    // the stored document is never changed, so it is the old
+                    // version for the index, and the new one is a copy of it
+                    item = doc.clone();
+                    Document oldDocument = doc;
+                    log.debug("Document to update {} in {}", item, nitriteMap.getName());
+
+                    if (!REPLICATOR.contentEquals(document.getSource())) {
+                        document.remove(DOC_SOURCE);
+                        item.merge(document);
+                        int rev = item.getRevision();
+                        item.put(DOC_REVISION, rev + 1);
+                        item.put(DOC_MODIFIED, time);
+                    } else {
+                        document.remove(DOC_SOURCE);
+                        item.merge(document);
+                    }
+
+                    item.freeze();
+                    nitriteMap.put(nitriteId, item);
+                    log.debug("Document {} updated in {}", item, nitriteMap.getName());
+
+                    // if 'update' only contains id value, affected count = 0
+                    if (document.size() > 0) {
+                        writeResult.addToList(nitriteId);
+                    }
+
+                    indexOperations.updateIndex(oldDocument, item, nitriteId);
+                } finally {
+                    unlock(documentLock);
                 }
 
-                indexOperations.updateIndex(oldDocument, item, nitriteId);
-
-                CollectionEventInfo<Document> eventInfo = new CollectionEventInfo<>();
-                Document eventDoc = item.clone();
-                eventInfo.setItem(eventDoc);
-                eventInfo.setEventType(EventType.Update);
-                eventInfo.setTimestamp(time);
-                eventInfo.setOriginator(source);
-                alert(EventType.Update, eventInfo);
+                alert(EventType.Update, item, changedFields, source, time);
             }
         }
 
@@ -200,24 +294,19 @@ class WriteOperations {
     }
 
     WriteResult remove(Filter filter, boolean justOnce) {
-        DocumentCursor cursor;
-        if (filter == null || filter == Filter.ALL) {
-            cursor = readOperations.find();
-        } else {
-            cursor = readOperations.find(filter);
-        }
-
+        RecordStream<Pair<NitriteId, Document>> records = readOperations.findRecords(filter);
         WriteResultImpl result = new WriteResultImpl();
 
         long count = 0;
-        for (Document document : cursor) {
+        for (Pair<NitriteId, Document> record : records) {
+            Document document = record.getSecond();
             if (document != null) {
                 count++;
 
-                Document item = document.clone();
-                CollectionEventInfo<Document> eventInfo = removeAndCreateEvent(item, result);
-                if (eventInfo != null) {
-                    alert(EventType.Remove, eventInfo);
+                Document removed = removeDocument(document, result);
+                if (removed != null) {
+                    alert(EventType.Remove, removed, null,
+                        null, removed.getLastModifiedSinceEpoch());
                 }
 
                 if (justOnce) {
@@ -240,42 +329,120 @@ class WriteOperations {
 
     public WriteResult remove(Document document) {
         WriteResultImpl result = new WriteResultImpl();
-        CollectionEventInfo<Document> eventInfo = removeAndCreateEvent(document, result);
-        if (eventInfo != null) {
-            eventInfo.setOriginator(document.getSource());
-            alert(EventType.Remove, eventInfo);
+        Document removed = removeDocument(document, result);
+        if (removed != null) {
+            alert(EventType.Remove, removed, null,
+                document.getSource(), removed.getLastModifiedSinceEpoch());
         }
         return result;
     }
 
-    private CollectionEventInfo<Document> removeAndCreateEvent(Document document, WriteResultImpl writeResult) {
+    private Document removeDocument(Document document, WriteResultImpl writeResult) {
         NitriteId nitriteId = document.getId();
-        document = nitriteMap.remove(nitriteId);
+        Lock documentLock = lockDocument(nitriteId);
+        try {
+            document = nitriteMap.remove(nitriteId);
+            if (document != null) {
+                indexOperations.removeIndex(document, nitriteId);
+            }
+        } finally {
+            unlock(documentLock);
+        }
+
         if (document != null) {
             long time = System.currentTimeMillis();
-            indexOperations.removeIndex(document, nitriteId);
             writeResult.addToList(nitriteId);
 
+            if (document.isFrozen()) {
+                document = document.clone();
+            }
+
             int rev = document.getRevision();
             document.put(DOC_REVISION, rev + 1);
             document.put(DOC_MODIFIED, time);
+            document.freeze();
 
             log.debug("Document removed {} from {}", document, nitriteMap.getName());
-
-            CollectionEventInfo<Document> eventInfo = new CollectionEventInfo<>();
-            Document eventDoc = document.clone();
-            eventInfo.setItem(eventDoc);
-            eventInfo.setEventType(EventType.Remove);
-            eventInfo.setTimestamp(time);
-            return eventInfo;
+            return document;
         }
         return null;
     }
 
+    private Lock lockDocument(NitriteId nitriteId) {
+        if (documentLocks == null) return null;
+
+        Lock lock = documentLocks.get(nitriteId.hashCode());
+        lock.lock();
+        return lock;
+    }
+
+    private Lock[] lockDocuments(Collection<NitriteId> nitriteIds) {
+        if (documentLocks == null) return null;
+
+        int[] hashes = new int[nitriteIds.size()];
+        int i = 0;
+        for (NitriteId nitriteId : nitriteIds) {
+            hashes[i++] = nitriteId.hashCode();
+        }
+
+        Lock[] locks = documentLocks.getAll(hashes);
+        for (Lock lock : locks) {
+            lock.lock();
+        }
+        return locks;
+    }
+
+    private void unlock(Lock... locks) {
+        if (locks == null) return;
+
+        for (Lock lock : locks) {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
     private void alert(EventType action, CollectionEventInfo<?> changedItem) {
         log.debug("Notifying {} event for item {} from {}", action, changedItem, nitriteMap.getName());
         if (eventBus != null) {
             eventBus.post(changedItem);
         }
     }
+
+    private void alert(EventType action, Document item, Set<String> changedFields,
+                       String originator, long time) {
+        if (eventBus == null) return;
+
+        // the listeners get a changeable copy, the stored document stays frozen
+        CollectionEventInfo<Document> eventInfo = null;
+        if (eventBus.hasDocumentListeners()) {
+            Document eventDoc = item.copyOnWrite();
+            eventInfo = new CollectionEventInfo<>(eventDoc, action, time, originator);
+        }
+
+        CollectionEventInfo<DocumentChange> changeInfo = null;
+        if (eventBus.hasChangeListeners()) {
+            if (changedFields == null) {
+                // an insert or a remove changes all fields
+                changedFields = topLevelFields(item);
+            }
+            changeInfo = new CollectionEventInfo<>(new DocumentChange(item.getId(), changedFields),
+                action, time, originator);
+        }
+
+        log.debug("Notifying {} event for item {} from {}", action, item.getId(), nitriteMap.getName());
+        eventBus.post(eventInfo, changeInfo);
+    }
+
+    private Set<String> topLevelFields(Document document) {
+        Set<String> fields = new LinkedHashSet<>();
+        for (Pair<String, Object> entry : document) {
+            String field = entry.getFirst();
+            if (!DOC_ID.equals(field) && !DOC_REVISION.equals(field)
+                && !DOC_SOURCE.equals(field) && !DOC_MODIFIED.equals(field)) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
 }
@@ -97,6 +97,11 @@ public class Constants {
      */
     public static final String KEY_OBJ_SEPARATOR = "+";
 
+    /**
+     * The constant FIELD_DICTIONARY.
+     */
+    public static final String FIELD_DICTIONARY = "$nitrite_field_dictionary";
+
     /**
      * The constant RESERVED_NAMES.
      */
@@ -109,7 +114,8 @@ public class Constants {
         META_MAP_NAME,
         STORE_INFO,
         COLLECTION_CATALOG,
-        KEY_OBJ_SEPARATOR
+        KEY_OBJ_SEPARATOR,
+        FIELD_DICTIONARY
     };
 
     /**
@@ -222,9 +228,68 @@ public class Constants {
      */
     public static final String SYNC_THREAD_NAME = "Sync." + NO2;
 
+    /**
+     * The constant EVENT_THREAD_NAME.
+     */
+    public static final String EVENT_THREAD_NAME = "Event." + NO2;
+
+    /**
+     * The constant INDEX_THREAD_NAME.
+     */
+    public static final String INDEX_THREAD_NAME = "Indexer." + NO2;
+
+    /**
+     * The constant INDEX_SCAN_THREAD_NAME.
+     */
+    public static final String INDEX_SCAN_THREAD_NAME = "IndexScan." + NO2;
+
     /**
      * The constant INITIAL_REVISION.
      */
     public static final Integer INITIAL_SCHEMA_VERSION = 1;
 
+    /**
+     * The constant LOCK_STRIPES, the number of locks of the documents
+     * of a collection and of the keys of an index in striped mode.
+     */
+    public static final int LOCK_STRIPES = 64;
+
+    /**
+     * The constant EVENT_QUEUE_CAPACITY, the number of undelivered events
+     * of a listener after which a writer waits for the listener, once it
+     * has released the lock of the collection.
+     */
+    public static final int EVENT_QUEUE_CAPACITY = 1024;
+
+    /**
+     * The constant EVENT_QUEUE_TIMEOUT, the maximum milliseconds a publisher
+     * waits for a listener whose queue of events is full.
+     */
+    public static final long EVENT_QUEUE_TIMEOUT = 1000;
+
+    /**
+     * The constant IDLE_THREAD_TIMEOUT, the seconds after which an idle
+     * thread of a shared pool exits.
+     */
+    public static final long IDLE_THREAD_TIMEOUT = 60;
+
+    /**
+     * The constant EVENT_BATCH_SIZE, the default maximum number of events
+     * delivered together to a batch listener.
+     */
+    public static final int EVENT_BATCH_SIZE = 128;
+
+    /**
+     * The constant EVENT_BATCH_DELAY, the default maximum milliseconds an
+     * event waits for its batch to be delivered.
+     */
+    public static final long EVENT_BATCH_DELAY = 50;
+
+    /**
+     * The constant INDEX_BUILD_BUFFER_SIZE, the default maximum number of
+     * (key, id) pairs an index build holds in memory before it spills
+     * sorted runs of them to disk.
+     */
+    public static final int INDEX_BUILD_BUFFER_SIZE = 1_000_000;
+
 }
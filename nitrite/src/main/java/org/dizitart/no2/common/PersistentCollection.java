@@ -30,6 +30,7 @@ import org.dizitart.no2.store.NitriteStore;
 
 import java.io.Closeable;
 import java.util.Collection;
+import java.util.Map;
 
 /**
  * The interface Persistent collection.
@@ -55,7 +56,7 @@ public interface PersistentCollection<T> extends EventAware, MetadataAware, Clos
      * ====
      * - '_id' value of the document is always indexed. But full text
      * indexing is not supported on '_id' value.
-     * - Compound index is not supported.
+     * - Compound index can be created using {@link #createIndex(IndexOptions, String...)}.
      * - Indexing on arrays or collection is not supported
      * - Indexing on non-comparable value is not supported
      * ====
@@ -68,6 +69,72 @@ public interface PersistentCollection<T> extends EventAware, MetadataAware, Clos
      */
     void createIndex(String field, IndexOptions indexOptions);
 
+    /**
+     * Creates a compound index on `fields`, if not already exists.
+     * If `indexOptions` is `null`, it will use default options.
+     * <p>
+     * The index stores the tuple of the field values in the order of
+     * `fields`. A query can use it when it specifies equality conditions
+     * on a leading subset of the fields, optionally followed by a range
+     * condition on the next field. A unique compound index enforces
+     * uniqueness on the whole tuple.
+     * <p>
+     * A compound index is identified by the names of its fields joined
+     * with `|`, e.g. `firstName|lastName`, in all other index operations
+     * like {@link #hasIndex(String)} or {@link #dropIndex(String)}.
+     * <p>
+     * [icon="{@docRoot}/note.png"]
+     * [NOTE]
+     * ====
+     * - Full text compound index is not supported.
+     * - Indexing on arrays or collection is not supported in a compound index.
+     * - Indexing on non-comparable value is not supported
+     * ====
+     *
+     * @param indexOptions index options.
+     * @param fields       the fields to be indexed in index order.
+     * @throws org.dizitart.no2.exceptions.IndexingException if an index already exists on `fields`.
+     * @see org.dizitart.no2.index.IndexOptions
+     * @see IndexEntry#encodeFields(String...)
+     */
+    default void createIndex(IndexOptions indexOptions, String... fields) {
+        if (fields != null && fields.length == 1) {
+            createIndex(fields[0], indexOptions);
+        } else {
+            createIndex(IndexEntry.encodeFields(fields), indexOptions);
+        }
+    }
+
+    /**
+     * Creates an index on `fields` with default options, if not already exists.
+     * If more than one field is specified, a compound index is created.
+     *
+     * @param fields the fields to be indexed in index order.
+     * @throws org.dizitart.no2.exceptions.IndexingException if an index already exists on `fields`.
+     * @see #createIndex(IndexOptions, String...)
+     */
+    default void createIndex(String... fields) {
+        createIndex((IndexOptions) null, fields);
+    }
+
+    /**
+     * Creates indexes on all fields of `indexes`, if not already exist.
+     * If the index options of a field are `null`, it will use default options.
+     * <p>
+     * The values of all fields are collected in one scan of the collection,
+     * instead of one scan per index. The indexes are built in background
+     * only if all of them are asynchronous.
+     *
+     * @param indexes the index options of the fields to be indexed.
+     * @throws org.dizitart.no2.exceptions.IndexingException if an index already exists on any field.
+     * @see #createIndex(String, IndexOptions)
+     */
+    default void createIndexes(Map<String, IndexOptions> indexes) {
+        for (Map.Entry<String, IndexOptions> entry : indexes.entrySet()) {
+            createIndex(entry.getKey(), entry.getValue());
+        }
+    }
+
     /**
      * Rebuilds index on `field` if it exists.
      *
@@ -77,6 +144,20 @@ public interface PersistentCollection<T> extends EventAware, MetadataAware, Clos
      */
     void rebuildIndex(String field, boolean isAsync);
 
+    /**
+     * Rebuilds the indexes on `fields` in one scan of the collection.
+     *
+     * @param isAsync if set to `true`, the indexing will run in background; otherwise, in foreground.
+     * @param fields  the indexed fields.
+     * @throws org.dizitart.no2.exceptions.IndexingException if any of the `fields` is not indexed.
+     * @see #rebuildIndex(String, boolean)
+     */
+    default void rebuildIndexes(boolean isAsync, String... fields) {
+        for (String field : fields) {
+            rebuildIndex(field, isAsync);
+        }
+    }
+
     /**
      * Gets a set of all indices in the collection.
      *
@@ -21,9 +21,16 @@ import org.dizitart.no2.common.util.Iterables;
 import java.util.*;
 
 /**
+ * A lazy, repeatable stream of records.
+ * <p>
+ * A stream may hold resources for the iterators it has handed out, like the
+ * temporary files of a sort which does not fit in memory. They are released
+ * once an iterator is read till the end. A stream whose iterators may be
+ * abandoned half way must be closed to release them.
+ *
  * @author Anindya Chatterjee.
  */
-public interface RecordStream<T> extends Iterable<T> {
+public interface RecordStream<T> extends Iterable<T>, AutoCloseable {
     static <T> RecordStream<T> fromIterable(Iterable<T> iterable) {
         return iterable::iterator;
     }
@@ -116,4 +123,12 @@ public interface RecordStream<T> extends Iterable<T> {
     default T firstOrNull() {
         return Iterables.firstOrNull(this);
     }
+
+    /**
+     * Releases the resources held by the iterators of this stream which
+     * are not read till the end. The stream can still be iterated again.
+     */
+    @Override
+    default void close() {
+    }
 }
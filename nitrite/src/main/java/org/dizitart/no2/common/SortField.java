@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dizitart.no2.common;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.text.Collator;
+
+/**
+ * Represents a field of a sort along with its sort order,
+ * collator and the placement of `null` values.
+ *
+ * @author Anindya Chatterjee
+ * @see SortableFields
+ * @since 4.0
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class SortField {
+    /**
+     * The name of the field.
+     *
+     * @return the field name.
+     */
+    private final String field;
+
+    /**
+     * The sort order of the field.
+     *
+     * @return the sort order.
+     */
+    private final SortOrder sortOrder;
+
+    /**
+     * The collator to compare the values of the field, or `null`
+     * to compare them by their natural order.
+     *
+     * @return the collator.
+     */
+    private final Collator collator;
+
+    /**
+     * The placement of the documents without a value for the field.
+     *
+     * @return the null order.
+     */
+    private final NullOrder nullOrder;
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dizitart.no2.common;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.dizitart.no2.collection.DocumentCursor;
+import org.dizitart.no2.exceptions.ValidationException;
+import org.dizitart.no2.repository.Cursor;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.dizitart.no2.common.util.ValidationUtils.notEmpty;
+
+/**
+ * Represents the fields of a multi-field sort. The documents are ordered
+ * by the first field, the documents having equal values for the first
+ * field are ordered by the second field and so on.
+ * <p>
+ * [[app-listing]]
+ * [source,java]
+ * .Example of {@link SortableFields}
+ * --
+ * DocumentCursor cursor = collection.find()
+ *     .sort(orderBy("lastName", SortOrder.Ascending)
+ *         .thenBy("firstName", SortOrder.Ascending));
+ * --
+ *
+ * @author Anindya Chatterjee
+ * @see DocumentCursor#sort(SortableFields)
+ * @see Cursor#sort(SortableFields)
+ * @since 4.0
+ */
+@ToString
+@EqualsAndHashCode
+public class SortableFields {
+    private final List<SortField> sortFields;
+
+    private SortableFields() {
+        this.sortFields = new ArrayList<>();
+    }
+
+    /**
+     * Creates a new {@link SortableFields} ordered by a field first.
+     *
+     * @param field     the field
+     * @param sortOrder the sort order of the field
+     * @return the sortable fields.
+     */
+    public static SortableFields orderBy(String field, SortOrder sortOrder) {
+        return orderBy(field, sortOrder, null, NullOrder.Default);
+    }
+
+    /**
+     * Creates a new {@link SortableFields} ordered by a field first.
+     *
+     * @param field     the field
+     * @param sortOrder the sort order of the field
+     * @param collator  the collator to compare the values or `null`
+     * @param nullOrder the placement of `null` values
+     * @return the sortable fields.
+     */
+    public static SortableFields orderBy(String field, SortOrder sortOrder,
+                                         Collator collator, NullOrder nullOrder) {
+        return new SortableFields().thenBy(field, sortOrder, collator, nullOrder);
+    }
+
+    /**
+     * Orders the documents having equal values for all previous fields
+     * by another field.
+     *
+     * @param field     the field
+     * @param sortOrder the sort order of the field
+     * @return the sortable fields.
+     */
+    public SortableFields thenBy(String field, SortOrder sortOrder) {
+        return thenBy(field, sortOrder, null, NullOrder.Default);
+    }
+
+    /**
+     * Orders the documents having equal values for all previous fields
+     * by another field.
+     *
+     * @param field     the field
+     * @param sortOrder the sort order of the field
+     * @param collator  the collator to compare the values or `null`
+     * @param nullOrder the placement of `null` values
+     * @return the sortable fields.
+     */
+    public SortableFields thenBy(String field, SortOrder sortOrder,
+                                 Collator collator, NullOrder nullOrder) {
+        notEmpty(field, "sort field cannot be empty");
+        for (SortField sortField : sortFields) {
+            if (sortField.getField().equals(field)) {
+                throw new ValidationException("duplicate sort field " + field);
+            }
+        }
+
+        sortFields.add(new SortField(field, sortOrder, collator, nullOrder));
+        return this;
+    }
+
+    /**
+     * Gets the fields of the sort in their order of precedence.
+     *
+     * @return the sort fields.
+     */
+    public List<SortField> getSortFields() {
+        return Collections.unmodifiableList(sortFields);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.common.concurrent;
+
+/**
+ * Specifies how concurrent writers of a collection are isolated
+ * from each other.
+ *
+ * @author Anindya Chatterjee
+ * @see org.dizitart.no2.NitriteBuilder#concurrencyMode(ConcurrencyMode)
+ * @since 4.0
+ */
+public enum ConcurrencyMode {
+    /**
+     * Every write takes the exclusive lock of the collection, so
+     * all writers and readers of a collection are serialized.
+     */
+    Exclusive,
+
+    /**
+     * Writes share the lock of the collection with readers and lock
+     * only the documents and the index keys they modify. Writers of
+     * different documents proceed in parallel, as long as the store
+     * supports concurrent writes. Index and collection management
+     * still takes the exclusive lock of the collection.
+     */
+    Striped
+}
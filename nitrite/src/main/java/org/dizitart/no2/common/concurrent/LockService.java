@@ -1,7 +1,7 @@
 package org.dizitart.no2.common.concurrent;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -10,28 +10,41 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  */
 public class LockService {
     private final Map<String, ReentrantReadWriteLock> lockRegistry;
+    private final Map<String, OptimisticReadLock> optimisticLockRegistry;
 
     public LockService() {
-        this.lockRegistry = new HashMap<>();
+        this.lockRegistry = new ConcurrentHashMap<>();
+        this.optimisticLockRegistry = new ConcurrentHashMap<>();
     }
 
-    public synchronized Lock getReadLock(String name) {
-        if (lockRegistry.containsKey(name)) {
-            ReentrantReadWriteLock rwLock = lockRegistry.get(name);
-            return rwLock.readLock();
-        }
-        ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
-        lockRegistry.put(name, rwLock);
-        return rwLock.readLock();
+    public Lock getReadLock(String name) {
+        return getReadWriteLock(name).readLock();
     }
 
-    public synchronized Lock getWriteLock(String name) {
-        if (lockRegistry.containsKey(name)) {
-            ReentrantReadWriteLock rwLock = lockRegistry.get(name);
-            return rwLock.writeLock();
-        }
-        ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
-        lockRegistry.put(name, rwLock);
-        return rwLock.writeLock();
+    public Lock getWriteLock(String name) {
+        return getReadWriteLock(name).writeLock();
+    }
+
+    /**
+     * Gets the {@link OptimisticReadLock} of a name, which validates its
+     * reads against the writers of the write lock of the same name.
+     *
+     * @param name the name of the lock.
+     * @return the optimistic read lock.
+     */
+    public OptimisticReadLock getOptimisticReadLock(String name) {
+        OptimisticReadLock lock = optimisticLockRegistry.get(name);
+        if (lock != null) return lock;
+
+        return optimisticLockRegistry.computeIfAbsent(name,
+            k -> new OptimisticReadLock(getReadWriteLock(k)));
+    }
+
+    private ReentrantReadWriteLock getReadWriteLock(String name) {
+        // a plain get does not lock a bin of the map, unlike computeIfAbsent
+        ReentrantReadWriteLock rwLock = lockRegistry.get(name);
+        if (rwLock != null) return rwLock;
+
+        return lockRegistry.computeIfAbsent(name, k -> new ReentrantReadWriteLock());
     }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.common.concurrent;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * A read lock which first runs a read without locking and validates it
+ * against the writers of a {@link ReentrantReadWriteLock}. Only if a
+ * writer held the write lock or released it during the read, the read
+ * runs again under the read lock. A read this way does not update the
+ * shared read count of the lock.
+ * <p>
+ * The writers must call {@link #invalidate()} before they release the
+ * write lock.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+public class OptimisticReadLock {
+    private final ReentrantReadWriteLock readWriteLock;
+    private final StampedLock stampedLock;
+
+    OptimisticReadLock(ReentrantReadWriteLock readWriteLock) {
+        this.readWriteLock = readWriteLock;
+        this.stampedLock = new StampedLock();
+    }
+
+    /**
+     * Runs a read, optimistically if possible, else under the read lock.
+     *
+     * @param <T>    the type of the result.
+     * @param reader the read.
+     * @return the result of the read.
+     */
+    public <T> T read(Supplier<T> reader) {
+        long stamp = stampedLock.tryOptimisticRead();
+        if (stamp != 0 && !readWriteLock.isWriteLocked()) {
+            try {
+                T result = reader.get();
+                if (isValid(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // a failure caused by a concurrent write is retried under lock
+                if (isValid(stamp)) {
+                    throw e;
+                }
+            }
+        }
+
+        Lock readLock = readWriteLock.readLock();
+        try {
+            readLock.lock();
+            return reader.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Fails all optimistic reads which are running. It must be called
+     * by the holder of the write lock, after its changes and before it
+     * releases the write lock.
+     */
+    public void invalidate() {
+        stampedLock.unlockWrite(stampedLock.writeLock());
+    }
+
+    private boolean isValid(long stamp) {
+        // the writer could still be in the middle of its changes
+        return stampedLock.validate(stamp) && !readWriteLock.isWriteLocked();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dizitart.no2.common.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link Executor} which runs its tasks one at a time, in the order
+ * they are submitted, on a pool shared with other serial executors.
+ * No thread is held by a serial executor while it has no task to run.
+ * <p>
+ * A task is always queued without waiting, as a publisher may hold a lock
+ * which the task needs. The number of pending tasks is bounded by a soft
+ * capacity instead. A publisher calls {@link #awaitCapacity(long)} once it
+ * has released its locks, to wait for a slow executor for a bounded time.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+@Slf4j
+public class SerialExecutor implements Executor {
+    // the number of tasks run before the thread is given to other executors
+    private static final int DRAIN_BATCH_SIZE = 64;
+    private static final ThreadLocal<Boolean> draining = ThreadLocal.withInitial(() -> false);
+
+    private final Executor pool;
+    private final Queue<Runnable> tasks;
+    private final int capacity;
+    private final long timeout;
+    private final AtomicInteger pending;
+    private final AtomicBoolean scheduled;
+    private final AtomicBoolean overflow;
+    private final Object space;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new {@link SerialExecutor}.
+     *
+     * @param pool     the shared pool which runs the tasks.
+     * @param capacity the number of pending tasks after which a publisher waits.
+     * @param timeout  the maximum milliseconds a publisher waits.
+     */
+    public SerialExecutor(Executor pool, int capacity, long timeout) {
+        this.pool = pool;
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.capacity = capacity;
+        this.timeout = timeout;
+        this.pending = new AtomicInteger(0);
+        this.scheduled = new AtomicBoolean(false);
+        this.overflow = new AtomicBoolean(false);
+        this.space = new Object();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (closed) return;
+
+        tasks.add(command);
+        if (pending.incrementAndGet() > capacity && overflow.compareAndSet(false, true)) {
+            log.warn("Event listener is too slow, more than {} events are pending", capacity);
+        }
+        schedule();
+    }
+
+    /**
+     * Waits until the number of pending tasks is below the capacity, for
+     * at most the timeout of this executor.
+     *
+     * @return `true` if the executor has room; otherwise, `false`.
+     */
+    public boolean awaitCapacity() {
+        return awaitCapacity(timeout);
+    }
+
+    /**
+     * Waits until the number of pending tasks is below the capacity, for
+     * at most the given milliseconds. A task of this executor, or of any
+     * other serial executor, does not wait.
+     *
+     * @param millis the maximum milliseconds to wait.
+     * @return `true` if the executor has room; otherwise, `false`.
+     */
+    public boolean awaitCapacity(long millis) {
+        if (pending.get() < capacity) return true;
+        // a task must not wait for the thread which runs it
+        if (draining.get()) return false;
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        synchronized (space) {
+            try {
+                while (pending.get() >= capacity && !closed) {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) return false;
+                    space.wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting new tasks. The pending tasks still run.
+     */
+    public void close() {
+        closed = true;
+        synchronized (space) {
+            space.notifyAll();
+        }
+    }
+
+    /**
+     * Gets the number of pending tasks.
+     *
+     * @return the number of pending tasks.
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                pool.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                log.error("Failed to schedule pending tasks", e);
+            }
+        }
+    }
+
+    private void drain() {
+        draining.set(true);
+        try {
+            for (int i = 0; i < DRAIN_BATCH_SIZE; i++) {
+                Runnable task = tasks.poll();
+                if (task == null) break;
+                run(task);
+            }
+        } finally {
+            draining.set(false);
+            scheduled.set(false);
+            // a task added after the last poll, or left by the batch limit
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable t) {
+            log.error("Error while running task", t);
+        } finally {
+            if (pending.decrementAndGet() == capacity - 1) {
+                overflow.set(false);
+                synchronized (space) {
+                    space.notifyAll();
+                }
+            }
+        }
+    }
+}
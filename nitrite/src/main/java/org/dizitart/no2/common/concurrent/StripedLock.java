@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.common.concurrent;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks, where a key is guarded by the lock its hash
+ * code maps to. Keys which share a lock serialize each other, but the
+ * number of locks stays the same however many keys are locked.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+public class StripedLock {
+    private final Lock[] stripes;
+    private final int mask;
+
+    /**
+     * Creates a new {@link StripedLock} with at least `stripes` locks.
+     *
+     * @param stripes the least number of locks.
+     */
+    public StripedLock(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Lock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Gets the lock of a key by its hash code.
+     *
+     * @param hash the hash code of the key.
+     * @return the lock of the key.
+     */
+    public Lock get(int hash) {
+        return stripes[indexOf(hash)];
+    }
+
+    /**
+     * Gets the distinct locks of several keys by their hash codes, in the
+     * order in which they must be acquired to avoid a deadlock with other
+     * threads locking several keys.
+     *
+     * @param hashes the hash codes of the keys.
+     * @return the locks of the keys.
+     */
+    public Lock[] getAll(int[] hashes) {
+        boolean[] used = new boolean[stripes.length];
+        int count = 0;
+        for (int hash : hashes) {
+            int index = indexOf(hash);
+            if (!used[index]) {
+                used[index] = true;
+                count++;
+            }
+        }
+
+        Lock[] locks = new Lock[count];
+        for (int i = 0, j = 0; i < stripes.length && j < count; i++) {
+            if (used[i]) {
+                locks[j++] = stripes[i];
+            }
+        }
+        return locks;
+    }
+
+    private int indexOf(int hash) {
+        // spread the high bits, as the lower bits of a hash code
+        // are often alike for similar keys
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return hash & mask;
+    }
+}
@@ -20,11 +20,9 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 
-import static org.dizitart.no2.common.Constants.DAEMON_THREAD_NAME;
+import static org.dizitart.no2.common.Constants.*;
 
 /**
  * A factory class for creating {@link ExecutorService}.
@@ -36,12 +34,26 @@ import static org.dizitart.no2.common.Constants.DAEMON_THREAD_NAME;
 public class ThreadPoolManager {
     private final static List<ExecutorService> threadPools;
     private final static ExecutorService commonPool;
+    private final static ExecutorService eventPool;
+    private final static ExecutorService indexPool;
+    private final static ExecutorService indexScanPool;
+    private final static ScheduledExecutorService eventScheduler;
     private final static Object lock;
 
     static {
         threadPools = new ArrayList<>();
         commonPool = workerPool();
         threadPools.add(commonPool);
+        // the shared pools outlive any database, so their idle threads exit
+        eventPool = idleExitPool(Runtime.getRuntime().availableProcessors(), EVENT_THREAD_NAME);
+        indexPool = idleExitPool(Runtime.getRuntime().availableProcessors(), INDEX_THREAD_NAME);
+        indexScanPool = idleExitPool(Runtime.getRuntime().availableProcessors(), INDEX_SCAN_THREAD_NAME);
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, threadFactory(EVENT_THREAD_NAME));
+        scheduler.setKeepAliveTime(IDLE_THREAD_TIMEOUT, TimeUnit.SECONDS);
+        scheduler.allowCoreThreadTimeOut(true);
+        scheduler.setRemoveOnCancelPolicy(true);
+        eventScheduler = scheduler;
+        threadPools.add(eventScheduler);
         lock = new Object();
     }
 
@@ -69,6 +81,14 @@ public class ThreadPoolManager {
         return threadPool;
     }
 
+    private static ExecutorService idleExitPool(int size, String threadName) {
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(size, size,
+            IDLE_THREAD_TIMEOUT, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory(threadName));
+        threadPool.allowCoreThreadTimeOut(true);
+        threadPools.add(threadPool);
+        return threadPool;
+    }
+
     public static ErrorAwareThreadFactory threadFactory(String name) {
         return new ErrorAwareThreadFactory() {
             @Override
@@ -81,6 +101,50 @@ public class ThreadPoolManager {
         };
     }
 
+    /**
+     * Gets the {@link ExecutorService} shared by all event buses to
+     * deliver events to their listeners. Its threads are daemon threads
+     * which exit when they are idle.
+     *
+     * @return the {@link ExecutorService}.
+     */
+    public static ExecutorService eventPool() {
+        return eventPool;
+    }
+
+    /**
+     * Gets the {@link ExecutorService} shared by all collections to
+     * build their indexes in background. Its threads are daemon threads
+     * which exit when they are idle.
+     *
+     * @return the {@link ExecutorService}.
+     */
+    public static ExecutorService indexPool() {
+        return indexPool;
+    }
+
+    /**
+     * Gets the {@link ExecutorService} shared by all collections to scan
+     * the partitions of a collection for an index build. It is separate
+     * from the {@link #indexPool()}, as a build running there waits for
+     * its scans. Its threads are daemon threads which exit when they are idle.
+     *
+     * @return the {@link ExecutorService}.
+     */
+    public static ExecutorService indexScanPool() {
+        return indexScanPool;
+    }
+
+    /**
+     * Gets the {@link ScheduledExecutorService} shared by all event buses
+     * to deliver the batches of events whose delay has elapsed.
+     *
+     * @return the {@link ScheduledExecutorService}.
+     */
+    public static ScheduledExecutorService eventScheduler() {
+        return eventScheduler;
+    }
+
     public static void runAsync(Runnable runnable) {
         commonPool.submit(runnable);
     }
@@ -16,12 +16,19 @@
 
 package org.dizitart.no2.common.event;
 
+import org.dizitart.no2.common.concurrent.SerialExecutor;
 import org.dizitart.no2.common.concurrent.ThreadPoolManager;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 
+import static org.dizitart.no2.common.Constants.EVENT_QUEUE_CAPACITY;
+import static org.dizitart.no2.common.Constants.EVENT_QUEUE_TIMEOUT;
+
 /**
  * An abstract implementation of {@link EventBus}.
  *
@@ -34,13 +41,15 @@ public abstract class NitriteEventBus<EventInfo, EventListener>
     implements EventBus<EventInfo, EventListener>, AutoCloseable {
 
     private final Set<EventListener> listeners;
-    private ExecutorService eventExecutor;
+    // every listener receives its events in order, from its own queue
+    private final Map<EventListener, SerialExecutor> listenerExecutors;
 
     /**
      * Instantiates a new Nitrite event bus.
      */
     public NitriteEventBus() {
         this.listeners = new CopyOnWriteArraySet<>();
+        this.listenerExecutors = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -54,29 +63,64 @@ public abstract class NitriteEventBus<EventInfo, EventListener>
     public void deregister(EventListener eventListener) {
         if (eventListener != null) {
             listeners.remove(eventListener);
+            SerialExecutor executor = listenerExecutors.remove(eventListener);
+            if (executor != null) {
+                executor.close();
+            }
         }
     }
 
     @Override
     public void close() {
         listeners.clear();
-        if (eventExecutor != null) {
-            eventExecutor.shutdown();
+        for (SerialExecutor executor : listenerExecutors.values()) {
+            executor.close();
         }
+        listenerExecutors.clear();
     }
 
     /**
      * Gets the {@link ExecutorService} that executes listeners' code.
+     * It is shared by all event buses.
      *
      * @return the {@link ExecutorService}.
      */
     protected ExecutorService getEventExecutor() {
-        if (eventExecutor == null
-            || eventExecutor.isShutdown()
-            || eventExecutor.isTerminated()) {
-            eventExecutor = ThreadPoolManager.workerPool();
+        return ThreadPoolManager.eventPool();
+    }
+
+    /**
+     * Waits for the listeners which fall behind, for at most
+     * {@link org.dizitart.no2.common.Constants#EVENT_QUEUE_TIMEOUT} milliseconds
+     * in total. A publisher calls it after it has released its locks, as a
+     * listener may need them to catch up.
+     */
+    public void awaitListeners() {
+        if (listenerExecutors.isEmpty()) return;
+
+        long deadline = System.currentTimeMillis() + EVENT_QUEUE_TIMEOUT;
+        for (SerialExecutor executor : listenerExecutors.values()) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0 || !executor.awaitCapacity(remaining)) {
+                return;
+            }
         }
-        return eventExecutor;
+    }
+
+    /**
+     * Gets the {@link Executor} which delivers the events of a listener
+     * one by one, in the order in which they are posted. Posting an event
+     * never waits, see {@link #awaitListeners()}.
+     *
+     * @param eventListener the event listener.
+     * @return the {@link Executor} of the listener.
+     */
+    protected Executor getEventExecutor(EventListener eventListener) {
+        SerialExecutor executor = listenerExecutors.get(eventListener);
+        if (executor != null) return executor;
+
+        return listenerExecutors.computeIfAbsent(eventListener, listener ->
+            new SerialExecutor(getEventExecutor(), EVENT_QUEUE_CAPACITY, EVENT_QUEUE_TIMEOUT));
     }
 
     /**
@@ -183,6 +183,39 @@ public class ObjectUtils {
         // none of the type check passes so they are not of compatible type
     }
 
+    /**
+     * Computes a hash code of an object which is consistent with
+     * {@link #deepEquals(Object, Object)}.
+     *
+     * @param o the object
+     * @return the hash code.
+     */
+    @SuppressWarnings("rawtypes")
+    public static int deepHashCode(Object o) {
+        if (o == null) {
+            return 0;
+        }
+
+        if (o instanceof Number) {
+            // numbers of the same value but different scale are equal
+            double value = ((Number) o).doubleValue();
+            return value == 0 ? 0 : Double.hashCode(value);
+        } else if (o instanceof Iterable) {
+            return deepHashCode(toArray((Iterable) o));
+        } else if (o.getClass().isArray()) {
+            int result = 1;
+            int length = Array.getLength(o);
+            for (int i = 0; i < length; i++) {
+                result = 31 * result + deepHashCode(Array.get(o, i));
+            }
+            return result;
+        } else if (o instanceof Map) {
+            return deepHashCode(toArray(((Map) o).entrySet()));
+        } else {
+            return o.hashCode();
+        }
+    }
+
     @SuppressWarnings({"unchecked", "rawtypes"})
     public static <T> T newInstance(Class<T> type, boolean createSkeleton) {
         try {
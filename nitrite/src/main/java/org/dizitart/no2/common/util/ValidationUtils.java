@@ -119,6 +119,22 @@ public class ValidationUtils {
         }
     }
 
+    public static void validateCompoundIndexField(Object fieldValue, String field) {
+        if (fieldValue == null) return;
+
+        if (fieldValue instanceof Document) {
+            throw new InvalidOperationException("compound index on field " + field + " is not supported");
+        }
+
+        if (fieldValue instanceof Iterable || fieldValue.getClass().isArray()) {
+            throw new IndexingException("compound index on array field " + field + " is not supported");
+        }
+
+        if (!(fieldValue instanceof Comparable)) {
+            throw new IndexingException("cannot index on non comparable field " + field);
+        }
+    }
+
     public static void validateIterableIndexField(Iterable<?> fieldValue, String field) {
         if (fieldValue != null) {
             for (Object value : fieldValue) {
@@ -21,7 +21,7 @@ import org.dizitart.no2.exceptions.FilterException;
 /**
  * @author Anindya Chatterjee
  */
-abstract class ComparisonFilter extends IndexAwareFilter {
+public abstract class ComparisonFilter extends IndexAwareFilter {
     protected ComparisonFilter(String field, Comparable<?> value) {
         super(field, value);
     }
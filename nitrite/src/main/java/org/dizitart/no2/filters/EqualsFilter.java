@@ -34,7 +34,7 @@ import static org.dizitart.no2.common.util.ObjectUtils.deepEquals;
  * @author Anindya Chatterjee.
  */
 @ToString
-class EqualsFilter extends IndexAwareFilter {
+public class EqualsFilter extends IndexAwareFilter {
     EqualsFilter(String field, Object value) {
         super(field, value);
     }
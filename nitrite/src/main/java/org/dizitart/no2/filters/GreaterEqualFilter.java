@@ -18,12 +18,12 @@ package org.dizitart.no2.filters;
 
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.FilterException;
 import org.dizitart.no2.index.ComparableIndexer;
 import org.dizitart.no2.store.NitriteMap;
 
-import java.util.LinkedHashSet;
 import java.util.Set;
 
 import static org.dizitart.no2.common.util.Numbers.compare;
@@ -31,19 +31,25 @@ import static org.dizitart.no2.common.util.Numbers.compare;
 /**
  * @author Anindya Chatterjee
  */
-class GreaterEqualFilter extends ComparisonFilter {
+public class GreaterEqualFilter extends ComparisonFilter {
     GreaterEqualFilter(String field, Comparable<?> value) {
         super(field, value);
     }
 
     @Override
-    @SuppressWarnings("rawtypes")
     protected Set<NitriteId> findIndexedIdSet() {
-        Set<NitriteId> idSet = new LinkedHashSet<>();
+        return findIndexedIdStream().toSet();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected RecordStream<NitriteId> findIndexedIdStream() {
+        RecordStream<NitriteId> idStream = RecordStream.empty();
         if (getIsFieldIndexed()) {
             if (getIndexer() instanceof ComparableIndexer && getValue() instanceof Comparable) {
                 ComparableIndexer comparableIndexer = (ComparableIndexer) getIndexer();
-                idSet = comparableIndexer.findGreaterEqual(getCollectionName(), getField(), (Comparable) getValue());
+                idStream = comparableIndexer.findRange(getCollectionName(), getField(),
+                    (Comparable) getValue(), true, null, false, false);
             } else {
                 if (getValue() instanceof Comparable) {
                     throw new FilterException("gte filter is not supported on indexed field "
@@ -53,7 +59,7 @@ class GreaterEqualFilter extends ComparisonFilter {
                 }
             }
         }
-        return idSet;
+        return idStream;
     }
 
     @Override
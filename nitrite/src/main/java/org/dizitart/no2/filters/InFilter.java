@@ -32,7 +32,7 @@ import static org.dizitart.no2.common.util.ValidationUtils.notNull;
 /**
  * @author Anindya Chatterjee
  */
-class InFilter extends IndexAwareFilter {
+public class InFilter extends IndexAwareFilter {
     @Getter
     private Set<Comparable<?>> comparableSet;
 
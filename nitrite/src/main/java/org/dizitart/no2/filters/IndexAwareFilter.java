@@ -22,6 +22,7 @@ import lombok.Setter;
 import lombok.ToString;
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.index.Indexer;
 import org.dizitart.no2.store.NitriteMap;
 
@@ -59,6 +60,30 @@ public abstract class IndexAwareFilter extends FieldBasedFilter {
         return indexedIdSet;
     }
 
+    /**
+     * Gets the ids of the matching documents from the index as a lazy stream.
+     * If the ids are already cached, the cached ids are returned.
+     *
+     * @return the stream of matching ids.
+     */
+    public RecordStream<NitriteId> indexedIdStream() {
+        if (indexedIdSet != null && !indexedIdSet.isEmpty()) {
+            return RecordStream.fromIterable(indexedIdSet);
+        }
+        return findIndexedIdStream();
+    }
+
+    /**
+     * Finds the ids of the matching documents from the index as a lazy
+     * stream. Filters which can read the index in key order override it,
+     * so that the index is scanned only as far as the stream is read.
+     *
+     * @return the stream of matching ids.
+     */
+    protected RecordStream<NitriteId> findIndexedIdStream() {
+        return RecordStream.fromIterable(cachedIndexedIds());
+    }
+
     public Set<NitriteId> cachedIds(NitriteMap<NitriteId, Document> collection) {
         if (idSet == null) {
             idSet = findIdSet(collection);
@@ -18,12 +18,12 @@ package org.dizitart.no2.filters;
 
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.FilterException;
 import org.dizitart.no2.index.ComparableIndexer;
 import org.dizitart.no2.store.NitriteMap;
 
-import java.util.LinkedHashSet;
 import java.util.Set;
 
 import static org.dizitart.no2.common.util.Numbers.compare;
@@ -31,19 +31,25 @@ import static org.dizitart.no2.common.util.Numbers.compare;
 /**
  * @author Anindya Chatterjee
  */
-class LesserEqualFilter extends ComparisonFilter {
+public class LesserEqualFilter extends ComparisonFilter {
     LesserEqualFilter(String field, Comparable<?> value) {
         super(field, value);
     }
 
     @Override
-    @SuppressWarnings("rawtypes")
     protected Set<NitriteId> findIndexedIdSet() {
-        Set<NitriteId> idSet = new LinkedHashSet<>();
+        return findIndexedIdStream().toSet();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected RecordStream<NitriteId> findIndexedIdStream() {
+        RecordStream<NitriteId> idStream = RecordStream.empty();
         if (getIsFieldIndexed()) {
             if (getIndexer() instanceof ComparableIndexer && getValue() instanceof Comparable) {
                 ComparableIndexer comparableIndexer = (ComparableIndexer) getIndexer();
-                idSet = comparableIndexer.findLesserEqual(getCollectionName(), getField(), (Comparable) getValue());
+                idStream = comparableIndexer.findRange(getCollectionName(), getField(),
+                    null, false, (Comparable) getValue(), true, true);
             } else {
                 if (getValue() instanceof Comparable) {
                     throw new FilterException("lte filter is not supported on indexed field "
@@ -53,7 +59,7 @@ class LesserEqualFilter extends ComparisonFilter {
                 }
             }
         }
-        return idSet;
+        return idStream;
     }
 
     @Override
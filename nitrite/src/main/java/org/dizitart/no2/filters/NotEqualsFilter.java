@@ -18,7 +18,7 @@ import static org.dizitart.no2.common.util.ObjectUtils.deepEquals;
  * @author Anindya Chatterjee
  */
 @ToString
-class NotEqualsFilter extends IndexAwareFilter {
+public class NotEqualsFilter extends IndexAwareFilter {
     protected NotEqualsFilter(String field, Object value) {
         super(field, value);
     }
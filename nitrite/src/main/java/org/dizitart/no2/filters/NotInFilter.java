@@ -32,7 +32,7 @@ import static org.dizitart.no2.common.util.ValidationUtils.notNull;
 /**
  * @author Anindya Chatterjee
  */
-class NotInFilter extends IndexAwareFilter {
+public class NotInFilter extends IndexAwareFilter {
     @Getter
     private Set<Comparable<?>> comparableSet;
 
@@ -19,19 +19,27 @@ package org.dizitart.no2.index;
 import org.dizitart.no2.NitriteConfig;
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.collection.meta.Attributes;
+import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.UnknownType;
+import org.dizitart.no2.common.concurrent.ConcurrencyMode;
+import org.dizitart.no2.common.concurrent.StripedLock;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.common.util.Iterables;
+import org.dizitart.no2.common.util.Numbers;
+import org.dizitart.no2.exceptions.IndexingException;
 import org.dizitart.no2.exceptions.UniqueConstraintException;
 import org.dizitart.no2.exceptions.ValidationException;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteStore;
+import org.dizitart.no2.store.StoreSnapshot;
 
-import java.util.Collection;
-import java.util.LinkedHashSet;
-import java.util.Set;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Predicate;
 
+import static org.dizitart.no2.common.Constants.LOCK_STRIPES;
 import static org.dizitart.no2.common.util.ObjectUtils.convertToObjectArray;
 import static org.dizitart.no2.common.util.ObjectUtils.deepEquals;
 import static org.dizitart.no2.common.util.ValidationUtils.*;
@@ -41,17 +49,40 @@ import static org.dizitart.no2.common.util.ValidationUtils.*;
  */
 @SuppressWarnings("rawtypes")
 public abstract class ComparableIndexer implements Indexer {
+    private final StripedLock keyLatches = new StripedLock(LOCK_STRIPES);
+    // index map name -> if a document of the index can have more than one key
+    private Map<String, Boolean> multiKeyIndexes = new ConcurrentHashMap<>();
     private NitriteStore<?> nitriteStore;
+    // null, unless the indexer reads from a snapshot
+    private StoreSnapshot storeSnapshot;
+    private int buildBufferSize;
+    private boolean latched;
 
     abstract boolean isUnique();
 
     public ComparableIndexer clone() throws CloneNotSupportedException {
-        return (ComparableIndexer) super.clone();
+        ComparableIndexer indexer = (ComparableIndexer) super.clone();
+        // a clone reads and writes the flags in the maps of its own store
+        indexer.multiKeyIndexes = new ConcurrentHashMap<>();
+        return indexer;
+    }
+
+    @Override
+    public ComparableIndexer snapshot(StoreSnapshot snapshot) {
+        try {
+            ComparableIndexer indexer = clone();
+            indexer.storeSnapshot = snapshot;
+            return indexer;
+        } catch (CloneNotSupportedException e) {
+            throw new IndexingException("failed to read the index from a snapshot", e);
+        }
     }
 
     @Override
     public void initialize(NitriteConfig nitriteConfig) {
         this.nitriteStore = nitriteConfig.getNitriteStore();
+        this.buildBufferSize = nitriteConfig.getIndexBuildBufferSize();
+        this.latched = nitriteConfig.getConcurrencyMode() == ConcurrencyMode.Striped;
     }
 
     @Override
@@ -60,10 +91,42 @@ public abstract class ComparableIndexer implements Indexer {
         addIndexEntry(collection.getName(), nitriteId, field, fieldValue);
     }
 
+    @Override
+    public void writeIndexBatch(NitriteMap<NitriteId, Document> collection, String field,
+                                List<Pair<NitriteId, Object>> entries) {
+        // group the ids by index key, so that each posting list is written once
+        NitriteMap<Comparable, PostingList> indexMap
+            = getIndexMap(collection.getName(), field, UnknownType.class);
+        Map<Comparable, List<NitriteId>> idsByKey = new LinkedHashMap<>();
+        for (Pair<NitriteId, Object> entry : entries) {
+            validateIndexField(entry.getSecond(), field);
+            trackKeys(indexMap, entry.getSecond());
+            for (Comparable key : indexKeys(entry.getSecond())) {
+                idsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(entry.getFirst());
+            }
+        }
+
+        for (Map.Entry<Comparable, List<NitriteId>> entry : idsByKey.entrySet()) {
+            addElementsToIndexMap(indexMap, entry.getValue(), field, entry.getKey());
+        }
+    }
+
+    @Override
+    public IndexBuilder newIndexBuilder(NitriteMap<NitriteId, Document> collection, String field,
+                                        int partitions) {
+        NitriteMap<Comparable, PostingList> indexMap
+            = getIndexMap(collection.getName(), field, UnknownType.class);
+        return new SortedIndexBuilder(buildBufferSize, partitions, fieldValue -> {
+            validateIndexField(fieldValue, field);
+            trackKeys(indexMap, fieldValue);
+            return indexKeys(fieldValue);
+        }, (key, ids) -> addElementsToIndexMap(indexMap, ids, field, key));
+    }
+
     @Override
     public void removeIndex(NitriteMap<NitriteId, Document> collection, NitriteId nitriteId, String field, Object fieldValue) {
         validateIndexField(fieldValue, field);
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap = null;
+        NitriteMap<Comparable, PostingList> indexMap = null;
 
         if (fieldValue == null) {
             indexMap = getIndexMap(collection.getName(), field, UnknownType.class);
@@ -105,140 +168,250 @@ public abstract class ComparableIndexer implements Indexer {
     }
 
     public Set<NitriteId> findEqual(String collectionName, String field, Comparable value) {
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap =
+        NitriteMap<Comparable, PostingList> indexMap =
             value != null ? getIndexMap(collectionName, field, value.getClass())
                 : getIndexMap(collectionName, field, UnknownType.class);
 
-        Set<NitriteId> resultSet = null;
+        PostingList postingList = null;
         if (indexMap != null) {
-            resultSet = indexMap.get(value);
+            postingList = indexMap.get(value);
         }
 
-        if (resultSet == null) {
-            resultSet = new LinkedHashSet<>();
+        if (postingList == null) {
+            return new LinkedHashSet<>();
         }
-        return resultSet;
+        return postingList.asSet();
     }
 
     public Set<NitriteId> findNotEqual(String collectionName, String field, Comparable value) {
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap =
-            value != null ? getIndexMap(collectionName, field, value.getClass())
-                : getIndexMap(collectionName, field, UnknownType.class);
-
-        Set<NitriteId> resultSet = new LinkedHashSet<>();
-        if (indexMap != null) {
-            for (Pair<Comparable, ConcurrentSkipListSet<NitriteId>> entry : indexMap.entries()) {
-                if (!deepEquals(entry.getFirst(), value)) {
-                    resultSet.addAll(entry.getSecond());
-                }
-            }
-        }
-
-        return resultSet;
+        Class<?> keyType = value != null ? value.getClass() : UnknownType.class;
+        return toIdSet(findMatching(collectionName, field, keyType, key -> !deepEquals(key, value)));
     }
 
     public Set<NitriteId> findGreaterThan(String collectionName, String field, Comparable comparable) {
-        Set<NitriteId> resultSet = new LinkedHashSet<>();
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap =
-            comparable != null ? getIndexMap(collectionName, field, comparable.getClass())
-                : getIndexMap(collectionName, field, UnknownType.class);
-
-        if (indexMap != null) {
-            Comparable higherKey = indexMap.higherKey(comparable);
-            while (higherKey != null) {
-                resultSet.addAll(indexMap.get(higherKey));
-                higherKey = indexMap.higherKey(higherKey);
-            }
-        }
-
-        return resultSet;
+        if (comparable == null) return new LinkedHashSet<>();
+        return toIdSet(findRange(collectionName, field, comparable, false, null, false, false));
     }
 
     public Set<NitriteId> findGreaterEqual(String collectionName, String field, Comparable comparable) {
-        Set<NitriteId> resultSet = new LinkedHashSet<>();
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap =
-            comparable != null ? getIndexMap(collectionName, field, comparable.getClass())
-                : getIndexMap(collectionName, field, UnknownType.class);
+        if (comparable == null) return new LinkedHashSet<>();
+        return toIdSet(findRange(collectionName, field, comparable, true, null, false, false));
+    }
 
-        if (indexMap != null) {
-            Comparable ceilingKey = indexMap.ceilingKey(comparable);
-            while (ceilingKey != null) {
-                resultSet.addAll(indexMap.get(ceilingKey));
-                ceilingKey = indexMap.higherKey(ceilingKey);
-            }
-        }
+    public Set<NitriteId> findLesserThan(String collectionName, String field, Comparable comparable) {
+        if (comparable == null) return new LinkedHashSet<>();
+        return toIdSet(findRange(collectionName, field, null, false, comparable, false, true));
+    }
 
-        return resultSet;
+    public Set<NitriteId> findLesserEqual(String collectionName, String field, Comparable comparable) {
+        if (comparable == null) return new LinkedHashSet<>();
+        return toIdSet(findRange(collectionName, field, null, false, comparable, true, true));
     }
 
-    public Set<NitriteId> findLesserThan(String collectionName, String field, Comparable comparable) {
-        Set<NitriteId> resultSet = new LinkedHashSet<>();
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap =
-            comparable != null ? getIndexMap(collectionName, field, comparable.getClass())
-                : getIndexMap(collectionName, field, UnknownType.class);
+    public Set<NitriteId> findIn(String collectionName, String field, Collection<Comparable<?>> values) {
+        notNull(values, "values cannot be null");
+        notEmpty(values, "values cannot be empty");
 
-        if (indexMap != null) {
-            Comparable lowerKey = indexMap.lowerKey(comparable);
-            while (lowerKey != null) {
-                resultSet.addAll(indexMap.get(lowerKey));
-                lowerKey = indexMap.lowerKey(lowerKey);
-            }
-        }
+        Class<?> type = Iterables.firstOrNull(values).getClass();
+        return toIdSet(findMatching(collectionName, field, type, values::contains));
+    }
 
-        return resultSet;
+    public Set<NitriteId> findNotIn(String collectionName, String field, Collection<Comparable<?>> values) {
+        notNull(values, "values cannot be null");
+
+        Class<?> type = Iterables.firstOrNull(values).getClass();
+        return toIdSet(findMatching(collectionName, field, type, key -> !values.contains(key)));
     }
 
-    public Set<NitriteId> findLesserEqual(String collectionName, String field, Comparable comparable) {
-        Set<NitriteId> resultSet = new LinkedHashSet<>();
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap =
-            comparable != null ? getIndexMap(collectionName, field, comparable.getClass())
+    /**
+     * Finds the ids whose index keys lie within a range. A `null` bound
+     * means the range is unbounded on that side.
+     * <p>
+     * The index is read lazily in key order while the returned stream is
+     * being iterated, so a partial read of the stream does not scan the
+     * rest of the index.
+     *
+     * @param collectionName the collection name
+     * @param field          the field name
+     * @param from           the lower bound or `null`
+     * @param fromInclusive  if the lower bound is inclusive
+     * @param to             the upper bound or `null`
+     * @param toInclusive    if the upper bound is inclusive
+     * @param descending     if the index is read in descending key order
+     * @return the lazy stream of matching ids.
+     */
+    public RecordStream<NitriteId> findRange(String collectionName, String field,
+                                            Comparable from, boolean fromInclusive,
+                                            Comparable to, boolean toInclusive,
+                                            boolean descending) {
+        Comparable bound = from != null ? from : to;
+        NitriteMap<Comparable, PostingList> indexMap =
+            bound != null ? getIndexMap(collectionName, field, bound.getClass())
                 : getIndexMap(collectionName, field, UnknownType.class);
 
-        if (indexMap != null) {
-            Comparable floorKey = indexMap.floorKey(comparable);
-            while (floorKey != null) {
-                resultSet.addAll(indexMap.get(floorKey));
-                floorKey = indexMap.lowerKey(floorKey);
-            }
-        }
+        return streamIds(indexMap.entries(from, fromInclusive, to, toInclusive, descending),
+            null, isMultiKey(indexMap));
+    }
 
-        return resultSet;
+    /**
+     * Finds the ids whose index keys are accepted by a predicate. All keys
+     * of the index are read lazily in key order while the returned stream
+     * is being iterated.
+     *
+     * @param collectionName the collection name
+     * @param field          the field name
+     * @param keyType        the type of the keys
+     * @param keyFilter      the predicate to accept a key
+     * @return the lazy stream of matching ids.
+     */
+    public RecordStream<NitriteId> findMatching(String collectionName, String field,
+                                               Class<?> keyType, Predicate<Comparable> keyFilter) {
+        NitriteMap<Comparable, PostingList> indexMap =
+            getIndexMap(collectionName, field, keyType);
+        return streamIds(indexMap.entries(), keyFilter, isMultiKey(indexMap));
     }
 
-    public Set<NitriteId> findIn(String collectionName, String field, Collection<Comparable<?>> values) {
-        notNull(values, "values cannot be null");
-        notEmpty(values, "values cannot be empty");
+    /**
+     * Finds the ids from a compound index whose keys start with `prefix`
+     * and optionally whose next component lies within a range.
+     * <p>
+     * The index is read lazily with a range cursor from the first matching
+     * key while the returned stream is being iterated, and the scan stops at
+     * the first key past the prefix or the upper bound.
+     *
+     * @param collectionName the collection name
+     * @param field          the encoded field name of the compound index
+     * @param prefix         the equality prefix of the keys
+     * @param lowerBound     the lower bound of the next component or `null`
+     * @param lowerInclusive if the lower bound is inclusive
+     * @param upperBound     the upper bound of the next component or `null`
+     * @param upperInclusive if the upper bound is inclusive
+     * @return the lazy stream of matching ids.
+     */
+    public RecordStream<NitriteId> findByPrefix(String collectionName, String field, CompoundKey prefix,
+                                               Comparable lowerBound, boolean lowerInclusive,
+                                               Comparable upperBound, boolean upperInclusive) {
+        notNull(prefix, "prefix cannot be null");
+
+        NitriteMap<Comparable, PostingList> indexMap =
+            getIndexMap(collectionName, field, CompoundKey.class);
+        PrefixRange range = new PrefixRange(prefix, lowerBound, lowerInclusive, upperBound, upperInclusive);
+
+        boolean naturallyOrdered = indexMap.isNaturallyOrdered();
+        if (!naturallyOrdered && !indexMap.isPrefixOrdered()) {
+            // the keys with the prefix are not adjacent in the order of their encoding
+            return streamIds(indexMap.entries(), key -> range.test(key) == PrefixRange.MATCH, false);
+        }
 
-        Set<NitriteId> resultSet = new LinkedHashSet<>();
-        Class<?> type = Iterables.firstOrNull(values).getClass();
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap = getIndexMap(collectionName, field, type);
+        RecordStream<Pair<Comparable, PostingList>> entries = () -> {
+            // if only the keys with the prefix are adjacent, the order of the next
+            // component is unknown and the scan runs to the end of the prefix
+            Comparable first = naturallyOrdered ? firstKey(indexMap, range) : prefix;
+            Iterator<Pair<Comparable, PostingList>> iterator = indexMap.entries(
+                first, true, null, false, false).iterator();
+            return new Iterator<Pair<Comparable, PostingList>>() {
+                private Pair<Comparable, PostingList> next;
+                private boolean done;
+
+                @Override
+                public boolean hasNext() {
+                    while (next == null && !done && iterator.hasNext()) {
+                        Pair<Comparable, PostingList> entry = iterator.next();
+                        int result = range.test(entry.getFirst());
+                        if (result == PrefixRange.PAST
+                            && (naturallyOrdered || !range.hasPrefix(entry.getFirst()))) {
+                            // keys are sorted, no further key can match
+                            done = true;
+                        } else if (result == PrefixRange.MATCH) {
+                            next = entry;
+                        }
+                    }
+                    return next != null;
+                }
 
-        if (indexMap != null) {
-            for (Comparable comparable : indexMap.keySet()) {
-                if (values.contains(comparable)) {
-                    resultSet.addAll(indexMap.get(comparable));
+                @Override
+                public Pair<Comparable, PostingList> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Pair<Comparable, PostingList> entry = next;
+                    next = null;
+                    return entry;
                 }
-            }
-        }
+            };
+        };
 
-        return resultSet;
+        // a compound index does not index arrays, so a document has one key
+        return streamIds(entries, null, false);
     }
 
-    public Set<NitriteId> findNotIn(String collectionName, String field, Collection<Comparable<?>> values) {
-        notNull(values, "values cannot be null");
+    /**
+     * Gets the number of distinct keys in the index of a field. It is
+     * used by the query planner to estimate the selectivity of a filter.
+     *
+     * @param collectionName the collection name
+     * @param field          the field name
+     * @return the number of distinct keys.
+     */
+    public long getKeyCount(String collectionName, String field) {
+        NitriteMap<Comparable, PostingList> indexMap =
+            getIndexMap(collectionName, field, UnknownType.class);
+        return indexMap == null ? 0 : indexMap.size();
+    }
 
-        Set<NitriteId> resultSet = new LinkedHashSet<>();
-        Class<?> type = Iterables.firstOrNull(values).getClass();
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap = getIndexMap(collectionName, field, type);
+    private RecordStream<NitriteId> streamIds(RecordStream<Pair<Comparable, PostingList>> entries,
+                                              Predicate<Comparable> keyFilter, boolean multiKey) {
+        return () -> new Iterator<NitriteId>() {
+            private final Iterator<Pair<Comparable, PostingList>> entryIterator
+                = entries.iterator();
+            // a document having an array field is indexed under multiple keys
+            private final Set<NitriteId> returnedIds = multiKey ? new HashSet<>() : null;
+            private Iterator<NitriteId> idIterator = Collections.emptyIterator();
+            private NitriteId nextId;
+
+            @Override
+            public boolean hasNext() {
+                return nextId != null || setNextId();
+            }
 
-        if (indexMap != null) {
-            for (Comparable comparable : indexMap.keySet()) {
-                if (!values.contains(comparable)) {
-                    resultSet.addAll(indexMap.get(comparable));
+            @Override
+            public NitriteId next() {
+                if (nextId == null && !setNextId()) {
+                    throw new NoSuchElementException();
                 }
+                NitriteId id = nextId;
+                nextId = null;
+                return id;
             }
-        }
 
+            private boolean setNextId() {
+                while (true) {
+                    while (idIterator.hasNext()) {
+                        NitriteId id = idIterator.next();
+                        if (returnedIds == null || returnedIds.add(id)) {
+                            nextId = id;
+                            return true;
+                        }
+                    }
+
+                    if (!entryIterator.hasNext()) {
+                        return false;
+                    }
+
+                    Pair<Comparable, PostingList> entry = entryIterator.next();
+                    if (entry.getSecond() != null && (keyFilter == null || keyFilter.test(entry.getFirst()))) {
+                        idIterator = entry.getSecond().iterator();
+                    }
+                }
+            }
+        };
+    }
+
+    private Set<NitriteId> toIdSet(RecordStream<NitriteId> ids) {
+        Set<NitriteId> resultSet = new LinkedHashSet<>();
+        for (NitriteId id : ids) {
+            resultSet.add(id);
+        }
         return resultSet;
     }
 
@@ -256,65 +429,252 @@ public abstract class ComparableIndexer implements Indexer {
     }
 
     private void addIndexEntry(String collectionName, NitriteId id, String field, Object element) {
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
+        NitriteMap<Comparable, PostingList> indexMap
             = getIndexMap(collectionName, field, UnknownType.class);
+        trackKeys(indexMap, element);
+
+        for (Comparable key : indexKeys(element)) {
+            addElementToIndexMap(indexMap, id, field, key);
+        }
+    }
 
-        if (element == null) {
-            addElementToIndexMap(indexMap, id, field, null);
-        } else if (element instanceof Comparable) {
-            addElementToIndexMap(indexMap, id, field, (Comparable) element);
-        } else if (element.getClass().isArray()) {
+    private boolean isMultiKey(NitriteMap<Comparable, PostingList> indexMap) {
+        Boolean multiKey = multiKeyIndexes.get(indexMap.getName());
+        if (multiKey != null) return multiKey;
+
+        Attributes attributes = indexMap.getAttributes();
+        String value = attributes == null ? null : attributes.get(Attributes.MULTI_KEY);
+        if (value == null) {
+            // an index written without the flag can have any key
+            return !indexMap.isEmpty();
+        }
+
+        multiKey = Boolean.parseBoolean(value);
+        multiKeyIndexes.putIfAbsent(indexMap.getName(), multiKey);
+        return multiKey;
+    }
+
+    private void trackKeys(NitriteMap<Comparable, PostingList> indexMap, Object element) {
+        boolean multiKey = element instanceof Iterable
+            || (element != null && element.getClass().isArray());
+        Boolean known = multiKeyIndexes.get(indexMap.getName());
+        if (known != null && (known || !multiKey)) return;
+
+        synchronized (this) {
+            // the flag is saved before the keys of the element, so a reader
+            // never sees the keys of a document without the flag
+            Attributes attributes = indexMap.getAttributes();
+            String value = attributes == null ? null : attributes.get(Attributes.MULTI_KEY);
+            boolean current = value != null ? Boolean.parseBoolean(value) : !indexMap.isEmpty();
+            if (value == null || (multiKey && !current)) {
+                if (attributes == null) {
+                    attributes = new Attributes(indexMap.getName());
+                }
+                attributes.set(Attributes.MULTI_KEY, Boolean.toString(current || multiKey));
+                indexMap.setAttributes(attributes);
+            }
+            multiKeyIndexes.put(indexMap.getName(), current || multiKey);
+        }
+    }
+
+    private List<Comparable> indexKeys(Object element) {
+        if (element == null || element instanceof Comparable) {
+            return Collections.singletonList((Comparable) element);
+        }
+
+        List<Comparable> keys = new ArrayList<>();
+        if (element.getClass().isArray()) {
             Object[] array = convertToObjectArray(element);
             for (Object item : array) {
-                addElementToIndexMap(indexMap, id, field, (Comparable) item);
+                keys.add((Comparable) item);
             }
         } else if (element instanceof Iterable) {
             Iterable iterable = (Iterable) element;
             for (Object item : iterable) {
-                addElementToIndexMap(indexMap, id, field, (Comparable) item);
+                keys.add((Comparable) item);
             }
         }
+        return keys;
     }
 
-    private void addElementToIndexMap(NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap,
+    private void addElementToIndexMap(NitriteMap<Comparable, PostingList> indexMap,
                                       NitriteId id, String field, Comparable element) {
-        // create the nitriteId list associated with the value
-        ConcurrentSkipListSet<NitriteId> nitriteIdList
-            = indexMap.get(element);
+        Lock latch = lockKey(indexMap, element);
+        try {
+            // get the posting list associated with the value
+            PostingList postingList = indexMap.get(element);
 
-        if (nitriteIdList == null) {
-            nitriteIdList = new ConcurrentSkipListSet<>();
-        }
+            if (postingList == null) {
+                postingList = PostingList.empty();
+            }
 
-        if (isUnique() && nitriteIdList.size() == 1
-            && !nitriteIdList.contains(id)) {
-            // if key is already exists for unique type, throw error
-            throw new UniqueConstraintException("unique key constraint violation for " + field);
+            if (isUnique() && postingList.size() == 1
+                && !postingList.contains(id)) {
+                // if key is already exists for unique type, throw error
+                throw new UniqueConstraintException("unique key constraint violation for " + field);
+            }
+
+            PostingList updated = postingList.add(id);
+            if (updated != postingList) {
+                indexMap.put(element, updated);
+            }
+        } finally {
+            unlockKey(latch);
         }
+    }
+
+    private void addElementsToIndexMap(NitriteMap<Comparable, PostingList> indexMap,
+                                       List<NitriteId> ids, String field, Comparable element) {
+        Lock latch = lockKey(indexMap, element);
+        try {
+            PostingList postingList = indexMap.get(element);
 
-        nitriteIdList.add(id);
-        indexMap.put(element, nitriteIdList);
+            if (postingList == null) {
+                postingList = PostingList.empty();
+            }
+
+            PostingList updated = postingList.merge(PostingList.of(ids));
+            if (isUnique() && updated.size() > 1) {
+                // if key is already exists for unique type, throw error
+                throw new UniqueConstraintException("unique key constraint violation for " + field);
+            }
+
+            if (updated != postingList) {
+                indexMap.put(element, updated);
+            }
+        } finally {
+            unlockKey(latch);
+        }
     }
 
-    private void removeElementFromIndexMap(NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap,
+    private void removeElementFromIndexMap(NitriteMap<Comparable, PostingList> indexMap,
                                            NitriteId nitriteId, String field, Comparable element) {
-        // create the nitrite list associated with the value
-        ConcurrentSkipListSet<NitriteId> nitriteIdList = indexMap.get(element);
-        if (nitriteIdList != null && !nitriteIdList.isEmpty()) {
-            nitriteIdList.remove(nitriteId);
-            if (nitriteIdList.size() == 0) {
-                indexMap.remove(element);
-            } else {
-                indexMap.put(element, nitriteIdList);
+        Lock latch = lockKey(indexMap, element);
+        try {
+            // get the posting list associated with the value
+            PostingList postingList = indexMap.get(element);
+            if (postingList != null && !postingList.isEmpty()) {
+                PostingList updated = postingList.remove(nitriteId);
+                if (updated.isEmpty()) {
+                    indexMap.remove(element);
+                } else if (updated != postingList) {
+                    indexMap.put(element, updated);
+                }
             }
+        } finally {
+            unlockKey(latch);
         }
     }
 
+    private Lock lockKey(NitriteMap<Comparable, PostingList> indexMap, Comparable element) {
+        // in striped mode concurrent writers must not interleave between
+        // the read and the write of the posting list of a key
+        if (!latched) return null;
+
+        Lock latch = keyLatches.get(31 * indexMap.getName().hashCode() + Objects.hashCode(element));
+        latch.lock();
+        return latch;
+    }
+
+    private void unlockKey(Lock latch) {
+        if (latch != null) {
+            latch.unlock();
+        }
+    }
+
+    private Comparable firstKey(NitriteMap<Comparable, PostingList> indexMap, PrefixRange range) {
+        CompoundKey prefix = range.prefix;
+        Comparable lowerBound = range.lowerBound;
+        if (lowerBound == null) return prefix;
+
+        CompoundKey first = prefix.append(lowerBound);
+        if (lowerBound instanceof Number) {
+            // numbers of different types having the same value are ordered by their type,
+            // so step back to the first key equal in value to the lower bound
+            for (Pair<Comparable, PostingList> entry
+                : indexMap.entries(prefix, false, first, false, true)) {
+                if (!(entry.getFirst() instanceof CompoundKey)) break;
+
+                CompoundKey key = (CompoundKey) entry.getFirst();
+                if (!key.startsWith(prefix) || key.size() <= range.position
+                    || compareValue(key.get(range.position), lowerBound) != 0) {
+                    break;
+                }
+                first = key;
+            }
+        }
+        return first;
+    }
+
+    private int compareValue(Object component, Object bound) {
+        if (component instanceof Number && bound instanceof Number) {
+            return Numbers.compare((Number) component, (Number) bound);
+        }
+        return CompoundKey.compareComponent(component, bound);
+    }
+
     @SuppressWarnings("rawtypes")
-    private NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> getIndexMap(
+    private NitriteMap<Comparable, PostingList> getIndexMap(
         String collectionName, String field, Class<?> keyType) {
 
         String mapName = getIndexMapName(collectionName, field);
-        return nitriteStore.openMap(mapName, keyType, ConcurrentSkipListSet.class);
+        if (storeSnapshot != null) {
+            return storeSnapshot.openMap(mapName, keyType, PostingList.class);
+        }
+        return nitriteStore.openMap(mapName, keyType, PostingList.class);
+    }
+
+    private class PrefixRange {
+        private static final int MATCH = 0;
+        private static final int SKIP = 1;
+        private static final int PAST = 2;
+
+        private final CompoundKey prefix;
+        private final int position;
+        private final Comparable lowerBound;
+        private final boolean lowerInclusive;
+        private final Comparable upperBound;
+        private final boolean upperInclusive;
+
+        PrefixRange(CompoundKey prefix, Comparable lowerBound, boolean lowerInclusive,
+                    Comparable upperBound, boolean upperInclusive) {
+            this.prefix = prefix;
+            this.position = prefix.size();
+            this.lowerBound = lowerBound;
+            this.lowerInclusive = lowerInclusive;
+            this.upperBound = upperBound;
+            this.upperInclusive = upperInclusive;
+        }
+
+        boolean hasPrefix(Comparable key) {
+            return key instanceof CompoundKey && ((CompoundKey) key).startsWith(prefix);
+        }
+
+        int test(Comparable key) {
+            if (!(key instanceof CompoundKey)) return PAST;
+
+            CompoundKey compoundKey = (CompoundKey) key;
+            if (!compoundKey.startsWith(prefix)) return PAST;
+            if (compoundKey.size() <= position) return MATCH;
+            if (lowerBound == null && upperBound == null) return MATCH;
+
+            Object component = compoundKey.get(position);
+            if (component == null) return SKIP;
+
+            if (upperBound != null) {
+                int result = compareValue(component, upperBound);
+                if (result > 0 || (result == 0 && !upperInclusive)) {
+                    return result > 0 ? PAST : SKIP;
+                }
+            }
+
+            if (lowerBound != null) {
+                int result = compareValue(component, lowerBound);
+                if (result < 0 || (result == 0 && !lowerInclusive)) {
+                    return SKIP;
+                }
+            }
+            return MATCH;
+        }
     }
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.index;
+
+import org.dizitart.no2.common.util.Numbers;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Represents an ordered tuple of field values used as the key
+ * of a compound index.
+ * <p>
+ * Keys are compared component by component. A `null` component
+ * is smaller than any non-null value and a key is smaller than
+ * any longer key it is a prefix of, so a prefix key can be used
+ * to seek to the first entry starting with that prefix.
+ *
+ * @author Anindya Chatterjee
+ * @see #compareComponent(Object, Object)
+ * @since 4.0
+ */
+public final class CompoundKey implements Comparable<CompoundKey>, Serializable {
+    private static final long serialVersionUID = 1611233463L;
+
+    private Object[] values;
+
+    private CompoundKey(Object[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Creates a new {@link CompoundKey} from the field values.
+     *
+     * @param values the field values in index field order.
+     * @return the compound key.
+     */
+    public static CompoundKey of(Object... values) {
+        return new CompoundKey(values == null ? new Object[0] : values.clone());
+    }
+
+    /**
+     * Gets the number of components in this key.
+     *
+     * @return the number of components.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Gets the component at the specified position.
+     *
+     * @param index the position
+     * @return the component value.
+     */
+    public Object get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Creates a new key by appending a component at the end of this key.
+     *
+     * @param value the value to append
+     * @return the new key.
+     */
+    public CompoundKey append(Object value) {
+        Object[] newValues = Arrays.copyOf(values, values.length + 1);
+        newValues[values.length] = value;
+        return new CompoundKey(newValues);
+    }
+
+    /**
+     * Checks if this key starts with all components of `prefix`.
+     *
+     * @param prefix the prefix key
+     * @return `true` if this key starts with the prefix; `false` otherwise.
+     */
+    public boolean startsWith(CompoundKey prefix) {
+        if (prefix.values.length > values.length) return false;
+        for (int i = 0; i < prefix.values.length; i++) {
+            if (compareComponent(values[i], prefix.values[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int compareTo(CompoundKey other) {
+        int length = Math.min(values.length, other.values.length);
+        for (int i = 0; i < length; i++) {
+            int result = compareComponent(values[i], other.values[i]);
+            if (result != 0) return result;
+        }
+        return Integer.compare(values.length, other.values.length);
+    }
+
+    /**
+     * Compares two components of a compound key. `null` is smaller than
+     * any number and numbers are compared by value irrespective of their
+     * type. Numbers are smaller than any other value and values of
+     * unrelated types are ordered by their type name.
+     *
+     * @param first  the first component
+     * @param second the second component
+     * @return the comparison result.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static int compareComponent(Object first, Object second) {
+        if (first == second) return 0;
+        if (first == null) return -1;
+        if (second == null) return 1;
+
+        if (first instanceof Number && second instanceof Number) {
+            int result = Numbers.compare((Number) first, (Number) second);
+            if (result == 0 && !first.getClass().equals(second.getClass())) {
+                return first.getClass().getName().compareTo(second.getClass().getName());
+            }
+            return result;
+        }
+        if (first instanceof Number) return -1;
+        if (second instanceof Number) return 1;
+
+        if (first.getClass().equals(second.getClass()) && first instanceof Comparable) {
+            return ((Comparable) first).compareTo(second);
+        }
+        return first.getClass().getName().compareTo(second.getClass().getName());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof CompoundKey)) return false;
+        return Arrays.equals(values, ((CompoundKey) other).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+
+    private void writeObject(ObjectOutputStream stream) throws IOException {
+        stream.writeInt(values.length);
+        for (Object value : values) {
+            stream.writeObject(value);
+        }
+    }
+
+    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        int length = stream.readInt();
+        values = new Object[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = stream.readObject();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.index;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.store.NitriteMap;
+
+/**
+ * An {@link IndexBuilder} which writes every field value to the index
+ * as soon as it is added. The partitions are fed one at a time, as an
+ * indexer is not required to be thread-safe.
+ *
+ * @author Anindya Chatterjee
+ */
+class DirectIndexBuilder implements IndexBuilder {
+    private final Indexer indexer;
+    private final NitriteMap<NitriteId, Document> collection;
+    private final String field;
+
+    DirectIndexBuilder(Indexer indexer, NitriteMap<NitriteId, Document> collection, String field) {
+        this.indexer = indexer;
+        this.collection = collection;
+        this.field = field;
+    }
+
+    @Override
+    public synchronized void add(int partition, NitriteId nitriteId, Object fieldValue) {
+        if (fieldValue != null) {
+            // remove old values if exists
+            indexer.removeIndex(collection, nitriteId, field, fieldValue);
+        }
+        indexer.writeIndex(collection, nitriteId, field, fieldValue);
+    }
+
+    @Override
+    public void load() {
+        // every value is already written
+    }
+
+    @Override
+    public void discard() {
+        // nothing is buffered
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.index;
+
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.exceptions.NitriteIOException;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Collects the (key, id) pairs of an index build and hands them back
+ * sorted by key, so that the index map can be loaded sequentially with
+ * every posting list written once. Every time the buffer fills up, its
+ * pairs are sorted and written to a temporary file as a sorted run. The
+ * runs are merged while the index is being loaded, so besides the buffer
+ * only the head pair of each run is held in memory. The partitions of a
+ * parallel build collect their pairs in sibling buffers, whose runs are
+ * all merged into one load.
+ *
+ * @author Anindya Chatterjee.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+class IndexBuildBuffer {
+    private final int bufferSize;
+    private final List<KeyEntry> buffer;
+    private final List<File> runs;
+    private final KeyTypes keyTypes;
+    private final Comparator<KeyEntry> comparator;
+    private Class<?> lastKeyType;
+
+    IndexBuildBuffer(int bufferSize) {
+        this(bufferSize, new KeyTypes());
+    }
+
+    private IndexBuildBuffer(int bufferSize, KeyTypes keyTypes) {
+        this.bufferSize = bufferSize;
+        this.buffer = new ArrayList<>();
+        this.runs = new ArrayList<>();
+        this.keyTypes = keyTypes;
+        this.comparator = (first, second) -> {
+            int result = compareKeys(first.key, second.key);
+            return result != 0 ? result : Long.compare(first.id, second.id);
+        };
+    }
+
+    /**
+     * Creates a buffer for another partition of the same index, whose
+     * pairs can be loaded together with the pairs of this buffer.
+     */
+    IndexBuildBuffer sibling(int bufferSize) {
+        return new IndexBuildBuffer(bufferSize, keyTypes);
+    }
+
+    void add(Comparable key, NitriteId nitriteId) {
+        if (key != null && key.getClass() != lastKeyType) {
+            lastKeyType = key.getClass();
+            keyTypes.register(lastKeyType);
+        }
+        buffer.add(new KeyEntry(key, nitriteId.getLongValue()));
+        if (buffer.size() >= bufferSize) {
+            spill();
+        }
+    }
+
+    /**
+     * Hands the ids of every key to the loader in key order. The ids of a key
+     * come sorted and, if there are more of them than the buffer size, in
+     * several consecutive chunks.
+     */
+    void load(BiConsumer<Comparable, List<NitriteId>> loader) {
+        load(Collections.singletonList(this), bufferSize, loader);
+    }
+
+    /**
+     * Hands the ids of every key of all sibling buffers to the loader
+     * in key order, in chunks of at most the chunk size.
+     */
+    static void load(List<IndexBuildBuffer> buffers, int chunkSize,
+                     BiConsumer<Comparable, List<NitriteId>> loader) {
+        try {
+            List<Iterator<KeyEntry>> iterators = new ArrayList<>();
+            for (IndexBuildBuffer buffer : buffers) {
+                iterators.addAll(buffer.iterators());
+            }
+
+            Iterator<KeyEntry> iterator = iterators.size() == 1 ? iterators.get(0)
+                : new MergeIterator(iterators, buffers.get(0).comparator);
+            Comparable key = null;
+            List<NitriteId> ids = new ArrayList<>();
+
+            while (iterator.hasNext()) {
+                KeyEntry entry = iterator.next();
+                if (!ids.isEmpty() && (!Objects.equals(key, entry.key) || ids.size() >= chunkSize)) {
+                    loader.accept(key, ids);
+                    ids = new ArrayList<>();
+                }
+                key = entry.key;
+                ids.add(NitriteId.createId(entry.id));
+            }
+
+            if (!ids.isEmpty()) {
+                loader.accept(key, ids);
+            }
+        } finally {
+            for (IndexBuildBuffer buffer : buffers) {
+                buffer.discard();
+            }
+        }
+    }
+
+    void discard() {
+        for (File run : runs) {
+            deleteRun(run);
+        }
+        runs.clear();
+        buffer.clear();
+    }
+
+    private List<Iterator<KeyEntry>> iterators() {
+        buffer.sort(comparator);
+        List<Iterator<KeyEntry>> iterators = new ArrayList<>();
+        for (File run : runs) {
+            iterators.add(new RunIterator(run));
+        }
+        iterators.add(buffer.iterator());
+        return iterators;
+    }
+
+    private void spill() {
+        buffer.sort(comparator);
+        File run = null;
+        try {
+            run = File.createTempFile("nitrite-index", ".run");
+            try (ObjectOutputStream stream = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(run)))) {
+                stream.writeInt(buffer.size());
+                for (KeyEntry entry : buffer) {
+                    stream.writeObject(entry.key);
+                    stream.writeLong(entry.id);
+                }
+            }
+            runs.add(run);
+            buffer.clear();
+        } catch (IOException e) {
+            if (run != null) {
+                deleteRun(run);
+            }
+            discard();
+            throw new NitriteIOException("failed to write index keys to disk", e);
+        }
+    }
+
+    private int compareKeys(Comparable first, Comparable second) {
+        if (first == second) return 0;
+        if (first == null) return -1;
+        if (second == null) return 1;
+
+        if (first.getClass() == second.getClass()) {
+            return first.compareTo(second);
+        }
+
+        // keys of different types are loaded type by type in the order the
+        // types are first seen, as a store map might only take keys of the
+        // type of its first key
+        return Integer.compare(keyTypes.ordinal(first.getClass()), keyTypes.ordinal(second.getClass()));
+    }
+
+    private static void deleteRun(File run) {
+        if (!run.delete()) {
+            run.deleteOnExit();
+        }
+    }
+
+    private static class KeyTypes {
+        private final Map<Class<?>, Integer> ordinals = new ConcurrentHashMap<>();
+
+        synchronized void register(Class<?> keyType) {
+            if (!ordinals.containsKey(keyType)) {
+                ordinals.put(keyType, ordinals.size());
+            }
+        }
+
+        int ordinal(Class<?> keyType) {
+            return ordinals.get(keyType);
+        }
+    }
+
+    private static class KeyEntry {
+        private final Comparable key;
+        private final long id;
+
+        KeyEntry(Comparable key, long id) {
+            this.key = key;
+            this.id = id;
+        }
+    }
+
+    private static class RunIterator implements Iterator<KeyEntry> {
+        private final File run;
+        private ObjectInputStream stream;
+        private int remaining;
+
+        RunIterator(File run) {
+            this.run = run;
+            try {
+                this.stream = new ObjectInputStream(new BufferedInputStream(new FileInputStream(run)));
+                this.remaining = stream.readInt();
+            } catch (IOException e) {
+                close();
+                throw new NitriteIOException("failed to read index keys from disk", e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public KeyEntry next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+
+            try {
+                Comparable key = (Comparable) stream.readObject();
+                long id = stream.readLong();
+                if (--remaining == 0) {
+                    close();
+                }
+                return new KeyEntry(key, id);
+            } catch (IOException | ClassNotFoundException e) {
+                close();
+                throw new NitriteIOException("failed to read index keys from disk", e);
+            }
+        }
+
+        private void close() {
+            remaining = 0;
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ignore) {
+                    // the run is deleted anyway
+                }
+                stream = null;
+            }
+            deleteRun(run);
+        }
+    }
+
+    private static class MergeIterator implements Iterator<KeyEntry> {
+        private final PriorityQueue<RunHead> heads;
+
+        MergeIterator(List<Iterator<KeyEntry>> iterators, Comparator<KeyEntry> comparator) {
+            this.heads = new PriorityQueue<>(iterators.size(),
+                (first, second) -> comparator.compare(first.entry, second.entry));
+            for (Iterator<KeyEntry> iterator : iterators) {
+                if (iterator.hasNext()) {
+                    heads.add(new RunHead(iterator.next(), iterator));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public KeyEntry next() {
+            RunHead head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+
+            KeyEntry entry = head.entry;
+            if (head.iterator.hasNext()) {
+                head.entry = head.iterator.next();
+                heads.add(head);
+            }
+            return entry;
+        }
+    }
+
+    private static class RunHead {
+        private KeyEntry entry;
+        private final Iterator<KeyEntry> iterator;
+
+        RunHead(KeyEntry entry, Iterator<KeyEntry> iterator) {
+            this.entry = entry;
+            this.iterator = iterator;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.index;
+
+import org.dizitart.no2.collection.NitriteId;
+
+/**
+ * Collects the field values of the documents of a collection while an
+ * index is being built, and writes them to the index.
+ * <p>
+ * The documents of the collection can be split into partitions which are
+ * scanned in parallel. Each partition is fed by only one thread at a time,
+ * but different partitions can be fed concurrently.
+ *
+ * @author Anindya Chatterjee
+ * @see Indexer#newIndexBuilder(org.dizitart.no2.store.NitriteMap, String, int)
+ * @since 4.0
+ */
+public interface IndexBuilder {
+    /**
+     * Adds the field value of a document of a partition.
+     *
+     * @param partition  the partition of the document
+     * @param nitriteId  the id of the document
+     * @param fieldValue the field value
+     */
+    void add(int partition, NitriteId nitriteId, Object fieldValue);
+
+    /**
+     * Writes all collected field values of all partitions to the index.
+     * It is called once after all partitions have been scanned.
+     */
+    void load();
+
+    /**
+     * Discards the collected field values of an index build which failed.
+     */
+    void discard();
+}
@@ -18,12 +18,18 @@ package org.dizitart.no2.index;
 
 import lombok.*;
 import org.dizitart.no2.collection.NitriteCollection;
+import org.dizitart.no2.exceptions.ValidationException;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
 
+import static org.dizitart.no2.common.Constants.INTERNAL_NAME_SEPARATOR;
 import static org.dizitart.no2.common.util.ValidationUtils.notEmpty;
 import static org.dizitart.no2.common.util.ValidationUtils.notNull;
 
@@ -34,7 +40,7 @@ import static org.dizitart.no2.common.util.ValidationUtils.notNull;
  * @see NitriteCollection#createIndex(String, IndexOptions)
  * @since 1.0
  */
-@ToString
+@ToString(exclude = "fields")
 @EqualsAndHashCode
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class IndexEntry implements Comparable<IndexEntry>, Serializable {
@@ -50,9 +56,11 @@ public class IndexEntry implements Comparable<IndexEntry>, Serializable {
     private String indexType;
 
     /**
-     * Gets the target field for the index.
+     * Gets the target field for the index. For a compound index
+     * it is the encoded name of all the fields.
      *
      * @return the target field.
+     * @see #encodeFields(String...)
      */
     @Getter
     private String field;
@@ -65,6 +73,8 @@ public class IndexEntry implements Comparable<IndexEntry>, Serializable {
     @Getter
     private String collectionName;
 
+    private transient List<String> fields;
+
     /**
      * Instantiates a new Index.
      *
@@ -83,6 +93,62 @@ public class IndexEntry implements Comparable<IndexEntry>, Serializable {
         this.collectionName = collectionName;
     }
 
+    /**
+     * Instantiates a new compound Index.
+     *
+     * @param indexType      the index type
+     * @param fields         the fields in index order
+     * @param collectionName the collection name
+     */
+    public IndexEntry(String indexType, List<String> fields, String collectionName) {
+        this(indexType, encodeFields(fields == null ? null : fields.toArray(new String[0])), collectionName);
+    }
+
+    /**
+     * Encodes the name of a compound index from its fields. The encoded
+     * name identifies the index in all field based index operations.
+     *
+     * @param fields the fields in index order
+     * @return the encoded field name.
+     */
+    public static String encodeFields(String... fields) {
+        notNull(fields, "fields cannot be null");
+        if (fields.length == 0) {
+            throw new ValidationException("fields cannot be empty");
+        }
+
+        for (String field : fields) {
+            notEmpty(field, "field cannot be empty");
+            if (field.contains(INTERNAL_NAME_SEPARATOR)) {
+                throw new ValidationException(field + " contains reserved character "
+                    + INTERNAL_NAME_SEPARATOR);
+            }
+        }
+        return String.join(INTERNAL_NAME_SEPARATOR, fields);
+    }
+
+    /**
+     * Gets the target fields of the index in index order.
+     *
+     * @return the target fields.
+     */
+    public List<String> getFields() {
+        if (fields == null) {
+            String[] names = field.split(Pattern.quote(INTERNAL_NAME_SEPARATOR));
+            fields = Collections.unmodifiableList(Arrays.asList(names));
+        }
+        return fields;
+    }
+
+    /**
+     * Indicates if the index is a compound index on more than one field.
+     *
+     * @return `true` if it is a compound index; `false` otherwise.
+     */
+    public boolean isCompound() {
+        return getFields().size() > 1;
+    }
+
     @Override
     public int compareTo(IndexEntry other) {
         String string = collectionName + field + indexType;
@@ -18,8 +18,12 @@ package org.dizitart.no2.index;
 
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.module.NitritePlugin;
 import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.store.StoreSnapshot;
+
+import java.util.List;
 
 import static org.dizitart.no2.common.Constants.INDEX_PREFIX;
 import static org.dizitart.no2.common.Constants.INTERNAL_NAME_SEPARATOR;
@@ -32,6 +36,37 @@ public interface Indexer extends NitritePlugin, Cloneable {
 
     void writeIndex(NitriteMap<NitriteId, Document> collection, NitriteId nitriteId, String field, Object fieldValue);
 
+    /**
+     * Writes the index entries of a batch of documents. An indexer can override
+     * it to update every index key only once for the whole batch.
+     *
+     * @param collection the collection
+     * @param field      the indexed field
+     * @param entries    the ids of the documents and their field values
+     */
+    default void writeIndexBatch(NitriteMap<NitriteId, Document> collection, String field,
+                                 List<Pair<NitriteId, Object>> entries) {
+        for (Pair<NitriteId, Object> entry : entries) {
+            writeIndex(collection, entry.getFirst(), field, entry.getSecond());
+        }
+    }
+
+    /**
+     * Creates an {@link IndexBuilder} to build the index of a field from the
+     * field values of all documents of the collection. An indexer can return
+     * a builder which sorts the index keys first and loads the index
+     * sequentially, instead of updating it per document.
+     *
+     * @param collection the collection
+     * @param field      the indexed field
+     * @param partitions the number of partitions the documents are split into
+     * @return the index builder.
+     */
+    default IndexBuilder newIndexBuilder(NitriteMap<NitriteId, Document> collection, String field,
+                                         int partitions) {
+        return new DirectIndexBuilder(this, collection, field);
+    }
+
     void removeIndex(NitriteMap<NitriteId, Document> collection, NitriteId nitriteId, String field, Object fieldValue);
 
     void updateIndex(NitriteMap<NitriteId, Document> collection, NitriteId nitriteId, String field, Object newValue, Object oldValue);
@@ -40,6 +75,18 @@ public interface Indexer extends NitritePlugin, Cloneable {
 
     Indexer clone() throws CloneNotSupportedException;
 
+    /**
+     * Gets an indexer which reads its index maps from a snapshot of the
+     * store. An indexer which does not support snapshots reads its live
+     * index maps.
+     *
+     * @param snapshot the snapshot of the store.
+     * @return the indexer reading from the snapshot.
+     */
+    default Indexer snapshot(StoreSnapshot snapshot) {
+        return this;
+    }
+
     default String getIndexMapName(String collectionName, String field) {
         return INDEX_PREFIX +
             INTERNAL_NAME_SEPARATOR +
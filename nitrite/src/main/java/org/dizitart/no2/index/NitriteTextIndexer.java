@@ -19,6 +19,8 @@ package org.dizitart.no2.index;
 import org.dizitart.no2.NitriteConfig;
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.concurrent.ConcurrencyMode;
+import org.dizitart.no2.common.concurrent.StripedLock;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.FilterException;
 import org.dizitart.no2.exceptions.IndexingException;
@@ -27,11 +29,14 @@ import org.dizitart.no2.index.fulltext.TextTokenizer;
 import org.dizitart.no2.store.IndexCatalog;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteStore;
+import org.dizitart.no2.store.StoreSnapshot;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.Lock;
+import java.util.function.UnaryOperator;
 
+import static org.dizitart.no2.common.Constants.LOCK_STRIPES;
 import static org.dizitart.no2.common.util.ObjectUtils.convertToObjectArray;
 import static org.dizitart.no2.common.util.StringUtils.stringTokenizer;
 import static org.dizitart.no2.common.util.ValidationUtils.*;
@@ -42,8 +47,13 @@ import static org.dizitart.no2.common.util.ValidationUtils.*;
 @SuppressWarnings("rawtypes")
 public class NitriteTextIndexer implements TextIndexer {
     private final TextTokenizer textTokenizer;
+    private final StripedLock wordLatches = new StripedLock(LOCK_STRIPES);
     private IndexCatalog indexCatalog;
     private NitriteStore<?> nitriteStore;
+    // null, unless the indexer reads from a snapshot
+    private StoreSnapshot storeSnapshot;
+    private int buildBufferSize;
+    private boolean latched;
 
     public NitriteTextIndexer() {
         this.textTokenizer = new EnglishTextTokenizer();
@@ -57,6 +67,17 @@ public class NitriteTextIndexer implements TextIndexer {
         return (NitriteTextIndexer) super.clone();
     }
 
+    @Override
+    public NitriteTextIndexer snapshot(StoreSnapshot snapshot) {
+        try {
+            NitriteTextIndexer indexer = clone();
+            indexer.storeSnapshot = snapshot;
+            return indexer;
+        } catch (CloneNotSupportedException e) {
+            throw new IndexingException("failed to read the index from a snapshot", e);
+        }
+    }
+
     @Override
     public String getIndexType() {
         return IndexType.Fulltext;
@@ -84,26 +105,57 @@ public class NitriteTextIndexer implements TextIndexer {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
+    public void writeIndexBatch(NitriteMap<NitriteId, Document> collection, String field,
+                                List<Pair<NitriteId, Object>> entries) {
+        try {
+            // group the ids by word, so that each posting list is written once
+            Map<String, List<NitriteId>> idsByWord = new HashMap<>();
+            for (Pair<NitriteId, Object> entry : entries) {
+                validateStringValue(entry.getSecond(), field);
+                for (String word : decompose(entry.getSecond())) {
+                    idsByWord.computeIfAbsent(word, k -> new ArrayList<>()).add(entry.getFirst());
+                }
+            }
+
+            NitriteMap<Comparable, PostingList> indexMap
+                = getIndexMap(collection.getName(), field);
+
+            for (Map.Entry<String, List<NitriteId>> entry : idsByWord.entrySet()) {
+                PostingList ids = PostingList.of(entry.getValue());
+                addToPostingList(indexMap, entry.getKey(), postingList -> postingList.merge(ids));
+            }
+        } catch (IOException ioe) {
+            throw new IndexingException("could not write full-text index data for " + field, ioe);
+        }
+    }
+
+    @Override
+    public IndexBuilder newIndexBuilder(NitriteMap<NitriteId, Document> collection, String field,
+                                        int partitions) {
+        NitriteMap<Comparable, PostingList> indexMap
+            = getIndexMap(collection.getName(), field);
+        return new SortedIndexBuilder(buildBufferSize, partitions, fieldValue -> {
+            try {
+                validateStringValue(fieldValue, field);
+                return decompose(fieldValue);
+            } catch (IOException ioe) {
+                throw new IndexingException("could not write full-text index data for " + field, ioe);
+            }
+        }, (word, ids) -> addToPostingList(indexMap, (String) word,
+            postingList -> postingList.merge(PostingList.of(ids))));
+    }
+
+    @Override
     public void removeIndex(NitriteMap<NitriteId, Document> collection, NitriteId nitriteId, String field, Object fieldValue) {
         try {
             validateStringValue(fieldValue, field);
             Set<String> words = decompose(fieldValue);
 
-            NitriteMap<Comparable, ConcurrentSkipListSet> indexMap
+            NitriteMap<Comparable, PostingList> indexMap
                 = getIndexMap(collection.getName(), field);
 
             for (String word : words) {
-                ConcurrentSkipListSet<NitriteId> nitriteIds = (ConcurrentSkipListSet<NitriteId>) indexMap.get(word);
-                if (nitriteIds != null) {
-                    nitriteIds.remove(nitriteId);
-
-                    if (nitriteIds.isEmpty()) {
-                        indexMap.remove(word);
-                    } else {
-                        indexMap.put(word, nitriteIds);
-                    }
-                }
+                removeFromPostingList(indexMap, word, nitriteId);
             }
         } catch (IOException ioe) {
             throw new IndexingException("failed to remove full-text index data for " + field + " with id " + nitriteId);
@@ -125,12 +177,17 @@ public class NitriteTextIndexer implements TextIndexer {
     public void initialize(NitriteConfig nitriteConfig) {
         this.nitriteStore = nitriteConfig.getNitriteStore();
         this.indexCatalog = this.nitriteStore.getIndexCatalog();
+        this.buildBufferSize = nitriteConfig.getIndexBuildBufferSize();
+        this.latched = nitriteConfig.getConcurrencyMode() == ConcurrencyMode.Striped;
     }
 
     @SuppressWarnings("rawtypes")
-    private NitriteMap<Comparable, ConcurrentSkipListSet> getIndexMap(String collectionName, String field) {
+    private NitriteMap<Comparable, PostingList> getIndexMap(String collectionName, String field) {
         String mapName = getIndexMapName(collectionName, field);
-        return nitriteStore.openMap(mapName, String.class, ConcurrentSkipListSet.class);
+        if (storeSnapshot != null) {
+            return storeSnapshot.openMap(mapName, String.class, PostingList.class);
+        }
+        return nitriteStore.openMap(mapName, String.class, PostingList.class);
     }
 
     private void validateStringValue(Object value, String field) {
@@ -145,29 +202,76 @@ public class NitriteTextIndexer implements TextIndexer {
         }
     }
 
-    @SuppressWarnings("unchecked")
     private void createOrUpdate(NitriteMap<NitriteId, Document> collection, NitriteId id, String field, Object fieldValue) {
         try {
             validateStringValue(fieldValue, field);
             Set<String> words = decompose(fieldValue);
 
-            NitriteMap<Comparable, ConcurrentSkipListSet> indexMap
+            NitriteMap<Comparable, PostingList> indexMap
                 = getIndexMap(collection.getName(), field);
 
             for (String word : words) {
-                ConcurrentSkipListSet<NitriteId> nitriteIds = (ConcurrentSkipListSet<NitriteId>) indexMap.get(word);
-
-                if (nitriteIds == null) {
-                    nitriteIds = new ConcurrentSkipListSet<>();
-                }
-                nitriteIds.add(id);
-                indexMap.put(word, nitriteIds);
+                addToPostingList(indexMap, word, postingList -> postingList.add(id));
             }
         } catch (IOException ioe) {
             throw new IndexingException("could not write full-text index data for " + fieldValue, ioe);
         }
     }
 
+    private void addToPostingList(NitriteMap<Comparable, PostingList> indexMap,
+                                  String word, UnaryOperator<PostingList> addition) {
+        Lock latch = lockWord(indexMap, word);
+        try {
+            PostingList postingList = indexMap.get(word);
+
+            if (postingList == null) {
+                postingList = PostingList.empty();
+            }
+
+            PostingList updated = addition.apply(postingList);
+            if (updated != postingList) {
+                indexMap.put(word, updated);
+            }
+        } finally {
+            unlockWord(latch);
+        }
+    }
+
+    private void removeFromPostingList(NitriteMap<Comparable, PostingList> indexMap,
+                                       String word, NitriteId nitriteId) {
+        Lock latch = lockWord(indexMap, word);
+        try {
+            PostingList postingList = indexMap.get(word);
+            if (postingList != null) {
+                PostingList updated = postingList.remove(nitriteId);
+
+                if (updated.isEmpty()) {
+                    indexMap.remove(word);
+                } else if (updated != postingList) {
+                    indexMap.put(word, updated);
+                }
+            }
+        } finally {
+            unlockWord(latch);
+        }
+    }
+
+    private Lock lockWord(NitriteMap<Comparable, PostingList> indexMap, String word) {
+        // in striped mode concurrent writers must not interleave between
+        // the read and the write of the posting list of a word
+        if (!latched) return null;
+
+        Lock latch = wordLatches.get(31 * indexMap.getName().hashCode() + Objects.hashCode(word));
+        latch.lock();
+        return latch;
+    }
+
+    private void unlockWord(Lock latch) {
+        if (latch != null) {
+            latch.unlock();
+        }
+    }
+
     private Set<String> decompose(Object fieldValue) throws IOException {
         Set<String> result = new HashSet<>();
         if (fieldValue == null) {
@@ -214,72 +318,68 @@ public class NitriteTextIndexer implements TextIndexer {
         }
     }
 
-    @SuppressWarnings("unchecked")
     private Set<NitriteId> searchByTrailingWildCard(String collectionName, String field, String searchString) {
         if (searchString.equalsIgnoreCase("*")) {
             throw new FilterException("invalid search term '*'");
         }
 
-        NitriteMap<Comparable, ConcurrentSkipListSet> indexMap
+        NitriteMap<Comparable, PostingList> indexMap
             = getIndexMap(collectionName, field);
         Set<NitriteId> idSet = new LinkedHashSet<>();
         String term = searchString.substring(0, searchString.length() - 1);
 
-        for (Pair<Comparable, ConcurrentSkipListSet> entry : indexMap.entries()) {
+        for (Pair<Comparable, PostingList> entry : indexMap.entries()) {
             String key = (String) entry.getFirst();
             if (key.startsWith(term.toLowerCase())) {
-                idSet.addAll((ConcurrentSkipListSet<NitriteId>) entry.getSecond());
+                idSet.addAll(entry.getSecond().asSet());
             }
         }
         return idSet;
     }
 
-    @SuppressWarnings("unchecked")
     private Set<NitriteId> searchContains(String collectionName, String field, String term) {
-        NitriteMap<Comparable, ConcurrentSkipListSet> indexMap
+        NitriteMap<Comparable, PostingList> indexMap
             = getIndexMap(collectionName, field);
         Set<NitriteId> idSet = new LinkedHashSet<>();
 
-        for (Pair<Comparable, ConcurrentSkipListSet> entry : indexMap.entries()) {
+        for (Pair<Comparable, PostingList> entry : indexMap.entries()) {
             String key = (String) entry.getFirst();
             if (key.contains(term.toLowerCase())) {
-                idSet.addAll((ConcurrentSkipListSet<NitriteId>) entry.getSecond());
+                idSet.addAll(entry.getSecond().asSet());
             }
         }
         return idSet;
     }
 
-    @SuppressWarnings("unchecked")
     private Set<NitriteId> searchByLeadingWildCard(String collectionName, String field, String searchString) {
         if (searchString.equalsIgnoreCase("*")) {
             throw new FilterException("invalid search term '*'");
         }
 
-        NitriteMap<Comparable, ConcurrentSkipListSet> indexMap
+        NitriteMap<Comparable, PostingList> indexMap
             = getIndexMap(collectionName, field);
         Set<NitriteId> idSet = new LinkedHashSet<>();
         String term = searchString.substring(1);
 
-        for (Pair<Comparable, ConcurrentSkipListSet> entry : indexMap.entries()) {
+        for (Pair<Comparable, PostingList> entry : indexMap.entries()) {
             String key = (String) entry.getFirst();
             if (key.endsWith(term.toLowerCase())) {
-                idSet.addAll((ConcurrentSkipListSet<NitriteId>) entry.getSecond());
+                idSet.addAll(entry.getSecond().asSet());
             }
         }
         return idSet;
     }
 
-    @SuppressWarnings("unchecked")
     private Set<NitriteId> searchExactByIndex(String collectionName, String field, String searchString) throws IOException {
-        NitriteMap<Comparable, ConcurrentSkipListSet> indexMap
+        NitriteMap<Comparable, PostingList> indexMap
             = getIndexMap(collectionName, field);
 
         Set<String> words = textTokenizer.tokenize(searchString);
         Map<NitriteId, Integer> scoreMap = new HashMap<>();
         for (String word : words) {
-            ConcurrentSkipListSet<NitriteId> nitriteIds = (ConcurrentSkipListSet<NitriteId>) indexMap.get(word);
-            if (nitriteIds != null) {
-                for (NitriteId id : nitriteIds) {
+            PostingList postingList = indexMap.get(word);
+            if (postingList != null) {
+                for (NitriteId id : postingList) {
                     Integer score = scoreMap.get(id);
                     if (score == null) {
                         scoreMap.put(id, 1);
@@ -0,0 +1,657 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.index;
+
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.exceptions.InvalidOperationException;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Represents the sorted set of ids stored under a key of an index.
+ * <p>
+ * The ids are kept as primitive longs split into blocks of at most
+ * {@link #BLOCK_SIZE} ids. A block stores the difference of each id
+ * from the previous one as a variable length number, so the ids of
+ * documents inserted one after another take one or two bytes each.
+ * <p>
+ * A posting list is immutable. Adding or removing an id creates a new
+ * posting list which re-encodes only the block being changed and shares
+ * all other blocks, and an id greater than the last id of its block is
+ * appended without decoding the block at all.
+ * <p>
+ * The blocks only save work in memory. An index map stores a whole
+ * posting list as the single value of its key, so every change of the
+ * list writes all of its blocks to the store again.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+public final class PostingList implements Iterable<NitriteId>, Serializable {
+    private static final long serialVersionUID = 1615306734L;
+    private static final PostingList EMPTY = new PostingList(new long[0], new long[0], new int[0], new byte[0][]);
+
+    /**
+     * The maximum number of ids in a block.
+     */
+    static final int BLOCK_SIZE = 128;
+
+    private long[] firstIds;
+    private long[] lastIds;
+    private int[] counts;
+    // the deltas of all ids of a block after its first id
+    private byte[][] blocks;
+    private int size;
+
+    private PostingList(long[] firstIds, long[] lastIds, int[] counts, byte[][] blocks) {
+        init(firstIds, lastIds, counts, blocks);
+    }
+
+    /**
+     * Gets an empty posting list.
+     *
+     * @return the empty posting list.
+     */
+    public static PostingList empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a posting list of the ids.
+     *
+     * @param ids the ids
+     * @return the posting list.
+     */
+    public static PostingList of(Iterable<NitriteId> ids) {
+        long[] values = new long[16];
+        int length = 0;
+        for (NitriteId id : ids) {
+            if (length == values.length) {
+                values = Arrays.copyOf(values, length * 2);
+            }
+            values[length++] = id.getLongValue();
+        }
+
+        Arrays.sort(values, 0, length);
+        return fromSorted(values, length);
+    }
+
+    /**
+     * Creates a posting list from an encoded byte array.
+     *
+     * @param bytes the encoded posting list
+     * @return the posting list.
+     * @see #toBytes()
+     */
+    public static PostingList fromBytes(byte[] bytes) {
+        Reader reader = new Reader(bytes, 0);
+        int blockCount = (int) reader.readVarLong();
+        long[] firstIds = new long[blockCount];
+        long[] lastIds = new long[blockCount];
+        int[] counts = new int[blockCount];
+        byte[][] blocks = new byte[blockCount][];
+
+        for (int i = 0; i < blockCount; i++) {
+            firstIds[i] = reader.readLong();
+            lastIds[i] = firstIds[i] + reader.readVarLong();
+            counts[i] = (int) reader.readVarLong();
+            blocks[i] = reader.readBytes((int) reader.readVarLong());
+        }
+        return blockCount == 0 ? EMPTY : new PostingList(firstIds, lastIds, counts, blocks);
+    }
+
+    /**
+     * Encodes the posting list as a byte array. The encoded blocks are
+     * copied as they are, without decoding the ids, but all of them are
+     * copied, however few of them have changed.
+     *
+     * @return the encoded posting list.
+     */
+    public byte[] toBytes() {
+        Writer writer = new Writer(16 + blocks.length * 16);
+        writer.writeVarLong(blocks.length);
+        for (int i = 0; i < blocks.length; i++) {
+            writer.writeLong(firstIds[i]);
+            writer.writeVarLong(lastIds[i] - firstIds[i]);
+            writer.writeVarLong(counts[i]);
+            writer.writeVarLong(blocks[i].length);
+            writer.writeBytes(blocks[i]);
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Gets the number of ids in the posting list.
+     *
+     * @return the number of ids.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets an estimate of the heap memory held by the posting list, in
+     * bytes, for the stores which size their caches by it.
+     *
+     * @return the estimated memory of the posting list.
+     */
+    public int getMemory() {
+        // the object, its three arrays of block headers and the array of blocks
+        int memory = 32 + 3 * 16 + blocks.length * (8 + 8 + 4) + 16 + blocks.length * 4;
+        for (byte[] block : blocks) {
+            memory += 16 + block.length;
+        }
+        return memory;
+    }
+
+    /**
+     * Checks if the posting list is empty.
+     *
+     * @return `true` if there is no id in the posting list.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks if the posting list contains an id.
+     *
+     * @param id the id
+     * @return `true` if the id is in the posting list.
+     */
+    public boolean contains(NitriteId id) {
+        return id != null && contains(id.getLongValue());
+    }
+
+    /**
+     * Adds an id to the posting list.
+     *
+     * @param id the id
+     * @return the posting list with the id, or this posting list
+     * if it already contains the id.
+     */
+    public PostingList add(NitriteId id) {
+        return add(id.getLongValue());
+    }
+
+    /**
+     * Removes an id from the posting list.
+     *
+     * @param id the id
+     * @return the posting list without the id, or this posting list
+     * if it does not contain the id.
+     */
+    public PostingList remove(NitriteId id) {
+        return remove(id.getLongValue());
+    }
+
+    /**
+     * Merges two posting lists.
+     *
+     * @param other the other posting list
+     * @return the posting list containing the ids of both posting lists.
+     */
+    public PostingList merge(PostingList other) {
+        if (other == null || other.isEmpty()) return this;
+        if (isEmpty()) return other;
+
+        if (other.size < BLOCK_SIZE) {
+            // a few ids go into the existing blocks instead of a small block of their own
+            PostingList result = this;
+            PrimitiveIterator.OfLong iterator = other.longIterator();
+            while (iterator.hasNext()) {
+                result = result.add(iterator.nextLong());
+            }
+            return result;
+        }
+
+        if (lastIds[lastIds.length - 1] < other.firstIds[0]) {
+            // all ids of the other list come after, so the blocks are simply appended
+            return new PostingList(concat(firstIds, other.firstIds), concat(lastIds, other.lastIds),
+                concat(counts, other.counts), concat(blocks, other.blocks));
+        }
+
+        long[] values = new long[size + other.size];
+        int length = 0;
+        PrimitiveIterator.OfLong first = longIterator(), second = other.longIterator();
+        long firstValue = first.nextLong(), secondValue = second.nextLong();
+        boolean hasFirst = true, hasSecond = true;
+        while (hasFirst || hasSecond) {
+            long value;
+            if (hasFirst && (!hasSecond || firstValue <= secondValue)) {
+                value = firstValue;
+                hasFirst = first.hasNext();
+                if (hasFirst) firstValue = first.nextLong();
+            } else {
+                value = secondValue;
+                hasSecond = second.hasNext();
+                if (hasSecond) secondValue = second.nextLong();
+            }
+
+            if (length == 0 || values[length - 1] != value) {
+                values[length++] = value;
+            }
+        }
+        return fromSorted(values, length);
+    }
+
+    /**
+     * Gets an iterator over the ids as primitive longs in ascending order.
+     *
+     * @return the iterator.
+     */
+    public PrimitiveIterator.OfLong longIterator() {
+        return new LongIterator();
+    }
+
+    @Override
+    public Iterator<NitriteId> iterator() {
+        PrimitiveIterator.OfLong iterator = longIterator();
+        return new Iterator<NitriteId>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public NitriteId next() {
+                return NitriteId.createId(iterator.nextLong());
+            }
+        };
+    }
+
+    /**
+     * Gets a read-only {@link Set} view of the posting list. The
+     * ids are created from the posting list while being iterated.
+     *
+     * @return the set view.
+     */
+    public Set<NitriteId> asSet() {
+        return new AbstractSet<NitriteId>() {
+            @Override
+            public Iterator<NitriteId> iterator() {
+                return PostingList.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof NitriteId && PostingList.this.contains((NitriteId) o);
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PostingList)) return false;
+
+        PostingList other = (PostingList) o;
+        if (size != other.size) return false;
+
+        PrimitiveIterator.OfLong first = longIterator(), second = other.longIterator();
+        while (first.hasNext()) {
+            if (first.nextLong() != second.nextLong()) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        PrimitiveIterator.OfLong iterator = longIterator();
+        while (iterator.hasNext()) {
+            result = 31 * result + Long.hashCode(iterator.nextLong());
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        PrimitiveIterator.OfLong iterator = longIterator();
+        while (iterator.hasNext()) {
+            builder.append(iterator.nextLong());
+            if (iterator.hasNext()) {
+                builder.append(", ");
+            }
+        }
+        return builder.append("]").toString();
+    }
+
+    boolean contains(long id) {
+        int index = findBlock(id);
+        if (index < 0 || id > lastIds[index]) return false;
+        if (id == firstIds[index] || id == lastIds[index]) return true;
+
+        Reader reader = new Reader(blocks[index], 0);
+        long value = firstIds[index];
+        for (int i = 1; i < counts[index]; i++) {
+            value += reader.readVarLong();
+            if (value >= id) return value == id;
+        }
+        return false;
+    }
+
+    PostingList add(long id) {
+        if (isEmpty()) {
+            return new PostingList(new long[]{id}, new long[]{id}, new int[]{1}, new byte[][]{new byte[0]});
+        }
+
+        int index = Math.max(findBlock(id), 0);
+        boolean nextBlockAfter = index == blocks.length - 1 || id < firstIds[index + 1];
+        if (id > lastIds[index] && nextBlockAfter) {
+            if (counts[index] < BLOCK_SIZE) {
+                // append the delta to the block without decoding it
+                Writer writer = new Writer(blocks[index].length + 10);
+                writer.writeBytes(blocks[index]);
+                writer.writeVarLong(id - lastIds[index]);
+                return replaceBlock(index, firstIds[index], id, counts[index] + 1, writer.toByteArray());
+            } else if (index == blocks.length - 1) {
+                return insertBlocks(index + 1, 0, new long[]{id}, 1);
+            }
+        }
+
+        if (contains(id)) return this;
+
+        long[] values = decode(index, 1);
+        int count = counts[index];
+        int position = Arrays.binarySearch(values, 0, count, id);
+        position = -(position + 1);
+        System.arraycopy(values, position, values, position + 1, count - position);
+        values[position] = id;
+        return insertBlocks(index, 1, values, count + 1);
+    }
+
+    PostingList remove(long id) {
+        int index = findBlock(id);
+        if (index < 0 || id > lastIds[index]) return this;
+
+        long[] values = decode(index, 0);
+        int count = counts[index];
+        int position = Arrays.binarySearch(values, 0, count, id);
+        if (position < 0) return this;
+
+        if (count == 1) {
+            return insertBlocks(index, 1, values, 0);
+        }
+        System.arraycopy(values, position + 1, values, position, count - position - 1);
+        return insertBlocks(index, 1, values, count - 1);
+    }
+
+    private void init(long[] firstIds, long[] lastIds, int[] counts, byte[][] blocks) {
+        this.firstIds = firstIds;
+        this.lastIds = lastIds;
+        this.counts = counts;
+        this.blocks = blocks;
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        this.size = total;
+    }
+
+    // finds the last block whose first id is not greater than the id
+    private int findBlock(long id) {
+        int low = 0, high = firstIds.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (firstIds[middle] <= id) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    private long[] decode(int index, int extra) {
+        long[] values = new long[counts[index] + extra];
+        Reader reader = new Reader(blocks[index], 0);
+        long value = firstIds[index];
+        values[0] = value;
+        for (int i = 1; i < counts[index]; i++) {
+            value += reader.readVarLong();
+            values[i] = value;
+        }
+        return values;
+    }
+
+    private PostingList replaceBlock(int index, long firstId, long lastId, int count, byte[] block) {
+        long[] newFirstIds = firstIds.clone();
+        long[] newLastIds = lastIds.clone();
+        int[] newCounts = counts.clone();
+        byte[][] newBlocks = blocks.clone();
+        newFirstIds[index] = firstId;
+        newLastIds[index] = lastId;
+        newCounts[index] = count;
+        newBlocks[index] = block;
+        return new PostingList(newFirstIds, newLastIds, newCounts, newBlocks);
+    }
+
+    // replaces `removed` blocks at the index with the blocks encoding the sorted ids
+    private PostingList insertBlocks(int index, int removed, long[] values, int length) {
+        int added = (length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int blockCount = blocks.length - removed + added;
+        if (blockCount == 0) return EMPTY;
+
+        long[] newFirstIds = new long[blockCount];
+        long[] newLastIds = new long[blockCount];
+        int[] newCounts = new int[blockCount];
+        byte[][] newBlocks = new byte[blockCount][];
+
+        System.arraycopy(firstIds, 0, newFirstIds, 0, index);
+        System.arraycopy(lastIds, 0, newLastIds, 0, index);
+        System.arraycopy(counts, 0, newCounts, 0, index);
+        System.arraycopy(blocks, 0, newBlocks, 0, index);
+
+        // a full block is split into equal halves, so the next additions fit in
+        for (int i = 0; i < added; i++) {
+            int from = (int) ((long) length * i / added);
+            int to = (int) ((long) length * (i + 1) / added);
+            encode(values, from, to, newFirstIds, newLastIds, newCounts, newBlocks, index + i);
+        }
+
+        int tail = blocks.length - index - removed;
+        System.arraycopy(firstIds, index + removed, newFirstIds, index + added, tail);
+        System.arraycopy(lastIds, index + removed, newLastIds, index + added, tail);
+        System.arraycopy(counts, index + removed, newCounts, index + added, tail);
+        System.arraycopy(blocks, index + removed, newBlocks, index + added, tail);
+        return new PostingList(newFirstIds, newLastIds, newCounts, newBlocks);
+    }
+
+    private static PostingList fromSorted(long[] values, int length) {
+        return EMPTY.insertBlocks(0, 0, values, dedupe(values, length));
+    }
+
+    private static int dedupe(long[] values, int length) {
+        if (length == 0) return 0;
+        int unique = 1;
+        for (int i = 1; i < length; i++) {
+            if (values[i] != values[unique - 1]) {
+                values[unique++] = values[i];
+            }
+        }
+        return unique;
+    }
+
+    private static void encode(long[] values, int from, int to, long[] firstIds, long[] lastIds,
+                               int[] counts, byte[][] blocks, int index) {
+        Writer writer = new Writer((to - from) * 2);
+        for (int i = from + 1; i < to; i++) {
+            writer.writeVarLong(values[i] - values[i - 1]);
+        }
+        firstIds[index] = values[from];
+        lastIds[index] = values[to - 1];
+        counts[index] = to - from;
+        blocks[index] = writer.toByteArray();
+    }
+
+    private static long[] concat(long[] first, long[] second) {
+        long[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static byte[][] concat(byte[][] first, byte[][] second) {
+        byte[][] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private void writeObject(ObjectOutputStream stream) throws IOException {
+        byte[] bytes = toBytes();
+        stream.writeInt(bytes.length);
+        stream.write(bytes);
+    }
+
+    private void readObject(ObjectInputStream stream) throws IOException {
+        byte[] bytes = new byte[stream.readInt()];
+        stream.readFully(bytes);
+        PostingList postingList = fromBytes(bytes);
+        init(postingList.firstIds, postingList.lastIds, postingList.counts, postingList.blocks);
+    }
+
+    private class LongIterator implements PrimitiveIterator.OfLong {
+        private int blockIndex;
+        private int position;
+        private long value;
+        private Reader reader;
+
+        @Override
+        public boolean hasNext() {
+            return blockIndex < blocks.length;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            if (position == 0) {
+                value = firstIds[blockIndex];
+                reader = new Reader(blocks[blockIndex], 0);
+            } else {
+                value += reader.readVarLong();
+            }
+
+            if (++position == counts[blockIndex]) {
+                blockIndex++;
+                position = 0;
+            }
+            return value;
+        }
+
+        @Override
+        public void remove() {
+            throw new InvalidOperationException("remove on a posting list is not supported");
+        }
+    }
+
+    private static class Writer {
+        private byte[] buffer;
+        private int length;
+
+        Writer(int capacity) {
+            this.buffer = new byte[Math.max(capacity, 8)];
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            // written as unsigned, as the difference of two ids may overflow a long
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[length++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+            }
+        }
+    }
+
+    private static class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        byte[] readBytes(int length) {
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.index;
+
+import org.dizitart.no2.collection.NitriteId;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * An {@link IndexBuilder} which collects the index keys of every partition
+ * in its own {@link IndexBuildBuffer}. The sorted runs of all partitions are
+ * merged at the end, so that the index is loaded in key order with every
+ * posting list written once.
+ *
+ * @author Anindya Chatterjee
+ */
+@SuppressWarnings("rawtypes")
+class SortedIndexBuilder implements IndexBuilder {
+    private final int bufferSize;
+    private final IndexBuildBuffer[] partitions;
+    private final Function<Object, Iterable<? extends Comparable>> keyExtractor;
+    private final BiConsumer<Comparable, List<NitriteId>> loader;
+
+    SortedIndexBuilder(int bufferSize, int partitionCount,
+                       Function<Object, Iterable<? extends Comparable>> keyExtractor,
+                       BiConsumer<Comparable, List<NitriteId>> loader) {
+        this.bufferSize = bufferSize;
+        this.partitions = new IndexBuildBuffer[partitionCount];
+        this.keyExtractor = keyExtractor;
+        this.loader = loader;
+
+        // the buffer memory is shared by all partitions
+        int partitionSize = Math.max(1, bufferSize / partitionCount);
+        partitions[0] = new IndexBuildBuffer(partitionSize);
+        for (int i = 1; i < partitionCount; i++) {
+            partitions[i] = partitions[0].sibling(partitionSize);
+        }
+    }
+
+    @Override
+    public void add(int partition, NitriteId nitriteId, Object fieldValue) {
+        IndexBuildBuffer buffer = partitions[partition];
+        for (Comparable key : keyExtractor.apply(fieldValue)) {
+            buffer.add(key, nitriteId);
+        }
+    }
+
+    @Override
+    public void load() {
+        IndexBuildBuffer.load(Arrays.asList(partitions), bufferSize, loader);
+    }
+
+    @Override
+    public void discard() {
+        for (IndexBuildBuffer buffer : partitions) {
+            buffer.discard();
+        }
+    }
+}
@@ -122,10 +122,32 @@ public class MigrationManager {
 
     private void executeMigrationSteps(Queue<MigrationStep> migrationSteps) {
         if (migrationSteps != null) {
+            // consecutive index creations on a collection are combined,
+            // so that the collection is scanned once for all of them
+            CreateIndex pendingIndexes = null;
             int length = migrationSteps.size();
             for (int i = 0; i < length; i++) {
                 MigrationStep step = migrationSteps.poll();
-                executeStep(step);
+                Command command = createCommand(step);
+                if (command == null) continue;
+
+                if (pendingIndexes != null) {
+                    if (command instanceof CreateIndex && pendingIndexes.combine((CreateIndex) command)) {
+                        continue;
+                    }
+                    pendingIndexes.execute(database);
+                    pendingIndexes = null;
+                }
+
+                if (command instanceof CreateIndex) {
+                    pendingIndexes = (CreateIndex) command;
+                } else {
+                    command.execute(database);
+                }
+            }
+
+            if (pendingIndexes != null) {
+                pendingIndexes.execute(database);
             }
         }
 
@@ -138,9 +160,9 @@ public class MigrationManager {
     }
 
     @SuppressWarnings("unchecked")
-    private void executeStep(MigrationStep step) {
+    private Command createCommand(MigrationStep step) {
+        Command command = null;
         if (step != null) {
-            Command command = null;
             switch (step.getInstructionType()) {
                 case AddPassword:
                     Pair<String, SecureString> arg1 =
@@ -264,8 +286,7 @@ public class MigrationManager {
                         arg20.getThird(), arg20.getFourth());
                     break;
             }
-
-            command.execute(database);
         }
+        return command;
     }
 }
@@ -24,7 +24,7 @@ public class AddField extends BaseCommand implements Command {
         IndexEntry indexEntry = indexCatalog.findIndexEntry(collectionName, fieldName);
 
         for (Pair<NitriteId, Document> pair : nitriteMap.entries()) {
-            Document document = pair.getSecond();
+            Document document = pair.getSecond().clone();
             if (defaultValue instanceof Generator) {
                 Generator<?> generator = (Generator<?>) defaultValue;
                 document.put(fieldName, generator.generate(document));
@@ -23,7 +23,7 @@ public class ChangeDataType extends BaseCommand implements Command {
         initialize(nitrite, collectionName);
 
         for (Pair<NitriteId, Document> entry : nitriteMap.entries()) {
-            Document document = entry.getSecond();
+            Document document = entry.getSecond().clone();
             Object value = document.get(fieldName);
             Object newValue = typeConverter.convert(value);
             document.put(fieldName, newValue);
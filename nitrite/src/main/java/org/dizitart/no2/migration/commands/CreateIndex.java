@@ -1,21 +1,50 @@
 package org.dizitart.no2.migration.commands;
 
-import lombok.AllArgsConstructor;
 import org.dizitart.no2.Nitrite;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * @author Anindya Chatterjee
  */
-@AllArgsConstructor
 public class CreateIndex extends BaseCommand implements Command {
     private final String collectionName;
-    private final String fieldName;
-    private final String indexType;
+    private final Map<String, String> indexTypes;
+
+    public CreateIndex(String collectionName, String fieldName, String indexType) {
+        this.collectionName = collectionName;
+        this.indexTypes = new LinkedHashMap<>();
+        this.indexTypes.put(fieldName, indexType);
+    }
+
+    /**
+     * Merges the indexes of another command on the same collection into this
+     * command, so that all of them are built in one scan of the collection.
+     *
+     * @param other the other command
+     * @return `true` if the indexes are merged; otherwise, `false`.
+     */
+    public boolean combine(CreateIndex other) {
+        if (!collectionName.equals(other.collectionName)) {
+            return false;
+        }
+
+        for (String field : other.indexTypes.keySet()) {
+            if (indexTypes.containsKey(field)) {
+                // let the duplicate index fail on its own
+                return false;
+            }
+        }
+
+        indexTypes.putAll(other.indexTypes);
+        return true;
+    }
 
     @Override
     public void execute(Nitrite nitrite) {
         initialize(nitrite, collectionName);
 
-        operations.createIndex(fieldName, indexType, false);
+        operations.createIndexes(indexTypes, false);
     }
 }
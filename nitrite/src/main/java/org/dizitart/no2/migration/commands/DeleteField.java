@@ -21,7 +21,7 @@ public class DeleteField extends BaseCommand implements Command {
 
         IndexEntry indexEntry = indexCatalog.findIndexEntry(collectionName, fieldName);
         for (Pair<NitriteId, Document> entry : nitriteMap.entries()) {
-            Document document = entry.getSecond();
+            Document document = entry.getSecond().clone();
             document.remove(fieldName);
             nitriteMap.put(entry.getFirst(), document);
         }
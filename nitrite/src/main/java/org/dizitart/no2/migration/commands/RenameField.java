@@ -23,7 +23,7 @@ public class RenameField extends BaseCommand implements Command {
 
         boolean indexExists = indexCatalog.hasIndexEntry(collectionName, oldName);
         for (Pair<NitriteId, Document> entry : nitriteMap.entries()) {
-            Document document = entry.getSecond();
+            Document document = entry.getSecond().clone();
             if (document.containsKey(oldName)) {
                 Object value = document.get(oldName);
                 document.put(newName, value);
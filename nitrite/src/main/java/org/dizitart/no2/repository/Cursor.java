@@ -17,10 +17,13 @@
 package org.dizitart.no2.repository;
 
 import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.collection.QueryPlan;
 import org.dizitart.no2.common.Lookup;
 import org.dizitart.no2.common.NullOrder;
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.common.SortableFields;
+import org.dizitart.no2.common.util.Iterables;
 import org.dizitart.no2.filters.Filter;
 
 import java.text.Collator;
@@ -35,7 +38,15 @@ import java.text.Collator;
  * @since 1.0
  */
 public interface Cursor<T> extends RecordStream<T> {
-    Cursor<T> sort(String field, SortOrder sortOrder, Collator collator, NullOrder nullOrder);
+    /**
+     * Sorts the objects by multiple fields in a single pass. Each field
+     * has its own sort order, collator and `null` placement.
+     *
+     * @param sortableFields the fields to sort on.
+     * @return the sorted cursor.
+     * @see SortableFields
+     */
+    Cursor<T> sort(SortableFields sortableFields);
 
     Cursor<T> skipLimit(long skip, long size);
 
@@ -65,6 +76,19 @@ public interface Cursor<T> extends RecordStream<T> {
      */
     <Foreign, Joined> RecordStream<Joined> join(Cursor<Foreign> foreignCursor, Lookup lookup, Class<Joined> type);
 
+    /**
+     * Gets the plan chosen by the query planner to find the objects
+     * of this cursor.
+     *
+     * @return the query plan.
+     * @see QueryPlan
+     */
+    QueryPlan explain();
+
+    default Cursor<T> sort(String field, SortOrder sortOrder, Collator collator, NullOrder nullOrder) {
+        return sort(SortableFields.orderBy(field, sortOrder, collator, nullOrder));
+    }
+
     default Cursor<T> sort(String field) {
         return sort(field, SortOrder.Ascending);
     }
@@ -88,4 +112,21 @@ public interface Cursor<T> extends RecordStream<T> {
     default Cursor<T> limit(long limit) {
         return skipLimit(0, limit);
     }
+
+    /**
+     * Gets the first object of the result or `null` if it is empty. A
+     * sorted cursor only looks for its first object, so it does not
+     * leave a half read sort behind.
+     *
+     * @return the first object or `null`
+     */
+    @Override
+    default T firstOrNull() {
+        return Iterables.firstOrNull(limit(1));
+    }
+
+    @Override
+    default boolean isEmpty() {
+        return !limit(1).iterator().hasNext();
+    }
 }
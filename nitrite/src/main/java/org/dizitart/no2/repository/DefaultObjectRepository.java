@@ -29,6 +29,7 @@ import org.dizitart.no2.mapper.NitriteMapper;
 import org.dizitart.no2.store.NitriteStore;
 
 import java.util.Collection;
+import java.util.Map;
 
 import static org.dizitart.no2.collection.UpdateOptions.updateOptions;
 import static org.dizitart.no2.common.util.ValidationUtils.containsNull;
@@ -57,11 +58,21 @@ class DefaultObjectRepository<T> implements ObjectRepository<T> {
         collection.createIndex(field, indexOptions);
     }
 
+    @Override
+    public void createIndexes(Map<String, IndexOptions> indexes) {
+        collection.createIndexes(indexes);
+    }
+
     @Override
     public void rebuildIndex(String field, boolean isAsync) {
         collection.rebuildIndex(field, isAsync);
     }
 
+    @Override
+    public void rebuildIndexes(boolean isAsync, String... fields) {
+        collection.rebuildIndexes(isAsync, fields);
+    }
+
     @Override
     public Collection<IndexEntry> listIndices() {
         return collection.listIndices();
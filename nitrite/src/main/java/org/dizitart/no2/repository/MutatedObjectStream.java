@@ -46,6 +46,13 @@ class MutatedObjectStream<T> implements RecordStream<T> {
         return new MutatedObjectIterator(nitriteMapper);
     }
 
+    @Override
+    public void close() {
+        if (recordIterable != null) {
+            recordIterable.close();
+        }
+    }
+
     private class MutatedObjectIterator implements Iterator<T> {
         private final NitriteMapper nitriteMapper;
         private final Iterator<Document> documentIterator;
@@ -18,16 +18,15 @@ package org.dizitart.no2.repository;
 
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.DocumentCursor;
+import org.dizitart.no2.collection.QueryPlan;
 import org.dizitart.no2.common.Lookup;
-import org.dizitart.no2.common.NullOrder;
 import org.dizitart.no2.common.RecordStream;
-import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.common.SortableFields;
 import org.dizitart.no2.exceptions.InvalidOperationException;
 import org.dizitart.no2.exceptions.ValidationException;
 import org.dizitart.no2.mapper.NitriteMapper;
 
 import java.lang.reflect.Modifier;
-import java.text.Collator;
 import java.util.Iterator;
 
 import static org.dizitart.no2.common.util.DocumentUtils.skeletonDocument;
@@ -66,8 +65,13 @@ class ObjectCursor<T> implements Cursor<T> {
     }
 
     @Override
-    public Cursor<T> sort(String field, SortOrder sortOrder, Collator collator, NullOrder nullOrder) {
-        return new ObjectCursor<>(nitriteMapper, cursor.sort(field, sortOrder, collator, nullOrder), type);
+    public QueryPlan explain() {
+        return cursor.explain();
+    }
+
+    @Override
+    public Cursor<T> sort(SortableFields sortableFields) {
+        return new ObjectCursor<>(nitriteMapper, cursor.sort(sortableFields), type);
     }
 
     @Override
@@ -80,6 +84,11 @@ class ObjectCursor<T> implements Cursor<T> {
         return new ObjectCursorIterator(cursor.iterator());
     }
 
+    @Override
+    public void close() {
+        cursor.close();
+    }
+
     private <D> Document emptyDocument(NitriteMapper nitriteMapper, Class<D> type) {
         if (type.isPrimitive()) {
             throw new ValidationException("cannot project to primitive type");
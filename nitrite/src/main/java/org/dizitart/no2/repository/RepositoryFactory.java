@@ -118,7 +118,8 @@ public class RepositoryFactory {
         NitriteMap<String, Document> catalogMap = store.openMap(COLLECTION_CATALOG, String.class, Document.class);
         Document document = StringUtils.isNullOrEmpty(key) ? catalogMap.get(TAG_REPOSITORIES)
             : catalogMap.get(TAG_KEYED_REPOSITORIES);
-        if (document == null) document = Document.createDocument();
+        // a stored document is read-only
+        document = document == null ? Document.createDocument() : document.clone();
 
         document.put(name, true);
         if (StringUtils.isNullOrEmpty(key)) {
@@ -24,6 +24,7 @@ import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.*;
 import org.dizitart.no2.filters.Filter;
 import org.dizitart.no2.filters.NitriteFilter;
+import org.dizitart.no2.index.IndexOptions;
 import org.dizitart.no2.index.IndexType;
 import org.dizitart.no2.mapper.NitriteMapper;
 import org.dizitart.no2.repository.annotations.*;
@@ -61,11 +62,13 @@ public class RepositoryOperations {
     }
 
     public void createIndexes() {
+        // all missing indexes are built in one scan of the collection
+        Map<String, IndexOptions> missingIndexes = new LinkedHashMap<>();
         Set<Index> indexes = extractIndices(type);
         for (Index idx : indexes) {
             String field = idx.value();
             if (!collection.hasIndex(field)) {
-                collection.createIndex(idx.value(), indexOptions(idx.type(), false));
+                missingIndexes.putIfAbsent(field, indexOptions(idx.type(), false));
             }
         }
 
@@ -73,9 +76,13 @@ public class RepositoryOperations {
         if (idField != null) {
             String field = idField.getName();
             if (!collection.hasIndex(field)) {
-                collection.createIndex(field, indexOptions(IndexType.Unique));
+                missingIndexes.putIfAbsent(field, indexOptions(IndexType.Unique));
             }
         }
+
+        if (!missingIndexes.isEmpty()) {
+            collection.createIndexes(missingIndexes);
+        }
     }
 
     public void serializeFields(Document document) {
@@ -5,6 +5,7 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.dizitart.no2.NitriteConfig;
 import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.meta.Attributes;
 import org.dizitart.no2.common.event.NitriteEventBus;
 import org.dizitart.no2.store.events.EventInfo;
 import org.dizitart.no2.store.events.StoreEventBus;
@@ -15,6 +16,8 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.dizitart.no2.common.Constants.*;
 import static org.dizitart.no2.common.util.ObjectUtils.getKeyName;
@@ -30,8 +33,31 @@ public abstract class AbstractNitriteStore<Config extends StoreConfig>
     protected final NitriteEventBus<EventInfo, StoreEventListener> eventBus;
     protected NitriteConfig nitriteConfig;
 
+    // last modified time of the maps modified since the last flush
+    private final Map<String, Long> modifiedMaps;
+    private final AtomicLong lastFlushTime;
+
+    @Getter
+    private FieldDictionary fieldDictionary;
+
     protected AbstractNitriteStore() {
         eventBus = new StoreEventBus();
+        modifiedMaps = new ConcurrentHashMap<>();
+        lastFlushTime = new AtomicLong(System.currentTimeMillis());
+    }
+
+    /**
+     * Opens the {@link FieldDictionary} of the store. A store module calls
+     * it once the underlying store is open, before any document is read.
+     */
+    protected void openFieldDictionary() {
+        if (isReadOnly() && !hasMap(FIELD_DICTIONARY)) {
+            // nothing to load and nowhere to write the names to
+            fieldDictionary = new FieldDictionary(null);
+        } else {
+            NitriteMap<String, Integer> dictionaryMap = openMap(FIELD_DICTIONARY, String.class, Integer.class);
+            fieldDictionary = new FieldDictionary(dictionaryMap);
+        }
     }
 
     protected void alert(StoreEvents eventType) {
@@ -80,8 +106,67 @@ public abstract class AbstractNitriteStore<Config extends StoreConfig>
         return resultMap;
     }
 
+    @Override
+    public void markModified(String mapName) {
+        long now = System.currentTimeMillis();
+        modifiedMaps.put(mapName, now);
+
+        // a store which persists writes without a commit gets its metadata
+        // written at the same pace, by one of the writers
+        long interval = getMetadataFlushInterval();
+        long lastFlush = lastFlushTime.get();
+        if (interval > 0 && now - lastFlush >= interval
+            && lastFlushTime.compareAndSet(lastFlush, now)) {
+            flushMetadata();
+        }
+    }
+
+    @Override
+    public Long getUnsavedModifiedTime(String mapName) {
+        return modifiedMaps.get(mapName);
+    }
+
+    @Override
+    public void flushMetadata() {
+        lastFlushTime.set(System.currentTimeMillis());
+        if (modifiedMaps.isEmpty()) return;
+
+        NitriteMap<String, Attributes> metaMap = openMap(META_MAP_NAME, String.class, Attributes.class);
+        for (Map.Entry<String, Long> entry : modifiedMaps.entrySet()) {
+            String mapName = entry.getKey();
+            Long lastModified = entry.getValue();
+
+            // a dropped map does not get its attributes back
+            if (hasMap(mapName)) {
+                Attributes attributes = metaMap.get(mapName);
+                if (attributes == null) {
+                    attributes = new Attributes(mapName);
+                }
+                attributes.set(Attributes.LAST_MODIFIED_TIME, Long.toString(lastModified));
+                metaMap.put(mapName, attributes);
+            }
+
+            // a write after the read above stays for the next flush
+            modifiedMaps.remove(mapName, lastModified);
+        }
+    }
+
+    /**
+     * Gets the milliseconds after which a write also writes the pending
+     * metadata of the store. A store which persists its writes without a
+     * commit returns its commit delay, so that the metadata does not fall
+     * behind the data. The default is `0`, the metadata is written only on
+     * commit and close.
+     *
+     * @return the flush interval in milliseconds.
+     */
+    protected long getMetadataFlushInterval() {
+        return 0;
+    }
+
     @Override
     public void beforeClose() {
+        flushMetadata();
         alert(StoreEvents.Closing);
     }
 
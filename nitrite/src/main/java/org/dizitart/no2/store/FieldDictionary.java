@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.store;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.common.tuples.Pair;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns a small integer id to every field name of the documents of a
+ * {@link NitriteStore}, so that the binary form of a document refers to a
+ * field by its id instead of repeating its name in every record.
+ *
+ * <p>
+ * The ids are kept in a {@link NitriteMap} of the store and never change
+ * once assigned. A field name is learnt before a document containing it is
+ * written, so every id found in a stored record is known on the next open.
+ * Names after the first {@link #MAX_FIELDS} are written inline.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+public class FieldDictionary {
+    /**
+     * The maximum number of field names held by a dictionary.
+     */
+    public static final int MAX_FIELDS = 1 << 16;
+
+    private final NitriteMap<String, Integer> dictionaryMap;
+    private final Map<String, Integer> idMap;
+    private volatile String[] names;
+    private volatile int size;
+
+    /**
+     * Instantiates a new {@link FieldDictionary} over the map of the field
+     * names. A `null` map makes a dictionary which does not learn anything,
+     * used for a read-only store without a dictionary.
+     *
+     * @param dictionaryMap the map of the field names to their ids
+     */
+    public FieldDictionary(NitriteMap<String, Integer> dictionaryMap) {
+        this.dictionaryMap = dictionaryMap;
+        this.idMap = new ConcurrentHashMap<>();
+        this.names = new String[16];
+        load();
+    }
+
+    /**
+     * Gets the id of a field name, or `-1` if the name is not known.
+     *
+     * @param name the field name
+     * @return the id of the field name
+     */
+    public int getId(String name) {
+        Integer id = idMap.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets the field name of an id, or `null` if the id is not known.
+     *
+     * @param id the id
+     * @return the field name
+     */
+    public String getName(int id) {
+        String[] current = names;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * Gets the number of field names known to the dictionary.
+     *
+     * @return the number of field names
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Learns the field names of a document and of all its embedded
+     * documents, which have not been seen before.
+     *
+     * @param document the document
+     */
+    public void learn(Document document) {
+        if (dictionaryMap == null || document == null) return;
+        for (Pair<String, Object> pair : document) {
+            String name = pair.getFirst();
+            if (!idMap.containsKey(name)) {
+                assign(name);
+            }
+            learnValue(pair.getSecond());
+        }
+    }
+
+    private void learnValue(Object value) {
+        if (value instanceof Document) {
+            learn((Document) value);
+        } else if (value instanceof Iterable) {
+            for (Object item : (Iterable<?>) value) {
+                learnValue(item);
+            }
+        }
+    }
+
+    private synchronized void assign(String name) {
+        if (idMap.containsKey(name) || size >= MAX_FIELDS) return;
+
+        int id = size;
+        // the id is persisted before any record can refer to it
+        dictionaryMap.put(name, id);
+        register(name, id);
+    }
+
+    private void load() {
+        if (dictionaryMap == null) return;
+        for (Pair<String, Integer> entry : dictionaryMap.entries()) {
+            register(entry.getFirst(), entry.getSecond());
+        }
+    }
+
+    private void register(String name, int id) {
+        String[] current = names;
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, Math.max(current.length * 2, id + 1));
+        }
+        current[id] = name;
+        names = current;
+        idMap.put(name, id);
+        size = Math.max(size, id + 1);
+    }
+}
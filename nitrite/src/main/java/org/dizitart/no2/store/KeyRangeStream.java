@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.store;
+
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Numbers;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A lazy {@link RecordStream} of the mappings of a {@link NitriteMap}
+ * within a key range. It walks the map one key at a time using the
+ * key navigation methods of the map.
+ *
+ * @author Anindya Chatterjee
+ * @since 4.0
+ */
+class KeyRangeStream<Key, Value> implements RecordStream<Pair<Key, Value>> {
+    private final NitriteMap<Key, Value> nitriteMap;
+    private final Key from;
+    private final boolean fromInclusive;
+    private final Key to;
+    private final boolean toInclusive;
+    private final boolean descending;
+
+    KeyRangeStream(NitriteMap<Key, Value> nitriteMap,
+                   Key from, boolean fromInclusive,
+                   Key to, boolean toInclusive,
+                   boolean descending) {
+        this.nitriteMap = nitriteMap;
+        this.from = from;
+        this.fromInclusive = fromInclusive;
+        this.to = to;
+        this.toInclusive = toInclusive;
+        this.descending = descending;
+    }
+
+    @Override
+    public Iterator<Pair<Key, Value>> iterator() {
+        return new KeyRangeIterator();
+    }
+
+    /**
+     * Checks if a key lies within a range. A `null` bound
+     * means the range is unbounded on that side.
+     *
+     * @param key           the key
+     * @param from          the lower bound
+     * @param fromInclusive if the lower bound is inclusive
+     * @param to            the upper bound
+     * @param toInclusive   if the upper bound is inclusive
+     * @return `true` if the key is within the range; `false` otherwise.
+     */
+    static boolean inRange(Object key, Object from, boolean fromInclusive,
+                           Object to, boolean toInclusive) {
+        if (key == null) return false;
+        if (from != null) {
+            int result = compare(key, from);
+            if (result < 0 || (result == 0 && !fromInclusive)) return false;
+        }
+        if (to != null) {
+            int result = compare(key, to);
+            return result < 0 || (result == 0 && toInclusive);
+        }
+        return true;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static int compare(Object key, Object bound) {
+        if (key instanceof Number && bound instanceof Number) {
+            return Numbers.compare((Number) key, (Number) bound);
+        }
+        return ((Comparable) key).compareTo(bound);
+    }
+
+    private class KeyRangeIterator implements Iterator<Pair<Key, Value>> {
+        private Key currentKey;
+        private boolean started = false;
+        private boolean finished = false;
+        private Pair<Key, Value> nextPair;
+
+        @Override
+        public boolean hasNext() {
+            return nextPair != null || setNextPair();
+        }
+
+        @Override
+        public Pair<Key, Value> next() {
+            if (nextPair == null && !setNextPair()) {
+                throw new NoSuchElementException();
+            }
+            Pair<Key, Value> pair = nextPair;
+            nextPair = null;
+            return pair;
+        }
+
+        private boolean setNextPair() {
+            while (!finished) {
+                currentKey = started ? nextKey(currentKey) : firstKey();
+                started = true;
+
+                // the first key outside the range ends the scan
+                if (currentKey == null || !inRange(currentKey, from, fromInclusive, to, toInclusive)) {
+                    finished = true;
+                    return false;
+                }
+
+                Value value = nitriteMap.get(currentKey);
+                if (value != null) {
+                    nextPair = new Pair<>(currentKey, value);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Key firstKey() {
+            if (descending) {
+                if (to != null) {
+                    return toInclusive ? nitriteMap.floorKey(to) : nitriteMap.lowerKey(to);
+                }
+
+                // no navigation to the last key, find it from the key set
+                Key lastKey = null;
+                for (Key key : nitriteMap.keySet()) {
+                    if (key != null && (lastKey == null || compare(key, lastKey) > 0)) {
+                        lastKey = key;
+                    }
+                }
+                return lastKey;
+            } else {
+                if (from != null) {
+                    return fromInclusive ? nitriteMap.ceilingKey(from) : nitriteMap.higherKey(from);
+                }
+
+                Key firstKey = null;
+                for (Key key : nitriteMap.keySet()) {
+                    if (key != null && (firstKey == null || compare(key, firstKey) < 0)) {
+                        firstKey = key;
+                    }
+                }
+                return firstKey;
+            }
+        }
+
+        private Key nextKey(Key key) {
+            return descending ? nitriteMap.lowerKey(key) : nitriteMap.higherKey(key);
+        }
+    }
+}
@@ -21,6 +21,9 @@ import org.dizitart.no2.collection.meta.MetadataAware;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.common.RecordStream;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import static org.dizitart.no2.common.Constants.META_MAP_NAME;
 import static org.dizitart.no2.common.util.StringUtils.isNullOrEmpty;
 
@@ -120,6 +123,19 @@ public interface NitriteMap<Key, Value> extends MetadataAware, AutoCloseable {
      */
     Value putIfAbsent(Key key, Value value);
 
+    /**
+     * Associates all key-value pairs of the entries with this map. A store
+     * which supports batched writes writes all entries in one batch, others
+     * put them one by one.
+     *
+     * @param entries the entries to put (values may not be null).
+     */
+    default void putAll(Map<Key, Value> entries) {
+        for (Map.Entry<Key, Value> entry : entries.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
     /**
      * Gets a {@link RecordStream} view of the mappings contained in this map.
      *
@@ -127,6 +143,54 @@ public interface NitriteMap<Key, Value> extends MetadataAware, AutoCloseable {
      */
     RecordStream<Pair<Key, Value>> entries();
 
+    /**
+     * Gets a lazy {@link RecordStream} view of the mappings whose keys lie
+     * within a range, in key order. A `null` bound means the range is
+     * unbounded on that side. Mappings with a `null` key are never included.
+     * <p>
+     * The mappings are read from the map while the stream is being iterated,
+     * so the scan stops as soon as the caller stops reading. The default
+     * implementation walks the map one key at a time, store implementations
+     * should override it with a native cursor.
+     *
+     * @param from          the lower bound of the keys or `null`
+     * @param fromInclusive if the lower bound is inclusive
+     * @param to            the upper bound of the keys or `null`
+     * @param toInclusive   if the upper bound is inclusive
+     * @param descending    if the mappings are returned in descending key order
+     * @return the mappings within the range.
+     * @since 4.0
+     */
+    default RecordStream<Pair<Key, Value>> entries(Key from, boolean fromInclusive,
+                                                   Key to, boolean toInclusive,
+                                                   boolean descending) {
+        return new KeyRangeStream<>(this, from, fromInclusive, to, toInclusive, descending);
+    }
+
+    /**
+     * Checks if the keys of the map are ordered by their natural order.
+     * A map of a store which orders the keys by their encoded bytes returns
+     * `false`, and its range scans follow the order of the encoded keys.
+     *
+     * @return `true` if the keys are in natural order; `false` otherwise.
+     * @since 4.0
+     */
+    default boolean isNaturallyOrdered() {
+        return true;
+    }
+
+    /**
+     * Checks if the {@link org.dizitart.no2.index.CompoundKey} keys of the map
+     * having a common prefix are adjacent in the key order of the map, so that
+     * a range scan from the prefix reads all of them before any other key.
+     *
+     * @return `true` if the keys with a common prefix are adjacent; `false` otherwise.
+     * @since 4.0
+     */
+    default boolean isPrefixOrdered() {
+        return isNaturallyOrdered();
+    }
+
     /**
      * Get the smallest key that is larger than the given key, or null if no
      * such key exists.
@@ -178,7 +242,17 @@ public interface NitriteMap<Key, Value> extends MetadataAware, AutoCloseable {
     default Attributes getAttributes() {
         NitriteMap<String, Attributes> metaMap = getStore().openMap(META_MAP_NAME, String.class, Attributes.class);
         if (metaMap != null && !getName().contentEquals(META_MAP_NAME)) {
-            return metaMap.get(getName());
+            Attributes attributes = metaMap.get(getName());
+            Long lastModified = getStore().getUnsavedModifiedTime(getName());
+            if (lastModified == null) return attributes;
+
+            // the time is written on the next commit, a read does not write it
+            Attributes copy = new Attributes(getName());
+            if (attributes != null) {
+                copy.setAttributes(new ConcurrentHashMap<>(attributes.getAttributes()));
+            }
+            copy.getAttributes().put(Attributes.LAST_MODIFIED_TIME, Long.toString(lastModified));
+            return copy;
         }
         return null;
     }
@@ -194,14 +268,6 @@ public interface NitriteMap<Key, Value> extends MetadataAware, AutoCloseable {
         if (isNullOrEmpty(getName())
             || META_MAP_NAME.equals(getName())) return;
 
-        NitriteMap<String, Attributes> metaMap = getStore().openMap(META_MAP_NAME, String.class, Attributes.class);
-        if (metaMap != null) {
-            Attributes attributes = metaMap.get(getName());
-            if (attributes == null) {
-                attributes = new Attributes(getName());
-                metaMap.put(getName(), attributes);
-            }
-            attributes.set(Attributes.LAST_MODIFIED_TIME, Long.toString(System.currentTimeMillis()));
-        }
+        getStore().markModified(getName());
     }
 }
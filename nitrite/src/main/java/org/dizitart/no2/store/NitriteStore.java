@@ -17,14 +17,19 @@
 package org.dizitart.no2.store;
 
 import org.dizitart.no2.collection.NitriteCollection;
+import org.dizitart.no2.collection.meta.Attributes;
+import org.dizitart.no2.exceptions.InvalidOperationException;
 import org.dizitart.no2.index.BoundingBox;
 import org.dizitart.no2.module.NitritePlugin;
 import org.dizitart.no2.repository.ObjectRepository;
 import org.dizitart.no2.store.events.StoreEventListener;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
+import static org.dizitart.no2.common.Constants.META_MAP_NAME;
+
 /**
  * Represents a persistent storage for Nitrite database.
  *
@@ -88,6 +93,49 @@ public interface NitriteStore<Config extends StoreConfig> extends NitritePlugin,
      */
     void close();
 
+    /**
+     * Records that a map has been modified. A store may defer writing the
+     * last modified time of the map to its {@link Attributes} until the
+     * next commit, so a bulk write updates the meta map once instead of on
+     * every write. The default implementation writes it right away.
+     *
+     * @param mapName the name of the modified map.
+     * @since 4.0
+     */
+    default void markModified(String mapName) {
+        NitriteMap<String, Attributes> metaMap = openMap(META_MAP_NAME, String.class, Attributes.class);
+        if (metaMap != null) {
+            Attributes attributes = metaMap.get(mapName);
+            if (attributes == null) {
+                attributes = new Attributes(mapName);
+            }
+            attributes.set(Attributes.LAST_MODIFIED_TIME, Long.toString(System.currentTimeMillis()));
+            metaMap.put(mapName, attributes);
+        }
+    }
+
+    /**
+     * Gets the last modified time of a map which is not yet written to
+     * its {@link Attributes}.
+     *
+     * @param mapName the name of the map.
+     * @return the last modified time, or `null` if it is already written.
+     * @since 4.0
+     */
+    default Long getUnsavedModifiedTime(String mapName) {
+        return null;
+    }
+
+    /**
+     * Writes the last modified time of all maps modified since the
+     * previous flush to the meta map. A store calls it when it commits
+     * or closes. The default implementation does nothing.
+     *
+     * @since 4.0
+     */
+    default void flushMetadata() {
+    }
+
     /**
      * This method runs before {@link #close()}, to run cleanup routines.
      */
@@ -122,6 +170,20 @@ public interface NitriteStore<Config extends StoreConfig> extends NitritePlugin,
      */
     <Key, Value> NitriteMap<Key, Value> openMap(String mapName, Class<?> keyType, Class<?> valueType);
 
+    /**
+     * Opens a read-only snapshot of the maps as they are now. All maps
+     * in `mapNames` are captured at the same point in time.
+     *
+     * @param mapNames the names of the maps to capture.
+     * @return the snapshot.
+     * @throws org.dizitart.no2.exceptions.InvalidOperationException if the store
+     *                                   does not support snapshots.
+     * @since 4.0
+     */
+    default StoreSnapshot openSnapshot(Collection<String> mapNames) {
+        throw new InvalidOperationException("snapshot reads are not supported by " + getStoreVersion());
+    }
+
     /**
      * Removes a map from the store.
      *
@@ -55,4 +55,14 @@ public interface StoreConfig {
     default boolean isInMemory() {
         return StringUtils.isNullOrEmpty(filePath());
     }
+
+    /**
+     * Indicates if the {@link NitriteStore} persists the changes on its own.
+     * Otherwise the changes are persisted on an explicit commit.
+     *
+     * @return `true`, if the store commits the changes; otherwise `false`.
+     */
+    default boolean isAutoCommit() {
+        return true;
+    }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2017-2020. Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dizitart.no2.store;
+
+/**
+ * Represents a read-only, point-in-time view of some maps of a
+ * {@link NitriteStore}. The maps of a snapshot do not see the writes
+ * made after the snapshot was opened, however long they are read.
+ * <p>
+ * A snapshot holds on to the old versions of its maps, so it must
+ * be closed as soon as it is no longer needed.
+ *
+ * @author Anindya Chatterjee
+ * @see NitriteStore#openSnapshot(java.util.Collection)
+ * @since 4.0
+ */
+public interface StoreSnapshot extends AutoCloseable {
+    /**
+     * Opens a map of the snapshot. A map which was not captured while
+     * opening the snapshot is captured now, so it is not consistent
+     * with the other maps of the snapshot.
+     *
+     * @param <Key>     the key type
+     * @param <Value>   the value type
+     * @param mapName   the map name
+     * @param keyType   the key type
+     * @param valueType the value type
+     * @return the read-only map.
+     */
+    <Key, Value> NitriteMap<Key, Value> openMap(String mapName, Class<?> keyType, Class<?> valueType);
+
+    /**
+     * Releases the versions of the maps held by the snapshot.
+     */
+    void close();
+}
@@ -26,7 +26,7 @@ public class StoreEventBus extends NitriteEventBus<EventInfo, StoreEventListener
     @Override
     public void post(EventInfo storeEvent) {
         for (final StoreEventListener listener : getListeners()) {
-            getEventExecutor().submit(() -> listener.onEvent(storeEvent));
+            getEventExecutor(listener).execute(() -> listener.onEvent(storeEvent));
         }
     }
 }
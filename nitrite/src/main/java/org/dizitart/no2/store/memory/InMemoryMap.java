@@ -11,6 +11,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.dizitart.no2.common.util.ValidationUtils.notNull;
 
@@ -22,11 +23,13 @@ public class InMemoryMap<Key, Value> implements NitriteMap<Key, Value> {
     private final NavigableMap<NullEntry, Value> nullEntryMap;
     private final NitriteStore<?> nitriteStore;
     private final String mapName;
+    private final AtomicLong size;
 
     public InMemoryMap(String mapName, NitriteStore<?> nitriteStore) {
         this.mapName = mapName;
         this.nitriteStore = nitriteStore;
         this.nullEntryMap = new ConcurrentSkipListMap<>();
+        this.size = new AtomicLong(0);
 
         this.backingMap = new ConcurrentSkipListMap<>((o1, o2) ->
             Comparables.compare((Comparable<?>) o1, (Comparable<?>) o2));
@@ -57,6 +60,7 @@ public class InMemoryMap<Key, Value> implements NitriteMap<Key, Value> {
     public void clear() {
         backingMap.clear();
         nullEntryMap.clear();
+        size.set(0);
         updateLastModifiedTime();
     }
 
@@ -78,6 +82,10 @@ public class InMemoryMap<Key, Value> implements NitriteMap<Key, Value> {
         } else {
             value = backingMap.remove(key);
         }
+
+        if (value != null) {
+            size.decrementAndGet();
+        }
         updateLastModifiedTime();
         return value;
     }
@@ -100,6 +108,7 @@ public class InMemoryMap<Key, Value> implements NitriteMap<Key, Value> {
             @Override
             public Key next() {
                 if (nullEntryIterator.hasNext()) {
+                    nullEntryIterator.next();
                     return null;
                 } else {
                     return keyIterator.next();
@@ -112,7 +121,9 @@ public class InMemoryMap<Key, Value> implements NitriteMap<Key, Value> {
     public void put(Key key, Value value) {
         notNull(value, "value cannot be null");
         if (key == null) {
-            nullEntryMap.put(NullEntry.getInstance(), value);
+            if (nullEntryMap.put(NullEntry.getInstance(), value) == null) {
+                size.incrementAndGet();
+            }
         } else {
             Map.Entry<Key, Value> firstEntry = backingMap.firstEntry();
             if (firstEntry != null) {
@@ -120,23 +131,38 @@ public class InMemoryMap<Key, Value> implements NitriteMap<Key, Value> {
                     return;
                 }
             }
-            backingMap.put(key, value);
+            if (backingMap.put(key, value) == null) {
+                size.incrementAndGet();
+            }
         }
         updateLastModifiedTime();
     }
 
     @Override
     public long size() {
-        return backingMap.size() + nullEntryMap.size();
+        // size of a concurrent skip list map is not a constant time operation
+        return size.get();
     }
 
     @Override
     public Value putIfAbsent(Key key, Value value) {
         notNull(value, "value cannot be null");
 
-        Value v = get(key);
+        Value v;
+        if (key == null) {
+            v = nullEntryMap.putIfAbsent(NullEntry.getInstance(), value);
+        } else {
+            Map.Entry<Key, Value> firstEntry = backingMap.firstEntry();
+            if (firstEntry != null) {
+                if (!firstEntry.getKey().getClass().equals(key.getClass())) {
+                    return null;
+                }
+            }
+            v = backingMap.putIfAbsent(key, value);
+        }
+
         if (v == null) {
-            put(key, value);
+            size.incrementAndGet();
         }
         updateLastModifiedTime();
         return v;
@@ -170,6 +196,42 @@ public class InMemoryMap<Key, Value> implements NitriteMap<Key, Value> {
         });
     }
 
+    @Override
+    public RecordStream<Pair<Key, Value>> entries(Key from, boolean fromInclusive,
+                                                  Key to, boolean toInclusive,
+                                                  boolean descending) {
+        if (from != null && to != null && backingMap.comparator().compare(from, to) > 0) {
+            return RecordStream.empty();
+        }
+
+        return () -> new Iterator<Pair<Key, Value>>() {
+            private final Iterator<Map.Entry<Key, Value>> entryIterator = subMap().entrySet().iterator();
+
+            @Override
+            public boolean hasNext() {
+                return entryIterator.hasNext();
+            }
+
+            @Override
+            public Pair<Key, Value> next() {
+                Map.Entry<Key, Value> entry = entryIterator.next();
+                return new Pair<>(entry.getKey(), entry.getValue());
+            }
+
+            private NavigableMap<Key, Value> subMap() {
+                NavigableMap<Key, Value> subMap = backingMap;
+                if (from != null && to != null) {
+                    subMap = backingMap.subMap(from, fromInclusive, to, toInclusive);
+                } else if (from != null) {
+                    subMap = backingMap.tailMap(from, fromInclusive);
+                } else if (to != null) {
+                    subMap = backingMap.headMap(to, toInclusive);
+                }
+                return descending ? subMap.descendingMap() : subMap;
+            }
+        };
+    }
+
     @Override
     public Key higherKey(Key key) {
         if (key == null) {
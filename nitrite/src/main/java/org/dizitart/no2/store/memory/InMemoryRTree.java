@@ -24,16 +24,16 @@ public class InMemoryRTree<Key extends BoundingBox, Value> implements NitriteRTr
 
     @Override
     public void add(Key key, NitriteId nitriteId) {
-        if (nitriteId != null && nitriteId.getIdValue() != null) {
-            SpatialKey spatialKey = getKey(key, Long.parseLong(nitriteId.getIdValue()));
+        if (nitriteId != null) {
+            SpatialKey spatialKey = getKey(key, nitriteId.getLongValue());
             backingMap.put(spatialKey, key);
         }
     }
 
     @Override
     public void remove(Key key, NitriteId nitriteId) {
-        if (nitriteId != null && nitriteId.getIdValue() != null) {
-            SpatialKey spatialKey = getKey(key, Long.parseLong(nitriteId.getIdValue()));
+        if (nitriteId != null) {
+            SpatialKey spatialKey = getKey(key, nitriteId.getLongValue());
             backingMap.remove(spatialKey);
         }
     }
@@ -45,7 +45,7 @@ public class InMemoryRTree<Key extends BoundingBox, Value> implements NitriteRTr
 
         for (SpatialKey sk : backingMap.keySet()) {
             if (isOverlap(sk, spatialKey)) {
-                set.add(NitriteId.createId(Long.toString(sk.getId())));
+                set.add(NitriteId.createId(sk.getId()));
             }
         }
 
@@ -59,7 +59,7 @@ public class InMemoryRTree<Key extends BoundingBox, Value> implements NitriteRTr
 
         for (SpatialKey sk : backingMap.keySet()) {
             if (isInside(sk, spatialKey)) {
-                set.add(NitriteId.createId(Long.toString(sk.getId())));
+                set.add(NitriteId.createId(sk.getId()));
             }
         }
 
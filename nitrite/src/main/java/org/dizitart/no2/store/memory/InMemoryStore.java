@@ -49,6 +49,7 @@ public final class InMemoryStore extends AbstractNitriteStore<InMemoryConfig> {
 
     @Override
     public void commit() {
+        flushMetadata();
         alert(StoreEvents.Commit);
     }
 
@@ -66,14 +67,9 @@ public final class InMemoryStore extends AbstractNitriteStore<InMemoryConfig> {
     @Override
     @SuppressWarnings("unchecked")
     public <Key, Value> NitriteMap<Key, Value> openMap(String mapName, Class<?> keyType, Class<?> valueType) {
-        if (nitriteMapRegistry.containsKey(mapName)) {
-            return (InMemoryMap<Key, Value>) nitriteMapRegistry.get(mapName);
-        }
-
-        NitriteMap<Key, Value> nitriteMap = new InMemoryMap<>(mapName, this);
-        nitriteMapRegistry.put(mapName, nitriteMap);
-
-        return nitriteMap;
+        // concurrent writers must not open two maps of the same name
+        return (InMemoryMap<Key, Value>) nitriteMapRegistry.computeIfAbsent(mapName,
+            name -> new InMemoryMap<>(name, this));
     }
 
     @Override
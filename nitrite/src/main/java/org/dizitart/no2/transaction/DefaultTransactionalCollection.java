@@ -3,13 +3,11 @@ package org.dizitart.no2.transaction;
 import org.dizitart.no2.Nitrite;
 import org.dizitart.no2.NitriteConfig;
 import org.dizitart.no2.collection.*;
-import org.dizitart.no2.collection.events.CollectionEventInfo;
+import org.dizitart.no2.collection.events.CollectionEventBus;
 import org.dizitart.no2.collection.events.CollectionEventListener;
 import org.dizitart.no2.collection.meta.Attributes;
 import org.dizitart.no2.collection.operation.CollectionOperations;
 import org.dizitart.no2.common.WriteResult;
-import org.dizitart.no2.common.event.EventBus;
-import org.dizitart.no2.common.event.NitriteEventBus;
 import org.dizitart.no2.exceptions.*;
 import org.dizitart.no2.filters.Filter;
 import org.dizitart.no2.index.IndexEntry;
@@ -45,7 +43,7 @@ class DefaultTransactionalCollection implements NitriteCollection {
     private Lock writeLock;
     private Lock readLock;
     private CollectionOperations collectionOperations;
-    private EventBus<CollectionEventInfo<?>, CollectionEventListener> eventBus;
+    private CollectionEventBus eventBus;
     private volatile boolean isDropped;
     private volatile boolean isClosed;
 
@@ -590,15 +588,6 @@ class DefaultTransactionalCollection implements NitriteCollection {
         this.collectionOperations = new CollectionOperations(collectionName, nitriteMap, nitriteConfig, eventBus);
     }
 
-    private static class CollectionEventBus extends NitriteEventBus<CollectionEventInfo<?>, CollectionEventListener> {
-
-        public void post(CollectionEventInfo<?> collectionEventInfo) {
-            for (final CollectionEventListener listener : getListeners()) {
-                getEventExecutor().submit(() -> listener.onEvent(collectionEventInfo));
-            }
-        }
-    }
-
     private void checkOpened() {
         if (isClosed) {
             throw new TransactionException("collection is closed");
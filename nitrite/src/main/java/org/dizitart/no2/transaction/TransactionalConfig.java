@@ -65,6 +65,16 @@ class TransactionalConfig extends NitriteConfig {
         return config.nitriteMapper();
     }
 
+    @Override
+    public int getSortBufferSize() {
+        return config.getSortBufferSize();
+    }
+
+    @Override
+    public int getIndexBuildBufferSize() {
+        return config.getIndexBuildBufferSize();
+    }
+
     @Override
     public NitriteStore<?> getNitriteStore() {
         return transactionalStore;
@@ -2,14 +2,13 @@ package org.dizitart.no2.transaction;
 
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Comparables;
+import org.dizitart.no2.index.PostingList;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteStore;
 import org.dizitart.no2.store.memory.InMemoryMap;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentSkipListSet;
-
-import static org.dizitart.no2.common.util.ObjectUtils.deepCopy;
 
 /**
  * @author Anindya Chatterjee
@@ -47,7 +46,6 @@ class TransactionalMap<K, V> implements NitriteMap<K, V> {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public V get(K k) {
         if (tombstones.contains(k) || cleared) {
             return null;
@@ -56,11 +54,9 @@ class TransactionalMap<K, V> implements NitriteMap<K, V> {
         V result = backingMap.get(k);
         if (result == null) {
             result = primary.get(k);
-            if (result instanceof ConcurrentSkipListSet) {
-                // create a deep copy of the set so that it does not effect the original one
-                ConcurrentSkipListSet<?> set = deepCopy((ConcurrentSkipListSet<?>) result);
-                backingMap.put(k, (V) set);
-                result = (V) set;
+            if (result instanceof PostingList) {
+                // a posting list is immutable, so the transaction can share it with the original one
+                backingMap.put(k, result);
             }
         }
 
@@ -191,6 +187,96 @@ class TransactionalMap<K, V> implements NitriteMap<K, V> {
         };
     }
 
+    @Override
+    public boolean isNaturallyOrdered() {
+        return primary.isNaturallyOrdered();
+    }
+
+    @Override
+    public RecordStream<Pair<K, V>> entries(K from, boolean fromInclusive,
+                                           K to, boolean toInclusive, boolean descending) {
+        if (cleared) {
+            return RecordStream.empty();
+        }
+
+        // merge the sorted entries of both the maps, entries of this transaction wins
+        return () -> new Iterator<Pair<K, V>>() {
+            private final Iterator<Pair<K, V>> primaryIterator
+                = primary.entries(from, fromInclusive, to, toInclusive, descending).iterator();
+            private final Iterator<Pair<K, V>> iterator
+                = backingMap.entries(from, fromInclusive, to, toInclusive, descending).iterator();
+            private Pair<K, V> primaryPair;
+            private Pair<K, V> backingPair;
+            private Pair<K, V> nextPair;
+
+            @Override
+            public boolean hasNext() {
+                return nextPair != null || setNextPair();
+            }
+
+            @Override
+            public Pair<K, V> next() {
+                if (nextPair == null && !setNextPair()) {
+                    throw new NoSuchElementException();
+                }
+                Pair<K, V> pair = nextPair;
+                nextPair = null;
+                return pair;
+            }
+
+            @SuppressWarnings("rawtypes")
+            private boolean setNextPair() {
+                if (primaryPair == null) {
+                    primaryPair = nextPrimaryPair();
+                }
+
+                if (backingPair == null && iterator.hasNext()) {
+                    backingPair = iterator.next();
+                }
+
+                if (primaryPair == null && backingPair == null) {
+                    return false;
+                }
+
+                if (primaryPair == null) {
+                    nextPair = backingPair;
+                    backingPair = null;
+                } else if (backingPair == null) {
+                    nextPair = primaryPair;
+                    primaryPair = null;
+                } else {
+                    int result = Comparables.compare((Comparable) backingPair.getFirst(),
+                        (Comparable) primaryPair.getFirst());
+                    if (descending) {
+                        result = -result;
+                    }
+
+                    if (result <= 0) {
+                        nextPair = backingPair;
+                        backingPair = null;
+                        if (result == 0) {
+                            primaryPair = null;
+                        }
+                    } else {
+                        nextPair = primaryPair;
+                        primaryPair = null;
+                    }
+                }
+                return true;
+            }
+
+            private Pair<K, V> nextPrimaryPair() {
+                while (primaryIterator.hasNext()) {
+                    Pair<K, V> pair = primaryIterator.next();
+                    if (!tombstones.contains(pair.getFirst())) {
+                        return pair;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
     @Override
     public K higherKey(K k) {
         if (cleared) {
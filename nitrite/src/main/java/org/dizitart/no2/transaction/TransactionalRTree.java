@@ -21,16 +21,16 @@ class TransactionalRTree<Key extends BoundingBox, Value> implements NitriteRTree
 
     @Override
     public void add(Key key, NitriteId nitriteId) {
-        if (nitriteId != null && nitriteId.getIdValue() != null) {
-            SpatialKey spatialKey = getKey(key, Long.parseLong(nitriteId.getIdValue()));
+        if (nitriteId != null) {
+            SpatialKey spatialKey = getKey(key, nitriteId.getLongValue());
             map.put(spatialKey, key);
         }
     }
 
     @Override
     public void remove(Key key, NitriteId nitriteId) {
-        if (nitriteId != null && nitriteId.getIdValue() != null) {
-            SpatialKey spatialKey = getKey(key, Long.parseLong(nitriteId.getIdValue()));
+        if (nitriteId != null) {
+            SpatialKey spatialKey = getKey(key, nitriteId.getLongValue());
             map.remove(spatialKey);
         }
     }
@@ -42,7 +42,7 @@ class TransactionalRTree<Key extends BoundingBox, Value> implements NitriteRTree
 
         for (SpatialKey sk : map.keySet()) {
             if (isOverlap(sk, spatialKey)) {
-                set.add(NitriteId.createId(Long.toString(sk.getId())));
+                set.add(NitriteId.createId(sk.getId()));
             }
         }
 
@@ -57,7 +57,7 @@ class TransactionalRTree<Key extends BoundingBox, Value> implements NitriteRTree
 
         for (SpatialKey sk : map.keySet()) {
             if (isInside(sk, spatialKey)) {
-                set.add(NitriteId.createId(Long.toString(sk.getId())));
+                set.add(NitriteId.createId(sk.getId()));
             }
         }
 
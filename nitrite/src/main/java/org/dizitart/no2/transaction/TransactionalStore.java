@@ -53,6 +53,12 @@ class TransactionalStore<T extends StoreConfig> extends AbstractNitriteStore<T>
         // nothing to do
     }
 
+    @Override
+    public void markModified(String mapName) {
+        // the maps of a transaction are never committed, its changes are
+        // replayed on the primary store, which records their time
+    }
+
     @Override
     public boolean hasMap(String mapName) {
         boolean result = primaryStore.hasMap(mapName);
@@ -19,7 +19,10 @@ package org.dizitart.no2;
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteCollection;
 import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.collection.ScanType;
 import org.dizitart.no2.exceptions.SecurityException;
+import org.dizitart.no2.index.IndexOptions;
+import org.dizitart.no2.index.IndexType;
 import org.dizitart.no2.index.Indexer;
 import org.dizitart.no2.mapper.Mappable;
 import org.dizitart.no2.mapper.NitriteMapper;
@@ -32,8 +35,11 @@ import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.dizitart.no2.collection.Document.createDocument;
 import static org.dizitart.no2.common.util.StringUtils.isNullOrEmpty;
+import static org.dizitart.no2.filters.FluentFilter.where;
 import static org.dizitart.no2.module.NitriteModule.module;
 import static org.junit.Assert.*;
 
@@ -100,6 +106,50 @@ public class NitriteBuilderTest {
         db.close();
     }
 
+    @Test
+    public void testSortBufferSize() {
+        db = Nitrite.builder().sortBufferSize(5).openOrCreate();
+        assertEquals(5, db.getConfig().getSortBufferSize());
+
+        NitriteCollection test = db.getCollection("test");
+        for (int i = 0; i < 20; i++) {
+            test.insert(createDocument("age", 19 - i));
+        }
+
+        int age = 0;
+        for (Document document : test.find().sort("age")) {
+            assertEquals(age++, document.get("age", Integer.class).intValue());
+        }
+        assertEquals(20, age);
+        db.close();
+    }
+
+    @Test
+    public void testIndexBuildWithBufferSize() {
+        db = Nitrite.builder().indexBuildBufferSize(5).openOrCreate();
+        assertEquals(5, db.getConfig().getIndexBuildBufferSize());
+        assertEquals(Integer.MAX_VALUE, db.getConfig().getSortBufferSize());
+
+        NitriteCollection test = db.getCollection("test");
+        for (int i = 0; i < 30; i++) {
+            test.insert(createDocument("age", i % 7)
+                .put("tags", Arrays.asList("t" + (i % 3), "t" + (i % 4)))
+                .put("body", "word" + (i % 5) + " common"));
+        }
+
+        test.createIndex("age", IndexOptions.indexOptions(IndexType.NonUnique));
+        test.createIndex("tags", IndexOptions.indexOptions(IndexType.NonUnique));
+        test.createIndex("body", IndexOptions.indexOptions(IndexType.Fulltext));
+
+        assertEquals(5, test.find(where("age").eq(0)).size());
+        assertEquals(4, test.find(where("age").eq(6)).size());
+        assertEquals(15, test.find(where("tags").elemMatch(where("$").eq("t1"))).size());
+        assertEquals(30, test.find(where("body").text("common")).size());
+        assertEquals(6, test.find(where("body").text("word4")).size());
+        assertEquals(ScanType.IndexScan, test.find(where("age").eq(0)).explain().getScanType());
+        db.close();
+    }
+
     @Test
     public void testNitriteMapper() {
         NitriteBuilder builder = Nitrite.builder();
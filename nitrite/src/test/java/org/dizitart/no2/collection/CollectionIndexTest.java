@@ -18,13 +18,18 @@ package org.dizitart.no2.collection;
 
 import org.dizitart.no2.common.WriteResult;
 import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.exceptions.UniqueConstraintException;
 import org.dizitart.no2.filters.Filter;
 import org.dizitart.no2.index.IndexEntry;
+import org.dizitart.no2.index.IndexOptions;
 import org.dizitart.no2.index.IndexType;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.Callable;
 
@@ -56,6 +61,85 @@ public class CollectionIndexTest extends BaseCollectionTest {
         insert();
     }
 
+    @Test
+    public void testCreateIndexes() {
+        insert();
+
+        Map<String, IndexOptions> indexes = new LinkedHashMap<>();
+        indexes.put("firstName", indexOptions(IndexType.Unique));
+        indexes.put("lastName", indexOptions(IndexType.NonUnique));
+        indexes.put("body", indexOptions(IndexType.Fulltext));
+        indexes.put("birthDay", null);
+        collection.createIndexes(indexes);
+
+        assertEquals(collection.listIndices().size(), 4);
+        assertFalse(collection.isIndexing("firstName"));
+        assertFalse(collection.isIndexing("body"));
+
+        assertEquals(collection.find(where("firstName").eq("fn1")).size(), 1);
+        assertEquals(collection.find(where("lastName").eq("ln2")).size(), 2);
+        assertEquals(collection.find(where("body").text("quick")).size(), 2);
+        assertEquals(collection.find(where("birthDay").gt(doc1.get("birthDay", Date.class))).size(), 1);
+        assertEquals(ScanType.IndexScan, collection.find(where("lastName").eq("ln2")).explain().getScanType());
+    }
+
+    @Test
+    public void testCreateIndexesOnExistingIndex() {
+        collection.createIndex("firstName", indexOptions(IndexType.Unique));
+
+        Map<String, IndexOptions> indexes = new LinkedHashMap<>();
+        indexes.put("lastName", indexOptions(IndexType.NonUnique));
+        indexes.put("firstName", indexOptions(IndexType.NonUnique));
+        try {
+            collection.createIndexes(indexes);
+            fail("index already exists on firstName");
+        } catch (IndexingException e) {
+            // no index is created if any of them fails the validation
+            assertFalse(collection.hasIndex("lastName"));
+        }
+    }
+
+    @Test
+    public void testCreateIndexesWithUniqueViolation() {
+        insert();
+
+        Map<String, IndexOptions> indexes = new LinkedHashMap<>();
+        indexes.put("lastName", indexOptions(IndexType.Unique));
+        indexes.put("firstName", indexOptions(IndexType.Unique));
+        try {
+            collection.createIndexes(indexes);
+            fail("lastName is not unique");
+        } catch (UniqueConstraintException e) {
+            // the other index is still loaded
+            assertFalse(collection.isIndexing("firstName"));
+            assertEquals(collection.find(where("firstName").eq("fn2")).size(), 1);
+        }
+    }
+
+    @Test
+    public void testCreateIndexesOnLargeCollection() {
+        NitriteCollection collection = db.getCollection("partitioned-index-test");
+        Document[] documents = new Document[25000];
+        for (int i = 0; i < documents.length; i++) {
+            documents[i] = createDocument("first", i)
+                .put("second", "value" + (i % 100))
+                .put("third", "word" + (i % 10) + " common");
+        }
+        collection.insert(documents);
+
+        Map<String, IndexOptions> indexes = new LinkedHashMap<>();
+        indexes.put("first", indexOptions(IndexType.Unique));
+        indexes.put("second", indexOptions(IndexType.NonUnique));
+        indexes.put("third", indexOptions(IndexType.Fulltext));
+        collection.createIndexes(indexes);
+
+        assertEquals(collection.find(where("first").eq(12345)).size(), 1);
+        assertEquals(collection.find(where("first").gte(20000)).size(), 5000);
+        assertEquals(collection.find(where("second").eq("value42")).size(), 250);
+        assertEquals(collection.find(where("third").text("word7")).size(), 2500);
+        assertEquals(collection.find(where("third").text("common")).size(), 25000);
+    }
+
     @Test
     public void testListIndexes() {
         assertEquals(collection.listIndices().size(), 0);
@@ -142,6 +226,25 @@ public class CollectionIndexTest extends BaseCollectionTest {
         }
     }
 
+    @Test
+    public void testRebuildIndexes() {
+        collection.createIndex("firstName", indexOptions(IndexType.Unique));
+        collection.createIndex("body", indexOptions(IndexType.Fulltext));
+        insert();
+
+        collection.rebuildIndexes(false, "firstName", "body");
+        assertEquals(collection.find(where("firstName").eq("fn3")).size(), 1);
+        assertEquals(collection.find(where("body").text("Lorem")).size(), 1);
+
+        boolean failed = false;
+        try {
+            collection.rebuildIndexes(false, "firstName", "lastName");
+        } catch (IndexingException e) {
+            failed = true;
+        }
+        assertTrue(failed);
+    }
+
     @Test
     public void testRebuildIndexAsync() {
         collection.createIndex("body", indexOptions(IndexType.Fulltext, true));
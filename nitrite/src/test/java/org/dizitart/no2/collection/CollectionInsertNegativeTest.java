@@ -18,9 +18,14 @@ package org.dizitart.no2.collection;
 
 import org.dizitart.no2.common.WriteResult;
 import org.dizitart.no2.exceptions.UniqueConstraintException;
+import org.dizitart.no2.index.IndexType;
 import org.junit.Test;
 
+import static org.dizitart.no2.collection.Document.createDocument;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.dizitart.no2.index.IndexOptions.indexOptions;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 /**
  * @author Anindya Chatterjee.
@@ -33,4 +38,31 @@ public class CollectionInsertNegativeTest extends BaseCollectionTest {
         Document document = collection.find().firstOrNull();
         collection.insert(document);
     }
+
+    @Test
+    public void testBulkInsertUniqueViolation() {
+        collection.createIndex("firstName", indexOptions(IndexType.Unique));
+        collection.createIndex("lastName", indexOptions(IndexType.NonUnique));
+        collection.insert(doc1);
+
+        Document document = createDocument("firstName", "fn1").put("lastName", "ln2");
+        try {
+            collection.bulkInsert(new Document[]{doc2, doc3, document});
+            fail("unique constraint is not checked");
+        } catch (UniqueConstraintException ignored) {
+        }
+
+        // nothing from the batch is left behind
+        assertEquals(1, collection.size());
+        assertEquals(0, collection.find(where("lastName").eq("ln2")).size());
+        assertEquals(0, collection.find(where("firstName").eq("fn2")).size());
+        assertEquals(1, collection.find(where("firstName").eq("fn1")).size());
+    }
+
+    @Test(expected = UniqueConstraintException.class)
+    public void testBulkInsertDuplicateId() {
+        doc1.getId();
+        Document document = doc1.clone();
+        collection.bulkInsert(new Document[]{doc1, document});
+    }
 }
@@ -16,13 +16,21 @@
 
 package org.dizitart.no2.collection;
 
+import org.dizitart.no2.collection.events.CollectionEventInfo;
+import org.dizitart.no2.collection.events.EventType;
 import org.dizitart.no2.common.WriteResult;
+import org.dizitart.no2.index.IndexType;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.awaitility.Awaitility.await;
 import static org.dizitart.no2.collection.Document.createDocument;
 import static org.dizitart.no2.common.Constants.DOC_ID;
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotNull;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.dizitart.no2.index.IndexOptions.indexOptions;
+import static org.junit.Assert.*;
 
 public class CollectionInsertTest extends BaseCollectionTest {
 
@@ -51,4 +59,57 @@ public class CollectionInsertTest extends BaseCollectionTest {
         WriteResult result = collection.insert(doc1, doc2, doc3, document);
         assertEquals(result.getAffectedCount(), 4);
     }
+
+    @Test
+    public void testBulkInsert() {
+        collection.createIndex("lastName", indexOptions(IndexType.NonUnique));
+        collection.createIndex("body", indexOptions(IndexType.Fulltext));
+        collection.createIndex("list", indexOptions(IndexType.NonUnique));
+
+        List<CollectionEventInfo<?>> events = new CopyOnWriteArrayList<>();
+        collection.subscribe(events::add);
+
+        WriteResult result = collection.bulkInsert(new Document[]{doc1, doc2, doc3});
+        assertEquals(3, result.getAffectedCount());
+        assertEquals(3, collection.size());
+
+        assertEquals(2, collection.find(where("lastName").eq("ln2")).size());
+        assertEquals(2, collection.find(where("body").text("quick")).size());
+        assertEquals(2, collection.find(where("list").elemMatch(where("$").eq("three"))).size());
+        assertEquals(1, collection.find(where("list").elemMatch(where("$").eq("one"))).size());
+
+        await().until(() -> events.size() == 3);
+        for (CollectionEventInfo<?> eventInfo : events) {
+            assertEquals(EventType.Insert, eventInfo.getEventType());
+            assertTrue(eventInfo.getItem() instanceof Document);
+        }
+    }
+
+    @Test
+    public void testBulkInsertAfterInsert() {
+        collection.createIndex("lastName", indexOptions(IndexType.NonUnique));
+        collection.insert(doc1, doc2);
+
+        Document document = createDocument("firstName", "fn4").put("lastName", "ln2");
+        WriteResult result = collection.bulkInsert(new Document[]{doc3, document});
+        assertEquals(2, result.getAffectedCount());
+
+        assertEquals(4, collection.size());
+        assertEquals(3, collection.find(where("lastName").eq("ln2")).size());
+        assertEquals(1, collection.find(where("lastName").eq("ln1")).size());
+    }
+
+    @Test
+    public void testInsertEventDocumentIsChangeable() {
+        List<CollectionEventInfo<?>> events = new CopyOnWriteArrayList<>();
+        collection.subscribe(events::add);
+
+        collection.insert(doc1);
+        await().until(() -> events.size() == 1);
+
+        Document item = (Document) events.get(0).getItem();
+        assertFalse(item.isFrozen());
+        item.put("firstName", "changed");
+        assertEquals(1, collection.find(where("firstName").eq("fn1")).size());
+    }
 }
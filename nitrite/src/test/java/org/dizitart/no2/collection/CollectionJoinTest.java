@@ -19,13 +19,17 @@ package org.dizitart.no2.collection;
 import lombok.extern.slf4j.Slf4j;
 import org.dizitart.no2.common.Lookup;
 import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.index.IndexType;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collection;
 
 import static org.dizitart.no2.collection.Document.createDocument;
 import static org.dizitart.no2.filters.Filter.ALL;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.dizitart.no2.index.IndexOptions.indexOptions;
 import static org.junit.Assert.*;
 
 /**
@@ -100,4 +104,98 @@ public class CollectionJoinTest extends BaseCollectionTest {
             System.out.println(document);
         }
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJoinWithForeignIndex() {
+        insert();
+        foreignCollection.createIndex(indexOptions(IndexType.NonUnique), "fName");
+
+        Lookup lookup = new Lookup();
+        lookup.setLocalField("firstName");
+        lookup.setForeignField("fName");
+        lookup.setTargetField("personalDetails");
+
+        RecordStream<Document> result = collection.find().join(
+            foreignCollection.find(where("address").notEq("XYZ Street")), lookup);
+        assertEquals(result.size(), 3);
+
+        for (Document document : result) {
+            Collection<Document> personalDetails = (Collection<Document>) document.get("personalDetails");
+            if (document.get("firstName").equals("fn1")) {
+                assertEquals(personalDetails.size(), 1);
+                assertEquals(personalDetails.iterator().next().get("telephone"), "123456789");
+            } else if (document.get("firstName").equals("fn2")) {
+                assertEquals(personalDetails.size(), 1);
+                assertEquals(personalDetails.iterator().next().get("telephone"), "7893141321");
+            } else {
+                assertNull(personalDetails);
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJoinOnNumberTypes() {
+        foreignCollection.remove(ALL);
+        foreignCollection.insert(createDocument("key", 1L).put("name", "long"),
+            createDocument("key", 1).put("name", "int"));
+        collection.insert(createDocument("ref", 1), createDocument("ref", 2));
+
+        Lookup lookup = new Lookup();
+        lookup.setLocalField("ref");
+        lookup.setForeignField("key");
+        lookup.setTargetField("joined");
+
+        RecordStream<Document> result = collection.find().join(foreignCollection.find(), lookup);
+        assertEquals(result.size(), 2);
+        for (Document document : result) {
+            Collection<Document> joined = (Collection<Document>) document.get("joined");
+            if (document.get("ref").equals(1)) {
+                assertEquals(joined.size(), 1);
+                assertEquals(joined.iterator().next().get("name"), "int");
+            } else {
+                assertNull(joined);
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJoinOnArrayWithForeignIndex() {
+        foreignCollection.remove(ALL);
+        foreignCollection.insert(createDocument("key", "a").put("name", "a"),
+            createDocument("key", Arrays.asList("a", "b")).put("name", "list"),
+            createDocument("key", "b").put("name", "b"));
+        foreignCollection.createIndex(indexOptions(IndexType.NonUnique), "key");
+
+        collection.insert(createDocument("ref", "a"),
+            createDocument("ref", Arrays.asList("a", "b")),
+            createDocument("ref", "c"));
+
+        Lookup lookup = new Lookup();
+        lookup.setLocalField("ref");
+        lookup.setForeignField("key");
+        lookup.setTargetField("joined");
+
+        // the index nested loop join and the hash join find the same documents
+        for (RecordStream<Document> result : Arrays.asList(
+            collection.find().join(foreignCollection.find(), lookup),
+            collection.find().join(foreignCollection.find().skipLimit(0, 10), lookup))) {
+            assertEquals(result.size(), 3);
+            for (Document document : result) {
+                Collection<Document> joined = (Collection<Document>) document.get("joined");
+                Object ref = document.get("ref");
+                if ("a".equals(ref)) {
+                    assertEquals(joined.size(), 1);
+                    assertEquals(joined.iterator().next().get("name"), "a");
+                } else if (ref instanceof Collection) {
+                    assertEquals(joined.size(), 1);
+                    assertEquals(joined.iterator().next().get("name"), "list");
+                } else {
+                    assertNull(joined);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,195 @@
+package org.dizitart.no2.collection;
+
+import org.dizitart.no2.exceptions.InvalidOperationException;
+import org.dizitart.no2.exceptions.NitriteIOException;
+import org.dizitart.no2.store.FieldDictionary;
+import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.store.memory.InMemoryStore;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+
+import static org.dizitart.no2.collection.Document.createDocument;
+import static org.dizitart.no2.common.Constants.DOC_ID;
+import static org.dizitart.no2.common.Constants.FIELD_DICTIONARY;
+import static org.junit.Assert.*;
+
+public class DocumentCodecTest {
+    private NitriteMap<String, Integer> dictionaryMap;
+    private FieldDictionary dictionary;
+
+    @Before
+    public void setUp() {
+        dictionaryMap = new InMemoryStore().openMap(FIELD_DICTIONARY, String.class, Integer.class);
+        dictionary = new FieldDictionary(dictionaryMap);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Document document = createDocument("name", "Jöhn \u0000 😀 \uD800")
+            .put("age", 42)
+            .put("balance", -1234567890123L)
+            .put("score", 4.5d)
+            .put("ratio", 0.5f)
+            .put("small", (short) -3)
+            .put("tiny", (byte) 7)
+            .put("initial", 'J')
+            .put("active", true)
+            .put("deleted", false)
+            .put("missing", null)
+            .put("joined", new Date(1600000000000L))
+            .put("ref", NitriteId.createId(123456789L))
+            .put("data", new byte[]{1, 2, 3})
+            .put("amount", new BigDecimal("12.50"))
+            .put("tags", new HashSet<>(Arrays.asList("a", "b")))
+            .put("address", createDocument("city", "Kolkata")
+                .put("zip", createDocument("code", 700001)))
+            .put("phones", new ArrayList<>(Arrays.asList("123", 456, createDocument("type", "home"))));
+
+        dictionary.learn(document);
+        DocumentCodec codec = new DocumentCodec(dictionary);
+        byte[] bytes = codec.encode(document);
+        assertTrue(DocumentCodec.isEncoded(bytes));
+
+        Document decoded = codec.decode(bytes);
+        assertEquals(document.size(), decoded.size());
+        for (String field : Arrays.asList("name", "age", "balance", "score", "ratio", "small",
+            "tiny", "initial", "active", "deleted", "joined", "ref", "amount", "tags", "address", "phones")) {
+            assertEquals(field, document.get(field), decoded.get(field));
+        }
+        assertNull(decoded.get("missing"));
+        assertTrue(decoded.containsKey("missing"));
+        assertArrayEquals((byte[]) document.get("data"), (byte[]) decoded.get("data"));
+        assertEquals(700001, decoded.get("address.zip.code"));
+
+        // field order is kept
+        assertEquals(new ArrayList<>(((NitriteDocument) document).keySet()),
+            new ArrayList<>(((NitriteDocument) decoded).keySet()));
+    }
+
+    @Test
+    public void testDictionaryShrinksRecord() {
+        Document document = createDocument("firstName", "a").put("lastName", "b");
+        byte[] inline = new DocumentCodec(null).encode(document);
+
+        dictionary.learn(document);
+        byte[] compact = new DocumentCodec(dictionary).encode(document);
+        assertTrue(compact.length < inline.length);
+        assertEquals(document, new DocumentCodec(dictionary).decode(compact));
+
+        // a record with inline names is read by a codec with a dictionary
+        assertEquals(document, new DocumentCodec(dictionary).decode(inline));
+    }
+
+    @Test
+    public void testDictionaryReload() {
+        dictionary.learn(createDocument("a", 1).put("b", createDocument("c", 2)));
+        assertEquals(3, dictionary.size());
+
+        FieldDictionary reloaded = new FieldDictionary(dictionaryMap);
+        assertEquals(3, reloaded.size());
+        for (String name : Arrays.asList("a", "b", "c")) {
+            assertEquals(dictionary.getId(name), reloaded.getId(name));
+            assertEquals(name, reloaded.getName(reloaded.getId(name)));
+        }
+        assertEquals(-1, reloaded.getId("d"));
+    }
+
+    @Test
+    public void testLazyDecoding() {
+        Document document = createDocument("name", "John")
+            .put("age", 42)
+            .put("missing", null)
+            .put("address", createDocument("city", "Kolkata"));
+        dictionary.learn(document);
+        DocumentCodec codec = new DocumentCodec(dictionary);
+        byte[] bytes = codec.encode(document);
+
+        Document lazy = codec.decodeLazily(bytes, true);
+        assertTrue(lazy.isFrozen());
+        assertEquals("John", lazy.get("name"));
+        assertEquals(42, lazy.get("age", Integer.class).intValue());
+        assertEquals("Kolkata", lazy.get("address.city"));
+        assertNull(lazy.get("missing"));
+        assertTrue(lazy.containsKey("missing"));
+        assertFalse(lazy.containsKey("unknown"));
+        assertNull(lazy.get("unknown"));
+
+        // field lookups do not decode the document
+        assertEquals(bytes.length, DocumentCodec.getEncodedLength(lazy));
+        assertSame(bytes, codec.encode(lazy));
+
+        Document clone = lazy.clone();
+        assertFalse(clone.isFrozen());
+        assertEquals(document, clone);
+        assertEquals(document, lazy);
+        assertEquals(4, lazy.size());
+        assertThrows(InvalidOperationException.class, () -> lazy.put("age", 43));
+        assertThrows(InvalidOperationException.class, () -> ((NitriteDocument) lazy).clear());
+
+        // a shared document is decoded into copies, it keeps only its bytes
+        assertEquals(bytes.length, DocumentCodec.getEncodedLength(lazy));
+        clone.put("age", 43);
+        assertEquals(42, lazy.get("age"));
+    }
+
+    @Test
+    public void testLazyDocumentMetadata() {
+        NitriteId id = NitriteId.newId();
+        Document document = createDocument("name", "John")
+            .put(DOC_ID, id.getIdValue())
+            .put("amount", new BigDecimal("12.50"))
+            .put("tags", new HashSet<>(Arrays.asList("a", "b")))
+            .put("phones", new ArrayList<>(Arrays.asList("123", "456")))
+            .put("address", createDocument("city", "Kolkata")
+                .put("zip", createDocument("code", 700001)));
+        dictionary.learn(document);
+        DocumentCodec codec = new DocumentCodec(dictionary);
+        byte[] bytes = codec.encode(document);
+
+        for (boolean shared : new boolean[]{true, false}) {
+            Document lazy = codec.decodeLazily(bytes, shared);
+            assertEquals(id, lazy.getId());
+            assertTrue(lazy.hasId());
+            assertEquals(document.size(), lazy.size());
+            assertFalse(lazy.isEmpty());
+            assertEquals(document.getFields(), lazy.getFields());
+
+            // none of them decodes the document
+            assertEquals(bytes.length, DocumentCodec.getEncodedLength(lazy));
+        }
+    }
+
+    @Test
+    public void testWritableLazyDocument() {
+        Document document = createDocument("name", "John")
+            .put("address", createDocument("city", "Kolkata"));
+        dictionary.learn(document);
+        DocumentCodec codec = new DocumentCodec(dictionary);
+
+        Document lazy = codec.decodeLazily(codec.encode(document));
+        assertFalse(lazy.isFrozen());
+        assertEquals("John", lazy.get("name"));
+
+        // a change to an embedded document is part of the document
+        lazy.get("address", Document.class).put("city", "Delhi");
+        assertEquals("Delhi", lazy.get("address.city"));
+
+        lazy.put("name", "Jane");
+        Document decoded = codec.decode(codec.encode(lazy));
+        assertEquals("Jane", decoded.get("name"));
+        assertEquals("Delhi", decoded.get("address.city"));
+    }
+
+    @Test(expected = NitriteIOException.class)
+    public void testUnknownFieldId() {
+        dictionary.learn(createDocument("a", 1));
+        byte[] bytes = new DocumentCodec(dictionary).encode(createDocument("a", 1));
+        new DocumentCodec(null).decode(bytes);
+    }
+}
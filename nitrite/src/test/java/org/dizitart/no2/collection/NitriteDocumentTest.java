@@ -100,5 +100,48 @@ public class NitriteDocumentTest {
         NitriteDocument nitriteDocument = new NitriteDocument();
         assertTrue(nitriteDocument.equals(new NitriteDocument()));
     }
-}
 
+    @Test
+    public void testFreeze() {
+        NitriteDocument nitriteDocument = new NitriteDocument();
+        nitriteDocument.put("key", "value");
+        assertFalse(nitriteDocument.isFrozen());
+        assertSame(nitriteDocument, nitriteDocument.freeze());
+        assertTrue(nitriteDocument.isFrozen());
+
+        assertThrows(InvalidOperationException.class, () -> nitriteDocument.put("key", "other"));
+        assertThrows(InvalidOperationException.class, () -> nitriteDocument.remove("key"));
+        assertThrows(InvalidOperationException.class, () -> nitriteDocument.merge(new NitriteDocument()));
+        assertEquals("value", nitriteDocument.get("key"));
+
+        Document clone = nitriteDocument.clone();
+        assertFalse(clone.isFrozen());
+        clone.put("key", "other");
+        assertEquals("other", clone.get("key"));
+        assertEquals("value", nitriteDocument.get("key"));
+    }
+
+    @Test
+    public void testCopyOnWrite() {
+        NitriteDocument nitriteDocument = new NitriteDocument();
+        nitriteDocument.put("key", "value");
+        assertNotSame(nitriteDocument, nitriteDocument.copyOnWrite());
+
+        nitriteDocument.freeze();
+        Document copy = nitriteDocument.copyOnWrite();
+        assertFalse(copy.isFrozen());
+        assertEquals(nitriteDocument, copy);
+        assertEquals(copy, nitriteDocument);
+        assertEquals("value", copy.get("key"));
+        assertEquals(1, copy.size());
+
+        copy.put("other", "value");
+        assertEquals(2, copy.size());
+        assertEquals(1, nitriteDocument.size());
+        assertNotEquals(nitriteDocument, copy);
+
+        copy.remove("key");
+        assertNull(copy.get("key"));
+        assertEquals("value", nitriteDocument.get("key"));
+    }
+}
@@ -3,6 +3,8 @@ package org.dizitart.no2.collection;
 import org.dizitart.no2.exceptions.InvalidIdException;
 import org.junit.Test;
 
+import java.io.*;
+
 import static org.junit.Assert.*;
 
 public class NitriteIdTest {
@@ -16,6 +18,59 @@ public class NitriteIdTest {
     public void testCompareTo() {
         NitriteId newIdResult = NitriteId.newId();
         assertEquals(-1, newIdResult.compareTo(NitriteId.newId()));
+        assertTrue(NitriteId.createId(-5).compareTo(NitriteId.createId(3)) < 0);
+        assertTrue(NitriteId.createId("10").compareTo(NitriteId.createId("9")) > 0);
     }
-}
 
+    @Test
+    public void testLongValue() {
+        NitriteId id = NitriteId.createId("42");
+        assertEquals(42L, id.getLongValue());
+        assertEquals("42", id.getIdValue());
+        assertEquals(NitriteId.createId(42L), id);
+        assertEquals(NitriteId.createId(42L).hashCode(), id.hashCode());
+        assertThrows(InvalidIdException.class, () -> NitriteId.createId("4x2"));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        NitriteId id = NitriteId.newId();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+            stream.writeObject(id);
+        }
+        try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(id, stream.readObject());
+        }
+    }
+
+    @Test
+    public void testReadOlderSerialForm() throws Exception {
+        // an id java serialized by a version which held the id as a string
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream stream = new DataOutputStream(bytes)) {
+            stream.writeShort(ObjectStreamConstants.STREAM_MAGIC);
+            stream.writeShort(ObjectStreamConstants.STREAM_VERSION);
+            stream.writeByte(ObjectStreamConstants.TC_OBJECT);
+            stream.writeByte(ObjectStreamConstants.TC_CLASSDESC);
+            stream.writeUTF(NitriteId.class.getName());
+            stream.writeLong(1477462375L);
+            stream.writeByte(ObjectStreamConstants.SC_SERIALIZABLE | ObjectStreamConstants.SC_WRITE_METHOD);
+            stream.writeShort(1);
+            stream.writeByte('L');
+            stream.writeUTF("idValue");
+            stream.writeByte(ObjectStreamConstants.TC_STRING);
+            stream.writeUTF("Ljava/lang/String;");
+            stream.writeByte(ObjectStreamConstants.TC_ENDBLOCKDATA);
+            stream.writeByte(ObjectStreamConstants.TC_NULL);
+            stream.writeByte(ObjectStreamConstants.TC_BLOCKDATA);
+            stream.writeByte(2 + "1234567890123".length());
+            stream.writeUTF("1234567890123");
+            stream.writeByte(ObjectStreamConstants.TC_ENDBLOCKDATA);
+        }
+
+        try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(NitriteId.createId(1234567890123L), stream.readObject());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.dizitart.no2.collection.events;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteId;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.dizitart.no2.collection.events.EventBatchOptions.batchOptions;
+import static org.junit.Assert.*;
+
+public class CollectionEventBusTest {
+    @Test
+    public void testBatchBySize() throws InterruptedException {
+        CollectionEventBus eventBus = new CollectionEventBus();
+        BatchRecorder recorder = new BatchRecorder(batchOptions(10, 60000), 100);
+        eventBus.register(recorder);
+        assertTrue(eventBus.hasDocumentListeners());
+        assertFalse(eventBus.hasChangeListeners());
+
+        for (int i = 0; i < 100; i++) {
+            eventBus.post(event(i));
+        }
+
+        assertTrue(recorder.latch.await(10, TimeUnit.SECONDS));
+        assertEquals(10, recorder.batches.size());
+        List<Object> items = new ArrayList<>();
+        for (List<CollectionEventInfo<?>> batch : recorder.batches) {
+            assertEquals(10, batch.size());
+            for (CollectionEventInfo<?> eventInfo : batch) {
+                items.add(eventInfo.getItem());
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, items.get(i));
+        }
+        eventBus.close();
+    }
+
+    @Test
+    public void testBatchByDelay() throws InterruptedException {
+        CollectionEventBus eventBus = new CollectionEventBus();
+        BatchRecorder recorder = new BatchRecorder(batchOptions(1000, 200), 3);
+        eventBus.register(recorder);
+
+        eventBus.post(event(0));
+        eventBus.post(event(1));
+        eventBus.post(event(2));
+
+        assertTrue(recorder.latch.await(10, TimeUnit.SECONDS));
+        assertEquals(1, recorder.batches.size());
+        assertEquals(3, recorder.batches.get(0).size());
+        eventBus.close();
+    }
+
+    @Test
+    public void testIdsOnly() throws InterruptedException {
+        CollectionEventBus eventBus = new CollectionEventBus();
+        BatchRecorder recorder = new BatchRecorder(batchOptions(1, 0, true), 1);
+        eventBus.register(recorder);
+        assertFalse(eventBus.hasDocumentListeners());
+        assertTrue(eventBus.hasChangeListeners());
+
+        NitriteId nitriteId = NitriteId.newId();
+        DocumentChange change = new DocumentChange(nitriteId, Collections.singleton("a"));
+        eventBus.post(new CollectionEventInfo<>(Document.createDocument("a", 1), EventType.Update, 0, null),
+            new CollectionEventInfo<>(change, EventType.Update, 0, null));
+
+        assertTrue(recorder.latch.await(10, TimeUnit.SECONDS));
+        assertEquals(change, recorder.batches.get(0).get(0).getItem());
+
+        eventBus.deregister(recorder);
+        assertFalse(eventBus.hasChangeListeners());
+        eventBus.close();
+    }
+
+    @Test
+    public void testPendingBatchDeliveredOnDeregister() throws InterruptedException {
+        CollectionEventBus eventBus = new CollectionEventBus();
+        BatchRecorder recorder = new BatchRecorder(batchOptions(1000, 60000), 2);
+        eventBus.register(recorder);
+
+        eventBus.post(event(0));
+        eventBus.post(event(1));
+        eventBus.deregister(recorder);
+        eventBus.post(event(2));
+
+        assertTrue(recorder.latch.await(10, TimeUnit.SECONDS));
+        assertEquals(1, recorder.batches.size());
+        assertEquals(2, recorder.batches.get(0).size());
+        eventBus.close();
+    }
+
+    @Test
+    public void testPendingBatchDeliveredOnClose() throws InterruptedException {
+        CollectionEventBus eventBus = new CollectionEventBus();
+        BatchRecorder recorder = new BatchRecorder(batchOptions(1000, 60000), 3);
+        eventBus.register(recorder);
+
+        eventBus.post(event(0));
+        eventBus.post(event(1));
+        eventBus.post(event(2));
+        eventBus.close();
+
+        assertTrue(recorder.latch.await(10, TimeUnit.SECONDS));
+        assertEquals(1, recorder.batches.size());
+        assertEquals(3, recorder.batches.get(0).size());
+    }
+
+    private CollectionEventInfo<Integer> event(int item) {
+        return new CollectionEventInfo<>(item, EventType.Insert, System.currentTimeMillis(), null);
+    }
+
+    private static class BatchRecorder implements BatchCollectionEventListener {
+        private final EventBatchOptions options;
+        private final List<List<CollectionEventInfo<?>>> batches;
+        private final CountDownLatch latch;
+
+        BatchRecorder(EventBatchOptions options, int eventCount) {
+            this.options = options;
+            this.batches = new CopyOnWriteArrayList<>();
+            this.latch = new CountDownLatch(eventCount);
+        }
+
+        @Override
+        public void onEvents(List<CollectionEventInfo<?>> eventInfos) {
+            batches.add(eventInfos);
+            for (int i = 0; i < eventInfos.size(); i++) {
+                latch.countDown();
+            }
+        }
+
+        @Override
+        public EventBatchOptions getBatchOptions() {
+            return options;
+        }
+    }
+}
@@ -1,17 +1,26 @@
 package org.dizitart.no2.collection.operation;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import com.fasterxml.jackson.databind.util.ArrayIterator;
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.NullOrder;
+import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.common.SortableFields;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.filters.Filter;
 import org.junit.Test;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
 public class SortedDocumentCursorTest {
     @Test
     public void testIterator() {
@@ -119,5 +128,131 @@ public class SortedDocumentCursorTest {
                 new ArrayIterator<Pair<NitriteId, Document>>(new Pair[]{pair, pair1, new Pair<NitriteId, Document>()})))
                 .next());
     }
-}
 
+    @Test
+    public void testSortTop() {
+        RecordStream<Pair<NitriteId, Document>> recordStream = createRecordStream();
+        SortedDocumentCursor sorted = new SortedDocumentCursor("age", SortOrder.Descending, null,
+            NullOrder.Default, recordStream);
+
+        List<Integer> ages = getAges(sorted.limit(5));
+        assertEquals(5, ages.size());
+        assertEquals(Integer.valueOf(49), ages.get(0));
+        assertEquals(Integer.valueOf(48), ages.get(2));
+        assertEquals(Integer.valueOf(47), ages.get(4));
+
+        // documents with equal values keep their original order
+        List<String> names = getNames(sorted.limit(3));
+        assertEquals("name49", names.get(0));
+        assertEquals("name99", names.get(1));
+        assertEquals("name48", names.get(2));
+
+        assertEquals(0, getAges(sorted.limit(0)).size());
+        assertEquals(getAges(sorted), getAges(sorted.limit(1000)));
+    }
+
+    @Test
+    public void testSortSpill() {
+        RecordStream<Pair<NitriteId, Document>> recordStream = createRecordStream();
+        SortedDocumentCursor sorted = new SortedDocumentCursor("age", SortOrder.Ascending, null,
+            NullOrder.Last, recordStream);
+        SortedDocumentCursor spilled = new SortedDocumentCursor(SortableFields.orderBy("age", SortOrder.Ascending,
+            null, NullOrder.Last).getSortFields(), recordStream, Long.MAX_VALUE, 7);
+
+        List<String> names = getNames(sorted);
+        assertEquals(101, names.size());
+        assertEquals("name0", names.get(0));
+        assertEquals("name50", names.get(1));
+        assertEquals("unknown", names.get(100));
+        assertEquals(names, getNames(spilled));
+        assertEquals(names.subList(0, 20), getNames(spilled.limit(20)));
+    }
+
+    @Test
+    public void testSortMergesRunsInPasses() {
+        RecordStream<Pair<NitriteId, Document>> recordStream = createRecordStream();
+        SortedDocumentCursor sorted = new SortedDocumentCursor("age", SortOrder.Ascending, null,
+            NullOrder.Last, recordStream);
+        // a run for every document, more than can be merged at once
+        SortedDocumentCursor spilled = new SortedDocumentCursor(SortableFields.orderBy("age", SortOrder.Ascending,
+            null, NullOrder.Last).getSortFields(), recordStream, Long.MAX_VALUE, 1);
+
+        assertEquals(getNames(sorted), getNames(spilled));
+    }
+
+    @Test
+    public void testCloseDeletesRuns() {
+        int runs = countRuns();
+        SortedDocumentCursor spilled = new SortedDocumentCursor(SortableFields.orderBy("age", SortOrder.Ascending,
+            null, NullOrder.Last).getSortFields(), createRecordStream(), Long.MAX_VALUE, 7);
+
+        Iterator<Pair<NitriteId, Document>> iterator = spilled.iterator();
+        iterator.next();
+        iterator.next();
+        assertTrue(countRuns() > runs);
+
+        spilled.close();
+        assertEquals(runs, countRuns());
+        assertFalse(iterator.hasNext());
+
+        // the cursor can still be read after it is closed
+        assertEquals(101, getNames(spilled).size());
+        assertEquals(runs, countRuns());
+    }
+
+    @Test
+    public void testSortMultipleFields() {
+        SortableFields sortableFields = SortableFields.orderBy("age", SortOrder.Descending)
+            .thenBy("name", SortOrder.Ascending);
+        SortedDocumentCursor sorted = new SortedDocumentCursor(sortableFields.getSortFields(),
+            createRecordStream(), Long.MAX_VALUE, Integer.MAX_VALUE);
+
+        List<String> names = getNames(sorted);
+        assertEquals("name49", names.get(0));
+        assertEquals("name99", names.get(1));
+        assertEquals("name48", names.get(2));
+        assertEquals("unknown", names.get(100));
+
+        sortableFields = SortableFields.orderBy("age", SortOrder.Descending)
+            .thenBy("name", SortOrder.Descending);
+        sorted = new SortedDocumentCursor(sortableFields.getSortFields(),
+            createRecordStream(), Long.MAX_VALUE, 7);
+        names = getNames(sorted);
+        assertEquals("name99", names.get(0));
+        assertEquals("name49", names.get(1));
+        assertEquals("name98", names.get(2));
+        assertEquals(names.subList(0, 3), getNames(sorted.limit(3)));
+    }
+
+    private int countRuns() {
+        File[] runs = new File(System.getProperty("java.io.tmpdir"))
+            .listFiles((dir, name) -> name.startsWith("nitrite-sort") && name.endsWith(".run"));
+        return runs == null ? 0 : runs.length;
+    }
+
+    private RecordStream<Pair<NitriteId, Document>> createRecordStream() {
+        List<Pair<NitriteId, Document>> pairs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            pairs.add(new Pair<>(NitriteId.newId(), Document.createDocument("name", "name" + i)
+                .put("age", i % 50)));
+        }
+        pairs.add(new Pair<>(NitriteId.newId(), Document.createDocument("name", "unknown")));
+        return RecordStream.fromIterable(pairs);
+    }
+
+    private List<Integer> getAges(SortedDocumentCursor cursor) {
+        List<Integer> ages = new ArrayList<>();
+        for (Pair<NitriteId, Document> pair : cursor) {
+            ages.add(pair.getSecond().get("age", Integer.class));
+        }
+        return ages;
+    }
+
+    private List<String> getNames(SortedDocumentCursor cursor) {
+        List<String> names = new ArrayList<>();
+        for (Pair<NitriteId, Document> pair : cursor) {
+            names.add(pair.getSecond().get("name", String.class));
+        }
+        return names;
+    }
+}
@@ -15,7 +15,7 @@ public class WriteOperationsTest {
         InMemoryMap<NitriteId, Document> nitriteMap = new InMemoryMap<NitriteId, Document>("mapName", null);
         ReadOperations readOperations = new ReadOperations("collectionName", new NitriteConfig(), nitriteMap, null);
         WriteOperations writeOperations = new WriteOperations(null, readOperations,
-            new InMemoryMap<NitriteId, Document>("mapName", null), null);
+            new InMemoryMap<NitriteId, Document>("mapName", null), null, null);
         UpdateOptions updateOptions = UpdateOptions.updateOptions(true);
         assertTrue(writeOperations.update(null, Document.createDocument(), updateOptions) instanceof WriteResultImpl);
     }
@@ -24,7 +24,7 @@ public class WriteOperationsTest {
     public void testRemove() {
         InMemoryMap<NitriteId, Document> nitriteMap = new InMemoryMap<NitriteId, Document>("mapName", null);
         ReadOperations readOperations = new ReadOperations("collectionName", new NitriteConfig(), nitriteMap, null);
-        assertTrue((new WriteOperations(null, readOperations, new InMemoryMap<NitriteId, Document>("mapName", null), null))
+        assertTrue((new WriteOperations(null, readOperations, new InMemoryMap<NitriteId, Document>("mapName", null), null, null))
             .remove(null, true) instanceof WriteResultImpl);
     }
 }
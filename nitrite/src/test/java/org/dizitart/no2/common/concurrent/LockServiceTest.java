@@ -1,5 +1,6 @@
 package org.dizitart.no2.common.concurrent;
 
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -16,5 +17,12 @@ public class LockServiceTest {
         assertTrue((new LockService())
             .getWriteLock("name") instanceof java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock);
     }
-}
 
+    @Test
+    public void testGetSameLock() {
+        LockService lockService = new LockService();
+        assertSame(lockService.getReadLock("name"), lockService.getReadLock("name"));
+        assertSame(lockService.getWriteLock("name"), lockService.getWriteLock("name"));
+        assertSame(lockService.getOptimisticReadLock("name"), lockService.getOptimisticReadLock("name"));
+    }
+}
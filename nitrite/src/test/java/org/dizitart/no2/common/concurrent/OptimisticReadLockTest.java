@@ -0,0 +1,77 @@
+package org.dizitart.no2.common.concurrent;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.Assert.assertEquals;
+
+public class OptimisticReadLockTest {
+    @Test
+    public void testReadWithoutWriter() {
+        LockService lockService = new LockService();
+        OptimisticReadLock lock = lockService.getOptimisticReadLock("name");
+
+        AtomicInteger runs = new AtomicInteger();
+        assertEquals("value", lock.read(() -> {
+            runs.incrementAndGet();
+            return "value";
+        }));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testReadWhileWriteLocked() throws InterruptedException {
+        LockService lockService = new LockService();
+        OptimisticReadLock lock = lockService.getOptimisticReadLock("name");
+        Lock writeLock = lockService.getWriteLock("name");
+
+        writeLock.lock();
+        AtomicInteger value = new AtomicInteger();
+        Thread reader = new Thread(() -> value.set(lock.read(() -> 42)));
+        try {
+            reader.start();
+            // the reader must wait for the read lock
+            reader.join(200);
+            assertEquals(0, value.get());
+        } finally {
+            lock.invalidate();
+            writeLock.unlock();
+        }
+        reader.join();
+        assertEquals(42, value.get());
+    }
+
+    @Test
+    public void testReadInvalidatedByWriter() {
+        LockService lockService = new LockService();
+        OptimisticReadLock lock = lockService.getOptimisticReadLock("name");
+        Lock writeLock = lockService.getWriteLock("name");
+
+        AtomicInteger runs = new AtomicInteger();
+        int result = lock.read(() -> {
+            if (runs.incrementAndGet() == 1) {
+                // a write completes in the middle of the first read
+                Thread writer = new Thread(() -> {
+                    writeLock.lock();
+                    try {
+                        lock.invalidate();
+                    } finally {
+                        writeLock.unlock();
+                    }
+                });
+                writer.start();
+                try {
+                    writer.join();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return runs.get();
+        });
+
+        assertEquals(2, runs.get());
+        assertEquals(2, result);
+    }
+}
@@ -0,0 +1,143 @@
+package org.dizitart.no2.common.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SerialExecutorTest {
+    @Test
+    public void testInOrderOnSharedPool() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            int executorCount = 8;
+            int taskCount = 1000;
+            List<List<Integer>> results = new ArrayList<>();
+            List<SerialExecutor> executors = new ArrayList<>();
+            for (int i = 0; i < executorCount; i++) {
+                results.add(Collections.synchronizedList(new ArrayList<>()));
+                executors.add(new SerialExecutor(pool, 16, 1000));
+            }
+
+            CountDownLatch latch = new CountDownLatch(executorCount * taskCount);
+            for (int task = 0; task < taskCount; task++) {
+                for (int i = 0; i < executorCount; i++) {
+                    int value = task;
+                    List<Integer> result = results.get(i);
+                    executors.get(i).execute(() -> {
+                        result.add(value);
+                        latch.countDown();
+                    });
+                }
+            }
+
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+            for (List<Integer> result : results) {
+                assertEquals(taskCount, result.size());
+                for (int task = 0; task < taskCount; task++) {
+                    assertEquals(task, (int) result.get(task));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testBackpressure() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        try {
+            SerialExecutor executor = new SerialExecutor(pool, 2, 60000);
+            CountDownLatch blocker = new CountDownLatch(1);
+            executor.execute(() -> {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            executor.execute(() -> { });
+
+            CountDownLatch published = new CountDownLatch(1);
+            CountDownLatch resumed = new CountDownLatch(1);
+            Thread publisher = new Thread(() -> {
+                // queuing never waits, even beyond the capacity
+                executor.execute(() -> { });
+                published.countDown();
+                executor.awaitCapacity();
+                resumed.countDown();
+            });
+            publisher.start();
+
+            assertTrue(published.await(10, TimeUnit.SECONDS));
+            assertEquals(3, executor.getPendingCount());
+
+            // the publisher waits while the executor is full
+            assertFalse(resumed.await(200, TimeUnit.MILLISECONDS));
+            blocker.countDown();
+            assertTrue(resumed.await(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testAwaitCapacityTimeout() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        try {
+            SerialExecutor executor = new SerialExecutor(pool, 1, 60000);
+            CountDownLatch blocker = new CountDownLatch(1);
+            executor.execute(() -> {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            assertFalse(executor.awaitCapacity(100));
+            blocker.countDown();
+            assertTrue(executor.awaitCapacity(10000));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testTaskSubmitsToFullExecutor() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        try {
+            SerialExecutor executor = new SerialExecutor(pool, 1, 60000);
+            CountDownLatch latch = new CountDownLatch(2);
+            executor.execute(() -> {
+                // must not wait for the permit the running task holds
+                executor.execute(latch::countDown);
+                latch.countDown();
+            });
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testClose() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        try {
+            SerialExecutor executor = new SerialExecutor(pool, 16, 1000);
+            executor.close();
+            executor.execute(() -> fail("closed executor must not run tasks"));
+            assertEquals(0, executor.getPendingCount());
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
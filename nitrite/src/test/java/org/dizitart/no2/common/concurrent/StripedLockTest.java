@@ -0,0 +1,62 @@
+package org.dizitart.no2.common.concurrent;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.Assert.*;
+
+public class StripedLockTest {
+    @Test
+    public void testGet() {
+        StripedLock stripedLock = new StripedLock(64);
+        assertSame(stripedLock.get(42), stripedLock.get(42));
+
+        Set<Lock> locks = new HashSet<>();
+        for (int hash = 0; hash < 10000; hash++) {
+            locks.add(stripedLock.get(hash));
+        }
+        assertEquals(64, locks.size());
+    }
+
+    @Test
+    public void testStripeCountRoundedUp() {
+        StripedLock stripedLock = new StripedLock(5);
+        Set<Lock> locks = new HashSet<>();
+        for (int hash = 0; hash < 10000; hash++) {
+            locks.add(stripedLock.get(hash));
+        }
+        assertEquals(8, locks.size());
+    }
+
+    @Test
+    public void testGetAll() {
+        StripedLock stripedLock = new StripedLock(4);
+        int[] hashes = new int[100];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = i;
+        }
+
+        Lock[] locks = stripedLock.getAll(hashes);
+        assertEquals(4, new HashSet<>(Arrays.asList(locks)).size());
+        assertEquals(4, locks.length);
+
+        // the same stripes come in the same order whatever the order of the keys
+        int[] reversed = new int[hashes.length];
+        for (int i = 0; i < hashes.length; i++) {
+            reversed[i] = hashes[hashes.length - 1 - i];
+        }
+        assertArrayEquals(locks, stripedLock.getAll(reversed));
+    }
+
+    @Test
+    public void testGetAllDistinct() {
+        StripedLock stripedLock = new StripedLock(64);
+        Lock[] locks = stripedLock.getAll(new int[]{7, 7, 7});
+        assertEquals(1, locks.length);
+        assertSame(stripedLock.get(7), locks[0]);
+    }
+}
@@ -33,7 +33,9 @@ import org.dizitart.no2.repository.data.Employee;
 import org.junit.Test;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 
 import static org.dizitart.no2.common.util.ObjectUtils.newInstance;
 import static org.junit.Assert.*;
@@ -107,6 +109,20 @@ public class ObjectUtilsTest implements Serializable {
         assertTrue(ObjectUtils.deepEquals(o1, new AnnotatedMethodMap()));
     }
 
+    @Test
+    public void testDeepHashCode() {
+        assertEquals(0, ObjectUtils.deepHashCode(null));
+        assertEquals(ObjectUtils.deepHashCode("foo"), ObjectUtils.deepHashCode("foo"));
+        assertEquals(ObjectUtils.deepHashCode(new BigDecimal("1.0")),
+            ObjectUtils.deepHashCode(new BigDecimal("1.00")));
+        assertEquals(ObjectUtils.deepHashCode(new String[]{"a", "b"}),
+            ObjectUtils.deepHashCode(Arrays.asList("a", "b")));
+        assertEquals(ObjectUtils.deepHashCode(new int[]{1, 2}),
+            ObjectUtils.deepHashCode(new int[]{1, 2}));
+        assertEquals(ObjectUtils.deepHashCode(Document.createDocument("a", 1L)),
+            ObjectUtils.deepHashCode(Document.createDocument("a", 1L)));
+    }
+
     @Test
     public void testDeepEquals8() {
         MutableByte o2 = new MutableByte((byte) 65);
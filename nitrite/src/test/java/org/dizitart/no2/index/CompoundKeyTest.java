@@ -0,0 +1,54 @@
+package org.dizitart.no2.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CompoundKeyTest {
+    @Test
+    public void testOf() {
+        CompoundKey key = CompoundKey.of("a", 1);
+        assertEquals(2, key.size());
+        assertEquals("a", key.get(0));
+        assertEquals(1, key.get(1));
+        assertEquals("[a, 1]", key.toString());
+    }
+
+    @Test
+    public void testAppend() {
+        CompoundKey prefix = CompoundKey.of("a");
+        CompoundKey key = prefix.append(2);
+        assertEquals(1, prefix.size());
+        assertEquals(CompoundKey.of("a", 2), key);
+        assertTrue(key.startsWith(prefix));
+        assertFalse(prefix.startsWith(key));
+        assertFalse(key.startsWith(CompoundKey.of("b")));
+    }
+
+    @Test
+    public void testCompareTo() {
+        assertTrue(CompoundKey.of("a", 1).compareTo(CompoundKey.of("a", 2)) < 0);
+        assertTrue(CompoundKey.of("b", 1).compareTo(CompoundKey.of("a", 2)) > 0);
+        assertTrue(CompoundKey.of("a").compareTo(CompoundKey.of("a", 1)) < 0);
+        assertTrue(CompoundKey.of("a", null).compareTo(CompoundKey.of("a", 1)) < 0);
+        assertEquals(0, CompoundKey.of("a", 1).compareTo(CompoundKey.of("a", 1)));
+    }
+
+    @Test
+    public void testCompareNumbers() {
+        assertTrue(CompoundKey.of(1).compareTo(CompoundKey.of(2L)) < 0);
+        assertTrue(CompoundKey.of(2.5).compareTo(CompoundKey.of(2)) > 0);
+        assertNotEquals(0, CompoundKey.of(1).compareTo(CompoundKey.of(1L)));
+        assertNotEquals(CompoundKey.of(1), CompoundKey.of(1L));
+    }
+
+    @Test
+    public void testEquals() {
+        assertEquals(CompoundKey.of("a", 1), CompoundKey.of("a", 1));
+        assertEquals(CompoundKey.of("a", 1).hashCode(), CompoundKey.of("a", 1).hashCode());
+        assertNotEquals(CompoundKey.of("a", 1), CompoundKey.of(1, "a"));
+    }
+}
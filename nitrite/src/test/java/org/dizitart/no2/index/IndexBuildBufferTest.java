@@ -0,0 +1,69 @@
+package org.dizitart.no2.index;
+
+import org.dizitart.no2.collection.NitriteId;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings("rawtypes")
+public class IndexBuildBufferTest {
+    @Test
+    public void testLoadInKeyOrder() {
+        IndexBuildBuffer buffer = new IndexBuildBuffer(4);
+        Random random = new Random(42);
+        TreeMap<Integer, TreeSet<Long>> expected = new TreeMap<>();
+
+        for (long id = 0; id < 100; id++) {
+            int key = random.nextInt(10);
+            expected.computeIfAbsent(key, k -> new TreeSet<>()).add(id);
+            buffer.add(key, id(id));
+        }
+
+        List<Comparable> keys = new ArrayList<>();
+        Map<Comparable, List<Long>> loaded = new HashMap<>();
+        buffer.load((key, ids) -> {
+            // a key comes in chunks of at most the buffer size
+            assertTrue(ids.size() <= 4);
+            if (keys.isEmpty() || !keys.get(keys.size() - 1).equals(key)) {
+                keys.add(key);
+            }
+            for (NitriteId nitriteId : ids) {
+                loaded.computeIfAbsent(key, k -> new ArrayList<>()).add(nitriteId.getLongValue());
+            }
+        });
+
+        assertEquals(new ArrayList<>(expected.keySet()), keys);
+        for (Map.Entry<Integer, TreeSet<Long>> entry : expected.entrySet()) {
+            assertEquals(new ArrayList<>(entry.getValue()), loaded.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testKeysOfDifferentTypes() {
+        IndexBuildBuffer buffer = new IndexBuildBuffer(Integer.MAX_VALUE);
+        buffer.add(1L, id(1));
+        buffer.add(1, id(2));
+        buffer.add(null, id(3));
+        buffer.add(1L, id(4));
+
+        List<Comparable> keys = new ArrayList<>();
+        Map<Comparable, Integer> sizes = new HashMap<>();
+        buffer.load((key, ids) -> {
+            keys.add(key);
+            sizes.put(key, ids.size());
+        });
+
+        // equal numbers of different types are different index keys,
+        // loaded in the order their types are first seen
+        assertEquals(Arrays.asList(null, 1L, 1), keys);
+        assertEquals(1, sizes.get(null).intValue());
+        assertEquals(1, sizes.get(1).intValue());
+        assertEquals(2, sizes.get(1L).intValue());
+    }
+
+    private NitriteId id(long value) {
+        return NitriteId.createId(value);
+    }
+}
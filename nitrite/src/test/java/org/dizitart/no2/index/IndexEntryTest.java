@@ -1,6 +1,12 @@
 package org.dizitart.no2.index;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.dizitart.no2.exceptions.ValidationException;
 
 import org.junit.Test;
 
@@ -24,5 +30,34 @@ public class IndexEntryTest {
         IndexEntry indexEntry = new IndexEntry("indexType", "field", "collectionName");
         assertEquals(0, indexEntry.compareTo(new IndexEntry("indexType", "field", "collectionName")));
     }
-}
 
+    @Test
+    public void testCompoundConstructor() {
+        IndexEntry actualIndexEntry = new IndexEntry("indexType", Arrays.asList("first", "last"), "collectionName");
+        assertEquals("first|last", actualIndexEntry.getField());
+        assertEquals(Arrays.asList("first", "last"), actualIndexEntry.getFields());
+        assertTrue(actualIndexEntry.isCompound());
+    }
+
+    @Test
+    public void testGetFields() {
+        IndexEntry indexEntry = new IndexEntry("indexType", "field", "collectionName");
+        assertEquals(Arrays.asList("field"), indexEntry.getFields());
+        assertFalse(indexEntry.isCompound());
+    }
+
+    @Test
+    public void testEncodeFields() {
+        assertEquals("a|b|c", IndexEntry.encodeFields("a", "b", "c"));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void testEncodeFieldsWithSeparator() {
+        IndexEntry.encodeFields("a|b", "c");
+    }
+
+    @Test(expected = ValidationException.class)
+    public void testEncodeEmptyFields() {
+        IndexEntry.encodeFields();
+    }
+}
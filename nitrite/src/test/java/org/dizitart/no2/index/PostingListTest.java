@@ -0,0 +1,119 @@
+package org.dizitart.no2.index;
+
+import org.dizitart.no2.collection.NitriteId;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class PostingListTest {
+    @Test
+    public void testAddRemove() {
+        PostingList postingList = PostingList.empty();
+        assertTrue(postingList.isEmpty());
+
+        postingList = postingList.add(id(5)).add(id(1)).add(id(3));
+        assertEquals(3, postingList.size());
+        assertEquals("[1, 3, 5]", postingList.toString());
+        assertTrue(postingList.contains(id(3)));
+        assertFalse(postingList.contains(id(4)));
+
+        PostingList same = postingList.add(id(3));
+        assertSame(postingList, same);
+
+        PostingList removed = postingList.remove(id(3));
+        assertEquals("[1, 5]", removed.toString());
+        assertEquals("[1, 3, 5]", postingList.toString());
+        assertSame(removed, removed.remove(id(4)));
+        assertTrue(removed.remove(id(1)).remove(id(5)).isEmpty());
+    }
+
+    @Test
+    public void testManyIds() {
+        Random random = new Random(42);
+        TreeSet<Long> expected = new TreeSet<>();
+        PostingList postingList = PostingList.empty();
+
+        for (int i = 0; i < 5000; i++) {
+            long value = random.nextInt(3000) - 1000L;
+            if (random.nextInt(4) == 0) {
+                expected.remove(value);
+                postingList = postingList.remove(id(value));
+            } else {
+                expected.add(value);
+                postingList = postingList.add(id(value));
+            }
+        }
+
+        assertEquals(expected.size(), postingList.size());
+        PrimitiveIterator.OfLong iterator = postingList.longIterator();
+        for (Long value : expected) {
+            assertEquals(value.longValue(), iterator.nextLong());
+        }
+        assertFalse(iterator.hasNext());
+        assertTrue(postingList.contains(id(expected.first())));
+        assertTrue(postingList.contains(id(expected.last())));
+    }
+
+    @Test
+    public void testSequentialAppend() {
+        PostingList postingList = PostingList.empty();
+        for (int i = 0; i < 1000; i++) {
+            postingList = postingList.add(NitriteId.newId());
+        }
+        assertEquals(1000, postingList.size());
+        // consecutive ids are encoded in a few bytes each
+        assertTrue(postingList.toBytes().length < 1000 * 4);
+    }
+
+    @Test
+    public void testMerge() {
+        PostingList first = PostingList.of(Arrays.asList(id(1), id(4), id(7)));
+        PostingList second = PostingList.of(Arrays.asList(id(2), id(4), id(9)));
+        assertEquals("[1, 2, 4, 7, 9]", first.merge(second).toString());
+        assertEquals("[1, 4, 7, 10, 11]", first.merge(
+            PostingList.of(Arrays.asList(id(11), id(10)))).toString());
+        assertSame(first, first.merge(PostingList.empty()));
+    }
+
+    @Test
+    public void testEncoding() throws Exception {
+        List<NitriteId> ids = new ArrayList<>();
+        for (long i = 0; i < 500; i++) {
+            ids.add(id(i * i - 1000));
+        }
+        ids.add(id(Long.MIN_VALUE));
+        ids.add(id(Long.MAX_VALUE));
+        PostingList postingList = PostingList.of(ids);
+
+        PostingList decoded = PostingList.fromBytes(postingList.toBytes());
+        assertEquals(postingList, decoded);
+        assertEquals(502, decoded.size());
+        assertTrue(decoded.contains(id(Long.MIN_VALUE)));
+        assertTrue(decoded.contains(id(Long.MAX_VALUE)));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+            stream.writeObject(postingList);
+        }
+        try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(postingList, stream.readObject());
+        }
+    }
+
+    @Test
+    public void testAsSet() {
+        PostingList postingList = PostingList.of(Arrays.asList(id(3), id(1), id(2)));
+        Set<NitriteId> set = postingList.asSet();
+        assertEquals(3, set.size());
+        assertTrue(set.contains(id(2)));
+        assertFalse(set.contains("2"));
+        assertEquals(Arrays.asList(id(1), id(2), id(3)), new ArrayList<>(set));
+    }
+
+    private NitriteId id(long value) {
+        return NitriteId.createId(Long.toString(value));
+    }
+}
@@ -6,8 +6,11 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.commons.lang3.mutable.MutableByte;
+import org.dizitart.no2.common.tuples.Pair;
 import org.junit.Test;
 
+import java.util.List;
+
 public class InMemoryMapTest {
     @Test
     public void testConstructor() {
@@ -204,5 +207,28 @@ public class InMemoryMapTest {
         inMemoryMap.put("key", "value");
         assertFalse(inMemoryMap.isEmpty());
     }
-}
 
+    @Test
+    public void testEntriesRange() {
+        InMemoryMap<Integer, String> inMemoryMap = new InMemoryMap<Integer, String>("", null);
+        for (int i = 0; i < 10; i++) {
+            inMemoryMap.put(i, "value" + i);
+        }
+        inMemoryMap.put(null, "null");
+
+        List<Pair<Integer, String>> entries = inMemoryMap.entries(3, true, 6, false, false).toList();
+        assertEquals(3, entries.size());
+        assertEquals(3, entries.get(0).getFirst().intValue());
+        assertEquals("value5", entries.get(2).getSecond());
+
+        entries = inMemoryMap.entries(3, false, 6, true, true).toList();
+        assertEquals(3, entries.size());
+        assertEquals(6, entries.get(0).getFirst().intValue());
+        assertEquals(4, entries.get(2).getFirst().intValue());
+
+        assertEquals(10, inMemoryMap.entries(null, false, null, false, false).size());
+        assertEquals(2, inMemoryMap.entries(null, false, 1, true, true).size());
+        assertEquals(2, inMemoryMap.entries(8, true, null, false, false).size());
+        assertTrue(inMemoryMap.entries(6, true, 3, true, false).isEmpty());
+    }
+}
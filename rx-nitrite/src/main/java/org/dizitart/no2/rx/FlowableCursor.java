@@ -21,6 +21,7 @@ import org.dizitart.no2.common.Lookup;
 import org.dizitart.no2.common.NullOrder;
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.common.SortableFields;
 import org.dizitart.no2.repository.Cursor;
 
 import java.text.Collator;
@@ -78,6 +79,16 @@ public final class FlowableCursor<T> extends FlowableReadableStream<T> {
         return new FlowableCursor<>(sortSupplier);
     }
 
+    public FlowableCursor<T> sort(SortableFields sortableFields) {
+        Callable<Cursor<T>> sortSupplier = () -> {
+            Cursor<T> cursor = ObjectHelper.requireNonNull(supplier.call(),
+                "The supplier supplied is null");
+            return cursor.sort(sortableFields);
+        };
+
+        return new FlowableCursor<>(sortSupplier);
+    }
+
     public FlowableCursor<T> limit(int offset, int size) {
         Callable<Cursor<T>> sortSupplier = () -> {
             Cursor<T> cursor = ObjectHelper.requireNonNull(supplier.call(),
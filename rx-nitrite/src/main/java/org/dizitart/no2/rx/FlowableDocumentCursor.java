@@ -23,6 +23,7 @@ import org.dizitart.no2.common.Lookup;
 import org.dizitart.no2.common.NullOrder;
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.common.SortableFields;
 
 import java.text.Collator;
 import java.util.concurrent.Callable;
@@ -79,6 +80,16 @@ public final class FlowableDocumentCursor extends FlowableReadableStream<Documen
         return new FlowableDocumentCursor(sortSupplier);
     }
 
+    public FlowableDocumentCursor sort(SortableFields sortableFields) {
+        Callable<DocumentCursor> sortSupplier = () -> {
+            DocumentCursor cursor = ObjectHelper.requireNonNull(supplier.call(),
+                "The supplier supplied is null");
+            return cursor.sort(sortableFields);
+        };
+
+        return new FlowableDocumentCursor(sortSupplier);
+    }
+
     public FlowableDocumentCursor limit(int offset, int size) {
         Callable<DocumentCursor> sortSupplier = () -> {
             DocumentCursor cursor = ObjectHelper.requireNonNull(supplier.call(),